@@ -0,0 +1,58 @@
+package com.diver.config;
+
+import com.diver.dto.AuthenticatedUser;
+import com.diver.model.USER_ROLE;
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mide la generación y el parseo (con verificación de firma) de tokens en {@link JwtProvider}.
+ * <p>
+ * La caché de claims está desactivada para medir el coste real de cada verificación;
+ * el efecto de la caché se mide en {@link JwtTokenValidatorBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtProviderBenchmark {
+
+    private static final String SECRET = "benchmark-secret-key-with-at-least-256-bits-of-entropy!!";
+
+    private JwtProvider jwtProvider;
+    private Authentication authentication;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtProvider = new JwtProvider(SECRET, false, 0);
+        AuthenticatedUser principal = new AuthenticatedUser(1L, "bench@diver.com", USER_ROLE.ROLE_CUSTOMER);
+        authentication = new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities());
+        token = jwtProvider.generateToken(authentication);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtProvider.generateToken(authentication);
+    }
+
+    @Benchmark
+    public Claims parseToken() {
+        return jwtProvider.getClaimsFromToken(token);
+    }
+}
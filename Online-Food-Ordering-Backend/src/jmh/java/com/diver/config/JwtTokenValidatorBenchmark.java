@@ -0,0 +1,72 @@
+package com.diver.config;
+
+import com.diver.dto.AuthenticatedUser;
+import com.diver.model.USER_ROLE;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compara el coste del filtro {@link JwtTokenValidator} con y sin la caché de claims de {@link JwtProvider}.
+ * <p>
+ * Cada invocación simula una petición nueva con el mismo token Bearer, que es el patrón típico
+ * de un cliente que navega por la API. El filtro trabaja en modo stateless, así que no hay acceso a BD.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtTokenValidatorBenchmark {
+
+    private static final String SECRET = "benchmark-secret-key-with-at-least-256-bits-of-entropy!!";
+
+    @Param({"true", "false"})
+    public boolean claimsCacheEnabled;
+
+    private JwtTokenValidator filter;
+    private String bearerHeader;
+    private final FilterChain noopChain = (request, response) -> { };
+
+    @Setup
+    public void setUp() {
+        JwtProvider jwtProvider = new JwtProvider(SECRET, claimsCacheEnabled, 10_000);
+        filter = new JwtTokenValidator(jwtProvider, username -> {
+            throw new UsernameNotFoundException("El benchmark no debe consultar usuarios: " + username);
+        }, true);
+
+        AuthenticatedUser principal = new AuthenticatedUser(1L, "bench@diver.com", USER_ROLE.ROLE_CUSTOMER);
+        String token = jwtProvider.generateToken(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+        bearerHeader = "Bearer " + token;
+    }
+
+    @Benchmark
+    public void authenticateRequest(Blackhole bh) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/cart");
+        request.addHeader(JwtConstant.JWT_HEADER, bearerHeader);
+
+        filter.doFilter(request, new MockHttpServletResponse(), noopChain);
+
+        bh.consume(SecurityContextHolder.getContext().getAuthentication());
+        SecurityContextHolder.clearContext();
+    }
+}
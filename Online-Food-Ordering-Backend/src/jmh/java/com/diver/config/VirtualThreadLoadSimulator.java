@@ -0,0 +1,202 @@
+package com.diver.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.system.JavaVersion;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Prueba de carga local que compara hilos de plataforma y virtuales con un pool de conexiones
+ * fijo, como el de la aplicación con {@code spring.threads.virtual.enabled} desactivado o activo.
+ * <p>
+ * Cada petición simulada toma una conexión de un pool Hikari sobre H2, consulta un restaurante y
+ * retiene la conexión {@code dbMillis} (la latencia de una base de datos real); después espera
+ * {@code remoteMillis} sin conexión, como una llamada a otro servicio. Las peticiones llegan a
+ * ritmo constante (carga abierta) y la latencia se mide desde el instante en que debía empezar
+ * cada una, así que incluye la espera en cola.
+ * <p>
+ * Se comparan tres modos:
+ * <ul>
+ *     <li><b>plataforma</b>: 200 hilos, el máximo por defecto de Tomcat.</li>
+ *     <li><b>virtuales</b>: un hilo virtual por petición; el límite es el pool de conexiones.</li>
+ *     <li><b>virtuales + synchronized</b>: igual, pero el acceso a la base de datos se hace dentro
+ *     de un monitor, como las cargas dentro del {@code compute} de una caché. El hilo virtual
+ *     queda fijado a su portador mientras espera, y el rendimiento cae al número de núcleos.</li>
+ * </ul>
+ * Los dos modos con hilos virtuales requieren Java 21; en una JVM anterior solo se ejecuta el de
+ * plataforma. Ejecución (argumentos opcionales: peticiones por segundo, segundos,
+ * conexiones del pool, ms con conexión, ms sin conexión):
+ * <pre>
+ * mvn -Pjmh test-compile exec:java -Dexec.mainClass=com.diver.config.VirtualThreadLoadSimulator -Dexec.args="1800 10 10 5 200"
+ * </pre>
+ */
+public class VirtualThreadLoadSimulator {
+
+    private static final int PLATFORM_THREADS = 200;
+    private static final int MONITOR_STRIPES = 64;
+
+    /**
+     * Parámetros de una prueba.
+     *
+     * @param requestsPerSecond Ritmo de llegada de las peticiones.
+     * @param seconds           Duración de la llegada de peticiones.
+     * @param poolSize          Conexiones del pool.
+     * @param dbMillis          Tiempo que cada petición retiene la conexión.
+     * @param remoteMillis      Tiempo de espera de cada petición fuera de la base de datos.
+     */
+    public record Config(int requestsPerSecond, int seconds, int poolSize, long dbMillis, long remoteMillis) {
+    }
+
+    /**
+     * Resultado de una prueba.
+     */
+    public record Report(String mode, int sent, int completed, int failed, double throughput,
+                         double p50Millis, double p99Millis, double maxMillis) {
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT,
+                    "%-26s %6d enviadas, %6d completadas, %4d fallidas | %7.0f pet/s | p50 %7.1f ms, p99 %8.1f ms, máx %8.1f ms",
+                    mode, sent, completed, failed, throughput, p50Millis, p99Millis, maxMillis);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Config config = new Config(
+                args.length > 0 ? Integer.parseInt(args[0]) : 1800,
+                args.length > 1 ? Integer.parseInt(args[1]) : 10,
+                args.length > 2 ? Integer.parseInt(args[2]) : 10,
+                args.length > 3 ? Long.parseLong(args[3]) : 5,
+                args.length > 4 ? Long.parseLong(args[4]) : 200);
+        System.out.printf(Locale.ROOT, "%d pet/s durante %d s; pool de %d conexiones; %d ms con conexión + %d ms sin ella%n",
+                config.requestsPerSecond(), config.seconds(), config.poolSize(), config.dbMillis(), config.remoteMillis());
+        System.out.printf(Locale.ROOT, "Capacidad del pool: %.0f pet/s; de %d hilos de plataforma: %.0f pet/s%n",
+                config.poolSize() * 1000.0 / config.dbMillis(), PLATFORM_THREADS,
+                PLATFORM_THREADS * 1000.0 / (config.dbMillis() + config.remoteMillis()));
+
+        try (HikariDataSource dataSource = dataSource(config.poolSize())) {
+            ExecutorService platform = Executors.newFixedThreadPool(PLATFORM_THREADS);
+            try {
+                System.out.println(run("plataforma (" + PLATFORM_THREADS + " hilos)", platform, dataSource, config, false));
+            } finally {
+                platform.shutdownNow();
+            }
+            if (!JavaVersion.getJavaVersion().isEqualOrNewerThan(JavaVersion.TWENTY_ONE)) {
+                System.out.println("Los modos con hilos virtuales requieren Java 21; esta JVM es "
+                        + JavaVersion.getJavaVersion() + ".");
+                return;
+            }
+            VirtualThreadTaskExecutor virtual = new VirtualThreadTaskExecutor("load-");
+            System.out.println(run("virtuales", virtual, dataSource, config, false));
+            System.out.println(run("virtuales + synchronized", virtual, dataSource, config, true));
+        }
+    }
+
+    /**
+     * Envía las peticiones a ritmo constante y espera a que terminen (como mucho un minuto más).
+     */
+    public static Report run(String mode, Executor executor, HikariDataSource dataSource,
+                             Config config, boolean pinned) throws InterruptedException {
+        int total = config.requestsPerSecond() * config.seconds();
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / config.requestsPerSecond();
+        long[] latencies = new long[total];
+        Arrays.fill(latencies, -1);
+        Object[] monitors = new Object[MONITOR_STRIPES];
+        Arrays.setAll(monitors, i -> new Object());
+        AtomicInteger failed = new AtomicInteger();
+        AtomicLong lastCompletion = new AtomicLong();
+        CountDownLatch done = new CountDownLatch(total);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < total; i++) {
+            long due = start + i * intervalNanos;
+            long wait = due - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            int request = i;
+            executor.execute(() -> {
+                try {
+                    if (pinned) {
+                        synchronized (monitors[request % MONITOR_STRIPES]) {
+                            query(dataSource, request, config.dbMillis());
+                        }
+                    } else {
+                        query(dataSource, request, config.dbMillis());
+                    }
+                    Thread.sleep(config.remoteMillis());
+                    long end = System.nanoTime();
+                    latencies[request] = end - due;
+                    lastCompletion.accumulateAndGet(end, Math::max);
+                } catch (SQLException e) {
+                    failed.incrementAndGet();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await(config.seconds() + 60L, TimeUnit.SECONDS);
+
+        long[] completed = Arrays.stream(latencies).filter(latency -> latency >= 0).sorted().toArray();
+        double elapsedSeconds = (Math.max(lastCompletion.get(), start + 1) - start) / 1e9;
+        return new Report(mode, total, completed.length, failed.get(), completed.length / elapsedSeconds,
+                percentileMillis(completed, 0.50), percentileMillis(completed, 0.99),
+                completed.length == 0 ? 0 : completed[completed.length - 1] / 1e6);
+    }
+
+    // --- METODOS PRIVADOS ---
+
+    private static void query(HikariDataSource dataSource, int request, long dbMillis)
+            throws SQLException, InterruptedException {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement("SELECT name FROM restaurant WHERE id = ?")) {
+            statement.setLong(1, request % 100 + 1);
+            try (ResultSet result = statement.executeQuery()) {
+                result.next();
+            }
+            Thread.sleep(dbMillis);
+        }
+    }
+
+    private static HikariDataSource dataSource(int poolSize) throws SQLException {
+        HikariConfig hikari = new HikariConfig();
+        hikari.setJdbcUrl("jdbc:h2:mem:load-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        hikari.setUsername("sa");
+        hikari.setMaximumPoolSize(poolSize);
+        hikari.setMinimumIdle(poolSize);
+        hikari.setConnectionTimeout(TimeUnit.SECONDS.toMillis(30));
+        HikariDataSource dataSource = new HikariDataSource(hikari);
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE restaurant (id BIGINT PRIMARY KEY, name VARCHAR(100))");
+            statement.execute("INSERT INTO restaurant SELECT x, 'Restaurante ' || x FROM SYSTEM_RANGE(1, 100)");
+        }
+        return dataSource;
+    }
+
+    private static double percentileMillis(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(quantile * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+}
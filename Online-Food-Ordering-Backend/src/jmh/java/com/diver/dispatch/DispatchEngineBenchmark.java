@@ -0,0 +1,65 @@
+package com.diver.dispatch;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mide la latencia de un lote de {@link DispatchEngine#runBatch}: búsqueda de candidatos,
+ * asignación voraz, mejora local y aplicación, con {@code orders} órdenes pendientes y
+ * {@code couriers} repartidores libres repartidos por diez ciudades.
+ * <p>
+ * Un lote consume el estado, así que cada invocación parte de un motor recién poblado
+ * ({@code Level.Invocation}); el lote dura milisegundos, muy por encima del coste de esa
+ * preparación. Para throughput y esperas en régimen estable, ver {@link DispatchSimulator}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DispatchEngineBenchmark {
+
+    @Param({"1000", "5000"})
+    public int couriers;
+
+    @Param({"500", "2000"})
+    public int orders;
+
+    @Param({"0", "3"})
+    public int improvementPasses;
+
+    private DispatchEngine engine;
+
+    @Setup(Level.Invocation)
+    public void setUp() {
+        Random random = new Random(42);
+        engine = DispatchSimulator.newEngine(improvementPasses, Long.MAX_VALUE / 2);
+        for (int courier = 0; courier < couriers; courier++) {
+            double[] point = DispatchSimulator.cityPoint(random, 0.06);
+            engine.updateCourier(courier, point[0], point[1], true, 0);
+        }
+        for (int order = 0; order < orders; order++) {
+            engine.enqueue(DispatchSimulator.newOrder(random, order, 0));
+        }
+    }
+
+    @Benchmark
+    public List<DispatchEngine.Assignment> batch() {
+        return engine.runBatch(30_000);
+    }
+}
@@ -0,0 +1,180 @@
+package com.diver.dispatch;
+
+import com.diver.search.GeoGridIndex;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+/**
+ * Simulador local del reparto: miles de repartidores y órdenes sintéticos sobre un
+ * {@link DispatchEngine}, con tiempo simulado, para medir sin base de datos el rendimiento de
+ * los lotes y la calidad de las asignaciones.
+ * <p>
+ * Las órdenes llegan según un proceso de Poisson y se concentran, como los repartidores, en diez
+ * ciudades. Cada lote asigna las órdenes pendientes; el repartidor asignado queda ocupado el
+ * tiempo de ir al restaurante, esperar la preparación y llevar la orden, y después vuelve a
+ * estar libre en el punto de entrega. El reloj simulado avanza de lote en lote, así que una hora
+ * de reparto se simula en segundos; la latencia de cada lote sí es tiempo real.
+ * <p>
+ * Ejecución (argumentos opcionales: repartidores, órdenes por minuto, minutos simulados):
+ * <pre>
+ * mvn -Pjmh test-compile exec:java -Dexec.mainClass=com.diver.dispatch.DispatchSimulator -Dexec.args="5000 300 60"
+ * </pre>
+ */
+public class DispatchSimulator {
+
+    static final double[][] CITIES = {
+            {40.4168, -3.7038}, {41.3874, 2.1686}, {39.4699, -0.3763}, {37.3891, -5.9845},
+            {43.2630, -2.9350}, {36.7213, -4.4214}, {41.6488, -0.8891}, {38.3452, -0.4810},
+            {43.3623, -8.4115}, {37.9922, -1.1307}};
+
+    /** Velocidad media de un repartidor en moto por ciudad, en m/s (~18 km/h). */
+    private static final double COURIER_SPEED = 5.0;
+    /** Tiempo fijo de recogida y de entrega, en ms. */
+    private static final long HANDLING_MILLIS = 4 * 60_000L;
+
+    /**
+     * Parámetros de una simulación.
+     *
+     * @param couriers          Número de repartidores.
+     * @param ordersPerMinute   Órdenes nuevas por minuto simulado.
+     * @param simulatedMinutes  Duración simulada.
+     * @param batchIntervalMillis Intervalo entre lotes.
+     * @param improvementPasses Pasadas de mejora local del solver.
+     * @param seed              Semilla de los datos sintéticos.
+     */
+    public record Config(int couriers, int ordersPerMinute, int simulatedMinutes,
+                         long batchIntervalMillis, int improvementPasses, long seed) {
+    }
+
+    /**
+     * Resultado de una simulación.
+     */
+    public record Report(int ordersCreated, int ordersAssigned, int batches,
+                         double meanWaitSeconds, double p95WaitSeconds, double meanPickupMeters,
+                         double p50BatchMicros, double p99BatchMicros, double maxBatchMicros,
+                         double assignmentsPerSecondOfBatchTime) {
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT,
+                    "órdenes: %d creadas, %d asignadas en %d lotes%n" +
+                    "espera hasta asignación: media %.1f s, p95 %.1f s; recogida media %.0f m%n" +
+                    "latencia de lote: p50 %.0f µs, p99 %.0f µs, máx %.0f µs; %.0f asignaciones/s de cómputo",
+                    ordersCreated, ordersAssigned, batches, meanWaitSeconds, p95WaitSeconds, meanPickupMeters,
+                    p50BatchMicros, p99BatchMicros, maxBatchMicros, assignmentsPerSecondOfBatchTime);
+        }
+    }
+
+    private record Delivery(long finishAtMillis, long orderId) {
+    }
+
+    public static void main(String[] args) {
+        int couriers = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+        int ordersPerMinute = args.length > 1 ? Integer.parseInt(args[1]) : 300;
+        int minutes = args.length > 2 ? Integer.parseInt(args[2]) : 60;
+        for (int passes : new int[]{0, 3}) {
+            Config config = new Config(couriers, ordersPerMinute, minutes, 2000, passes, 42);
+            System.out.printf(Locale.ROOT, "%n== %d repartidores, %d órdenes/min, %d min, %d pasadas de mejora ==%n",
+                    couriers, ordersPerMinute, minutes, passes);
+            System.out.println(run(config));
+        }
+    }
+
+    public static Report run(Config config) {
+        Random random = new Random(config.seed());
+        long durationMillis = config.simulatedMinutes() * 60_000L;
+        DispatchEngine engine = newEngine(config.improvementPasses(), durationMillis);
+
+        for (int courier = 0; courier < config.couriers(); courier++) {
+            double[] point = cityPoint(random, 0.06);
+            engine.updateCourier(courier, point[0], point[1], true, 0);
+        }
+
+        PriorityQueue<Delivery> inFlight = new PriorityQueue<>((a, b) -> Long.compare(a.finishAtMillis(), b.finishAtMillis()));
+        double ordersPerBatch = config.ordersPerMinute() * config.batchIntervalMillis() / 60_000.0;
+        List<Long> batchNanos = new ArrayList<>();
+        List<Double> waits = new ArrayList<>();
+        double pickupMeters = 0;
+        long nextOrderId = 0;
+
+        for (long now = 0; now < durationMillis; now += config.batchIntervalMillis()) {
+            while (!inFlight.isEmpty() && inFlight.peek().finishAtMillis() <= now) {
+                engine.release(inFlight.poll().orderId(), now);
+            }
+            int arrivals = poisson(random, ordersPerBatch);
+            for (int i = 0; i < arrivals; i++) {
+                engine.enqueue(newOrder(random, nextOrderId++, now));
+            }
+
+            long start = System.nanoTime();
+            List<DispatchEngine.Assignment> assignments = engine.runBatch(now);
+            batchNanos.add(System.nanoTime() - start);
+
+            for (DispatchEngine.Assignment assignment : assignments) {
+                DispatchEngine.PendingOrder order = assignment.order();
+                double dropoffMeters = GeoGridIndex.distanceMeters(order.pickupLatitude(),
+                        order.pickupLongitude(), order.dropoffLatitude(), order.dropoffLongitude());
+                long travelMillis = (long) ((assignment.pickupDistanceMeters() + dropoffMeters) / COURIER_SPEED * 1000);
+                inFlight.add(new Delivery(now + travelMillis + HANDLING_MILLIS, order.orderId()));
+                waits.add(assignment.waitedMillis() / 1000.0);
+                pickupMeters += assignment.pickupDistanceMeters();
+            }
+        }
+
+        long[] nanos = batchNanos.stream().mapToLong(Long::longValue).sorted().toArray();
+        double[] sortedWaits = waits.stream().mapToDouble(Double::doubleValue).sorted().toArray();
+        long totalNanos = Arrays.stream(nanos).sum();
+        return new Report((int) nextOrderId, waits.size(), nanos.length,
+                Arrays.stream(sortedWaits).average().orElse(0), percentile(sortedWaits, 0.95),
+                waits.isEmpty() ? 0 : pickupMeters / waits.size(),
+                percentile(nanos, 0.50) / 1000.0, percentile(nanos, 0.99) / 1000.0,
+                nanos.length == 0 ? 0 : nanos[nanos.length - 1] / 1000.0,
+                totalNanos == 0 ? 0 : waits.size() / (totalNanos / 1e9));
+    }
+
+    static DispatchEngine newEngine(int improvementPasses, long courierTtlMillis) {
+        return new DispatchEngine(0.05, 10_000, 8, 5, improvementPasses, courierTtlMillis);
+    }
+
+    static DispatchEngine.PendingOrder newOrder(Random random, long orderId, long nowMillis) {
+        double[] pickup = cityPoint(random, 0.05);
+        // Entrega a unos pocos kilómetros del restaurante
+        double dropoffLatitude = pickup[0] + random.nextGaussian() * 0.02;
+        double dropoffLongitude = pickup[1] + random.nextGaussian() * 0.025;
+        return new DispatchEngine.PendingOrder(orderId, orderId % 10_000, pickup[0], pickup[1],
+                dropoffLatitude, dropoffLongitude, nowMillis);
+    }
+
+    /** Punto gaussiano alrededor del centro de una ciudad al azar; {@code spread} en grados de latitud. */
+    static double[] cityPoint(Random random, double spread) {
+        double[] city = CITIES[random.nextInt(CITIES.length)];
+        return new double[]{city[0] + random.nextGaussian() * spread, city[1] + random.nextGaussian() * spread * 1.3};
+    }
+
+    private static int poisson(Random random, double mean) {
+        if (mean > 30) {
+            return Math.max(0, (int) Math.round(mean + random.nextGaussian() * Math.sqrt(mean)));
+        }
+        double limit = Math.exp(-mean);
+        double product = random.nextDouble();
+        int count = 0;
+        while (product > limit) {
+            product *= random.nextDouble();
+            count++;
+        }
+        return count;
+    }
+
+    private static double percentile(double[] sorted, double p) {
+        return sorted.length == 0 ? 0 : sorted[Math.min(sorted.length - 1, (int) Math.floor(p * sorted.length))];
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        return sorted.length == 0 ? 0 : sorted[Math.min(sorted.length - 1, (int) Math.floor(p * sorted.length))];
+    }
+}
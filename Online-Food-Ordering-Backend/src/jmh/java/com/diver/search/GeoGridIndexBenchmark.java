@@ -0,0 +1,102 @@
+package com.diver.search;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mide la latencia de {@link GeoGridIndex#nearest} con {@code restaurants} restaurantes
+ * repartidos por una península de unos 1000 × 1000 km, con el 70 % concentrado en diez ciudades
+ * (como un despliegue real), frente a un recorrido lineal de todos los puntos.
+ * <p>
+ * Los orígenes de las consultas se sortean con la misma distribución que los restaurantes,
+ * así que la mayoría caen en zonas densas. Con celdas de 0.01° el coste depende de la densidad
+ * local y del límite, no del tamaño del índice.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GeoGridIndexBenchmark {
+
+    private static final double[][] CITIES = {
+            {40.4168, -3.7038}, {41.3874, 2.1686}, {39.4699, -0.3763}, {37.3891, -5.9845},
+            {43.2630, -2.9350}, {36.7213, -4.4214}, {41.6488, -0.8891}, {38.3452, -0.4810},
+            {43.3623, -8.4115}, {37.9922, -1.1307}};
+    private static final int QUERIES = 1024; // potencia de 2
+
+    @Param({"100000"})
+    public int restaurants;
+
+    @Param({"5000"})
+    public double radiusMeters;
+
+    @Param({"20"})
+    public int limit;
+
+    private GeoGridIndex index;
+    private double[] latitudes;
+    private double[] longitudes;
+    private double[][] queries;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        index = new GeoGridIndex(0.01);
+        latitudes = new double[restaurants];
+        longitudes = new double[restaurants];
+        for (int i = 0; i < restaurants; i++) {
+            double[] point = randomPoint(random);
+            latitudes[i] = point[0];
+            longitudes[i] = point[1];
+            index.put(i, point[0], point[1]);
+        }
+        queries = new double[QUERIES][];
+        for (int i = 0; i < QUERIES; i++) {
+            queries[i] = randomPoint(random);
+        }
+    }
+
+    @Benchmark
+    public List<GeoGridIndex.Hit> nearest() {
+        double[] query = queries[next++ & (QUERIES - 1)];
+        return index.nearest(query[0], query[1], radiusMeters, limit);
+    }
+
+    /** Referencia: distancia a todos los restaurantes, sin índice. */
+    @Benchmark
+    public int linearScan() {
+        double[] query = queries[next++ & (QUERIES - 1)];
+        int within = 0;
+        for (int i = 0; i < restaurants; i++) {
+            if (GeoGridIndex.distanceMeters(query[0], query[1], latitudes[i], longitudes[i]) <= radiusMeters) {
+                within++;
+            }
+        }
+        return within;
+    }
+
+    private static double[] randomPoint(Random random) {
+        if (random.nextDouble() < 0.7) {
+            double[] city = CITIES[random.nextInt(CITIES.length)];
+            // Gaussiana de ~8 km alrededor del centro de la ciudad
+            return new double[]{city[0] + random.nextGaussian() * 0.07, city[1] + random.nextGaussian() * 0.09};
+        }
+        return new double[]{36.0 + random.nextDouble() * 7.5, -9.0 + random.nextDouble() * 12.0};
+    }
+}
@@ -0,0 +1,70 @@
+package com.diver.search;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mide la latencia de {@link SuggestionTrie#suggest} con un catálogo sintético de
+ * {@code entries} sugerencias de varias palabras.
+ * <p>
+ * Se consultan prefijos cortos (muchos candidatos) y largos (pocos candidatos); en ambos
+ * casos el coste debe depender solo de la longitud del prefijo.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SuggestionTrieBenchmark {
+
+    private static final String[] WORDS = {
+            "pizza", "pasta", "margarita", "carbonara", "sushi", "ramen", "taco", "burrito",
+            "hamburguesa", "ensalada", "pollo", "ternera", "jamón", "queso", "tortilla", "paella",
+            "brasa", "picante", "vegana", "clásica", "casera", "especial", "mediterránea", "japonesa"};
+
+    @Param({"10000", "100000"})
+    public int entries;
+
+    private SuggestionTrie trie;
+
+    @Setup
+    public void setUp() {
+        trie = new SuggestionTrie();
+        Random random = new Random(42);
+        SuggestionType[] types = SuggestionType.values();
+        for (int i = 0; i < entries; i++) {
+            String text = WORDS[random.nextInt(WORDS.length)] + " "
+                    + WORDS[random.nextInt(WORDS.length)] + " " + i;
+            trie.put(types[i % types.length], text, 1 + random.nextInt(10_000));
+        }
+    }
+
+    @Benchmark
+    public List<SuggestionTrie.Entry> shortPrefix() {
+        return trie.suggest("p", 8);
+    }
+
+    @Benchmark
+    public List<SuggestionTrie.Entry> longPrefix() {
+        return trie.suggest("pizza marg", 8);
+    }
+
+    @Benchmark
+    public List<SuggestionTrie.Entry> accentedPrefix() {
+        return trie.suggest("Jamón", 8);
+    }
+}
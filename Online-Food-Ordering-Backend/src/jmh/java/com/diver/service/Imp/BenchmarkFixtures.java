@@ -0,0 +1,177 @@
+package com.diver.service.Imp;
+
+import com.diver.model.Address;
+import com.diver.model.Cart;
+import com.diver.model.CartItem;
+import com.diver.model.Category;
+import com.diver.model.Food;
+import com.diver.model.IngredientCategory;
+import com.diver.model.IngredientItem;
+import com.diver.model.Order;
+import com.diver.model.OrderItem;
+import com.diver.model.OrderStatus;
+import com.diver.model.Restaurant;
+import com.diver.model.User;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Datos sintéticos en memoria, con tamaños realistas, para los benchmarks JMH de la capa de servicio.
+ * <p>
+ * Usa una semilla fija para que todas las ejecuciones midan exactamente los mismos datos.
+ */
+final class BenchmarkFixtures {
+
+    static final int MENU_SIZE = 500;
+    static final int CART_SIZE = 50;
+    static final int ORDERS_PER_RESTAURANT = 10_000;
+
+    private static final String[] CATEGORY_NAMES = {
+            "Entrantes", "Ensaladas", "Sopas", "Pastas", "Pizzas",
+            "Carnes", "Pescados", "Hamburguesas", "Postres", "Bebidas"
+    };
+
+    private BenchmarkFixtures() {
+    }
+
+    static User customer(long id) {
+        User user = new User();
+        user.setId(id);
+        user.setEmail("cliente" + id + "@diver.com");
+        user.setFullName("Cliente " + id);
+        return user;
+    }
+
+    static Restaurant restaurant(long id) {
+        Restaurant restaurant = new Restaurant();
+        restaurant.setId(id);
+        restaurant.setName("Restaurante " + id);
+        restaurant.setOwner(customer(1_000_000 + id));
+        return restaurant;
+    }
+
+    /**
+     * Construye una carta de {@code size} platos repartidos en 10 categorías,
+     * con 3 ingredientes por plato elegidos de un catálogo de 40.
+     */
+    static List<Food> menu(Restaurant restaurant, int size) {
+        Random random = new Random(42);
+
+        List<Category> categories = new ArrayList<>();
+        for (int i = 0; i < CATEGORY_NAMES.length; i++) {
+            Category category = new Category();
+            category.setId((long) i + 1);
+            category.setName(CATEGORY_NAMES[i]);
+            category.setRestaurant(restaurant);
+            categories.add(category);
+        }
+
+        IngredientCategory ingredientCategory = new IngredientCategory();
+        ingredientCategory.setId(1L);
+        ingredientCategory.setName("General");
+        ingredientCategory.setRestaurant(restaurant);
+
+        List<IngredientItem> ingredients = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            IngredientItem item = new IngredientItem();
+            item.setId((long) i + 1);
+            item.setName("Ingrediente " + i);
+            item.setCategory(ingredientCategory);
+            item.setRestaurant(restaurant);
+            item.setInStock(random.nextInt(10) > 0);
+            ingredients.add(item);
+        }
+
+        List<Food> foods = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Food food = new Food();
+            food.setId((long) i + 1);
+            food.setName("Plato " + i);
+            food.setDescription("Descripción del plato " + i);
+            food.setPrice(500L + random.nextInt(3_000));
+            food.setCategory(categories.get(random.nextInt(categories.size())));
+            food.setImages(List.of("https://cdn.diver.com/food/" + i + ".jpg"));
+            food.setAvailable(random.nextInt(5) > 0);
+            food.setRestaurant(restaurant);
+            food.setVegetarian(random.nextBoolean());
+            food.setSeasonal(random.nextInt(4) == 0);
+            food.setCreationDate(new Date());
+            List<IngredientItem> foodIngredients = new ArrayList<>(3);
+            for (int j = 0; j < 3; j++) {
+                foodIngredients.add(ingredients.get(random.nextInt(ingredients.size())));
+            }
+            food.setIngredients(foodIngredients);
+            foods.add(food);
+        }
+        return foods;
+    }
+
+    static Cart cart(User customer, List<Food> menu, int size) {
+        Random random = new Random(7);
+        Cart cart = new Cart();
+        cart.setId(customer.getId());
+        cart.setCustomer(customer);
+        for (int i = 0; i < size; i++) {
+            Food food = menu.get(i % menu.size());
+            int quantity = 1 + random.nextInt(3);
+            CartItem item = new CartItem();
+            item.setId((long) i + 1);
+            item.setCart(cart);
+            item.setFood(food);
+            item.setQuantity(quantity);
+            item.setIngredients(List.of("sin cebolla"));
+            item.setTotalPrice(food.getPrice() * quantity);
+            cart.getCartItems().add(item);
+        }
+        return cart;
+    }
+
+    /**
+     * Construye el historial de pedidos de un restaurante, con entre 1 y 5 líneas por pedido.
+     */
+    static List<Order> orders(Restaurant restaurant, List<Food> menu, int count) {
+        Random random = new Random(99);
+        Address address = new Address();
+        address.setId(1L);
+        address.setStreet("Calle Mayor 1");
+        address.setCity("Madrid");
+
+        List<Order> orders = new ArrayList<>(count);
+        LocalDateTime start = LocalDateTime.now().minusDays(90);
+        long itemId = 1;
+        for (int i = 0; i < count; i++) {
+            Order order = new Order();
+            order.setId((long) i + 1);
+            order.setCustomer(customer(1 + random.nextInt(2_000)));
+            order.setRestaurant(restaurant);
+            order.setOrderStatus(OrderStatus.ENTREGADO);
+            order.setCreatedAt(start.plusMinutes(i * 13L));
+            order.setDeliveryAddress(address);
+
+            int lines = 1 + random.nextInt(5);
+            List<OrderItem> items = new ArrayList<>(lines);
+            long total = 0;
+            for (int j = 0; j < lines; j++) {
+                Food food = menu.get(random.nextInt(menu.size()));
+                OrderItem item = new OrderItem();
+                item.setId(itemId++);
+                item.setFood(food);
+                item.setQuantity(1 + random.nextInt(2));
+                item.setTotalPrice(food.getPrice() * item.getQuantity());
+                item.setIngredients(List.of());
+                item.setOrder(order);
+                items.add(item);
+                total += item.getTotalPrice();
+            }
+            order.setOrderItems(items);
+            order.setTotalAmount(total);
+            order.setTotalItems(lines);
+            orders.add(order);
+        }
+        return orders;
+    }
+}
@@ -0,0 +1,68 @@
+package com.diver.service.Imp;
+
+import com.diver.dto.CartDto;
+import com.diver.model.Cart;
+import com.diver.model.CartItem;
+import com.diver.model.Food;
+import com.diver.model.Restaurant;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mide el recálculo del total y el mapeo a DTO de un carrito de {@value BenchmarkFixtures#CART_SIZE} líneas,
+ * las dos operaciones que se repiten en cada modificación del carrito, frente a la actualización
+ * incremental de una línea (búsqueda por plato y ajuste del total por diferencia).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CartServiceBenchmark {
+
+    private CartServiceImp cartService;
+    private Cart cart;
+    private Long lastFoodId;
+
+    @Setup
+    public void setUp() {
+        Restaurant restaurant = BenchmarkFixtures.restaurant(1L);
+        List<Food> menu = BenchmarkFixtures.menu(restaurant, BenchmarkFixtures.MENU_SIZE);
+        cart = BenchmarkFixtures.cart(BenchmarkFixtures.customer(1L), menu, BenchmarkFixtures.CART_SIZE);
+
+        lastFoodId = cart.getCartItems().get(cart.getCartItems().size() - 1).getFood().getId();
+
+        cartService = new CartServiceImp(null, null, null);
+    }
+
+    @Benchmark
+    public Long recalculateCartTotal() {
+        cartService.recalculateCartTotal(cart);
+        return cart.getTotal();
+    }
+
+    @Benchmark
+    public CartDto mapToCartDto() {
+        return cartService.mapToCartDto(cart);
+    }
+
+    @Benchmark
+    public Long updateItemIncrementally() {
+        CartItem item = cart.findItemByFoodId(lastFoodId);
+        int quantity = item.getQuantity() == 1 ? 2 : 1;
+        cart.updateItem(item, quantity, (long) quantity * item.getFood().getPrice());
+        return cart.getTotal();
+    }
+}
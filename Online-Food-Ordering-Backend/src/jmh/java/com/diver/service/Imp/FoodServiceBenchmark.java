@@ -0,0 +1,95 @@
+package com.diver.service.Imp;
+
+import com.diver.dto.FoodDto;
+import com.diver.model.Food;
+import com.diver.model.Restaurant;
+import com.diver.repository.FoodRepository;
+import com.diver.repository.projection.FoodImageRow;
+import com.diver.repository.projection.FoodIngredientRow;
+import com.diver.repository.projection.MenuFoodRow;
+import com.diver.request.MenuFilterRequest;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Sort;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mide {@link FoodServiceImp#getRestaurantFoods} y el mapeo a DTO sobre una carta de
+ * {@value BenchmarkFixtures#MENU_SIZE} platos.
+ * <p>
+ * El repositorio es un stub de Mockito que devuelve siempre las proyecciones de la misma carta
+ * (el filtrado se hace en la base de datos), por lo que solo se mide el trabajo de la capa de
+ * servicio: agrupación de imágenes e ingredientes y mapeo, con y sin ingredientes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FoodServiceBenchmark {
+
+    private static final long RESTAURANT_ID = 1L;
+
+    private FoodServiceImp foodService;
+    private List<Food> menu;
+
+    @Setup
+    public void setUp() {
+        Restaurant restaurant = BenchmarkFixtures.restaurant(RESTAURANT_ID);
+        menu = BenchmarkFixtures.menu(restaurant, BenchmarkFixtures.MENU_SIZE);
+
+        FoodRepository foodRepository = Mockito.mock(FoodRepository.class);
+        List<MenuFoodRow> rows = new ArrayList<>();
+        List<FoodImageRow> images = new ArrayList<>();
+        List<FoodIngredientRow> ingredients = new ArrayList<>();
+        for (Food food : menu) {
+            rows.add(new MenuFoodRow(food.getId(), food.getName(), food.getDescription(), food.getPrice(),
+                    food.isAvailable(), food.isVegetarian(), food.isSeasonal(), food.getCreationDate(),
+                    food.getCategory().getId(), food.getCategory().getName(), restaurant.getId(), restaurant.getName()));
+            food.getImages().forEach(image -> images.add(new FoodImageRow(food.getId(), image)));
+            food.getIngredients().forEach(item -> ingredients.add(new FoodIngredientRow(food.getId(), item.getId(),
+                    item.getName(), item.isInStock(), item.getCategory().getId(), item.getCategory().getName(),
+                    restaurant.getId())));
+        }
+        Mockito.when(foodRepository.findMenuRows(ArgumentMatchers.any(), ArgumentMatchers.any(), ArgumentMatchers.any(),
+                ArgumentMatchers.any(), ArgumentMatchers.any(), ArgumentMatchers.any(Sort.class))).thenReturn(rows);
+        Mockito.when(foodRepository.findImageRowsByFoodIdIn(ArgumentMatchers.any())).thenReturn(images);
+        Mockito.when(foodRepository.findIngredientRowsByFoodIdIn(ArgumentMatchers.any())).thenReturn(ingredients);
+
+        foodService = new FoodServiceImp(foodRepository, null, null, null, null, null);
+    }
+
+    @Benchmark
+    public List<FoodDto> getRestaurantFoodsWithoutIngredients() {
+        return foodService.getRestaurantFoods(RESTAURANT_ID, new MenuFilterRequest());
+    }
+
+    @Benchmark
+    public List<FoodDto> getRestaurantFoodsWithIngredients() {
+        MenuFilterRequest filter = new MenuFilterRequest();
+        filter.setVegetarian(true);
+        filter.setCategory("Pastas");
+        filter.setSortBy("price");
+        filter.setIncludeIngredients(true);
+        return foodService.getRestaurantFoods(RESTAURANT_ID, filter);
+    }
+
+    @Benchmark
+    public List<FoodDto> mapToFoodDtoList() {
+        return foodService.mapToFoodDtoList(menu);
+    }
+}
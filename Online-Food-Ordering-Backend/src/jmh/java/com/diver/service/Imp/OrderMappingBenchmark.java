@@ -0,0 +1,61 @@
+package com.diver.service.Imp;
+
+import com.diver.dto.OrderDto;
+import com.diver.model.Food;
+import com.diver.model.Order;
+import com.diver.model.Restaurant;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mide {@link OrderServiceImp#mapToOrderDto} sobre el historial completo de un restaurante
+ * ({@value BenchmarkFixtures#ORDERS_PER_RESTAURANT} pedidos), que es lo que hacen hoy los
+ * endpoints de historial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderMappingBenchmark {
+
+    private OrderServiceImp orderService;
+    private List<Order> orders;
+
+    @Setup
+    public void setUp() {
+        Restaurant restaurant = BenchmarkFixtures.restaurant(1L);
+        List<Food> menu = BenchmarkFixtures.menu(restaurant, BenchmarkFixtures.MENU_SIZE);
+        orders = BenchmarkFixtures.orders(restaurant, menu, BenchmarkFixtures.ORDERS_PER_RESTAURANT);
+
+        // Los mapeadores no usan repositorios; el ETA se calcula en memoria con tableros vacíos
+        // y los tiempos por defecto, igual que en producción antes de aprender ninguna muestra.
+        KitchenBoardServiceImp kitchenBoard = new KitchenBoardServiceImp(null, null, null, false);
+        EtaServiceImp etaService = new EtaServiceImp(null, kitchenBoard, null, false, 0.75, 20,
+                Duration.ofDays(7), Duration.ofHours(4), 3, 18, Duration.ofMinutes(4),
+                Duration.ofMinutes(3), Duration.ofMinutes(15), Duration.ofMinutes(20));
+        orderService = new OrderServiceImp(null, null, null, null, null, null, null, null, null, null, etaService);
+    }
+
+    @Benchmark
+    public void mapRestaurantHistory(Blackhole bh) {
+        for (Order order : orders) {
+            OrderDto dto = orderService.mapToOrderDto(order);
+            bh.consume(dto);
+        }
+    }
+}
@@ -8,4 +8,9 @@ public class JwtConstant {
     public static final String JWT_HEADER = "Authorization";
 
     public static final long EXPIRATION_TIME = 86400000L; // 24 horas en milisegundos
+
+    // Claims personalizados que viajan dentro del token
+    public static final String CLAIM_AUTHORITIES = "authorities";
+
+    public static final String CLAIM_USER_ID = "userId";
 }
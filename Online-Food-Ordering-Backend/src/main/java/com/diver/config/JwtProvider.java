@@ -1,18 +1,32 @@
 package com.diver.config;
 
+import com.diver.dto.AuthenticatedUser;
+import com.diver.model.USER_ROLE;
+import com.diver.model.User;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.stereotype.Service;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Collection;
 import java.util.Date;
 import java.util.HashSet;
+import java.util.HexFormat;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Servicio responsable de la generación y validación de tokens JWT (JSON Web Token).
@@ -20,6 +34,10 @@ import java.util.Set;
  * Esta clase centraliza la lógica para crear nuevos tokens para usuarios autenticados
  * y para extraer información de los tokens existentes. Utiliza una clave secreta
  * para firmar y verificar los tokens, asegurando su integridad y autenticidad.
+ * <p>
+ * Mantiene un único {@link JwtParser} (inmutable y thread-safe) y, opcionalmente, una caché de
+ * claims ya verificados indexada por el hash SHA-256 del token. Cada entrada caduca, como muy tarde,
+ * en el instante {@code exp} del propio token, de modo que un token expirado nunca se sirve desde la caché.
  *
  * @author Tu Nombre (o el nombre del equipo)
  * @version 1.1
@@ -32,13 +50,51 @@ public class JwtProvider {
      * Clave secreta utilizada para firmar y verificar los tokens JWT.
      * Se genera una sola vez al instanciar la clase para garantizar la consistencia.
      */
-    private final SecretKey key = Keys.hmacShaKeyFor(JwtConstant.SECRET_KEY.getBytes(StandardCharsets.UTF_8));
+    private final SecretKey key;
+
+    /**
+     * Parser reutilizable; construirlo en cada llamada era un coste innecesario por petición.
+     */
+    private final JwtParser parser;
+
+    /**
+     * Claims ya verificados, indexados por el hash del token. Es {@code null} si la caché está desactivada.
+     */
+    private final Cache<String, Claims> claimsCache;
+
+    @Autowired
+    public JwtProvider(@Value("${app.security.jwt.claims-cache.enabled:true}") boolean claimsCacheEnabled,
+                       @Value("${app.security.jwt.claims-cache.max-size:50000}") long claimsCacheMaxSize) {
+        this(JwtConstant.SECRET_KEY, claimsCacheEnabled, claimsCacheMaxSize);
+    }
+
+    /**
+     * Constructor explícito, útil fuera del contexto de Spring (p. ej. en los benchmarks).
+     *
+     * @param secret             La clave secreta para firmar y verificar los tokens.
+     * @param claimsCacheEnabled Si se cachean los claims verificados.
+     * @param claimsCacheMaxSize Número máximo de tokens cacheados.
+     */
+    public JwtProvider(String secret, boolean claimsCacheEnabled, long claimsCacheMaxSize) {
+        this.key = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        this.parser = Jwts.parserBuilder()
+                .setSigningKey(key)
+                .build();
+        this.claimsCache = claimsCacheEnabled
+                ? Caffeine.newBuilder()
+                        .maximumSize(claimsCacheMaxSize)
+                        .expireAfter(new TokenExpiry())
+                        .build()
+                : null;
+    }
 
     /**
      * Genera un nuevo token JWT para un usuario que ha sido autenticado exitosamente.
      * <p>
      * El token incluye el email del usuario como el "subject" y sus roles/permisos
      * en un claim personalizado llamado "authorities", siguiendo las convenciones de Spring Security.
+     * Si el principal es nuestra entidad {@link User} (o un {@link AuthenticatedUser}), se añade
+     * también su ID en el claim "userId", lo que permite reconstruir el principal sin consultar la BD.
      *
      * @param auth El objeto {@link Authentication} proporcionado por Spring Security tras un login exitoso.
      * @return Un String que representa el token JWT compacto y firmado.
@@ -47,17 +103,20 @@ public class JwtProvider {
         Collection<? extends GrantedAuthority> authorities = auth.getAuthorities();
         String authoritiesString = populateAuthorities(authorities);
 
-        String token = Jwts.builder()
+        JwtBuilder builder = Jwts.builder()
                 .setIssuedAt(new Date())
                 .setExpiration(new Date(new Date().getTime() + JwtConstant.EXPIRATION_TIME))
                 // El "subject" (sub) es el claim estándar para el identificador del principal.
                 .setSubject(auth.getName())
                 // Claim personalizado para las autoridades, siguiendo la convención de Spring.
-                .claim("authorities", authoritiesString)
-                .signWith(key)
-                .compact();
+                .claim(JwtConstant.CLAIM_AUTHORITIES, authoritiesString);
+
+        Long userId = extractUserId(auth.getPrincipal());
+        if (userId != null) {
+            builder.claim(JwtConstant.CLAIM_USER_ID, userId);
+        }
 
-        return token;
+        return builder.signWith(key).compact();
     }
 
     /**
@@ -70,28 +129,86 @@ public class JwtProvider {
      * @return El email del usuario contenido en el "subject" del token.
      */
     public String getEmailFromToken(String jwt) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(jwt)
-                .getBody();
-
-        return claims.getSubject();
+        return getClaimsFromToken(jwt).getSubject();
     }
 
     /**
      * Extrae los claims (cuerpo de datos) de un token JWT después de validar su firma.
      * Este método es útil en el filtro de validación para obtener toda la información del token.
+     * <p>
+     * Si la caché está activa, la firma solo se verifica la primera vez que se ve un token; las
+     * siguientes llamadas con el mismo token devuelven los claims cacheados hasta su expiración.
+     * Los tokens inválidos lanzan la excepción de JJWT y nunca se cachean.
      *
      * @param jwt El token JWT completo (sin el prefijo "Bearer ").
      * @return El objeto {@link Claims} que contiene todos los datos del payload del token.
      */
     public Claims getClaimsFromToken(String jwt) {
-        return Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(jwt)
-                .getBody();
+        if (claimsCache == null) {
+            return parseAndVerify(jwt);
+        }
+        return claimsCache.get(digest(jwt), k -> parseAndVerify(jwt));
+    }
+
+    private Claims parseAndVerify(String jwt) {
+        return parser.parseClaimsJws(jwt).getBody();
+    }
+
+    /**
+     * Calcula el hash SHA-256 del token para usarlo como clave de la caché,
+     * evitando retener los tokens completos en memoria.
+     */
+    private static String digest(String jwt) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(md.digest(jwt.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 está garantizado en toda JVM.
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Construye el principal ligero {@link AuthenticatedUser} a partir de los claims de un token ya verificado.
+     * <p>
+     * Devuelve {@code null} si el token no contiene el claim "userId" o un rol reconocible
+     * (por ejemplo, tokens emitidos antes de introducir este claim); en ese caso el llamador
+     * debe recurrir a la carga del usuario desde la base de datos.
+     *
+     * @param claims Los claims del token, ya validados por {@link #getClaimsFromToken(String)}.
+     * @return El principal construido, o {@code null} si faltan datos en el token.
+     */
+    public AuthenticatedUser getAuthenticatedUserFromClaims(Claims claims) {
+        Number userId = claims.get(JwtConstant.CLAIM_USER_ID, Number.class);
+        String authorities = claims.get(JwtConstant.CLAIM_AUTHORITIES, String.class);
+        if (userId == null || authorities == null || authorities.isBlank()) {
+            return null;
+        }
+
+        // Cada usuario tiene un único rol, que es el primero (y único) de la lista.
+        String roleName = authorities.split(",")[0].trim();
+        try {
+            USER_ROLE role = USER_ROLE.valueOf(roleName);
+            return new AuthenticatedUser(userId.longValue(), claims.getSubject(), role);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Obtiene el ID del usuario si el principal es uno de nuestros tipos conocidos.
+     *
+     * @param principal El principal del objeto {@link Authentication}.
+     * @return El ID del usuario, o {@code null} si el principal no lo expone.
+     */
+    private Long extractUserId(Object principal) {
+        if (principal instanceof User user) {
+            return user.getId();
+        }
+        if (principal instanceof AuthenticatedUser authenticatedUser) {
+            return authenticatedUser.getId();
+        }
+        return null;
     }
 
     /**
@@ -110,4 +227,30 @@ public class JwtProvider {
         }
         return String.join(",", auths);
     }
-}
\ No newline at end of file
+
+    /**
+     * Política de expiración por entrada: cada token cacheado caduca en su propio {@code exp}.
+     */
+    private static final class TokenExpiry implements Expiry<String, Claims> {
+
+        @Override
+        public long expireAfterCreate(String key, Claims claims, long currentTime) {
+            Date expiration = claims.getExpiration();
+            if (expiration == null) {
+                return TimeUnit.MILLISECONDS.toNanos(JwtConstant.EXPIRATION_TIME);
+            }
+            long remainingMillis = expiration.getTime() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, remainingMillis));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(String key, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -1,12 +1,14 @@
 package com.diver.config;
 
+import com.diver.dto.AuthenticatedUser;
+import com.diver.model.User;
 import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -26,6 +28,11 @@ import java.io.IOException;
  * {@link SecurityContextHolder}. Esto permite que el resto de la aplicación,
  * incluyendo los controladores y la seguridad a nivel de método, reconozcan al
  * usuario como autenticado.
+ * <p>
+ * Por defecto funciona en modo "stateless": el principal ({@link AuthenticatedUser}) se construye
+ * directamente a partir de los claims firmados del token, sin consultar la base de datos.
+ * Si el modo se desactiva con {@code app.security.jwt.stateless-principal=false}, o si el token
+ * no contiene el claim del ID de usuario, se carga el usuario mediante el {@link UserDetailsService}.
  *
  * @author Tu Nombre (o el nombre del equipo)
  * @version 1.2
@@ -33,11 +40,19 @@ import java.io.IOException;
  */
 @Slf4j
 @Component
-@RequiredArgsConstructor
 public class JwtTokenValidator extends OncePerRequestFilter {
 
     private final JwtProvider jwtProvider;
     private final UserDetailsService userDetailsService;
+    private final boolean statelessPrincipal;
+
+    public JwtTokenValidator(JwtProvider jwtProvider,
+                             UserDetailsService userDetailsService,
+                             @Value("${app.security.jwt.stateless-principal:true}") boolean statelessPrincipal) {
+        this.jwtProvider = jwtProvider;
+        this.userDetailsService = userDetailsService;
+        this.statelessPrincipal = statelessPrincipal;
+    }
 
     /**
      * Lógica principal del filtro para procesar la autenticación JWT.
@@ -71,14 +86,13 @@ public class JwtTokenValidator extends OncePerRequestFilter {
             // Esto último evita trabajo innecesario en peticiones que ya han sido autenticadas.
             if (email != null && SecurityContextHolder.getContext().getAuthentication() == null) {
 
-                // Cargamos el objeto UserDetails completo desde la base de datos.
-                UserDetails userDetails = this.userDetailsService.loadUserByUsername(email);
+                AuthenticatedUser principal = resolvePrincipal(claims, email);
 
-                // Creamos el objeto Authentication, poniendo el objeto UserDetails como el "Principal".
+                // Creamos el objeto Authentication, poniendo el principal ligero como el "Principal".
                 Authentication authentication = new UsernamePasswordAuthenticationToken(
-                        userDetails,         // ¡El Principal es ahora el objeto User completo!
+                        principal,
                         null,                // No se necesitan credenciales (password) en la autenticación por token.
-                        userDetails.getAuthorities() // Los roles/permisos del usuario.
+                        principal.getAuthorities() // Los roles/permisos del usuario.
                 );
 
                 // Establecemos la autenticación en el contexto de seguridad.
@@ -98,6 +112,29 @@ public class JwtTokenValidator extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    /**
+     * Obtiene el principal de la petición.
+     * <p>
+     * En modo stateless se construye a partir de los claims; si no es posible (o el modo está
+     * desactivado) se recurre a la carga del usuario desde la base de datos.
+     *
+     * @param claims Los claims del token ya verificado.
+     * @param email  El email (subject) del token.
+     * @return El principal autenticado.
+     */
+    private AuthenticatedUser resolvePrincipal(Claims claims, String email) {
+        if (statelessPrincipal) {
+            AuthenticatedUser principal = jwtProvider.getAuthenticatedUserFromClaims(claims);
+            if (principal != null) {
+                return principal;
+            }
+            log.debug("El token de '{}' no contiene el ID de usuario. Se carga desde la base de datos.", email);
+        }
+
+        UserDetails userDetails = this.userDetailsService.loadUserByUsername(email);
+        return AuthenticatedUser.from((User) userDetails);
+    }
+
     /**
      * Extrae el token JWT de la cabecera 'Authorization' de la solicitud.
      *
@@ -0,0 +1,111 @@
+package com.diver.config;
+
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Enruta las transacciones de solo lectura a réplicas de la base de datos
+ * ({@code app.datasource.replicas.enabled=true}).
+ * <p>
+ * Sustituye el {@link DataSource} autoconfigurado por un {@link ReplicaRoutingDataSource} detrás
+ * de un {@link LazyConnectionDataSourceProxy}: el primario se construye con las propiedades
+ * {@code spring.datasource.*} y cada URL de {@code app.datasource.replicas.urls} tiene su propio
+ * pool. Los métodos {@code @Transactional(readOnly = true)} (y los de lectura de los repositorios
+ * de Spring Data) pasan a leer de las réplicas sin cambiar su código.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "app.datasource.replicas.enabled", havingValue = "true")
+public class ReplicaDataSourceConfig {
+
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(
+            DataSourceProperties properties,
+            @Value("${app.datasource.replicas.urls:}") List<String> urls,
+            @Value("${app.datasource.replicas.username:${spring.datasource.username:}}") String username,
+            @Value("${app.datasource.replicas.password:${spring.datasource.password:}}") String password,
+            @Value("${app.datasource.replicas.pool-size:10}") int poolSize,
+            @Value("${app.datasource.replicas.read-your-writes-window:5s}") Duration readYourWritesWindow,
+            @Value("${app.datasource.replicas.health-check-timeout:2s}") Duration healthCheckTimeout,
+            @Value("${app.datasource.replicas.lag-query:}") String lagQuery,
+            @Value("${app.datasource.replicas.max-lag:10s}") Duration maxLag) {
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        primary.setPoolName("primary");
+
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (String url : urls) {
+            if (url.isBlank()) {
+                continue;
+            }
+            String name = "replica-" + (replicas.size() + 1);
+            HikariDataSource replica = new HikariDataSource();
+            replica.setPoolName(name);
+            replica.setJdbcUrl(url.trim());
+            replica.setUsername(username);
+            replica.setPassword(password);
+            replica.setDriverClassName(properties.determineDriverClassName());
+            replica.setMaximumPoolSize(poolSize);
+            replica.setReadOnly(true);
+            // Una réplica caída al arrancar no debe impedir el arranque: queda fuera hasta que responda
+            replica.setInitializationFailTimeout(-1);
+            replicas.put(name, replica);
+        }
+        log.info("Lecturas en réplicas activadas: {} réplicas, ventana de lectura propia de {}.",
+                replicas.size(), readYourWritesWindow);
+        return new ReplicaRoutingDataSource(primary, replicas, ReplicaDataSourceConfig::currentUser,
+                readYourWritesWindow, healthCheckTimeout, lagQuery, maxLag, Ticker.systemTicker());
+    }
+
+    /**
+     * El {@link DataSource} de la aplicación: retrasa la conexión física hasta la primera sentencia,
+     * cuando ya se sabe si la transacción es de solo lectura.
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+
+    /**
+     * Con la sesión abierta durante toda la petición (open-in-view), Hibernate conservaría la primera
+     * conexión para las transacciones siguientes; liberarla al terminar cada transacción permite
+     * que cada una vaya a su destino.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer releaseConnectionAfterTransaction() {
+        return hibernateProperties -> hibernateProperties.put(AvailableSettings.CONNECTION_HANDLING,
+                PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION);
+    }
+
+    /**
+     * El usuario autenticado del hilo actual, o {@code null} si no lo hay.
+     */
+    private static String currentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()
+                || authentication instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        return authentication.getName();
+    }
+}
@@ -0,0 +1,285 @@
+package com.diver.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.Ordered;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * {@link DataSource} que envía las transacciones de solo lectura a un grupo de réplicas y todo lo
+ * demás al primario.
+ * <p>
+ * Decide al pedir la conexión física: si hay una transacción real marcada como
+ * {@code readOnly}, se reparte entre las réplicas sanas por turnos; sin transacción o en una de
+ * escritura se usa el primario. Como JPA pide la conexión al empezar la transacción, antes de
+ * que Spring la marque como de solo lectura, debe usarse detrás de un
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}, que retrasa la
+ * conexión física hasta la primera sentencia.
+ * <p>
+ * Garantías de frescura:
+ * <ul>
+ *     <li><b>Leer lo propio</b>: tras confirmar una transacción de escritura, las lecturas de la
+ *     misma sesión (el usuario autenticado o, sin él, el hilo) van al primario durante
+ *     {@code readYourWritesWindow}, para no ver una réplica que aún no tiene el cambio.</li>
+ *     <li><b>Salud</b>: {@link #checkReplicas()} valida periódicamente cada réplica y, si hay consulta de retraso,
+ *     descarta las que superan {@code maxLag}. Una réplica que falla al dar conexión se marca
+ *     caída en el acto y la lectura sigue en el primario; sin réplicas sanas todo va al primario.</li>
+ * </ul>
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractDataSource implements AutoCloseable {
+
+    /**
+     * Una réplica y su estado de salud.
+     */
+    private static final class Replica {
+        private final String name;
+        private final DataSource dataSource;
+        private volatile boolean healthy = true;
+
+        private Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+    }
+
+    /**
+     * Marca la sesión como escritora reciente cuando la transacción se confirma.
+     */
+    private final class WriteTracking implements TransactionSynchronization {
+        private final String session;
+
+        private WriteTracking(String session) {
+            this.session = session;
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.HIGHEST_PRECEDENCE;
+        }
+
+        @Override
+        public void afterCommit() {
+            recentWriters.put(session, Boolean.TRUE);
+        }
+    }
+
+    @FunctionalInterface
+    private interface ConnectionSource {
+        Connection open(DataSource dataSource) throws SQLException;
+    }
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final Supplier<String> sessionKey;
+    private final Cache<String, Boolean> recentWriters;
+    private final Duration healthCheckTimeout;
+    private final String lagQuery;
+    private final Duration maxLag;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+
+    /**
+     * @param primary              El origen de datos primario (escrituras y lecturas sin réplica).
+     * @param replicas             Las réplicas por nombre; se reparten en el orden del mapa.
+     * @param sessionKey           Identifica la sesión actual para leer lo propio; puede devolver
+     *                             {@code null}, en cuyo caso se usa el hilo.
+     * @param readYourWritesWindow Tiempo que las lecturas de una sesión siguen en el primario tras
+     *                             escribir; cero lo desactiva.
+     * @param healthCheckTimeout   Tiempo máximo para validar una réplica.
+     * @param lagQuery             (Opcional) Consulta que devuelve el retraso de la réplica en segundos.
+     * @param maxLag               Retraso máximo admitido si hay {@code lagQuery}.
+     * @param ticker               Reloj de la ventana de lectura propia ({@link Ticker#systemTicker()} en producción).
+     */
+    public ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicas,
+                                    Supplier<String> sessionKey, Duration readYourWritesWindow,
+                                    Duration healthCheckTimeout, String lagQuery, Duration maxLag,
+                                    Ticker ticker) {
+        this.primary = primary;
+        this.replicas = replicas.entrySet().stream()
+                .map(entry -> new Replica(entry.getKey(), entry.getValue()))
+                .toList();
+        this.sessionKey = sessionKey;
+        this.recentWriters = Caffeine.newBuilder()
+                .expireAfterWrite(readYourWritesWindow)
+                .ticker(ticker)
+                .build();
+        this.healthCheckTimeout = healthCheckTimeout;
+        this.lagQuery = lagQuery == null || lagQuery.isBlank() ? null : lagQuery;
+        this.maxLag = maxLag;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return connect(DataSource::getConnection);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return connect(dataSource -> dataSource.getConnection(username, password));
+    }
+
+    /**
+     * Valida cada réplica y actualiza su estado.
+     */
+    @Scheduled(fixedDelayString = "${app.datasource.replicas.health-check-interval:5000}")
+    public void checkReplicas() {
+        for (Replica replica : replicas) {
+            String problem = probe(replica);
+            if (problem == null) {
+                if (!replica.healthy) {
+                    replica.healthy = true;
+                    log.info("Réplica '{}' recuperada: vuelve a recibir lecturas.", replica.name);
+                }
+            } else {
+                markDown(replica, problem);
+            }
+        }
+    }
+
+    /**
+     * @return El número de réplicas que reciben lecturas.
+     */
+    public int healthyReplicaCount() {
+        return (int) replicas.stream().filter(replica -> replica.healthy).count();
+    }
+
+    /**
+     * Cierra los pools del primario y de las réplicas al apagar la aplicación.
+     */
+    @Override
+    public void close() throws Exception {
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+        if (primary instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+
+    // --- METODOS PRIVADOS ---
+
+    /**
+     * Obtiene la conexión de una réplica sana si la transacción lo permite. Si una réplica no da
+     * conexión se marca caída y se prueba la siguiente; agotadas las réplicas, se usa el primario.
+     */
+    private Connection connect(ConnectionSource source) throws SQLException {
+        Replica replica = useReplica() ? nextHealthyReplica() : null;
+        while (replica != null) {
+            try {
+                return source.open(replica.dataSource);
+            } catch (SQLException e) {
+                markDown(replica, e.getMessage());
+                replica = nextHealthyReplica();
+            }
+        }
+        return source.open(primary);
+    }
+
+    /**
+     * @return {@code true} si la conexión actual puede ir a una réplica: transacción real de solo
+     * lectura de una sesión que no ha escrito recientemente.
+     */
+    private boolean useReplica() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return false;
+        }
+        String session = currentSession();
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            trackWrite(session);
+            return false;
+        }
+        return recentWriters.getIfPresent(session) == null;
+    }
+
+    /**
+     * @return La siguiente réplica sana por turnos, o {@code null} si no hay ninguna.
+     */
+    private Replica nextHealthyReplica() {
+        int size = replicas.size();
+        if (size == 0) {
+            return null;
+        }
+        int start = Math.floorMod(nextReplica.getAndIncrement(), size);
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (replica.healthy) {
+                return replica;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Registra, una vez por transacción, que al confirmarse la sesión debe leer del primario.
+     * Se ejecuta antes que las demás sincronizaciones, porque los listeners
+     * {@code AFTER_COMMIT} suelen releer en transacciones de solo lectura lo que se acaba de escribir.
+     */
+    private void trackWrite(String session) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()
+                || TransactionSynchronizationManager.getSynchronizations().stream()
+                        .anyMatch(WriteTracking.class::isInstance)) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new WriteTracking(session));
+    }
+
+    private String currentSession() {
+        String key = sessionKey.get();
+        return key != null ? "user:" + key : "thread:" + Thread.currentThread().getId();
+    }
+
+    /**
+     * @return {@code null} si la réplica está sana, o la causa del fallo.
+     */
+    private String probe(Replica replica) {
+        try (Connection connection = replica.dataSource.getConnection()) {
+            if (!connection.isValid((int) Math.max(1, healthCheckTimeout.toSeconds()))) {
+                return "la conexión no es válida";
+            }
+            if (lagQuery == null) {
+                return null;
+            }
+            try (Statement statement = connection.createStatement()) {
+                statement.setQueryTimeout((int) Math.max(1, healthCheckTimeout.toSeconds()));
+                try (ResultSet result = statement.executeQuery(lagQuery)) {
+                    if (!result.next()) {
+                        return "la consulta de retraso no devolvió filas";
+                    }
+                    long lagSeconds = result.getLong(1);
+                    if (result.wasNull()) {
+                        return "la replicación no está activa";
+                    }
+                    return lagSeconds > maxLag.toSeconds() ? "retraso de " + lagSeconds + " s" : null;
+                }
+            }
+        } catch (SQLException e) {
+            return e.getMessage();
+        }
+    }
+
+    private void markDown(Replica replica, String reason) {
+        if (replica.healthy) {
+            replica.healthy = false;
+            log.warn("Réplica '{}' fuera de servicio ({}); sus lecturas van a otra réplica o al primario.",
+                    replica.name, reason);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.diver.config;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import org.springframework.boot.system.JavaVersion;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Utilidades para el modo de hilos virtuales ({@code spring.threads.virtual.enabled=true}).
+ * <p>
+ * Con la propiedad activa, Spring Boot atiende las peticiones de Tomcat y ejecuta las tareas
+ * {@code @Scheduled} en hilos virtuales; los ejecutores propios de los servicios usan
+ * {@link #threadFactory(boolean, String)} para seguir el mismo modo. Un hilo virtual que bloquea
+ * dentro de un bloque {@code synchronized} (o de un {@code compute} de un mapa concurrente, que
+ * sincroniza internamente) queda fijado a su hilo portador; por eso las cargas desde la base de
+ * datos de las cachés se hacen con {@link #getOrLoad(AsyncCache, Object, Function)}, fuera de
+ * cualquier monitor.
+ */
+public final class VirtualThreads {
+
+    private VirtualThreads() {
+    }
+
+    /**
+     * @param enabled El valor de {@code spring.threads.virtual.enabled}.
+     * @return {@code true} si la propiedad está activa y la JVM admite hilos virtuales (Java 21+).
+     */
+    public static boolean isActive(boolean enabled) {
+        return enabled && JavaVersion.getJavaVersion().isEqualOrNewerThan(JavaVersion.TWENTY_ONE);
+    }
+
+    /**
+     * Fábrica de hilos para los ejecutores propios de los servicios: virtuales si el modo está
+     * activo y, si no, hilos de plataforma demonio. Los hilos se numeran a partir de 1
+     * ({@code prefix-1}, {@code prefix-2}...).
+     *
+     * @param virtual El valor de {@code spring.threads.virtual.enabled}.
+     * @param prefix  El prefijo del nombre de los hilos.
+     */
+    public static ThreadFactory threadFactory(boolean virtual, String prefix) {
+        if (isActive(virtual)) {
+            return new VirtualThreadTaskExecutor(prefix + "-").getVirtualThreadFactory();
+        }
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Obtiene un valor de la caché o lo carga en el hilo que llama, sin bloquear dentro del
+     * {@code compute} de Caffeine.
+     * <p>
+     * El primer hilo que no encuentra la clave deja en la caché un futuro vacío y lo completa
+     * con el resultado de {@code loader}; los demás esperan ese futuro sin repetir la carga.
+     * Invalidar la clave mientras se carga descarta el futuro, así que el valor leído antes de
+     * la invalidación no queda cacheado. Un resultado {@code null} o un error tampoco se cachean.
+     *
+     * @return El valor, o {@code null} si {@code loader} devolvió {@code null}.
+     */
+    public static <K, V> V getOrLoad(AsyncCache<K, V> cache, K key, Function<? super K, ? extends V> loader) {
+        CompletableFuture<V> created = new CompletableFuture<>();
+        CompletableFuture<V> future = cache.get(key, (k, executor) -> created);
+        if (future == created) {
+            try {
+                created.complete(loader.apply(key));
+            } catch (RuntimeException | Error e) {
+                created.completeExceptionally(e);
+                throw e;
+            }
+        }
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.diver.config;
 
+import jakarta.servlet.DispatcherType;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.AllArgsConstructor;
 import org.springframework.context.annotation.Bean;
@@ -60,6 +61,9 @@ public class appConfig {
                 // EN SecurityConfig.java
                 .authorizeHttpRequests(auth -> auth
 
+                        // Los envíos asíncronos (SSE) ya se autorizaron en la petición original.
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+
                         // --- REGLAS PÚBLICAS (Las más específicas primero) ---
                         // Permite el acceso sin autenticación a todos los endpoints de autenticación.
                         .requestMatchers("/auth/**").permitAll()
@@ -70,13 +74,23 @@ public class appConfig {
                         // Permite el acceso PÚBLICO a los endpoints de consulta de comida.
                         .requestMatchers(HttpMethod.GET, "/api/food/**").permitAll()
 
+                        // Permite el acceso PÚBLICO al autocompletado de la búsqueda.
+                        .requestMatchers(HttpMethod.GET, "/api/search/**").permitAll()
+
                         // Permite el acceso PÚBLICO a los endpoints de consulta de restaurantes.
-                        .requestMatchers(HttpMethod.GET, "/api/restaurant", "/api/restaurant/search", "/api/restaurant/restaurant/{restaurantId}").permitAll()
+                        .requestMatchers(HttpMethod.GET, "/api/restaurant", "/api/restaurant/search", "/api/restaurant/nearby", "/api/restaurant/restaurant/{restaurantId}").permitAll()
+
+                        // Health check público para balanceadores; el resto de métricas solo para ADMIN.
+                        .requestMatchers("/actuator/health").permitAll()
+                        .requestMatchers("/actuator/**").hasRole("ADMIN")
 
                         // --- REGLAS DE ADMINISTRACIÓN ---
                         // Protege todas las rutas de administración, la autorización final se delega a @PreAuthorize.
                         .requestMatchers("/api/admin/**").hasAnyRole("RESTAURANT_OWNER", "ADMIN")
 
+                        // --- REGLAS DE REPARTIDORES ---
+                        .requestMatchers("/api/courier/**").hasRole("COURIER")
+
                         // --- REGLA GENERAL PARA EL RESTO DE LA API ---
                         // Cualquier otra petición bajo /api/ (que no haya coincidido antes) requiere autenticación.
                         // Esto protege endpoints como /api/restaurant/{id}/toggle-favorite o /api/users/profile
@@ -132,7 +146,7 @@ public class appConfig {
                 cfg.setAllowedHeaders(Collections.singletonList("*"));
 
                 // 👁️ Cabeceras visibles en la respuesta (Authorization, etc.)
-                cfg.setExposedHeaders(Arrays.asList("Authorization"));
+                cfg.setExposedHeaders(Arrays.asList("Authorization", "Idempotent-Replayed", "Location", "ETag"));
 
                 // 🕒 Cache de configuración preflight (pre-autorización) por 1 hora
                 cfg.setMaxAge(3600L);
@@ -0,0 +1,151 @@
+package com.diver.controller;
+
+import com.diver.dto.AuthenticatedUser;
+import com.diver.dto.FoodSalesDto;
+import com.diver.dto.SalesReportDto;
+import com.diver.response.MessageResponse;
+import com.diver.service.AnalyticsCompactionService;
+import com.diver.service.AnalyticsService;
+import com.diver.service.RestaurantService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Controlador REST para los informes de ventas del restaurante del propietario.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/admin/analytics")
+@RequiredArgsConstructor
+@Tag(
+        name = "Sales Analytics (Admin/Owner)",
+        description = "Informes de ventas precalculados por hora y por día."
+)
+@SecurityRequirement(name = "bearerAuth")
+public class AdminAnalyticsController {
+
+    private final AnalyticsService analyticsService;
+    private final AnalyticsCompactionService analyticsCompactionService;
+    private final RestaurantService restaurantService;
+
+    /**
+     * Obtiene las ventas del restaurante del propietario por intervalos.
+     * @param granularity (Opcional) HOUR o DAY.
+     * @param from (Opcional) Inicio del rango.
+     * @param to (Opcional) Fin del rango (exclusivo).
+     * @param user El usuario (propietario) autenticado.
+     * @return ResponseEntity con los totales del rango y un elemento por intervalo.
+     */
+    @GetMapping("/sales")
+    @PreAuthorize("hasRole('RESTAURANT_OWNER')")
+    @Operation(
+            summary = "Ver las ventas de mi restaurante",
+            description = "Devuelve número de órdenes, ingresos, cancelaciones y tasa de cancelación por hora o por día. " +
+                          "Por defecto, los últimos 30 intervalos. Las órdenes se cuentan en el intervalo en que se " +
+                          "recibieron; los datos se actualizan cada pocos segundos.")
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Informe obtenido exitosamente"
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Granularidad o rango inválidos"
+            )
+    })
+    public ResponseEntity<SalesReportDto> getSalesReport(
+            @Parameter(description = "Granularidad: HOUR o DAY (por defecto DAY)")
+            @RequestParam(required = false) String granularity,
+            @Parameter(description = "Inicio del rango (ISO 8601, ej: 2025-06-01T00:00:00)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @Parameter(description = "Fin del rango, exclusivo (ISO 8601)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @AuthenticationPrincipal AuthenticatedUser user
+    ) {
+        var restaurant = restaurantService.getRestaurantByUserId(user.getId());
+        return ResponseEntity.ok(analyticsService.getSalesReport(restaurant.getId(), granularity, from, to));
+    }
+
+    /**
+     * Obtiene los platos más vendidos del restaurante del propietario.
+     * @param granularity (Opcional) Granularidad con la que se alinea el rango.
+     * @param from (Opcional) Inicio del rango.
+     * @param to (Opcional) Fin del rango (exclusivo).
+     * @param limit (Opcional) Número máximo de platos.
+     * @param user El usuario (propietario) autenticado.
+     * @return ResponseEntity con los platos ordenados por unidades vendidas.
+     */
+    @GetMapping("/top-foods")
+    @PreAuthorize("hasRole('RESTAURANT_OWNER')")
+    @Operation(
+            summary = "Ver los platos más vendidos de mi restaurante",
+            description = "Devuelve las unidades vendidas y los ingresos por plato en el rango, de mayor a menor.")
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Platos obtenidos exitosamente"
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Granularidad, rango o límite inválidos"
+            )
+    })
+    public ResponseEntity<List<FoodSalesDto>> getTopFoods(
+            @Parameter(description = "Granularidad: HOUR o DAY (por defecto DAY)")
+            @RequestParam(required = false) String granularity,
+            @Parameter(description = "Inicio del rango (ISO 8601)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @Parameter(description = "Fin del rango, exclusivo (ISO 8601)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @Parameter(description = "Número máximo de platos")
+            @RequestParam(required = false) Integer limit,
+            @AuthenticationPrincipal AuthenticatedUser user
+    ) {
+        var restaurant = restaurantService.getRestaurantByUserId(user.getId());
+        return ResponseEntity.ok(analyticsService.getTopFoods(restaurant.getId(), granularity, from, to, limit));
+    }
+
+    /**
+     * Agrega de inmediato los cambios de estado pendientes, sin esperar a la ejecución programada.
+     * @return ResponseEntity con el número de eventos agregados.
+     */
+    @PostMapping("/compact")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(
+            summary = "Actualizar los agregados de ventas",
+            description = "Agrega los cambios de estado de órdenes pendientes. La misma tarea se ejecuta de forma programada."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Compactación completada"
+            ),
+            @ApiResponse(
+                    responseCode = "403",
+                    description = "Solo los administradores pueden ejecutar la compactación"
+            )
+    })
+    public ResponseEntity<MessageResponse> compact() {
+        log.info("Solicitud de compactación de los agregados de ventas.");
+        int processed = analyticsCompactionService.compact();
+        return ResponseEntity.ok(MessageResponse.builder()
+                .message("Compactación completada: " + processed + " eventos agregados.")
+                .success(true)
+                .data(processed)
+                .build());
+    }
+}
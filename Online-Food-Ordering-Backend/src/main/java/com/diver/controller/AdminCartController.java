@@ -0,0 +1,65 @@
+package com.diver.controller;
+
+import com.diver.response.MessageResponse;
+import com.diver.service.CartConsistencyService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Controlador REST para tareas de mantenimiento de los carritos (solo administradores).
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/admin/cart")
+@RequiredArgsConstructor
+@Tag(
+        name = "Cart Maintenance (Admin)",
+        description = "Endpoints de mantenimiento de los carritos de compra."
+)
+@SecurityRequirement(name = "bearerAuth")
+public class AdminCartController {
+
+    private final CartConsistencyService cartConsistencyService;
+
+    /**
+     * Recalcula los totales de los carritos desde sus ítems y corrige los que se hayan desviado.
+     *
+     * @return ResponseEntity con el número de carritos corregidos.
+     */
+    @PostMapping("/reconcile")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(
+            summary = "Corregir totales de carritos",
+            description = "Comprueba que el total de cada carrito coincide con la suma de sus ítems " +
+                          "y corrige los que no. La misma comprobación se ejecuta de forma programada."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Comprobación completada"
+            ),
+            @ApiResponse(
+                    responseCode = "403",
+                    description = "Solo los administradores pueden ejecutar la comprobación"
+            )
+    })
+    public ResponseEntity<MessageResponse> reconcileTotals() {
+        log.info("Solicitud de comprobación de consistencia de los totales de carritos.");
+        int repaired = cartConsistencyService.reconcileTotals();
+        return ResponseEntity.ok(MessageResponse.builder()
+                .message("Comprobación completada: " + repaired + " carritos corregidos.")
+                .success(true)
+                .data(repaired)
+                .build());
+    }
+}
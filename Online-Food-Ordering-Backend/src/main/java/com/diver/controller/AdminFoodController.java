@@ -1,8 +1,8 @@
 package com.diver.controller;
 
+import com.diver.dto.AuthenticatedUser;
 import com.diver.dto.FoodDto;
 import com.diver.model.Food;
-import com.diver.model.User;
 import com.diver.request.CreateFoodRequest;
 import com.diver.response.MessageResponse;
 import com.diver.service.FoodService;
@@ -64,7 +64,7 @@ public class AdminFoodController {
     @PreAuthorize("hasRole('RESTAURANT_OWNER')")
     public ResponseEntity<FoodDto> createFood(
             @Valid @RequestBody CreateFoodRequest req,
-            @AuthenticationPrincipal User user
+            @AuthenticationPrincipal AuthenticatedUser user
     ) {
         log.info("Usuario '{}' solicita la creación de un nuevo plato: '{}'", user.getEmail(), req.getName());
 
@@ -96,7 +96,7 @@ public class AdminFoodController {
     public ResponseEntity<MessageResponse> deleteFood(
             @Parameter(description = "ID del plato a eliminar", required = true)
             @PathVariable Long foodId,
-            @AuthenticationPrincipal User user
+            @AuthenticationPrincipal AuthenticatedUser user
     ) {
 
      foodService.deleteFood(foodId, user);
@@ -124,7 +124,7 @@ public class AdminFoodController {
     public ResponseEntity<FoodDto> updateFoodAvailabilityStatus(
             @Parameter(description = "ID del plato a actualizar", required = true)
             @PathVariable Long foodId,
-            @AuthenticationPrincipal User user
+            @AuthenticationPrincipal AuthenticatedUser user
     ) {
         FoodDto updatedFood = foodService.updateAvailabilityStatus(foodId, user);
         return ResponseEntity.ok(updatedFood);
@@ -1,7 +1,15 @@
 package com.diver.controller;
 
+import com.diver.dto.AuthenticatedUser;
+import com.diver.dto.DispatchStatsDto;
+import com.diver.dto.KitchenBoardDto;
 import com.diver.dto.OrderDto;
-import com.diver.model.User;
+import com.diver.dto.OrderPageDto;
+import com.diver.dto.OrderStatusEventDto;
+import com.diver.exception.BadRequestException;
+import com.diver.service.DispatchService;
+import com.diver.service.KitchenBoardService;
+import com.diver.service.OrderEventStreamService;
 import com.diver.service.OrderService;
 import com.diver.service.RestaurantService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -12,10 +20,13 @@ import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 
@@ -35,20 +46,28 @@ public class AdminOrderController {
 
     private final OrderService orderService;
     private final RestaurantService restaurantService; // Para obtener el ID del restaurante del propietario
+    private final OrderEventStreamService orderEventStreamService;
+    private final KitchenBoardService kitchenBoardService;
+    private final DispatchService dispatchService;
 
     /**
      * Actualiza el estado de una orden específica.
+     * Si se envía la cabecera {@code If-Match} con la versión (ETag) leída, el cambio solo se
+     * aplica si la orden no ha cambiado desde entonces.
      * @param orderId El ID de la orden a actualizar.
      * @param orderStatus El nuevo estado para la orden.
+     * @param ifMatch (Opcional) La versión de la orden que el cliente leyó.
      * @param user El usuario (propietario) autenticado.
-     * @return ResponseEntity con el DTO de la orden actualizada.
+     * @return ResponseEntity con el DTO de la orden actualizada y su nueva versión en la cabecera ETag.
      */
     @PutMapping("/{orderId}/{orderStatus}")
     @PreAuthorize("hasRole('RESTAURANT_OWNER')")
     @Operation
             (summary = "Actualizar estado de una orden",
             description = "Permite a un propietario de restaurante cambiar el estado de una orden " +
-                          "(ej: a 'EN_PREPARACION', 'EN_CAMINO', etc.)."
+                          "(ej: a 'EN_PREPARACION', 'EN_CAMINO', etc.). Solo se aceptan las transiciones válidas: " +
+                          "PENDIENTE → EN_PREPARACION → EN_CAMINO → ENTREGADO, y CANCELADO antes de salir a reparto. " +
+                          "Envía la cabecera If-Match con el ETag leído para evitar pisar cambios concurrentes."
             )
     @ApiResponses(value = {
             @ApiResponse(
@@ -62,6 +81,10 @@ public class AdminOrderController {
             @ApiResponse(
                     responseCode = "404",
                     description = "Orden no encontrada"
+            ),
+            @ApiResponse(
+                    responseCode = "409",
+                    description = "La orden ha cambiado desde la versión indicada"
             )
     })
     public ResponseEntity<OrderDto> updateOrderStatus(
@@ -69,12 +92,98 @@ public class AdminOrderController {
             @PathVariable Long orderId,
             @Parameter(description = "Nuevo estado de la orden (ej: EN_PREPARACION, EN_CAMINO, ENTREGADO)", required = true)
             @PathVariable String orderStatus,
-            @AuthenticationPrincipal User user
+            @Parameter(description = "Versión (ETag) de la orden que se leyó")
+            @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @AuthenticationPrincipal AuthenticatedUser user
     ) {
         log.info("Propietario '{}' solicita actualizar el estado de la orden ID {} a '{}'.",
                 user.getEmail(), orderId, orderStatus);
-        OrderDto order = orderService.updateOrderStatus(orderId, orderStatus, user);
-        return ResponseEntity.ok(order);
+        OrderDto order = orderService.updateOrderStatus(orderId, orderStatus, parseVersion(ifMatch), user);
+        return ResponseEntity.ok().eTag(String.valueOf(order.getVersion())).body(order);
+    }
+
+    /**
+     * Obtiene los cambios de estado de las órdenes del restaurante posteriores a un evento dado.
+     * Un panel de cocina guarda el ID del último evento recibido y solo pide lo nuevo.
+     * @param after (Opcional) El ID del último evento recibido.
+     * @param limit (Opcional) Número máximo de eventos.
+     * @param user El usuario (propietario) autenticado.
+     * @return ResponseEntity con los eventos, ordenados por ID.
+     */
+    @GetMapping("/status-events")
+    @PreAuthorize("hasRole('RESTAURANT_OWNER')")
+    @Operation(
+            summary = "Cambios de estado de mi restaurante",
+            description = "Devuelve los cambios de estado de las órdenes del restaurante con ID mayor que 'after'. " +
+                          "Para seguir al día, envía en 'after' el ID del último evento recibido.")
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Eventos obtenidos exitosamente"
+            )
+    })
+    public ResponseEntity<List<OrderStatusEventDto>> getStatusEvents(
+            @Parameter(description = "ID del último evento recibido")
+            @RequestParam(required = false) Long after,
+            @Parameter(description = "Número máximo de eventos")
+            @RequestParam(required = false) Integer limit,
+            @AuthenticationPrincipal AuthenticatedUser user
+    ) {
+        var restaurant = restaurantService.getRestaurantByUserId(user.getId());
+        return ResponseEntity.ok(orderService.findRestaurantStatusEvents(restaurant.getId(), after, limit, user));
+    }
+
+    /**
+     * Abre un canal de Server-Sent Events con los cambios de estado de las órdenes del restaurante
+     * del propietario autenticado.
+     * @param lastEventId (Opcional) El ID del último evento recibido, para recuperar los perdidos al reconectar.
+     * @param user El usuario (propietario) autenticado.
+     * @return El emisor SSE; cada evento 'order-status' lleva el cambio de estado y su ID.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasRole('RESTAURANT_OWNER')")
+    @Operation(
+            summary = "Recibir cambios de estado de mi restaurante (SSE)",
+            description = "Mantiene abierta la conexión y envía un evento 'order-status' por cada orden nueva o cambio " +
+                          "de estado en el restaurante. Al reconectar, envía la cabecera Last-Event-ID para recibir " +
+                          "los eventos perdidos; si llega un evento 'resync', vuelve a consultar las órdenes.")
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Canal de eventos abierto"
+            ),
+            @ApiResponse(
+                    responseCode = "404",
+                    description = "El usuario no tiene restaurante"
+            )
+    })
+    public SseEmitter streamStatusEvents(
+            @Parameter(description = "ID del último evento recibido")
+            @RequestHeader(name = "Last-Event-ID", required = false) Long lastEventId,
+            @AuthenticationPrincipal AuthenticatedUser user
+    ) {
+        log.debug("Propietario '{}' abre el canal de eventos de su restaurante (Last-Event-ID={}).",
+                user.getEmail(), lastEventId);
+        return orderEventStreamService.subscribeRestaurant(user, lastEventId);
+    }
+
+    /**
+     * Convierte el valor de {@code If-Match} (por ejemplo {@code "3"} o {@code W/"3"}) en la versión esperada.
+     */
+    private static Long parseVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String value = ifMatch.trim();
+        if (value.startsWith("W/")) {
+            value = value.substring(2);
+        }
+        value = value.replace("\"", "");
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new BadRequestException("Cabecera If-Match inválida: " + ifMatch);
+        }
     }
 
     /**
@@ -99,11 +208,105 @@ public class AdminOrderController {
     public ResponseEntity<List<OrderDto>> getOrdersHistoryRestaurant(
             @Parameter(description = "Filtrar por estado de la orden (ej: PENDIENTE, EN_PREPARACION)")
             @RequestParam(required = false) String orderStatus,
-            @AuthenticationPrincipal User user
+            @AuthenticationPrincipal AuthenticatedUser user
     ) {
         log.debug("Propietario '{}' solicita las órdenes de su restaurante.", user.getEmail());
         var restaurant = restaurantService.getRestaurantByUserId(user.getId());
         List<OrderDto> orders = orderService.findOrdersByRestaurantId(restaurant.getId(), orderStatus, user);
         return ResponseEntity.ok(orders);
     }
-}
\ No newline at end of file
+
+    /**
+     * Obtiene el tablero de cocina del restaurante del propietario autenticado: sus órdenes activas
+     * agrupadas por estado, de la más antigua a la más reciente. Se sirve desde memoria.
+     * @param user El usuario (propietario) autenticado.
+     * @return ResponseEntity con el tablero de cocina.
+     */
+    @GetMapping("/kitchen")
+    @PreAuthorize("hasRole('RESTAURANT_OWNER')")
+    @Operation(
+            summary = "Ver el tablero de cocina",
+            description = "Devuelve las órdenes activas (PENDIENTE, EN_PREPARACION, EN_CAMINO) del restaurante, " +
+                          "agrupadas por estado y ordenadas por fecha de creación. Sustituye a consultar " +
+                          "repetidamente las órdenes filtradas por estado.")
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Tablero obtenido exitosamente"
+            ),
+            @ApiResponse(
+                    responseCode = "404",
+                    description = "El usuario no tiene restaurante"
+            )
+    })
+    public ResponseEntity<KitchenBoardDto> getKitchenBoard(
+            @AuthenticationPrincipal AuthenticatedUser user
+    ) {
+        return ResponseEntity.ok(kitchenBoardService.getBoard(user));
+    }
+
+    /**
+     * Obtiene el estado del reparto: órdenes esperando repartidor, repartidores libres y ocupados,
+     * y el resultado del último lote de asignación.
+     * @return ResponseEntity con el estado del reparto.
+     */
+    @GetMapping("/dispatch")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(
+            summary = "Ver el estado del reparto",
+            description = "Devuelve cuántas órdenes esperan repartidor, cuántos repartidores están libres u ocupados " +
+                          "y cuántas órdenes asignó el último lote y en cuánto tiempo.")
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Estado obtenido exitosamente"
+            ),
+            @ApiResponse(
+                    responseCode = "403",
+                    description = "Solo los administradores pueden ver el estado del reparto"
+            )
+    })
+    public ResponseEntity<DispatchStatsDto> getDispatchStats() {
+        return ResponseEntity.ok(dispatchService.getStats());
+    }
+
+    /**
+     * Obtiene una página de las órdenes del restaurante del propietario autenticado,
+     * de la más reciente a la más antigua. Permite filtrar por estado.
+     * @param orderStatus (Opcional) El estado por el cual filtrar las órdenes.
+     * @param cursor (Opcional) El cursor {@code next} devuelto por la página anterior.
+     * @param size (Opcional) Tamaño de página; se acota al máximo configurado.
+     * @param user El usuario (propietario) autenticado.
+     * @return ResponseEntity con la página de órdenes y el cursor de la siguiente.
+     */
+    @GetMapping("/history")
+    @PreAuthorize("hasRole('RESTAURANT_OWNER')")
+    @Operation(
+            summary = "Ver órdenes de mi restaurante (paginado)",
+            description = "Devuelve las órdenes del restaurante paginadas por cursor, con filtro opcional por estado. " +
+                          "Para obtener la siguiente página, envía el valor 'next' en el parámetro 'cursor'.")
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Página de órdenes obtenida exitosamente"
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Cursor inválido"
+            )
+    })
+    public ResponseEntity<OrderPageDto> getOrdersHistoryRestaurantPage(
+            @Parameter(description = "Filtrar por estado de la orden (ej: PENDIENTE, EN_PREPARACION)")
+            @RequestParam(required = false) String orderStatus,
+            @Parameter(description = "Cursor de la página anterior (campo 'next')")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Tamaño de página")
+            @RequestParam(required = false) Integer size,
+            @AuthenticationPrincipal AuthenticatedUser user
+    ) {
+        log.debug("Propietario '{}' solicita una página de las órdenes de su restaurante.", user.getEmail());
+        var restaurant = restaurantService.getRestaurantByUserId(user.getId());
+        OrderPageDto page = orderService.findOrdersByRestaurantId(restaurant.getId(), orderStatus, user, cursor, size);
+        return ResponseEntity.ok(page);
+    }
+}
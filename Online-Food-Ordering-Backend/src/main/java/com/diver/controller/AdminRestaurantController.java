@@ -3,10 +3,8 @@ package com.diver.controller;
 import com.diver.dto.AuthenticatedUser;
 import com.diver.dto.RestaurantDto;
 import com.diver.model.Restaurant;
-import com.diver.model.User;
 import com.diver.request.CreateRestaurantRequest;
 import com.diver.service.RestaurantService;
-import com.diver.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -49,7 +47,6 @@ import org.springframework.web.bind.annotation.*;
 public class AdminRestaurantController {
 
     private final RestaurantService restaurantService;
-    private final UserService userService;
 
     /**
      * Crea un nuevo restaurante en el sistema.
@@ -92,12 +89,11 @@ public class AdminRestaurantController {
     @PreAuthorize("hasRole('ADMIN') or hasRole('RESTAURANT_OWNER')")
     public ResponseEntity<RestaurantDto> createRestaurant(
             @Valid @RequestBody CreateRestaurantRequest req,
-            @AuthenticationPrincipal User user
+            @AuthenticationPrincipal AuthenticatedUser user
             ) {
         log.info("Usuario '{}' solicita la creación de un restaurante con nombre '{}'.",
                 user.getEmail(), req.getName());
-        User owner = userService.findUserById( user.getId() );
-        RestaurantDto restaurant = restaurantService.createRestaurant(req, owner);
+        RestaurantDto restaurant = restaurantService.createRestaurant(req, user);
         return new ResponseEntity<>(restaurant, HttpStatus.CREATED);
     }
 
@@ -140,7 +136,7 @@ public class AdminRestaurantController {
             @Parameter(description = "ID del restaurante a actualizar", required = true, example = "1")
             @PathVariable Long id,
             @Valid @RequestBody CreateRestaurantRequest req,
-            @AuthenticationPrincipal User user
+            @AuthenticationPrincipal AuthenticatedUser user
     ) {
         log.info("Usuario '{}' solicita la actualización del restaurante con ID {}.", user.getEmail(), id);
         Restaurant updatedRestaurant = restaurantService.updateRestaurant(id, req, user);
@@ -177,7 +173,7 @@ public class AdminRestaurantController {
     public ResponseEntity<Void> deleteRestaurant(
             @Parameter(description = "ID del restaurante a eliminar", required = true, example = "1")
             @PathVariable Long id,
-            @AuthenticationPrincipal User user
+            @AuthenticationPrincipal AuthenticatedUser user
     ) {
         log.warn("Usuario '{}' solicita la eliminación del restaurante con ID {}. ¡Acción crítica!", user.getEmail(), id);
         restaurantService.deleteRestaurant(id, user);
@@ -215,7 +211,7 @@ public class AdminRestaurantController {
             @Parameter(description = "ID del restaurante para cambiar su estado", required = true, example = "1")
 
             @PathVariable Long id,
-            @AuthenticationPrincipal User user
+            @AuthenticationPrincipal AuthenticatedUser user
     ) {
         log.info("Usuario '{}' solicita cambiar el estado del restaurante con ID {}.", user.getEmail(), id);
         RestaurantDto restaurant = restaurantService.updateRestaurantStatus(id, user);
@@ -253,7 +249,7 @@ public class AdminRestaurantController {
     @GetMapping("/my-restaurant")
     @PreAuthorize("hasRole('ADMIN') or hasRole('RESTAURANT_OWNER')")
     public ResponseEntity<Restaurant> getRestaurantByUserId(
-            @AuthenticationPrincipal User user
+            @AuthenticationPrincipal AuthenticatedUser user
     ) {
         log.debug("Usuario '{}' solicita los datos de su propio restaurante.", user.getEmail());
         Restaurant restaurant = restaurantService.getRestaurantByUserId(user.getId());
@@ -1,8 +1,9 @@
 package com.diver.controller;
 
+import com.diver.dto.AuthenticatedUser;
 import com.diver.dto.CartDto;
-import com.diver.model.User;
 import com.diver.request.AddCartItemRequest;
+import com.diver.request.CartBatchRequest;
 import com.diver.request.UpdateCartItemRequest;
 import com.diver.service.CartService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -34,7 +35,7 @@ public class CartController {
             description = "Añade un plato de comida al carrito del usuario. Si el plato ya existe, incrementa su cantidad.")
     public ResponseEntity<CartDto> addItemToCart(
             @Valid @RequestBody AddCartItemRequest req, // <-- ¡CORREGIDO!
-            @AuthenticationPrincipal User user
+            @AuthenticationPrincipal AuthenticatedUser user
     ) {
         log.info("Usuario '{}' solicita añadir el plato ID {} (cantidad: {}) a su carrito.",
                 user.getEmail(), req.getFoodId(), req.getQuantity());
@@ -49,7 +50,7 @@ public class CartController {
     )
     public ResponseEntity<CartDto> updateCartItemQuantity(
             @Valid @RequestBody UpdateCartItemRequest req,
-            @AuthenticationPrincipal User user
+            @AuthenticationPrincipal AuthenticatedUser user
     ) {
         log.info("Usuario '{}' solicita actualizar la cantidad del ítem de carrito ID {} a {}.",
                 user.getEmail(), req.getCartItemId(), req.getQuantity());
@@ -62,16 +63,31 @@ public class CartController {
     public ResponseEntity<CartDto> removeItemFromCart(
             @Parameter(description = "ID del ítem del carrito a eliminar", required = true)
             @PathVariable Long cartItemId,
-            @AuthenticationPrincipal User user
+            @AuthenticationPrincipal AuthenticatedUser user
     ) {
         log.warn("Usuario '{}' solicita eliminar el ítem de carrito ID {}.", user.getEmail(), cartItemId);
         CartDto cart = cartService.removeItemFromCart(cartItemId, user);
         return ResponseEntity.ok(cart);
     }
 
+    @PostMapping("/batch")
+    @Operation(summary = "Aplicar varios cambios al carrito",
+            description = "Aplica en orden una lista de operaciones ADD, UPDATE y REMOVE en una sola transacción " +
+                    "y devuelve el carrito resultante. Si alguna operación falla, no se aplica ninguna."
+    )
+    public ResponseEntity<CartDto> applyBatch(
+            @Valid @RequestBody CartBatchRequest req,
+            @AuthenticationPrincipal AuthenticatedUser user
+    ) {
+        log.info("Usuario '{}' solicita aplicar un lote de {} operaciones a su carrito.",
+                user.getEmail(), req.getOperations().size());
+        CartDto cart = cartService.applyBatch(req.getOperations(), user);
+        return ResponseEntity.ok(cart);
+    }
+
     @GetMapping
     @Operation(summary = "Obtener el carrito del usuario")
-    public ResponseEntity<CartDto> findCartByUserId(@AuthenticationPrincipal User user) {
+    public ResponseEntity<CartDto> findCartByUserId(@AuthenticationPrincipal AuthenticatedUser user) {
         log.info("Usuario '{}' solicita consultar su carrito.", user.getEmail());
         CartDto cart = cartService.findCartByUserId(user);
         return ResponseEntity.ok(cart);
@@ -80,7 +96,7 @@ public class CartController {
     @DeleteMapping("/clear")
     @Operation(summary = "Vaciar el carrito",
             description = "Elimina todos los ítems del carrito del usuario.")
-    public ResponseEntity<CartDto> clearCart(@AuthenticationPrincipal User user) {
+    public ResponseEntity<CartDto> clearCart(@AuthenticationPrincipal AuthenticatedUser user) {
         log.warn("Usuario '{}' solicita vaciar su carrito por completo.", user.getEmail());
         CartDto cart = cartService.clearCart(user);
         return ResponseEntity.ok(cart);
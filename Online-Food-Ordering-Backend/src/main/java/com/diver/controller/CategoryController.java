@@ -1,7 +1,7 @@
 package com.diver.controller;
 
+import com.diver.dto.AuthenticatedUser;
 import com.diver.dto.CategoryDto;
-import com.diver.model.User;
 import com.diver.request.CreateCategoryRequest; // DTO específico para la petición
 import com.diver.service.CategoryService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -48,7 +48,7 @@ public class CategoryController {
     public ResponseEntity<CategoryDto> createCategory(
             // Usamos el DTO de petición correcto, que solo pide el 'name'
             @Valid @RequestBody CreateCategoryRequest request,
-            @AuthenticationPrincipal User user
+            @AuthenticationPrincipal AuthenticatedUser user
     ) {
         log.info("Usuario '{}' solicita crear una nueva categoría: '{}'.", user.getEmail(), request.getName());
 
@@ -77,7 +77,7 @@ public class CategoryController {
     )
     @PreAuthorize("hasRole('RESTAURANT_OWNER')")
     public ResponseEntity<List<CategoryDto>> getMyRestaurantCategories(
-            @AuthenticationPrincipal User user
+            @AuthenticationPrincipal AuthenticatedUser user
     ) {
         log.debug("Propietario '{}' solicita las categorías de su restaurante.", user.getEmail());
 
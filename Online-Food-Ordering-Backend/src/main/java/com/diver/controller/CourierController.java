@@ -0,0 +1,93 @@
+package com.diver.controller;
+
+import com.diver.dto.AuthenticatedUser;
+import com.diver.dto.CourierAssignmentDto;
+import com.diver.request.CourierLocationRequest;
+import com.diver.service.DispatchService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Controlador REST para los repartidores: envío de ubicación y consulta de la orden asignada.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/courier")
+@RequiredArgsConstructor
+@Tag(
+        name = "Courier Operations",
+        description = "Endpoints para que los repartidores reciban órdenes."
+)
+@SecurityRequirement(name = "bearerAuth")
+public class CourierController {
+
+    private final DispatchService dispatchService;
+
+    /**
+     * Registra la ubicación y la disponibilidad del repartidor autenticado.
+     * @param request La ubicación y la disponibilidad.
+     * @param user El repartidor autenticado.
+     * @return ResponseEntity vacío.
+     */
+    @PutMapping("/location")
+    @PreAuthorize("hasRole('COURIER')")
+    @Operation(
+            summary = "Enviar mi ubicación",
+            description = "Actualiza la ubicación y la disponibilidad del repartidor. Debe enviarse periódicamente: " +
+                          "un repartidor libre que deja de enviarla durante unos minutos deja de recibir órdenes.")
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "204",
+                    description = "Ubicación registrada"
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Coordenadas inválidas"
+            )
+    })
+    public ResponseEntity<Void> updateLocation(
+            @Valid @RequestBody CourierLocationRequest request,
+            @AuthenticationPrincipal AuthenticatedUser user
+    ) {
+        dispatchService.updateLocation(user, request);
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Obtiene la orden asignada al repartidor autenticado.
+     * @param user El repartidor autenticado.
+     * @return ResponseEntity con la orden asignada, o 204 si no tiene ninguna.
+     */
+    @GetMapping("/assignment")
+    @PreAuthorize("hasRole('COURIER')")
+    @Operation(
+            summary = "Ver mi orden asignada",
+            description = "Devuelve la orden en curso del repartidor con sus puntos de recogida y entrega.")
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Orden asignada"
+            ),
+            @ApiResponse(
+                    responseCode = "204",
+                    description = "El repartidor no tiene ninguna orden asignada"
+            )
+    })
+    public ResponseEntity<CourierAssignmentDto> getCurrentAssignment(
+            @AuthenticationPrincipal AuthenticatedUser user
+    ) {
+        return dispatchService.getCurrentAssignment(user)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.noContent().build());
+    }
+}
@@ -1,7 +1,12 @@
 package com.diver.controller;
 
 import com.diver.dto.FoodDto;
+import com.diver.dto.MenuSnapshot;
+import com.diver.dto.PopularFoodDto;
+import com.diver.request.MenuFilterRequest;
 import com.diver.service.FoodService;
+import com.diver.service.MenuSnapshotService;
+import com.diver.service.PopularFoodService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -9,8 +14,11 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -30,51 +38,76 @@ import java.util.List;
 public class FoodController {
 
     private final FoodService foodService;
+    private final MenuSnapshotService menuSnapshotService;
+    private final PopularFoodService popularFoodService;
 
     /**
      * Busca platos en toda la plataforma por una palabra clave.
      *
-     * @param keyword La palabra clave para buscar en el nombre o categoría del plato.
+     * @param keyword La palabra clave para buscar en el nombre, descripción, categoría o restaurante del plato.
+     * @param page    El número de página (empezando en 0).
+     * @param size    El tamaño de página.
      * @return Un ResponseEntity con una lista de DTOs de los platos encontrados.
      */
     @Operation(
             summary = "Buscar platos",
-            description = "Busca platos en todos los restaurantes por una palabra clave."
+            description = "Busca platos en todos los restaurantes por una palabra clave. " +
+                          "Ignora acentos, admite prefijos y pequeñas erratas, y ordena por relevancia."
     )
     @ApiResponses(value = {
             @ApiResponse(
                     responseCode = "200",
-                    description = "Búsqueda exitosa")
+                    description = "Búsqueda exitosa"),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Parámetros de paginación inválidos")
     })
     @GetMapping("/search")
     public ResponseEntity<List<FoodDto>> searchFood(
             @Parameter(description = "Palabra clave para la búsqueda", required = true, example = "pizza")
-            @RequestParam String keyword
+            @RequestParam String keyword,
+            @Parameter(description = "Número de página (empezando en 0)", example = "0")
+            @RequestParam(required = false) Integer page,
+            @Parameter(description = "Tamaño de página", example = "20")
+            @RequestParam(required = false) Integer size
     ) {
         log.debug("Búsqueda pública de platos con la palabra clave: '{}'", keyword);
-        List<FoodDto> foods = foodService.searchFood(keyword);
+        List<FoodDto> foods = foodService.searchFood(keyword, page, size);
         return ResponseEntity.ok(foods);
     }
 
     /**
      * Obtiene los platos de un restaurante específico, con opciones de filtrado.
+     * <p>
+     * Sin filtros ni ordenación, el menú se sirve desde una instantánea precalculada con un
+     * ETag fuerte; si el cliente envía {@code If-None-Match} con el ETag vigente se responde 304.
+     * Las consultas filtradas se resuelven contra la base de datos.
      *
      * @param restaurantId El ID del restaurante cuyo menú se desea ver.
      * @param vegetarian   Filtro opcional para platos vegetarianos.
      * @param seasonal     Filtro opcional para platos de temporada.
      * @param nonveg       Filtro opcional para platos no vegetarianos.
      * @param food_category Filtro opcional por nombre de categoría.
+     * @param available    Filtro opcional por disponibilidad.
+     * @param sort         Campo de ordenación opcional (name, price, creationDate).
+     * @param direction    Dirección de ordenación opcional (asc, desc).
+     * @param includeIngredients Si se deben incluir los ingredientes de cada plato.
+     * @param webRequest   La petición actual, para evaluar las cabeceras condicionales.
      * @return Un ResponseEntity con la lista de platos filtrada.
      */
     @Operation
             (summary = "Obtener menú de un restaurante",
-            description = "Devuelve la lista de platos de un restaurante, con filtros opcionales.")
+            description = "Devuelve la lista de platos de un restaurante, con filtros y ordenación opcionales. " +
+                          "Los ingredientes solo se incluyen si se pide con includeIngredients=true. " +
+                          "El menú sin filtros lleva ETag y admite If-None-Match.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Menú obtenido exitosamente"),
+            @ApiResponse(responseCode = "304", description = "El menú no ha cambiado desde el ETag enviado"),
+            @ApiResponse(responseCode = "400", description = "Parámetros de ordenación inválidos"),
             @ApiResponse(responseCode = "404", description = "Restaurante no encontrado")
     })
     @GetMapping("/restaurant/{restaurantId}")
-    public ResponseEntity<List<FoodDto>> getRestaurantFood(
+    public ResponseEntity<?> getRestaurantFood(
             @Parameter(description = "ID del restaurante", required = true, example = "1")
             @PathVariable Long restaurantId,
 
@@ -88,13 +121,74 @@ public class FoodController {
             @RequestParam(required = false) Boolean nonveg,
 
             @Parameter(description = "Filtrar por nombre de categoría", example = "Pizzas")
-            @RequestParam(required = false) String food_category
+            @RequestParam(required = false) String food_category,
+            @Parameter(description = "Filtrar por platos disponibles")
+            @RequestParam(required = false) Boolean available,
+            @Parameter(description = "Campo de ordenación (name, price, creationDate)", example = "price")
+            @RequestParam(required = false) String sort,
+            @Parameter(description = "Dirección de ordenación (asc, desc)", example = "asc")
+            @RequestParam(required = false) String direction,
+            @Parameter(description = "Incluir los ingredientes de cada plato")
+            @RequestParam(defaultValue = "false") boolean includeIngredients,
+            WebRequest webRequest
     ) {
         log.debug("Solicitud de menú para el restaurante ID: {}", restaurantId);
-        List<FoodDto> foods = foodService.getRestaurantFoods(restaurantId, vegetarian, nonveg, seasonal, food_category);
+        MenuFilterRequest filter = new MenuFilterRequest();
+        filter.setVegetarian(vegetarian);
+        filter.setNonVeg(nonveg);
+        filter.setSeasonal(seasonal);
+        filter.setCategory(food_category);
+        filter.setAvailable(available);
+        filter.setSortBy(sort);
+        filter.setDirection(direction);
+        filter.setIncludeIngredients(includeIngredients);
+
+        if (filter.isUnfiltered()) {
+            MenuSnapshot snapshot = menuSnapshotService.getMenu(restaurantId);
+            String etag = snapshot.etag(includeIngredients);
+            if (webRequest.checkNotModified(etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+            }
+            return ResponseEntity.ok()
+                    .eTag(etag)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(snapshot.body(includeIngredients));
+        }
+
+        List<FoodDto> foods = foodService.getRestaurantFoods(restaurantId, filter);
         return ResponseEntity.ok(foods);
     }
 
+    /**
+     * Obtiene los platos más pedidos recientemente de un restaurante, de una ciudad o de toda la plataforma.
+     *
+     * @param restaurantId (Opcional) El ID del restaurante.
+     * @param city         (Opcional) La ciudad.
+     * @param limit        (Opcional) Número máximo de platos.
+     * @return Un ResponseEntity con los platos ordenados por popularidad.
+     */
+    @Operation(
+            summary = "Platos populares",
+            description = "Devuelve los platos más pedidos recientemente (los pedidos antiguos pesan menos) " +
+                          "de un restaurante, de una ciudad o, sin filtros, de toda la plataforma. " +
+                          "Se sirve desde memoria y se actualiza cada pocos segundos."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Platos obtenidos exitosamente"),
+            @ApiResponse(responseCode = "400", description = "Límite inválido")
+    })
+    @GetMapping("/popular")
+    public ResponseEntity<List<PopularFoodDto>> getPopularFoods(
+            @Parameter(description = "ID del restaurante", example = "1")
+            @RequestParam(required = false) Long restaurantId,
+            @Parameter(description = "Ciudad", example = "Madrid")
+            @RequestParam(required = false) String city,
+            @Parameter(description = "Número máximo de platos", example = "10")
+            @RequestParam(required = false) Integer limit
+    ) {
+        return ResponseEntity.ok(popularFoodService.getPopular(restaurantId, city, limit));
+    }
+
     /**
      * Obtiene los detalles de un plato de comida específico por su ID.
      *
@@ -1,8 +1,8 @@
 package com.diver.controller;
 
+import com.diver.dto.AuthenticatedUser;
 import com.diver.dto.IngredientCategoryDto;
 import com.diver.dto.IngredientItemDto;
-import com.diver.model.User;
 import com.diver.request.IngredientCategoryRequest;
 import com.diver.request.IngredientItemRequest;
 import com.diver.service.IngredientsService;
@@ -82,7 +82,7 @@ public class IngredientController {
     })
     public ResponseEntity<IngredientCategoryDto> createIngredientCategory(
             @Valid @RequestBody IngredientCategoryRequest request,
-            @AuthenticationPrincipal User user
+            @AuthenticationPrincipal AuthenticatedUser user
     ) {
         IngredientCategoryDto response = ingredientsService.createIngredientCategory(
                 request.getName(), request.getRestaurantId(), user
@@ -186,7 +186,7 @@ public class IngredientController {
     })
     public ResponseEntity<IngredientItemDto> createIngredientItem(
             @Valid @RequestBody IngredientItemRequest request,
-            @AuthenticationPrincipal User user
+            @AuthenticationPrincipal AuthenticatedUser user
     ) {
         IngredientItemDto response = ingredientsService.createIngredientItem(
                 request.getName(), request.getRestaurantId(), request.getCategoryId(), user
@@ -258,7 +258,7 @@ public class IngredientController {
     public ResponseEntity<IngredientItemDto> updateIngredientStock(
             @Parameter(description = "ID del ingrediente a actualizar")
             @PathVariable Long ingredientId,
-            @AuthenticationPrincipal User user
+            @AuthenticationPrincipal AuthenticatedUser user
     ) {
         log.info("Usuario '{}' solicita actualizar stock del ingrediente ID: {}", user.getEmail(), ingredientId);
         IngredientItemDto response = ingredientsService.updateStock(ingredientId, user);
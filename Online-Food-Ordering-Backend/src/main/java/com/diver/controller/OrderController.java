@@ -1,8 +1,15 @@
 package com.diver.controller;
 
+import com.diver.dto.AuthenticatedUser;
 import com.diver.dto.OrderDto;
-import com.diver.model.User;
+import com.diver.dto.OrderIntakeDto;
+import com.diver.dto.OrderPageDto;
+import com.diver.dto.OrderStatusDto;
+import com.diver.dto.OrderStatusEventDto;
 import com.diver.request.OrderRequest;
+import com.diver.service.IdempotencyService;
+import com.diver.service.OrderEventStreamService;
+import com.diver.service.OrderIntakeService;
 import com.diver.service.OrderService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -14,10 +21,13 @@ import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.net.URI;
 import java.util.List;
 
 /**
@@ -34,11 +44,23 @@ import java.util.List;
 @SecurityRequirement(name = "bearerAuth")
 public class OrderController {
 
+    /** Ámbitos de idempotencia: la orden síncrona y la solicitud asíncrona devuelven tipos distintos. */
+    private static final String ORDER_SCOPE = "order";
+    private static final String ORDER_INTAKE_SCOPE = "order-intake";
+
     private final OrderService orderService;
+    private final IdempotencyService idempotencyService;
+    private final OrderIntakeService orderIntakeService;
+    private final OrderEventStreamService orderEventStreamService;
 
     /**
      * Crea una nueva orden a partir del carrito del usuario autenticado.
+     * <p>
+     * Si la petición trae la cabecera {@code Idempotency-Key}, los reintentos con la misma clave
+     * devuelven la orden creada originalmente (con la cabecera {@code Idempotent-Replayed: true})
+     * en lugar de crear otra.
      * @param req El DTO de la petición con el ID del restaurante y el ID de la dirección de entrega.
+     * @param idempotencyKey (Opcional) Clave única generada por el cliente para este intento de compra.
      * @param user El usuario cliente autenticado.
      * @return ResponseEntity con el DTO de la orden creada y estado 201 Created.
      */
@@ -51,19 +73,93 @@ public class OrderController {
     @ApiResponses(value = {
             @ApiResponse(responseCode = "201", description = "Orden creada exitosamente"),
             @ApiResponse(responseCode = "400", description = "Carrito vacío o datos inválidos"),
-            @ApiResponse(responseCode = "404", description = "Restaurante o dirección no encontrados")
+            @ApiResponse(responseCode = "404", description = "Restaurante o dirección no encontrados"),
+            @ApiResponse(responseCode = "409", description = "La clave de idempotencia ya se usó con otra petición")
     })
     public ResponseEntity<OrderDto> createOrder(
             @Valid @RequestBody OrderRequest req,
-            @AuthenticationPrincipal User user
+            @Parameter(description = "Clave única del intento de compra; los reintentos con la misma clave " +
+                                     "devuelven la orden original")
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+            @AuthenticationPrincipal AuthenticatedUser user
     ) {
         log.info("Usuario '{}' está creando una nueva orden.", user.getEmail());
-        OrderDto order = orderService.createOrder(req, user);
-        return new ResponseEntity<>(order, HttpStatus.CREATED);
+        if (idempotencyKey == null) {
+            OrderDto order = orderService.createOrder(req, user);
+            return new ResponseEntity<>(order, HttpStatus.CREATED);
+        }
+        IdempotencyService.Outcome<OrderDto> outcome = idempotencyService.execute(
+                ORDER_SCOPE, user.getId(), idempotencyKey, req, () -> orderService.createOrder(req, user));
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .header("Idempotent-Replayed", String.valueOf(outcome.replayed()))
+                .body(outcome.value());
+    }
+
+    /**
+     * Acepta una orden para crearla en segundo plano y responde de inmediato con un identificador
+     * de seguimiento. Los ítems del carrito se reservan en la solicitud y el carrito se vacía.
+     * Admite la cabecera {@code Idempotency-Key} igual que la creación síncrona.
+     * @param req El DTO de la petición con el ID del restaurante y la dirección de entrega.
+     * @param idempotencyKey (Opcional) Clave única generada por el cliente para este intento de compra.
+     * @param user El usuario cliente autenticado.
+     * @return ResponseEntity con el estado de la solicitud y estado 202 Accepted.
+     */
+    @PostMapping("/async")
+    @Operation(
+            summary = "Crear una orden de forma asíncrona",
+            description = "Valida la petición, la encola y responde con un 'trackingId'. La orden se crea " +
+                          "en segundo plano; su estado se consulta en GET /api/order/intake/{trackingId}."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Orden aceptada y encolada"),
+            @ApiResponse(responseCode = "404", description = "Restaurante no encontrado"),
+            @ApiResponse(responseCode = "409", description = "Carrito vacío o clave de idempotencia ya usada con otra petición")
+    })
+    public ResponseEntity<OrderIntakeDto> createOrderAsync(
+            @Valid @RequestBody OrderRequest req,
+            @Parameter(description = "Clave única del intento de compra; los reintentos con la misma clave " +
+                                     "devuelven la solicitud original")
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+            @AuthenticationPrincipal AuthenticatedUser user
+    ) {
+        log.info("Usuario '{}' está enviando una orden asíncrona.", user.getEmail());
+        IdempotencyService.Outcome<OrderIntakeDto> outcome = idempotencyKey == null
+                ? new IdempotencyService.Outcome<>(orderIntakeService.accept(req, user), false)
+                : idempotencyService.execute(ORDER_INTAKE_SCOPE, user.getId(), idempotencyKey, req,
+                        () -> orderIntakeService.accept(req, user));
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .location(URI.create("/api/order/intake/" + outcome.value().getTrackingId()))
+                .header("Idempotent-Replayed", String.valueOf(outcome.replayed()))
+                .body(outcome.value());
+    }
+
+    /**
+     * Consulta el estado de una orden enviada de forma asíncrona.
+     * @param trackingId El identificador devuelto al aceptar la orden.
+     * @param user El usuario cliente autenticado.
+     * @return ResponseEntity con el estado de la solicitud y, si ya se creó, el ID de la orden.
+     */
+    @GetMapping("/intake/{trackingId}")
+    @Operation(summary = "Consultar una orden asíncrona",
+            description = "Devuelve el estado (PENDING, PROCESSING, COMPLETED o FAILED) de una orden enviada " +
+                          "con POST /api/order/async y, cuando está completada, el ID de la orden creada.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Estado obtenido exitosamente"),
+            @ApiResponse(responseCode = "404", description = "Solicitud no encontrada")
+    })
+    public ResponseEntity<OrderIntakeDto> getOrderIntake(
+            @Parameter(description = "Identificador de seguimiento", required = true)
+            @PathVariable String trackingId,
+            @AuthenticationPrincipal AuthenticatedUser user
+    ) {
+        return ResponseEntity.ok(orderIntakeService.findByTrackingId(trackingId, user));
     }
 
     /**
      * Obtiene el historial de órdenes del usuario autenticado.
+     * <p>
+     * Devuelve el historial completo sin paginar; para clientes con muchas órdenes
+     * se recomienda usar {@code GET /api/order/history}.
      * @param user El usuario cliente autenticado.
      * @return ResponseEntity con una lista de DTOs de las órdenes del usuario.
      */
@@ -74,13 +170,109 @@ public class OrderController {
             @ApiResponse(responseCode = "200", description = "Historial de órdenes obtenido exitosamente")
     })
     public ResponseEntity<List<OrderDto>> getOrderHistoryUser(
-            @AuthenticationPrincipal User user
+            @AuthenticationPrincipal AuthenticatedUser user
     ) {
         log.debug("Usuario '{}' solicita su historial de órdenes.", user.getEmail());
         List<OrderDto> orders = orderService.findOrdersByUserId(user);
         return ResponseEntity.ok(orders);
     }
 
+    /**
+     * Obtiene una página del historial de órdenes del usuario autenticado, de la más reciente a la más antigua.
+     * @param cursor (Opcional) El cursor {@code next} devuelto por la página anterior.
+     * @param size (Opcional) Tamaño de página; se acota al máximo configurado.
+     * @param user El usuario cliente autenticado.
+     * @return ResponseEntity con la página de órdenes y el cursor de la siguiente.
+     */
+    @GetMapping("/history")
+    @Operation(summary = "Ver mi historial de órdenes (paginado)",
+            description = "Devuelve el historial paginado por cursor. Para obtener la siguiente página, " +
+                          "envía el valor 'next' de la respuesta en el parámetro 'cursor'.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Página del historial obtenida exitosamente"),
+            @ApiResponse(responseCode = "400", description = "Cursor inválido")
+    })
+    public ResponseEntity<OrderPageDto> getOrderHistoryPage(
+            @Parameter(description = "Cursor de la página anterior (campo 'next')")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Tamaño de página")
+            @RequestParam(required = false) Integer size,
+            @AuthenticationPrincipal AuthenticatedUser user
+    ) {
+        log.debug("Usuario '{}' solicita una página de su historial de órdenes.", user.getEmail());
+        OrderPageDto page = orderService.findOrdersByUserId(user, cursor, size);
+        return ResponseEntity.ok(page);
+    }
+
+    /**
+     * Abre un canal de Server-Sent Events con los cambios de estado de las órdenes del usuario.
+     * @param lastEventId (Opcional) El ID del último evento recibido, para recuperar los perdidos al reconectar.
+     * @param user El usuario cliente autenticado.
+     * @return El emisor SSE; cada evento 'order-status' lleva el cambio de estado y su ID.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Recibir cambios de estado de mis órdenes (SSE)",
+            description = "Mantiene abierta la conexión y envía un evento 'order-status' por cada creación o cambio " +
+                          "de estado de las órdenes del usuario. Al reconectar, envía la cabecera Last-Event-ID " +
+                          "para recibir los eventos perdidos; si llega un evento 'resync', vuelve a consultar las órdenes.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Canal de eventos abierto")
+    })
+    public SseEmitter streamOrderEvents(
+            @Parameter(description = "ID del último evento recibido")
+            @RequestHeader(name = "Last-Event-ID", required = false) Long lastEventId,
+            @AuthenticationPrincipal AuthenticatedUser user
+    ) {
+        log.debug("Usuario '{}' abre el canal de eventos de sus órdenes (Last-Event-ID={}).", user.getEmail(), lastEventId);
+        return orderEventStreamService.subscribeCustomer(user, lastEventId);
+    }
+
+    /**
+     * Obtiene el estado actual de una orden del usuario (o de su restaurante, si es el propietario).
+     * @param orderId El ID de la orden.
+     * @param user El usuario autenticado.
+     * @return ResponseEntity con el estado, la versión y los estados siguientes posibles.
+     */
+    @GetMapping("/{orderId}/status")
+    @Operation(summary = "Consultar el estado de una orden",
+            description = "Devuelve el estado actual de la orden, su versión (también en la cabecera ETag) " +
+                          "y los estados a los que puede pasar. No carga los ítems de la orden.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Estado obtenido exitosamente"),
+            @ApiResponse(responseCode = "403", description = "No tienes permiso para ver esta orden"),
+            @ApiResponse(responseCode = "404", description = "Orden no encontrada")
+    })
+    public ResponseEntity<OrderStatusDto> getOrderStatus(
+            @Parameter(description = "ID de la orden", required = true)
+            @PathVariable Long orderId,
+            @AuthenticationPrincipal AuthenticatedUser user
+    ) {
+        OrderStatusDto status = orderService.getOrderStatus(orderId, user);
+        return ResponseEntity.ok().eTag(String.valueOf(status.getVersion())).body(status);
+    }
+
+    /**
+     * Obtiene el historial de cambios de estado de una orden.
+     * @param orderId El ID de la orden.
+     * @param user El usuario autenticado.
+     * @return ResponseEntity con los cambios de estado, del más antiguo al más reciente.
+     */
+    @GetMapping("/{orderId}/status/history")
+    @Operation(summary = "Historial de estados de una orden",
+            description = "Devuelve todos los cambios de estado de la orden, con quién y cuándo los hizo.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Historial obtenido exitosamente"),
+            @ApiResponse(responseCode = "403", description = "No tienes permiso para ver esta orden"),
+            @ApiResponse(responseCode = "404", description = "Orden no encontrada")
+    })
+    public ResponseEntity<List<OrderStatusEventDto>> getOrderStatusHistory(
+            @Parameter(description = "ID de la orden", required = true)
+            @PathVariable Long orderId,
+            @AuthenticationPrincipal AuthenticatedUser user
+    ) {
+        return ResponseEntity.ok(orderService.getOrderStatusHistory(orderId, user));
+    }
+
     /**
      * Cancela una orden específica del usuario.
      * La lógica de negocio en el servicio previene la cancelación de órdenes que ya no están pendientes.
@@ -102,12 +294,15 @@ public class OrderController {
             ),
             @ApiResponse(
                     responseCode = "404",
-                    description = "Orden no encontrada")
+                    description = "Orden no encontrada"),
+            @ApiResponse(
+                    responseCode = "409",
+                    description = "La orden fue modificada al mismo tiempo por otra petición")
     })
     public ResponseEntity<Void> cancelMyOrder(
             @Parameter(description = "ID de la orden a cancelar", required = true)
             @PathVariable Long orderId,
-            @AuthenticationPrincipal User user
+            @AuthenticationPrincipal AuthenticatedUser user
     ) {
         log.warn("Usuario '{}' solicita la cancelación de la orden ID {}.", user.getEmail(), orderId);
         // El método del servicio se llama `cancelOrder`, pero la acción real es cambiar el estado.
@@ -2,8 +2,10 @@ package com.diver.controller;
 
 import com.diver.dto.AdddToFavoritesDto;
 
+import com.diver.dto.AuthenticatedUser;
+import com.diver.dto.NearbyRestaurantDto;
 import com.diver.model.Restaurant;
-import com.diver.model.User;
+import com.diver.service.NearbyRestaurantService;
 import com.diver.service.RestaurantService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -43,6 +45,7 @@ import java.util.List;
 public class RestaurantController {
 
     private final RestaurantService restaurantService;
+    private final NearbyRestaurantService nearbyRestaurantService;
 
     /**
      * Busca restaurantes basados en una palabra clave.
@@ -51,9 +54,12 @@ public class RestaurantController {
      * coincidan con el término de búsqueda proporcionado.
      *
      * @param keyword La palabra clave para filtrar los restaurantes.
+     * @param page    El número de página (empezando en 0).
+     * @param size    El tamaño de página.
      * @return un {@link ResponseEntity} con una lista de restaurantes que coinciden y un estado HTTP 200 (OK).
      */
-    @Operation(summary = "Buscar restaurantes", description = "Busca restaurantes por nombre o tipo de cocina.")
+    @Operation(summary = "Buscar restaurantes", description = "Busca restaurantes por nombre, tipo de cocina o " +
+            "descripción. Ignora acentos, admite prefijos y pequeñas erratas, y ordena por relevancia.")
     @ApiResponses(value = {
             @ApiResponse(
                     responseCode = "200",
@@ -69,13 +75,58 @@ public class RestaurantController {
     @GetMapping("/search")
     public ResponseEntity<List<Restaurant>> searchRestaurants(
             @Parameter(description = "Palabra clave para la búsqueda", required = true, example = "pizza")
-            @RequestParam("keyword") String keyword
+            @RequestParam("keyword") String keyword,
+            @Parameter(description = "Número de página (empezando en 0)", example = "0")
+            @RequestParam(required = false) Integer page,
+            @Parameter(description = "Tamaño de página", example = "20")
+            @RequestParam(required = false) Integer size
     ) {
         log.debug("Buscando restaurantes con la palabra clave: '{}'", keyword);
-        List<Restaurant> restaurants = restaurantService.searchRestaurants(keyword);
+        List<Restaurant> restaurants = restaurantService.searchRestaurants(keyword, page, size);
         return ResponseEntity.ok(restaurants);
     }
 
+    /**
+     * Busca los restaurantes abiertos más cercanos a una ubicación.
+     * <p>
+     * Se resuelve en memoria con un índice espacial; solo aparecen los restaurantes abiertos
+     * cuya dirección tiene coordenadas.
+     *
+     * @param lat    Latitud del punto de búsqueda, en grados.
+     * @param lon    Longitud del punto de búsqueda, en grados.
+     * @param radius (Opcional) Radio máximo de búsqueda, en kilómetros.
+     * @param limit  (Opcional) Número máximo de restaurantes.
+     * @return un {@link ResponseEntity} con los restaurantes ordenados por distancia y un estado HTTP 200 (OK).
+     */
+    @Operation(summary = "Restaurantes cercanos", description = "Devuelve los restaurantes abiertos más cercanos " +
+            "a una ubicación, dentro de un radio en kilómetros, ordenados por distancia en línea recta.")
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Búsqueda exitosa",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = List.class))),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Coordenadas, radio o límite inválidos",
+                    content = @Content)
+    })
+    @GetMapping("/nearby")
+    public ResponseEntity<List<NearbyRestaurantDto>> findNearbyRestaurants(
+            @Parameter(description = "Latitud en grados", required = true, example = "40.4168")
+            @RequestParam double lat,
+            @Parameter(description = "Longitud en grados", required = true, example = "-3.7038")
+            @RequestParam double lon,
+            @Parameter(description = "Radio máximo de búsqueda en kilómetros", example = "5")
+            @RequestParam(required = false) Double radius,
+            @Parameter(description = "Número máximo de restaurantes", example = "20")
+            @RequestParam(required = false) Integer limit
+    ) {
+        log.debug("Buscando restaurantes cercanos a ({}, {}) en un radio de {} km.", lat, lon, radius);
+        return ResponseEntity.ok(nearbyRestaurantService.findNearby(lat, lon, radius, limit));
+    }
+
     /**
      * Obtiene una lista de todos los restaurantes disponibles en el sistema.
      *
@@ -170,7 +221,7 @@ public class RestaurantController {
     })
     @PutMapping("/{id}/add-favorite")
     public ResponseEntity<List<AdddToFavoritesDto>> addToFavorite(
-            @AuthenticationPrincipal User user,
+            @AuthenticationPrincipal AuthenticatedUser user,
             @Parameter(description = "ID del restaurante a marcar como favorito", required = true, example = "1")
             @PathVariable Long id
     ) {
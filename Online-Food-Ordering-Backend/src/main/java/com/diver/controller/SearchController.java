@@ -0,0 +1,63 @@
+package com.diver.controller;
+
+import com.diver.dto.SuggestionDto;
+import com.diver.service.SuggestionService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * Controlador REST público para el autocompletado de la búsqueda.
+ * <p>
+ * Pensado para invocarse en cada pulsación de tecla: responde desde memoria, sin consultar
+ * la base de datos. La búsqueda completa sigue en {@code /api/food/search} y
+ * {@code /api/restaurant/search}.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/search")
+@RequiredArgsConstructor
+@Tag(name = "Public: Search",
+        description = "Endpoints públicos de autocompletado.")
+public class SearchController {
+
+    private final SuggestionService suggestionService;
+
+    /**
+     * Devuelve sugerencias de platos, restaurantes, tipos de cocina y categorías para el texto tecleado.
+     *
+     * @param q     El texto tecleado (se compara como prefijo de cualquier palabra, sin acentos).
+     * @param limit El número máximo de sugerencias.
+     * @return Un ResponseEntity con las sugerencias ordenadas por popularidad.
+     */
+    @Operation(
+            summary = "Autocompletar búsqueda",
+            description = "Devuelve sugerencias ordenadas por popularidad cuyo texto contiene una palabra " +
+                          "que empieza por el texto tecleado."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Sugerencias obtenidas exitosamente"),
+            @ApiResponse(responseCode = "400", description = "Límite inválido")
+    })
+    @GetMapping("/suggest")
+    public ResponseEntity<List<SuggestionDto>> suggest(
+            @Parameter(description = "Texto tecleado", required = true, example = "marg")
+            @RequestParam String q,
+            @Parameter(description = "Número máximo de sugerencias (máx. 10)", example = "8")
+            @RequestParam(required = false) Integer limit
+    ) {
+        log.trace("Autocompletado para '{}'", q);
+        return ResponseEntity.ok(suggestionService.suggest(q, limit));
+    }
+}
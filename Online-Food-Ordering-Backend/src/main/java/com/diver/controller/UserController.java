@@ -1,7 +1,7 @@
 package com.diver.controller;
 
+import com.diver.dto.AuthenticatedUser;
 import com.diver.dto.UserProfileDto;
-import com.diver.model.User;
 import com.diver.service.UserService; // Importa la interfaz, no la implementación
 // ... otras importaciones ...
 import lombok.RequiredArgsConstructor;
@@ -20,7 +20,7 @@ public class UserController {
     private final UserService userService; // Inyecta la interfaz
 
     @GetMapping("/profile")
-    public ResponseEntity<UserProfileDto> getUserProfile(@AuthenticationPrincipal User user) {
+    public ResponseEntity<UserProfileDto> getUserProfile(@AuthenticationPrincipal AuthenticatedUser user) {
         // Llama al nuevo método del servicio para obtener el DTO.
         UserProfileDto userProfile = userService.getUserProfileByEmail(user.getEmail());
         return ResponseEntity.ok(userProfile);
@@ -0,0 +1,215 @@
+package com.diver.dispatch;
+
+import java.util.Arrays;
+
+/**
+ * Resuelve un problema de asignación dispersa: cada orden tiene una lista corta de repartidores
+ * candidatos con su coste, y se busca emparejar el mayor número de órdenes con el menor coste
+ * total, con cada repartidor en como mucho una orden.
+ * <p>
+ * El algoritmo exacto (húngaro) es cúbico; con miles de órdenes por ventana no cabe en el
+ * intervalo del lote. En su lugar:
+ * <ol>
+ *     <li><b>Voraz global</b>: se ordenan todas las aristas orden-repartidor por coste y se aceptan
+ *     en ese orden si ambos extremos siguen libres.</li>
+ *     <li><b>Mejora local</b>: hasta {@code maxPasses} pasadas sobre las órdenes aplicando
+ *     (a) caminos aumentantes de longitud 3 (una orden sin repartidor toma el de otra, que se
+ *     mueve a uno libre), (b) mover una orden a un repartidor libre más barato y (c) intercambiar
+ *     los repartidores de dos órdenes si baja la suma. Cada movimiento aumenta el número de
+ *     asignaciones o reduce estrictamente el coste, así que el proceso termina.</li>
+ * </ol>
+ * Las entradas y la salida usan índices densos; la clase no tiene estado.
+ */
+public final class AssignmentSolver {
+
+    public static final int UNASSIGNED = -1;
+
+    private static final double EPSILON = 1e-9;
+
+    /** Bits de la clave de ordenación reservados al índice de la arista (hasta ~16 millones). */
+    private static final int EDGE_BITS = 24;
+    private static final long EDGE_MASK = (1L << EDGE_BITS) - 1;
+    private static final long MAX_QUANTIZED_COST = (1L << (63 - EDGE_BITS)) - 1;
+
+    private AssignmentSolver() {
+    }
+
+    /**
+     * @param candidates   Para cada orden, los índices de sus repartidores candidatos.
+     * @param costs        Para cada orden, el coste de cada candidato (misma posición que en {@code candidates}).
+     * @param courierCount El número de repartidores (los índices van de 0 a {@code courierCount - 1}).
+     * @param maxPasses    El número máximo de pasadas de mejora local (0 deja solo la fase voraz).
+     * @return Para cada orden, el índice del repartidor asignado o {@link #UNASSIGNED}.
+     */
+    public static int[] solve(int[][] candidates, double[][] costs, int courierCount, int maxPasses) {
+        int orderCount = candidates.length;
+        long edgeCount = Arrays.stream(candidates).mapToLong(list -> list.length).sum();
+        if (edgeCount > EDGE_MASK) {
+            throw new IllegalArgumentException("Demasiadas aristas en un lote: " + edgeCount);
+        }
+        int[] courierOf = new int[orderCount];
+        int[] orderOf = new int[courierCount];
+        Arrays.fill(courierOf, UNASSIGNED);
+        Arrays.fill(orderOf, UNASSIGNED);
+
+        greedy(candidates, costs, courierOf, orderOf);
+
+        for (int pass = 0; pass < maxPasses; pass++) {
+            boolean improved = false;
+            for (int order = 0; order < orderCount; order++) {
+                improved |= courierOf[order] == UNASSIGNED
+                        ? augment(order, candidates, costs, courierOf, orderOf)
+                        : improve(order, candidates, costs, courierOf, orderOf);
+            }
+            if (!improved) {
+                break;
+            }
+        }
+        return courierOf;
+    }
+
+    /**
+     * Coste total de una asignación, útil para comparar soluciones.
+     */
+    public static double totalCost(int[] courierOf, int[][] candidates, double[][] costs) {
+        double total = 0;
+        for (int order = 0; order < courierOf.length; order++) {
+            if (courierOf[order] != UNASSIGNED) {
+                total += cost(order, courierOf[order], candidates, costs);
+            }
+        }
+        return total;
+    }
+
+    // --- METODOS PRIVADOS ---
+
+    private static void greedy(int[][] candidates, double[][] costs, int[] courierOf, int[] orderOf) {
+        int edgeCount = 0;
+        double minCost = Double.POSITIVE_INFINITY;
+        for (int order = 0; order < candidates.length; order++) {
+            edgeCount += candidates[order].length;
+            for (double cost : costs[order]) {
+                minCost = Math.min(minCost, cost);
+            }
+        }
+        int[] edgeOrder = new int[edgeCount];
+        int[] edgeSlot = new int[edgeCount];
+        // Cada arista se ordena por una clave primitiva: coste en centésimas (desplazado a positivo)
+        // en los bits altos e índice de la arista en los bajos; evita ordenar objetos
+        long[] keys = new long[edgeCount];
+        int next = 0;
+        for (int order = 0; order < candidates.length; order++) {
+            for (int slot = 0; slot < candidates[order].length; slot++) {
+                long quantized = Math.min(MAX_QUANTIZED_COST, Math.round((costs[order][slot] - minCost) * 100));
+                edgeOrder[next] = order;
+                edgeSlot[next] = slot;
+                keys[next] = (quantized << EDGE_BITS) | next;
+                next++;
+            }
+        }
+        Arrays.sort(keys);
+
+        for (long key : keys) {
+            int edge = (int) (key & EDGE_MASK);
+            int order = edgeOrder[edge];
+            int courier = candidates[order][edgeSlot[edge]];
+            if (courierOf[order] == UNASSIGNED && orderOf[courier] == UNASSIGNED) {
+                courierOf[order] = courier;
+                orderOf[courier] = order;
+            }
+        }
+    }
+
+    /**
+     * Intenta asignar una orden sin repartidor: directamente a un candidato libre o quitándole
+     * el repartidor a otra orden que pueda pasar a uno libre.
+     */
+    private static boolean augment(int order, int[][] candidates, double[][] costs, int[] courierOf, int[] orderOf) {
+        for (int courier : candidates[order]) {
+            if (orderOf[courier] == UNASSIGNED) {
+                assign(order, courier, courierOf, orderOf);
+                return true;
+            }
+        }
+        int bestCourier = UNASSIGNED;
+        int bestHolder = UNASSIGNED;
+        int bestReplacement = UNASSIGNED;
+        double bestDelta = Double.POSITIVE_INFINITY;
+        for (int slot = 0; slot < candidates[order].length; slot++) {
+            int courier = candidates[order][slot];
+            int holder = orderOf[courier];
+            for (int holderSlot = 0; holderSlot < candidates[holder].length; holderSlot++) {
+                int replacement = candidates[holder][holderSlot];
+                if (orderOf[replacement] != UNASSIGNED) {
+                    continue;
+                }
+                double delta = costs[order][slot] + costs[holder][holderSlot]
+                        - cost(holder, courier, candidates, costs);
+                if (delta < bestDelta) {
+                    bestDelta = delta;
+                    bestCourier = courier;
+                    bestHolder = holder;
+                    bestReplacement = replacement;
+                }
+            }
+        }
+        if (bestCourier == UNASSIGNED) {
+            return false;
+        }
+        assign(bestHolder, bestReplacement, courierOf, orderOf);
+        assign(order, bestCourier, courierOf, orderOf);
+        return true;
+    }
+
+    /**
+     * Busca, para una orden asignada, un repartidor libre más barato o un intercambio con otra
+     * orden que reduzca el coste conjunto.
+     */
+    private static boolean improve(int order, int[][] candidates, double[][] costs, int[] courierOf, int[] orderOf) {
+        int current = courierOf[order];
+        double currentCost = cost(order, current, candidates, costs);
+        for (int slot = 0; slot < candidates[order].length; slot++) {
+            int courier = candidates[order][slot];
+            if (courier == current) {
+                continue;
+            }
+            int holder = orderOf[courier];
+            if (holder == UNASSIGNED) {
+                if (costs[order][slot] < currentCost - EPSILON) {
+                    orderOf[current] = UNASSIGNED;
+                    assign(order, courier, courierOf, orderOf);
+                    return true;
+                }
+                continue;
+            }
+            double holderToCurrent = cost(holder, current, candidates, costs);
+            if (Double.isInfinite(holderToCurrent)) {
+                continue;
+            }
+            double before = currentCost + cost(holder, courier, candidates, costs);
+            double after = costs[order][slot] + holderToCurrent;
+            if (after < before - EPSILON) {
+                assign(holder, current, courierOf, orderOf);
+                assign(order, courier, courierOf, orderOf);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void assign(int order, int courier, int[] courierOf, int[] orderOf) {
+        courierOf[order] = courier;
+        orderOf[courier] = order;
+    }
+
+    /** Coste de una arista, o infinito si el repartidor no es candidato de la orden. */
+    private static double cost(int order, int courier, int[][] candidates, double[][] costs) {
+        int[] list = candidates[order];
+        for (int slot = 0; slot < list.length; slot++) {
+            if (list[slot] == courier) {
+                return costs[order][slot];
+            }
+        }
+        return Double.POSITIVE_INFINITY;
+    }
+}
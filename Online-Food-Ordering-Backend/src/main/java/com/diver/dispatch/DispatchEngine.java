@@ -0,0 +1,444 @@
+package com.diver.dispatch;
+
+import com.diver.search.GeoGridIndex;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Estado en memoria del reparto: repartidores conectados, órdenes pendientes de repartidor y
+ * asignaciones en curso, más el cálculo de asignaciones por lotes.
+ * <p>
+ * Los repartidores libres se guardan en un {@link GeoGridIndex}. Cada lote ({@link #runBatch})
+ * toma, con el candado, los {@code candidatesPerOrder} repartidores libres más cercanos a la
+ * recogida de cada orden pendiente (dentro de {@code maxPickupMeters}); suelta el candado,
+ * resuelve la asignación de todas las órdenes a la vez con {@link AssignmentSolver} y vuelve a
+ * tomarlo para aplicar solo las parejas cuyo repartidor sigue libre y cuya orden sigue pendiente.
+ * Así, las actualizaciones de ubicación no esperan al solver. Si hay más órdenes pendientes que
+ * repartidores libres, los candidatos se buscan al revés, desde cada repartidor hacia sus órdenes
+ * más cercanas, para que un lote en sobrecarga no recorra la rejilla casi vacía por cada orden.
+ * <p>
+ * El coste de una pareja es la distancia de recogida en metros menos
+ * {@code ageWeightMetersPerSecond} por cada segundo que la orden lleva esperando: en la fase
+ * voraz, una orden antigua gana el repartidor a una reciente que esté algo más cerca. El término
+ * de antigüedad es el mismo para todos los candidatos de una orden, así que no altera las
+ * mejoras locales.
+ * <p>
+ * Cada repartidor lleva como mucho una orden. No depende de Spring: el servicio de reparto y el
+ * simulador de {@code src/jmh} lo usan igual, con el reloj como parámetro.
+ */
+public class DispatchEngine {
+
+    /**
+     * Una orden que necesita repartidor.
+     *
+     * @param orderId          El ID de la orden.
+     * @param restaurantId     El ID del restaurante (punto de recogida).
+     * @param pickupLatitude   Latitud de la recogida.
+     * @param pickupLongitude  Longitud de la recogida.
+     * @param dropoffLatitude  (Opcional) Latitud de la entrega.
+     * @param dropoffLongitude (Opcional) Longitud de la entrega.
+     * @param enqueuedAtMillis Momento en que empezó a esperar repartidor.
+     */
+    public record PendingOrder(long orderId, long restaurantId, double pickupLatitude, double pickupLongitude,
+                               Double dropoffLatitude, Double dropoffLongitude, long enqueuedAtMillis) {
+    }
+
+    /**
+     * Una asignación propuesta por un lote.
+     *
+     * @param order                La orden asignada.
+     * @param courierId            El ID del repartidor.
+     * @param pickupDistanceMeters La distancia del repartidor a la recogida al asignarla.
+     * @param waitedMillis         El tiempo que la orden esperó repartidor.
+     */
+    public record Assignment(PendingOrder order, long courierId, double pickupDistanceMeters, long waitedMillis) {
+    }
+
+    /**
+     * Contadores del estado actual y del último lote.
+     */
+    public record Stats(int pendingOrders, int idleCouriers, int busyCouriers,
+                        int lastBatchOrders, int lastBatchAssigned, long lastBatchMicros) {
+    }
+
+    private static final class Courier {
+        private final long id;
+        private double latitude;
+        private double longitude;
+        private boolean located;
+        private boolean available;
+        private long lastSeenMillis;
+        private PendingOrder order;
+
+        private Courier(long id) {
+            this.id = id;
+        }
+    }
+
+    private final double cellDegrees;
+    private final double maxPickupMeters;
+    private final int candidatesPerOrder;
+    private final double ageWeightMetersPerSecond;
+    private final int improvementPasses;
+    private final long courierTtlMillis;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final GeoGridIndex idleCouriers;
+    private final Map<Long, Courier> couriers = new HashMap<>();
+    private final Map<Long, PendingOrder> pending = new LinkedHashMap<>();
+    private final Map<Long, Courier> courierByOrder = new HashMap<>();
+    private Stats lastBatch = new Stats(0, 0, 0, 0, 0, 0);
+
+    /**
+     * @param cellDegrees              Tamaño de celda de los índices espaciales, en grados; conviene que
+     *                                 sea del orden de la mitad de {@code maxPickupMeters}.
+     * @param maxPickupMeters          Distancia máxima de un repartidor candidato a la recogida.
+     * @param candidatesPerOrder       Repartidores candidatos por orden.
+     * @param ageWeightMetersPerSecond Metros de coste que descuenta cada segundo de espera.
+     * @param improvementPasses        Pasadas de mejora local del solver.
+     * @param courierTtlMillis         Un repartidor libre sin actualizaciones durante este tiempo se desconecta.
+     */
+    public DispatchEngine(double cellDegrees, double maxPickupMeters, int candidatesPerOrder,
+                          double ageWeightMetersPerSecond, int improvementPasses, long courierTtlMillis) {
+        this.idleCouriers = new GeoGridIndex(cellDegrees);
+        this.cellDegrees = cellDegrees;
+        this.maxPickupMeters = maxPickupMeters;
+        this.candidatesPerOrder = candidatesPerOrder;
+        this.ageWeightMetersPerSecond = ageWeightMetersPerSecond;
+        this.improvementPasses = improvementPasses;
+        this.courierTtlMillis = courierTtlMillis;
+    }
+
+    /**
+     * Registra la ubicación y la disponibilidad de un repartidor. Un repartidor ocupado conserva
+     * su orden; si se declara no disponible, no recibirá otra al terminarla.
+     */
+    public void updateCourier(long courierId, double latitude, double longitude, boolean available, long nowMillis) {
+        lock.lock();
+        try {
+            Courier courier = couriers.computeIfAbsent(courierId, Courier::new);
+            courier.latitude = latitude;
+            courier.longitude = longitude;
+            courier.located = true;
+            courier.available = available;
+            courier.lastSeenMillis = nowMillis;
+            refreshIdleIndex(courier);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Añade una orden a la cola de reparto. No hace nada si ya está en cola o asignada.
+     */
+    public void enqueue(PendingOrder order) {
+        lock.lock();
+        try {
+            if (!courierByOrder.containsKey(order.orderId())) {
+                pending.putIfAbsent(order.orderId(), order);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return {@code true} si la orden está en cola o asignada.
+     */
+    public boolean isTracked(long orderId) {
+        lock.lock();
+        try {
+            return pending.containsKey(orderId) || courierByOrder.containsKey(orderId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Restaura una asignación ya persistida (por ejemplo, al arrancar). El repartidor queda
+     * ocupado aunque todavía no haya enviado su ubicación.
+     */
+    public void restoreAssignment(PendingOrder order, long courierId, long nowMillis) {
+        lock.lock();
+        try {
+            pending.remove(order.orderId());
+            Courier courier = couriers.computeIfAbsent(courierId, Courier::new);
+            if (courier.order != null) {
+                courierByOrder.remove(courier.order.orderId());
+            }
+            courier.available = true;
+            courier.lastSeenMillis = nowMillis;
+            courier.order = order;
+            courierByOrder.put(order.orderId(), courier);
+            refreshIdleIndex(courier);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Retira una orden que ya no necesita reparto (entregada o cancelada). Si tenía repartidor,
+     * este queda libre en el punto de entrega, si se conoce.
+     *
+     * @return El ID del repartidor liberado, si había uno.
+     */
+    public Optional<Long> release(long orderId, long nowMillis) {
+        lock.lock();
+        try {
+            pending.remove(orderId);
+            Courier courier = courierByOrder.remove(orderId);
+            if (courier == null) {
+                return Optional.empty();
+            }
+            PendingOrder order = courier.order;
+            courier.order = null;
+            if (order.dropoffLatitude() != null && order.dropoffLongitude() != null) {
+                courier.latitude = order.dropoffLatitude();
+                courier.longitude = order.dropoffLongitude();
+                courier.located = true;
+            }
+            courier.lastSeenMillis = nowMillis;
+            refreshIdleIndex(courier);
+            return Optional.of(courier.id);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Deshace una asignación que no se pudo persistir: el repartidor vuelve a estar libre y,
+     * si {@code requeue}, la orden vuelve a la cola conservando su antigüedad.
+     */
+    public void reject(Assignment assignment, boolean requeue) {
+        lock.lock();
+        try {
+            long orderId = assignment.order().orderId();
+            Courier courier = courierByOrder.get(orderId);
+            if (courier != null && courier.id == assignment.courierId()) {
+                courierByOrder.remove(orderId);
+                courier.order = null;
+                refreshIdleIndex(courier);
+            }
+            if (requeue) {
+                pending.putIfAbsent(orderId, assignment.order());
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return La orden asignada a un repartidor, si tiene una.
+     */
+    public Optional<PendingOrder> assignmentOf(long courierId) {
+        lock.lock();
+        try {
+            Courier courier = couriers.get(courierId);
+            return courier != null ? Optional.ofNullable(courier.order) : Optional.empty();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Stats stats() {
+        lock.lock();
+        try {
+            return new Stats(pending.size(), idleCouriers.size(), courierByOrder.size(),
+                    lastBatch.lastBatchOrders(), lastBatch.lastBatchAssigned(), lastBatch.lastBatchMicros());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Calcula y aplica las asignaciones de todas las órdenes pendientes con los repartidores libres.
+     *
+     * @param nowMillis El instante del lote.
+     * @return Las asignaciones aplicadas; el llamante debe persistirlas o deshacerlas con {@link #reject}.
+     */
+    public List<Assignment> runBatch(long nowMillis) {
+        long start = System.nanoTime();
+
+        // 1. Con el candado: candidatos de cada orden entre los repartidores libres
+        List<PendingOrder> orders;
+        Problem problem;
+        lock.lock();
+        try {
+            evictStaleCouriers(nowMillis);
+            orders = new ArrayList<>(pending.values());
+            problem = idleCouriers.size() >= orders.size()
+                    ? candidatesByOrder(orders, nowMillis)
+                    : candidatesByCourier(orders, nowMillis);
+        } finally {
+            lock.unlock();
+        }
+        List<Long> courierIds = problem.courierIds();
+        int[][] candidates = problem.candidates();
+        double[][] distances = problem.distances();
+
+        // 2. Sin candado: asignación conjunta
+        int[] courierOf = AssignmentSolver.solve(candidates, problem.costs(), courierIds.size(), improvementPasses);
+
+        // 3. Con el candado: aplicar lo que siga siendo válido
+        List<Assignment> applied = new ArrayList<>();
+        lock.lock();
+        try {
+            for (int i = 0; i < orders.size(); i++) {
+                if (courierOf[i] == AssignmentSolver.UNASSIGNED) {
+                    continue;
+                }
+                PendingOrder order = orders.get(i);
+                Courier courier = couriers.get(courierIds.get(courierOf[i]));
+                if (pending.get(order.orderId()) != order || courier == null || !isIdle(courier)) {
+                    continue;
+                }
+                pending.remove(order.orderId());
+                courier.order = order;
+                courierByOrder.put(order.orderId(), courier);
+                refreshIdleIndex(courier);
+                applied.add(new Assignment(order, courier.id, distanceTo(distances[i], candidates[i], courierOf[i]),
+                        Math.max(0, nowMillis - order.enqueuedAtMillis())));
+            }
+            lastBatch = new Stats(pending.size(), idleCouriers.size(), courierByOrder.size(),
+                    orders.size(), applied.size(), (System.nanoTime() - start) / 1000);
+        } finally {
+            lock.unlock();
+        }
+        return applied;
+    }
+
+    // --- METODOS PRIVADOS ---
+
+    /** Problema de asignación de un lote: candidatos por orden con índices densos de repartidor. */
+    private record Problem(List<Long> courierIds, int[][] candidates, double[][] costs, double[][] distances) {
+    }
+
+    /**
+     * Candidatos buscados desde cada orden: sus repartidores libres más cercanos. Es el caso
+     * normal, con más repartidores libres que órdenes. Requiere el candado.
+     */
+    private Problem candidatesByOrder(List<PendingOrder> orders, long nowMillis) {
+        List<Long> courierIds = new ArrayList<>();
+        Map<Long, Integer> courierIndex = new HashMap<>();
+        int[][] candidates = new int[orders.size()][];
+        double[][] costs = new double[orders.size()][];
+        double[][] distances = new double[orders.size()][];
+        for (int i = 0; i < orders.size(); i++) {
+            PendingOrder order = orders.get(i);
+            List<GeoGridIndex.Hit> hits = idleCouriers.nearest(order.pickupLatitude(), order.pickupLongitude(),
+                    maxPickupMeters, candidatesPerOrder);
+            double ageBonus = ageBonus(order, nowMillis);
+            candidates[i] = new int[hits.size()];
+            costs[i] = new double[hits.size()];
+            distances[i] = new double[hits.size()];
+            for (int slot = 0; slot < hits.size(); slot++) {
+                GeoGridIndex.Hit hit = hits.get(slot);
+                Integer index = courierIndex.get(hit.id());
+                if (index == null) {
+                    index = courierIds.size();
+                    courierIndex.put(hit.id(), index);
+                    courierIds.add(hit.id());
+                }
+                candidates[i][slot] = index;
+                distances[i][slot] = hit.distanceMeters();
+                costs[i][slot] = hit.distanceMeters() - ageBonus;
+            }
+        }
+        return new Problem(courierIds, candidates, costs, distances);
+    }
+
+    /**
+     * Candidatos buscados desde cada repartidor libre: sus órdenes pendientes más cercanas.
+     * Con más órdenes que repartidores (sobrecarga), buscar desde las órdenes recorrería muchas
+     * celdas vacías por cada una; así el coste depende del número de repartidores libres.
+     * Requiere el candado.
+     */
+    private Problem candidatesByCourier(List<PendingOrder> orders, long nowMillis) {
+        GeoGridIndex orderIndex = new GeoGridIndex(cellDegrees);
+        for (int i = 0; i < orders.size(); i++) {
+            orderIndex.put(i, orders.get(i).pickupLatitude(), orders.get(i).pickupLongitude());
+        }
+        List<Long> courierIds = new ArrayList<>();
+        List<List<double[]>> edges = new ArrayList<>(orders.size());
+        for (int i = 0; i < orders.size(); i++) {
+            edges.add(null);
+        }
+        for (Courier courier : couriers.values()) {
+            if (!isIdle(courier)) {
+                continue;
+            }
+            int courierIndex = courierIds.size();
+            courierIds.add(courier.id);
+            for (GeoGridIndex.Hit hit : orderIndex.nearest(courier.latitude, courier.longitude,
+                    maxPickupMeters, candidatesPerOrder)) {
+                int order = (int) hit.id();
+                if (edges.get(order) == null) {
+                    edges.set(order, new ArrayList<>(2));
+                }
+                edges.get(order).add(new double[]{courierIndex, hit.distanceMeters()});
+            }
+        }
+        int[][] candidates = new int[orders.size()][];
+        double[][] costs = new double[orders.size()][];
+        double[][] distances = new double[orders.size()][];
+        for (int i = 0; i < orders.size(); i++) {
+            List<double[]> list = edges.get(i) != null ? edges.get(i) : List.of();
+            double ageBonus = ageBonus(orders.get(i), nowMillis);
+            candidates[i] = new int[list.size()];
+            costs[i] = new double[list.size()];
+            distances[i] = new double[list.size()];
+            for (int slot = 0; slot < list.size(); slot++) {
+                candidates[i][slot] = (int) list.get(slot)[0];
+                distances[i][slot] = list.get(slot)[1];
+                costs[i][slot] = list.get(slot)[1] - ageBonus;
+            }
+        }
+        return new Problem(courierIds, candidates, costs, distances);
+    }
+
+    private double ageBonus(PendingOrder order, long nowMillis) {
+        return ageWeightMetersPerSecond * Math.max(0, nowMillis - order.enqueuedAtMillis()) / 1000.0;
+    }
+
+    private static double distanceTo(double[] distances, int[] candidates, int courier) {
+        for (int slot = 0; slot < candidates.length; slot++) {
+            if (candidates[slot] == courier) {
+                return distances[slot];
+            }
+        }
+        return Double.NaN;
+    }
+
+    private static boolean isIdle(Courier courier) {
+        return courier.available && courier.located && courier.order == null;
+    }
+
+    /** Mantiene el índice de libres coherente con el estado del repartidor. Requiere el candado. */
+    private void refreshIdleIndex(Courier courier) {
+        if (isIdle(courier)) {
+            idleCouriers.put(courier.id, courier.latitude, courier.longitude);
+        } else {
+            idleCouriers.remove(courier.id);
+            if (!courier.available && courier.order == null) {
+                couriers.remove(courier.id);
+            }
+        }
+    }
+
+    /** Desconecta los repartidores libres que dejaron de enviar su ubicación. Requiere el candado. */
+    private void evictStaleCouriers(long nowMillis) {
+        couriers.values().removeIf(courier -> {
+            boolean stale = courier.order == null && nowMillis - courier.lastSeenMillis > courierTtlMillis;
+            if (stale) {
+                idleCouriers.remove(courier.id);
+            }
+            return stale;
+        });
+    }
+}
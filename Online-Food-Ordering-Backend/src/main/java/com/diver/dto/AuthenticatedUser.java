@@ -1,20 +1,50 @@
 package com.diver.dto;
 
+import com.diver.model.USER_ROLE;
+import com.diver.model.User;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
 import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import java.util.Collection;
+import java.util.List;
 
+/**
+ * Principal ligero que se coloca en el contexto de seguridad para cada petición autenticada.
+ * <p>
+ * Contiene únicamente el ID, el email y el rol del usuario, datos que viajan firmados dentro
+ * del token JWT. De este modo el filtro de autenticación no necesita consultar la base de datos
+ * y los servicios cargan la entidad {@link User} completa solo cuando realmente la necesitan.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class AuthenticatedUser implements UserDetails {
 
-public record AuthenticatedUser(
-        Long id,
-        String email,
-        Collection<? extends GrantedAuthority> authorities) implements UserDetails {
+    private final Long id;
+    private final String email;
+    private final USER_ROLE role;
 
+    /**
+     * Construye el principal a partir de una entidad {@link User} ya cargada.
+     *
+     * @param user La entidad del usuario.
+     * @return Un {@link AuthenticatedUser} con los datos mínimos del usuario.
+     */
+    public static AuthenticatedUser from(User user) {
+        return new AuthenticatedUser(user.getId(), user.getEmail(), user.getRole());
+    }
 
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
-        return this.authorities;
+        // Igual que User#getAuthorities: un usuario sin rol no tiene permisos, pero no provoca un error
+        if (role == null) {
+            return List.of();
+        }
+        return List.of(new SimpleGrantedAuthority(role.name()));
     }
 
     @Override
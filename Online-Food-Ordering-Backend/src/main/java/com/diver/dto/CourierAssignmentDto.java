@@ -0,0 +1,22 @@
+package com.diver.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO de la orden asignada a un repartidor, con los puntos de recogida y de entrega.
+ * Las coordenadas de entrega son {@code null} si la dirección no está geolocalizada.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CourierAssignmentDto {
+
+    private Long orderId;
+    private Long restaurantId;
+    private double pickupLatitude;
+    private double pickupLongitude;
+    private Double dropoffLatitude;
+    private Double dropoffLongitude;
+}
@@ -0,0 +1,22 @@
+package com.diver.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO con el estado del reparto: órdenes esperando repartidor, repartidores libres y ocupados,
+ * y el resultado del último lote de asignación.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DispatchStatsDto {
+
+    private int pendingOrders;
+    private int idleCouriers;
+    private int busyCouriers;
+    private int lastBatchOrders;
+    private int lastBatchAssigned;
+    private long lastBatchMicros;
+}
@@ -1,6 +1,7 @@
 package com.diver.dto;
 
 import com.diver.model.IngredientItem; // Asumiendo que IngredientItem es seguro para serializar
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Data;
 
 import java.util.Date;
@@ -41,7 +42,9 @@ public class    FoodDto {
     /**
      * Lista de ingredientes del plato. Se asume que IngredientItem es un DTO o
      * una entidad simple y segura para serializar.
+     * Es {@code null} (y se omite del JSON) cuando el menú se pide sin ingredientes.
      */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     private List<IngredientItemDto> ingredients;
 
     private Date creationDate;
@@ -0,0 +1,19 @@
+package com.diver.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO de las ventas de un plato en un rango de fechas.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FoodSalesDto {
+
+    private Long foodId;
+    private String foodName;
+    private long quantity;
+    private long revenue;
+}
@@ -0,0 +1,23 @@
+package com.diver.dto;
+
+import com.diver.model.OrderStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * DTO del tablero de cocina de un restaurante: sus órdenes activas agrupadas por estado
+ * y, dentro de cada estado, de la más antigua a la más reciente.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class KitchenBoardDto {
+
+    private Long restaurantId;
+    private int activeOrders;
+    private Map<OrderStatus, List<KitchenOrderDto>> columns; // Solo estados no finales, siempre presentes
+}
@@ -0,0 +1,26 @@
+package com.diver.dto;
+
+import com.diver.model.OrderStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * DTO de una orden activa en el tablero de cocina.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class KitchenOrderDto {
+
+    private Long orderId;
+    private Long customerId;
+    private String customerEmail;
+    private OrderStatus status;
+    private long version;
+    private LocalDateTime createdAt;
+    private Long totalAmount;
+    private int totalItems;
+}
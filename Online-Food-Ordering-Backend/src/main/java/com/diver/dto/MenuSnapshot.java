@@ -0,0 +1,43 @@
+package com.diver.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Instantánea inmutable del menú completo de un restaurante (sin filtros, ordenado por ID).
+ * <p>
+ * Contiene la lista de {@link FoodDto} ya mapeada y su serialización JSON precalculada en dos
+ * variantes: con y sin ingredientes. Cada instantánea tiene una versión única dentro del proceso,
+ * a partir de la cual se derivan ETags fuertes para responder {@code 304 Not Modified}.
+ * <p>
+ * Los DTOs y los arrays de bytes se comparten entre peticiones: no deben modificarse.
+ */
+@Getter
+@AllArgsConstructor
+public class MenuSnapshot {
+
+    private final Long restaurantId;
+    private final long version;
+    private final String etagBase;
+    private final List<FoodDto> foods;
+    private final byte[] json;
+    private final byte[] jsonWithIngredients;
+
+    /**
+     * @param includeIngredients Si se pide la variante con ingredientes.
+     * @return El ETag fuerte (entre comillas) de la variante solicitada.
+     */
+    public String etag(boolean includeIngredients) {
+        return "\"" + etagBase + (includeIngredients ? "-i" : "") + "\"";
+    }
+
+    /**
+     * @param includeIngredients Si se pide la variante con ingredientes.
+     * @return El cuerpo JSON precalculado de la variante solicitada.
+     */
+    public byte[] body(boolean includeIngredients) {
+        return includeIngredients ? jsonWithIngredients : json;
+    }
+}
@@ -0,0 +1,25 @@
+package com.diver.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO de un restaurante abierto cercano a una ubicación, con su distancia en metros
+ * (en línea recta) desde el punto consultado y el tiempo estimado de entrega hasta ese punto.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NearbyRestaurantDto {
+
+    private Long id;
+    private String name;
+    private String cuisineType;
+    private String street;
+    private String city;
+    private double latitude;
+    private double longitude;
+    private long distanceMeters;
+    private int etaMinutes;
+}
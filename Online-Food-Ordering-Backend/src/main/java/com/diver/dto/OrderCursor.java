@@ -0,0 +1,56 @@
+package com.diver.dto;
+
+import com.diver.exception.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Posición dentro de un listado de órdenes paginado por keyset, ordenado por
+ * {@code (createdAt DESC, id DESC)}.
+ * <p>
+ * Se serializa como un token opaco (Base64 URL-safe) para que el cliente simplemente lo
+ * reenvíe en la siguiente petición. La fecha se guarda en formato ISO para no perder la
+ * precisión de microsegundos de la columna {@code created_at}.
+ *
+ * @param createdAt Fecha de creación de la última orden devuelta.
+ * @param id        ID de la última orden devuelta (desempate entre órdenes con la misma fecha).
+ */
+public record OrderCursor(LocalDateTime createdAt, Long id) {
+
+    private static final String SEPARATOR = "|";
+
+    /**
+     * Codifica el cursor como un token opaco.
+     *
+     * @return El token listo para devolver al cliente.
+     */
+    public String encode() {
+        String raw = createdAt + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodifica un token recibido del cliente.
+     *
+     * @param token El token opaco, o {@code null} para la primera página.
+     * @return El cursor, o {@code null} si no se recibió token.
+     * @throws BadRequestException si el token está corrupto.
+     */
+    public static OrderCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf(SEPARATOR);
+            return new OrderCursor(
+                    LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException | IndexOutOfBoundsException e) {
+            throw new BadRequestException("Cursor de paginación inválido.");
+        }
+    }
+}
@@ -14,9 +14,12 @@ public class OrderDto {
     private RestaurantSimpleDto restaurant;
     private Long totalAmount;
     private String orderStatus;
+    private long version; // Para enviar en If-Match al cambiar el estado
     private LocalDateTime createdAt;
     private Address deliveryAddress;
     private List<OrderItemDto> items;
     private int totalItemCount;
+    private LocalDateTime estimatedDeliveryAt; // ETA; null si la orden ya terminó o se canceló
+    private Integer etaMinutes; // Minutos que faltan hasta estimatedDeliveryAt
 
 }
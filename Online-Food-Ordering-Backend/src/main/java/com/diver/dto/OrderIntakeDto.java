@@ -0,0 +1,18 @@
+package com.diver.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Estado de una solicitud de orden asíncrona.
+ */
+@Data
+public class OrderIntakeDto {
+    private String trackingId;
+    private String status;       // PENDING, PROCESSING, COMPLETED o FAILED
+    private Long orderId;        // Presente cuando la orden ya se ha creado
+    private String errorMessage; // Presente cuando la solicitud ha fallado
+    private LocalDateTime acceptedAt;
+    private LocalDateTime processedAt;
+}
@@ -0,0 +1,22 @@
+package com.diver.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Página de órdenes obtenida con paginación por keyset.
+ * <p>
+ * {@code next} es el cursor opaco que el cliente debe enviar para obtener la página siguiente;
+ * es {@code null} cuando no quedan más órdenes.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderPageDto {
+    private List<OrderDto> items;
+    private String next;
+    private int size;
+}
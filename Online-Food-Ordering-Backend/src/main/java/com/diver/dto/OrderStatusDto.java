@@ -0,0 +1,23 @@
+package com.diver.dto;
+
+import com.diver.model.OrderStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Set;
+
+/**
+ * DTO con el estado actual de una orden, su versión (para {@code If-Match}) y los estados a los
+ * que puede pasar.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderStatusDto {
+
+    private Long orderId;
+    private OrderStatus status;
+    private long version;
+    private Set<OrderStatus> nextStatuses;
+}
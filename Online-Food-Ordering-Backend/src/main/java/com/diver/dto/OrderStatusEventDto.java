@@ -0,0 +1,25 @@
+package com.diver.dto;
+
+import com.diver.model.OrderStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * DTO de un cambio de estado de una orden.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderStatusEventDto {
+
+    private Long id;
+    private Long orderId;
+    private OrderStatus fromStatus; // null en la creación de la orden
+    private OrderStatus toStatus;
+    private long orderVersion;
+    private Long changedBy;
+    private LocalDateTime changedAt;
+}
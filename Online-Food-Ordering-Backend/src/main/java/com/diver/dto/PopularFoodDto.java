@@ -0,0 +1,20 @@
+package com.diver.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO de un plato popular. {@code score} son las unidades pedidas con decaimiento exponencial:
+ * un pedido pesa la mitad cada {@code app.food.popular.half-life}.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PopularFoodDto {
+
+    private Long foodId;
+    private String name;
+    private Long restaurantId;
+    private double score;
+}
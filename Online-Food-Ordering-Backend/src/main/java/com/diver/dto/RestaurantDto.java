@@ -21,6 +21,7 @@ public class RestaurantDto {
     private  List<String> images;
     private  LocalDateTime registrationDate;
     private  boolean open;
+    private  Integer etaMinutes;
 
 }
 
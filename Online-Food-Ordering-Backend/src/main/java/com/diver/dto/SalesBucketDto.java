@@ -0,0 +1,25 @@
+package com.diver.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * DTO de las ventas de un restaurante en un intervalo (o en todo el rango, para los totales).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SalesBucketDto {
+
+    private LocalDateTime bucketStart;
+    private long orderCount;
+    private long cancelledCount;
+    private long deliveredCount;
+    private long revenue;          // Suma de totalAmount de las órdenes recibidas
+    private long cancelledRevenue; // Parte de revenue de órdenes canceladas
+    private long netRevenue;       // revenue - cancelledRevenue
+    private double cancellationRate;
+}
@@ -0,0 +1,25 @@
+package com.diver.dto;
+
+import com.diver.model.RollupGranularity;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * DTO del informe de ventas de un restaurante en un rango {@code [from, to)}.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SalesReportDto {
+
+    private Long restaurantId;
+    private RollupGranularity granularity;
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private SalesBucketDto totals;
+    private List<SalesBucketDto> buckets; // Uno por intervalo del rango, también los que no tienen ventas
+}
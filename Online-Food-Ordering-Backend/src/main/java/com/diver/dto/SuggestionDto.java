@@ -0,0 +1,19 @@
+package com.diver.dto;
+
+import com.diver.search.SuggestionType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO de una sugerencia de autocompletado: el texto a mostrar, su origen y su popularidad.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SuggestionDto {
+
+    private String text;
+    private SuggestionType type;
+    private long weight;
+}
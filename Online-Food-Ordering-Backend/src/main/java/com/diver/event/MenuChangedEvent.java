@@ -0,0 +1,29 @@
+package com.diver.event;
+
+/**
+ * Evento de dominio que indica que el menú de un restaurante ha cambiado.
+ * <p>
+ * Se publica desde los servicios de escritura dentro de la transacción; los oyentes
+ * ({@code @TransactionalEventListener}) lo reciben solo si la transacción confirma.
+ * Lleva el plato o el ingrediente afectado para que los consumidores puedan actualizarse
+ * de forma incremental en lugar de recargar el menú completo.
+ *
+ * @param restaurantId El ID del restaurante cuyo menú cambió.
+ * @param foodId       El ID del plato creado, modificado o eliminado (o {@code null}).
+ * @param ingredientId El ID del ingrediente cuyo stock cambió (o {@code null}).
+ * @param removed      {@code true} si el plato fue eliminado.
+ */
+public record MenuChangedEvent(Long restaurantId, Long foodId, Long ingredientId, boolean removed) {
+
+    public static MenuChangedEvent foodChanged(Long restaurantId, Long foodId) {
+        return new MenuChangedEvent(restaurantId, foodId, null, false);
+    }
+
+    public static MenuChangedEvent foodRemoved(Long restaurantId, Long foodId) {
+        return new MenuChangedEvent(restaurantId, foodId, null, true);
+    }
+
+    public static MenuChangedEvent ingredientChanged(Long restaurantId, Long ingredientId) {
+        return new MenuChangedEvent(restaurantId, null, ingredientId, false);
+    }
+}
@@ -0,0 +1,24 @@
+package com.diver.event;
+
+import java.util.List;
+
+/**
+ * Evento de aplicación publicado cuando se crea una orden, con sus platos y cantidades.
+ * <p>
+ * Se publica dentro de la transacción que creó la orden (de forma síncrona o por la cola
+ * asíncrona); los listeners deben usar {@code @TransactionalEventListener(phase = AFTER_COMMIT)}.
+ *
+ * @param orderId      El ID de la orden.
+ * @param restaurantId El ID del restaurante.
+ * @param city         La ciudad del restaurante ({@code null} si no tiene dirección).
+ * @param items        Los platos pedidos.
+ */
+public record OrderPlacedEvent(Long orderId, Long restaurantId, String city, List<Item> items) {
+
+    /**
+     * @param foodId   El ID del plato.
+     * @param quantity Las unidades pedidas.
+     */
+    public record Item(Long foodId, int quantity) {
+    }
+}
@@ -0,0 +1,34 @@
+package com.diver.event;
+
+import com.diver.model.OrderStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * Evento de aplicación publicado cuando una orden se crea o cambia de estado.
+ * <p>
+ * Se publica dentro de la transacción que hizo el cambio; los listeners que mantienen vistas
+ * derivadas deben usar {@code @TransactionalEventListener(phase = AFTER_COMMIT)} para reaccionar
+ * solo a cambios confirmados.
+ *
+ * @param eventId      El ID de la fila del registro de estados.
+ * @param orderId      El ID de la orden.
+ * @param restaurantId El ID del restaurante de la orden.
+ * @param customerId   El ID del cliente de la orden.
+ * @param fromStatus   El estado anterior ({@code null} al crear la orden).
+ * @param toStatus     El nuevo estado.
+ * @param orderVersion La versión de la orden tras el cambio.
+ * @param changedBy    El ID del usuario que hizo el cambio.
+ * @param changedAt    El momento del cambio.
+ */
+public record OrderStatusChangedEvent(
+        Long eventId,
+        Long orderId,
+        Long restaurantId,
+        Long customerId,
+        OrderStatus fromStatus,
+        OrderStatus toStatus,
+        long orderVersion,
+        Long changedBy,
+        LocalDateTime changedAt) {
+}
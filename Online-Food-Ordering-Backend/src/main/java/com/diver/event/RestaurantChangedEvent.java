@@ -0,0 +1,22 @@
+package com.diver.event;
+
+/**
+ * Evento de dominio que indica que los datos de un restaurante (nombre, descripción,
+ * tipo de cocina...) han cambiado, o que el restaurante fue eliminado.
+ * <p>
+ * Se publica dentro de la transacción de escritura y los oyentes transaccionales lo
+ * reciben solo tras el commit.
+ *
+ * @param restaurantId El ID del restaurante afectado.
+ * @param removed      {@code true} si el restaurante fue eliminado.
+ */
+public record RestaurantChangedEvent(Long restaurantId, boolean removed) {
+
+    public static RestaurantChangedEvent changed(Long restaurantId) {
+        return new RestaurantChangedEvent(restaurantId, false);
+    }
+
+    public static RestaurantChangedEvent removed(Long restaurantId) {
+        return new RestaurantChangedEvent(restaurantId, true);
+    }
+}
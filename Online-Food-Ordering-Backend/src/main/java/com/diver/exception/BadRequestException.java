@@ -0,0 +1,22 @@
+package com.diver.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Excepción lanzada cuando un parámetro de la petición es sintácticamente inválido,
+ * por ejemplo un cursor de paginación corrupto o manipulado.
+ *
+ * Esta excepción resultará en una respuesta HTTP 400 Bad Request.
+ */
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class BadRequestException extends RuntimeException {
+
+    /**
+     * Constructor que acepta un mensaje detallando el parámetro inválido.
+     * @param message El mensaje de error.
+     */
+    public BadRequestException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,23 @@
+package com.diver.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Excepción lanzada cuando se reutiliza una clave {@code Idempotency-Key} con una petición
+ * distinta de la que se registró originalmente con esa clave, o cuando la petición original
+ * sigue en curso tras el tiempo máximo de espera.
+ *
+ * Esta excepción resultará en una respuesta HTTP 409 Conflict.
+ */
+@ResponseStatus(HttpStatus.CONFLICT)
+public class IdempotencyKeyConflictException extends RuntimeException {
+
+    /**
+     * Constructor que acepta un mensaje detallando el conflicto.
+     * @param message El mensaje de error.
+     */
+    public IdempotencyKeyConflictException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,23 @@
+package com.diver.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Excepción lanzada cuando se intenta modificar una orden a partir de una versión que ya no es
+ * la actual, porque otra petición la cambió antes (control de concurrencia optimista).
+ *
+ * Esta excepción resultará en una respuesta HTTP 409 Conflict; el cliente debe volver a leer
+ * la orden y decidir si repite el cambio.
+ */
+@ResponseStatus(HttpStatus.CONFLICT)
+public class StaleOrderVersionException extends RuntimeException {
+
+    /**
+     * Constructor que acepta un mensaje detallando el conflicto.
+     * @param message El mensaje de error.
+     */
+    public StaleOrderVersionException(String message) {
+        super(message);
+    }
+}
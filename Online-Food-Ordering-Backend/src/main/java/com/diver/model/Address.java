@@ -22,4 +22,11 @@ public class Address {
     private String city; // Ciudad
     private String state; // Estado
 
+    private Double latitude; // Latitud en grados (WGS84), opcional
+    private Double longitude; // Longitud en grados (WGS84), opcional
+
+    public Address(Long id, String street, String city, String state) {
+        this(id, street, city, state, null, null);
+    }
+
 }
@@ -0,0 +1,39 @@
+package com.diver.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * ID del registro de estados que el compactador de analíticas dejó atrás sin ver: su
+ * transacción aún no había confirmado, el evento era demasiado reciente o el ID nunca se usó
+ * (reserva de un bloque de la secuencia, transacción revertida).
+ * <p>
+ * Cada compactación vuelve a buscar los eventos de estos IDs; los que aparecen se agregan y
+ * el hueco se borra. Los que siguen sin aparecer tras {@code app.analytics.compactor.gap-timeout}
+ * se descartan.
+ */
+@Data
+@Entity
+@Table(name = "analytics_gap", indexes = @Index(name = "idx_analytics_gap_detected_at", columnList = "detected_at"))
+@AllArgsConstructor
+@NoArgsConstructor
+public class AnalyticsGap {
+
+    @Id
+    @Column(name = "event_id")
+    private Long eventId;
+
+    /**
+     * Momento en que el compactador pasó por encima del ID.
+     */
+    @Column(name = "detected_at", nullable = false)
+    private LocalDateTime detectedAt;
+}
@@ -0,0 +1,28 @@
+package com.diver.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Posición hasta la que un proceso de analíticas ha consumido el registro de estados
+ * ({@link OrderStatusEvent}). La fila también sirve de candado entre instancias.
+ */
+@Data
+@Entity
+@Table(name = "analytics_watermark")
+@AllArgsConstructor
+@NoArgsConstructor
+public class AnalyticsWatermark {
+
+    @Id
+    private String name;
+
+    /**
+     * ID del último evento del registro de estados ya agregado.
+     */
+    private long lastEventId;
+}
@@ -4,13 +4,19 @@ import jakarta.persistence.*;
 import lombok.*;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Entidad que representa el carrito de compras.
  * Relaciones:
  * - OneToOne con User: Un carrito pertenece a un único cliente
  * - OneToMany con CartItem: Un carrito puede tener múltiples items
+ * <p>
+ * Los ítems deben modificarse con {@link #addItem}, {@link #updateItem}, {@link #removeItem}
+ * y {@link #clearItems}: mantienen el total y un índice por plato y por ID de forma incremental,
+ * sin recorrer la lista de ítems.
  */
 @Data
 @AllArgsConstructor
@@ -45,4 +51,126 @@ public class Cart {
      * Monto total del carrito
      */
     private Long total;
+
+    /**
+     * Índices en memoria de los ítems por ID de plato y por ID de ítem. No se persisten:
+     * se construyen al primer uso tras cargar el carrito y se mantienen con cada modificación.
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private transient Map<Long, CartItem> itemsByFoodId;
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private transient Map<Long, CartItem> itemsById;
+
+    public void setCartItems(List<CartItem> cartItems) {
+        this.cartItems = cartItems;
+        this.itemsByFoodId = null;
+        this.itemsById = null;
+    }
+
+    /**
+     * @param foodId El ID del plato.
+     * @return El ítem de ese plato, o {@code null} si no está en el carrito.
+     */
+    public CartItem findItemByFoodId(Long foodId) {
+        ensureIndexed();
+        return itemsByFoodId.get(foodId);
+    }
+
+    /**
+     * @param cartItemId El ID del ítem.
+     * @return El ítem con ese ID, o {@code null} si no pertenece a este carrito.
+     */
+    public CartItem findItemById(Long cartItemId) {
+        ensureIndexed();
+        return itemsById.get(cartItemId);
+    }
+
+    /**
+     * Añade un ítem nuevo y suma su importe al total.
+     */
+    public void addItem(CartItem item) {
+        ensureIndexed();
+        item.setCart(this);
+        cartItems.add(item);
+        index(item);
+        total = currentTotal() + priceOf(item);
+    }
+
+    /**
+     * Cambia la cantidad y el importe de un ítem del carrito, aplicando la diferencia al total.
+     */
+    public void updateItem(CartItem item, int quantity, long totalPrice) {
+        total = currentTotal() - priceOf(item) + totalPrice;
+        item.setQuantity(quantity);
+        item.setTotalPrice(totalPrice);
+    }
+
+    /**
+     * Quita un ítem del carrito y resta su importe del total.
+     */
+    public void removeItem(CartItem item) {
+        ensureIndexed();
+        if (cartItems.removeIf(existing -> existing == item)) {
+            itemsByFoodId.remove(item.getFood().getId(), item);
+            if (item.getId() != null) {
+                itemsById.remove(item.getId(), item);
+            }
+            total = currentTotal() - priceOf(item);
+        }
+    }
+
+    /**
+     * Vacía el carrito y pone el total a cero.
+     */
+    public void clearItems() {
+        cartItems.clear();
+        itemsByFoodId = new HashMap<>();
+        itemsById = new HashMap<>();
+        total = 0L;
+    }
+
+    /**
+     * Recalcula el total sumando todos los ítems. Es la referencia con la que se comprueba
+     * que el total mantenido de forma incremental no se ha desviado.
+     *
+     * @return La suma de los importes de los ítems.
+     */
+    public long computeItemsTotal() {
+        long sum = 0;
+        for (CartItem item : cartItems) {
+            sum += priceOf(item);
+        }
+        return sum;
+    }
+
+    private void ensureIndexed() {
+        if (itemsByFoodId != null) {
+            return;
+        }
+        itemsByFoodId = new HashMap<>();
+        itemsById = new HashMap<>();
+        cartItems.forEach(this::index);
+    }
+
+    private void index(CartItem item) {
+        itemsByFoodId.put(item.getFood().getId(), item);
+        if (item.getId() != null) {
+            itemsById.put(item.getId(), item);
+        }
+    }
+
+    private long currentTotal() {
+        return total != null ? total : 0L;
+    }
+
+    private static long priceOf(CartItem item) {
+        return item.getTotalPrice() != null ? item.getTotalPrice() : 0L;
+    }
 }
\ No newline at end of file
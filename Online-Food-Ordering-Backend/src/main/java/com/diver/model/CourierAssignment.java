@@ -0,0 +1,47 @@
+package com.diver.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Repartidor asignado a una orden.
+ * <p>
+ * Es una tabla aparte, de solo inserción, en lugar de una columna de {@link Order}: asignar un
+ * repartidor no reescribe la fila de la orden ni cambia su versión, así que no compite con los
+ * cambios de estado. La restricción única sobre {@code order_id} impide asignar dos veces la
+ * misma orden.
+ */
+@Data
+@Entity
+@Table(name = "courier_assignment", indexes = {
+        @Index(name = "idx_courier_assignment_courier", columnList = "courier_id, id")
+}, uniqueConstraints = {
+        @UniqueConstraint(name = "uk_courier_assignment_order", columnNames = "order_id")
+})
+@AllArgsConstructor
+@NoArgsConstructor
+public class CourierAssignment {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    @Column(name = "id", nullable = false)
+    private Long id;
+
+    @Column(name = "order_id", nullable = false)
+    private Long orderId;
+
+    @Column(name = "courier_id", nullable = false)
+    private Long courierId;
+
+    /**
+     * Distancia en línea recta del repartidor al restaurante al asignarla, en metros.
+     */
+    private long pickupDistanceMeters;
+
+    @Column(nullable = false)
+    private LocalDateTime assignedAt;
+}
@@ -17,7 +17,11 @@ import java.util.List;
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
-@Table(name = "food")
+// Índices para los filtros del menú (ver FoodRepository#findMenuRows): todos parten del restaurante.
+@Table(name = "food", indexes = {
+        @Index(name = "idx_food_restaurant_flags", columnList = "restaurant_id, available, is_vegetarian, is_seasonal"),
+        @Index(name = "idx_food_restaurant_category", columnList = "restaurant_id, category_id")
+})
 public class    Food {
     /**
      * ID único de la comida (clave primaria en la base de datos)
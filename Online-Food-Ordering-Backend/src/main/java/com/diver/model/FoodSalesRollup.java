@@ -0,0 +1,45 @@
+package com.diver.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Unidades vendidas e ingresos de un plato de un restaurante en una hora o un día.
+ * Como en {@link SalesRollup}, los ítems se cuentan en el intervalo de creación de su orden.
+ */
+@Data
+@Entity
+@Table(name = "food_sales_rollup", indexes = {
+        @Index(name = "uk_food_sales_rollup_bucket",
+                columnList = "restaurant_id, granularity, bucket_start, food_id", unique = true)
+})
+@AllArgsConstructor
+@NoArgsConstructor
+public class FoodSalesRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    @Column(name = "id", nullable = false)
+    private Long id;
+
+    @Column(name = "restaurant_id", nullable = false)
+    private Long restaurantId;
+
+    @Column(name = "food_id", nullable = false)
+    private Long foodId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private RollupGranularity granularity;
+
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDateTime bucketStart;
+
+    private long quantity;
+
+    private long revenue;
+}
@@ -32,7 +32,13 @@ import java.util.List;
  */
 @Data
 @Entity
-@Table(name = "`order`")
+// Índices para el historial paginado por keyset (ver OrderRepository). InnoDB añade la PK (id)
+// al final de cada índice secundario, así que cubren también el desempate por id.
+@Table(name = "`order`", indexes = {
+        @Index(name = "idx_order_restaurant_status_created", columnList = "restaurant_id, order_status, created_at"),
+        @Index(name = "idx_order_restaurant_created", columnList = "restaurant_id, created_at"),
+        @Index(name = "idx_order_customer_created", columnList = "customer_id, created_at")
+})
 @AllArgsConstructor
 @NoArgsConstructor
 public class Order {
@@ -67,10 +73,18 @@ public class Order {
     private Long totalAmount;
 
     /**
-     * Estado actual de la orden (por ejemplo: "Pendiente", "En preparación", "Entregada").
-     * Indica la fase del proceso en la que se encuentra el pedido.
+     * Estado actual de la orden. Solo cambia siguiendo las transiciones de {@link OrderStatus};
+     * cada cambio queda registrado en {@link OrderStatusEvent}.
      */
-    private String orderStatus;
+    @Enumerated(EnumType.STRING)
+    private OrderStatus orderStatus;
+
+    /**
+     * Versión para el control de concurrencia optimista: Hibernate la incrementa en cada
+     * actualización y rechaza las que parten de una versión anterior.
+     */
+    @Version
+    private long version;
 
     /**
      * Fecha y hora de creación de la orden.
@@ -0,0 +1,95 @@
+package com.diver.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Solicitud de orden aceptada y pendiente de materializar (tabla outbox).
+ * <p>
+ * La creación asíncrona de órdenes guarda aquí una instantánea del carrito y de la dirección de
+ * entrega, y responde de inmediato con el {@code trackingId}. Un proceso en segundo plano reclama
+ * las solicitudes pendientes por lotes y crea las filas de {@link Order} y {@link OrderItem}.
+ */
+@Data
+@Entity
+@Table(name = "order_intake", indexes = {
+        @Index(name = "uk_order_intake_tracking_id", columnList = "tracking_id", unique = true),
+        @Index(name = "idx_order_intake_status_id", columnList = "status, id")
+})
+@AllArgsConstructor
+@NoArgsConstructor
+public class OrderIntake {
+
+    /**
+     * Estado de la solicitud dentro del proceso de materialización.
+     */
+    public enum Status {
+        PENDING,     // Aceptada, esperando a un proceso
+        PROCESSING,  // Reclamada por un proceso
+        COMPLETED,   // Orden creada (ver orderId)
+        FAILED       // No se pudo crear la orden (ver errorMessage)
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    @Column(name = "id", nullable = false)
+    private Long id;
+
+    /**
+     * Identificador público que el cliente usa para consultar el estado.
+     */
+    @Column(name = "tracking_id", nullable = false, length = 36)
+    private String trackingId;
+
+    @Column(nullable = false)
+    private Long customerId;
+
+    @Column(nullable = false)
+    private Long restaurantId;
+
+    /**
+     * Dirección de entrega enviada en la petición (el ID solo si era una dirección existente).
+     */
+    private Long addressId;
+    private String street;
+    private String city;
+    private String state;
+
+    /**
+     * Líneas del carrito en el momento de aceptar la solicitud, en JSON.
+     */
+    @Lob
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String payload;
+
+    private Long totalAmount;
+
+    private int totalItems;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Status status;
+
+    /**
+     * Número de veces que un proceso ha reclamado la solicitud.
+     */
+    private int attempts;
+
+    /**
+     * ID de la orden creada, cuando el estado es {@code COMPLETED}.
+     */
+    private Long orderId;
+
+    @Column(length = 500)
+    private String errorMessage;
+
+    private LocalDateTime acceptedAt;
+
+    private LocalDateTime claimedAt;
+
+    private LocalDateTime processedAt;
+}
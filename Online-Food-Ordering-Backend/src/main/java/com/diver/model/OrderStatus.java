@@ -0,0 +1,72 @@
+package com.diver.model;
+
+import com.diver.exception.BadRequestException;
+
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Estados de una orden y transiciones permitidas entre ellos.
+ * <pre>
+ * PENDIENTE ──► EN_PREPARACION ──► EN_CAMINO ──► ENTREGADO
+ *     │               │
+ *     └──► CANCELADO ◄┘
+ * </pre>
+ * {@code ENTREGADO} y {@code CANCELADO} son finales. Se persiste por nombre
+ * ({@code EnumType.STRING}), con los mismos valores que usaba la columna de texto anterior.
+ */
+public enum OrderStatus {
+    PENDIENTE,
+    EN_PREPARACION,
+    EN_CAMINO,
+    ENTREGADO,
+    CANCELADO;
+
+    private EnumSet<OrderStatus> next;
+
+    static {
+        PENDIENTE.next = EnumSet.of(EN_PREPARACION, CANCELADO);
+        EN_PREPARACION.next = EnumSet.of(EN_CAMINO, CANCELADO);
+        EN_CAMINO.next = EnumSet.of(ENTREGADO);
+        ENTREGADO.next = EnumSet.noneOf(OrderStatus.class);
+        CANCELADO.next = EnumSet.noneOf(OrderStatus.class);
+    }
+
+    /**
+     * @param target El estado destino.
+     * @return {@code true} si se puede pasar de este estado al destino.
+     */
+    public boolean canTransitionTo(OrderStatus target) {
+        return next.contains(target);
+    }
+
+    /**
+     * @return Los estados a los que se puede pasar desde este.
+     */
+    public Set<OrderStatus> nextStatuses() {
+        return EnumSet.copyOf(next);
+    }
+
+    /**
+     * @return {@code true} si la orden ya no puede cambiar de estado.
+     */
+    public boolean isFinal() {
+        return next.isEmpty();
+    }
+
+    /**
+     * Convierte el texto recibido en la API (sin distinguir mayúsculas) en un estado.
+     *
+     * @param value El nombre del estado.
+     * @return El estado correspondiente.
+     * @throws BadRequestException si no es un estado conocido.
+     */
+    public static OrderStatus parse(String value) {
+        try {
+            return OrderStatus.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException | NullPointerException e) {
+            throw new BadRequestException("Estado de orden no válido: " + value);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.diver.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Registro de solo inserción de los cambios de estado de las órdenes.
+ * <p>
+ * Cada fila es compacta (sin relaciones) y está indexada por orden, por restaurante y por cliente,
+ * de modo que el historial de una orden y los cambios recientes de un restaurante o de un cliente
+ * se leen sin tocar la tabla de órdenes. El ID es creciente y sirve como posición para consultar "cambios desde".
+ */
+@Data
+@Entity
+@Table(name = "order_status_event", indexes = {
+        @Index(name = "idx_order_status_event_order", columnList = "order_id, id"),
+        @Index(name = "idx_order_status_event_restaurant", columnList = "restaurant_id, id"),
+        @Index(name = "idx_order_status_event_customer", columnList = "customer_id, id")
+})
+@AllArgsConstructor
+@NoArgsConstructor
+public class OrderStatusEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    @Column(name = "id", nullable = false)
+    private Long id;
+
+    @Column(name = "order_id", nullable = false)
+    private Long orderId;
+
+    @Column(name = "restaurant_id", nullable = false)
+    private Long restaurantId;
+
+    @Column(name = "customer_id", nullable = false)
+    private Long customerId;
+
+    /**
+     * Estado anterior; {@code null} en el evento de creación de la orden.
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20)
+    private OrderStatus fromStatus;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private OrderStatus toStatus;
+
+    /**
+     * Versión de la orden tras el cambio.
+     */
+    private long orderVersion;
+
+    /**
+     * ID del usuario que hizo el cambio.
+     */
+    private Long changedBy;
+
+    @Column(nullable = false)
+    private LocalDateTime changedAt;
+}
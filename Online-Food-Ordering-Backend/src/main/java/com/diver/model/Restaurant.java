@@ -137,6 +137,15 @@ public class Restaurant {
      */
     private boolean open;
 
+    /**
+     * Tiempo estimado de entrega en minutos para una orden hecha ahora, calculado en memoria
+     * al listar restaurantes. No se persiste.
+     *
+     * @example 35
+     */
+    @Transient
+    private Integer etaMinutes;
+
     /**
      * Lista de platos ofrecidos por el restaurante
      * Relación uno a muchos con la entidad Food
@@ -0,0 +1,55 @@
+package com.diver.model;
+
+import com.diver.exception.BadRequestException;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Granularidad de las tablas de agregados de ventas.
+ */
+public enum RollupGranularity {
+
+    HOUR(ChronoUnit.HOURS),
+    DAY(ChronoUnit.DAYS);
+
+    private final ChronoUnit unit;
+
+    RollupGranularity(ChronoUnit unit) {
+        this.unit = unit;
+    }
+
+    /**
+     * @return El inicio del intervalo que contiene el instante dado.
+     */
+    public LocalDateTime bucketStart(LocalDateTime time) {
+        return time.truncatedTo(unit);
+    }
+
+    /**
+     * @return El inicio del intervalo que está {@code buckets} intervalos después (o antes, si es negativo).
+     */
+    public LocalDateTime plus(LocalDateTime bucketStart, long buckets) {
+        return bucketStart.plus(buckets, unit);
+    }
+
+    /**
+     * @return El número de intervalos entre dos instantes alineados a esta granularidad.
+     */
+    public long bucketsBetween(LocalDateTime from, LocalDateTime to) {
+        return unit.between(from, to);
+    }
+
+    /**
+     * Convierte el texto recibido en la petición en una granularidad (sin distinguir mayúsculas).
+     *
+     * @throws BadRequestException si no es una granularidad conocida.
+     */
+    public static RollupGranularity parse(String value) {
+        try {
+            return RollupGranularity.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException | NullPointerException e) {
+            throw new BadRequestException("Granularidad no válida: " + value + ". Usa HOUR o DAY.");
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.diver.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Ventas agregadas de un restaurante en una hora o un día.
+ * <p>
+ * Las órdenes se cuentan en el intervalo de su fecha de creación, también cuando después se
+ * cancelan o entregan; así la tasa de cancelación de un intervalo se refiere a las órdenes
+ * recibidas en él. Las filas las mantiene el compactador de analíticas de forma incremental.
+ */
+@Data
+@Entity
+@Table(name = "sales_rollup", indexes = {
+        @Index(name = "uk_sales_rollup_bucket", columnList = "restaurant_id, granularity, bucket_start", unique = true)
+})
+@AllArgsConstructor
+@NoArgsConstructor
+public class SalesRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    @Column(name = "id", nullable = false)
+    private Long id;
+
+    @Column(name = "restaurant_id", nullable = false)
+    private Long restaurantId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private RollupGranularity granularity;
+
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDateTime bucketStart;
+
+    private long orderCount;
+
+    private long cancelledCount;
+
+    private long deliveredCount;
+
+    /**
+     * Suma de {@code Order.totalAmount} de las órdenes recibidas.
+     */
+    private long revenue;
+
+    /**
+     * Parte de {@link #revenue} que corresponde a órdenes canceladas.
+     */
+    private long cancelledRevenue;
+}
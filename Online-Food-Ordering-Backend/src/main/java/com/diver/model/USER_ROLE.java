@@ -3,5 +3,6 @@ package com.diver.model;
 public enum USER_ROLE {
     ROLE_CUSTOMER, // Cliente de la aplicación
     ROLE_RESTAURANT_OWNER, // Propietario de un restaurante
-    ROLE_ADMIN // Administrador de la aplicación
+    ROLE_ADMIN, // Administrador de la aplicación
+    ROLE_COURIER // Repartidor
 }
@@ -73,7 +73,8 @@ public class User implements UserDetails {
 
     /**
      * Rol del usuario, definido por el enum USER_ROLE.
-     * Puede ser cliente, propietario de restaurante o administrador.
+     * Puede ser cliente, propietario de restaurante, administrador o repartidor.
+     * Se persiste por ordinal: los valores nuevos se añaden al final del enum.
      */
     private USER_ROLE role=USER_ROLE.ROLE_CUSTOMER; // Por defecto, un usuario es cliente;
 
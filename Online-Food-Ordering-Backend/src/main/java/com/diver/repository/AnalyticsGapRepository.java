@@ -0,0 +1,22 @@
+package com.diver.repository;
+
+import com.diver.model.AnalyticsGap;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Repositorio de los huecos pendientes del compactador de analíticas.
+ */
+public interface AnalyticsGapRepository extends JpaRepository<AnalyticsGap, Long> {
+
+    /**
+     * @param cutoff Solo huecos detectados antes de esta fecha.
+     * @return Los IDs de los huecos detectados antes de {@code cutoff}, en orden ascendente.
+     */
+    @Query("SELECT g.eventId FROM AnalyticsGap g WHERE g.detectedAt < :cutoff ORDER BY g.eventId")
+    List<Long> findEventIdsDetectedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
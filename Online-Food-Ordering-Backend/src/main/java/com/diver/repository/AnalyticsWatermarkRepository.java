@@ -0,0 +1,24 @@
+package com.diver.repository;
+
+import com.diver.model.AnalyticsWatermark;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+/**
+ * Repositorio de las posiciones de los procesos de analíticas.
+ */
+public interface AnalyticsWatermarkRepository extends JpaRepository<AnalyticsWatermark, String> {
+
+    /**
+     * Lee y bloquea la posición de un proceso hasta el final de la transacción, de modo que
+     * solo una instancia lo ejecute a la vez.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT w FROM AnalyticsWatermark w WHERE w.name = :name")
+    Optional<AnalyticsWatermark> lockByName(@Param("name") String name);
+}
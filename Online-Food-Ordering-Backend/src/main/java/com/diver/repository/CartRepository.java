@@ -1,12 +1,29 @@
 package com.diver.repository;
 
 import com.diver.model.Cart;
+import com.diver.repository.projection.CartTotalDriftRow;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface CartRepository extends JpaRepository<Cart, Long> {
 
     Optional<Cart> findByCustomerId(Long customerId);
 
+    /**
+     * Busca, con una única consulta agregada, los carritos cuyo total guardado no coincide con
+     * la suma de los importes de sus ítems. Un total vacío cuenta como cero, como en un
+     * carrito recién creado.
+     *
+     * @return Una fila por carrito desviado.
+     */
+    @Query("SELECT new com.diver.repository.projection.CartTotalDriftRow(" +
+           "c.id, c.customer.id, c.total, COALESCE(SUM(i.totalPrice), 0L)) " +
+           "FROM Cart c LEFT JOIN c.cartItems i " +
+           "GROUP BY c.id, c.customer.id, c.total " +
+           "HAVING COALESCE(c.total, 0L) <> COALESCE(SUM(i.totalPrice), 0L)")
+    List<CartTotalDriftRow> findTotalDrift();
+
 }
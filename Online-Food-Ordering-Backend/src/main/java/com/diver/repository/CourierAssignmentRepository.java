@@ -0,0 +1,10 @@
+package com.diver.repository;
+
+import com.diver.model.CourierAssignment;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+/**
+ * Repositorio de las asignaciones de repartidores a órdenes.
+ */
+public interface CourierAssignmentRepository extends JpaRepository<CourierAssignment, Long> {
+}
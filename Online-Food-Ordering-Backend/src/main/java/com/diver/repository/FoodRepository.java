@@ -1,20 +1,58 @@
 package com.diver.repository;
 
 
-import com.diver.dto.FoodDto;
 import com.diver.model.Food;
+import com.diver.repository.projection.FoodImageRow;
+import com.diver.repository.projection.FoodIngredientRow;
+import com.diver.repository.projection.FoodSuggestionRow;
+import com.diver.repository.projection.MenuFoodRow;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 
-public interface FoodRepository extends JpaRepository<Food, Long> {
+public interface FoodRepository extends JpaRepository<Food, Long>, JpaSpecificationExecutor<Food> {
 
     List<Food> findByRestaurantId(Long restaurantId);
 
-    @Query("SELECT f FROM Food f\n" +
-            "WHERE LOWER(f.name) LIKE LOWER(CONCAT('%', :keyword, '%'))\n" +
-            "   OR LOWER(f.category.name) LIKE LOWER(CONCAT('%', :keyword, '%'))")
-    List<Food> searchFood(@Param("keyword") String keyword);
+    @Query("SELECT new com.diver.repository.projection.FoodSuggestionRow(f.id, f.restaurant.id, f.name, c.name) " +
+           "FROM Food f LEFT JOIN f.category c")
+    List<FoodSuggestionRow> findSuggestionRows();
+
+    @Query("SELECT new com.diver.repository.projection.FoodSuggestionRow(f.id, f.restaurant.id, f.name, c.name) " +
+           "FROM Food f LEFT JOIN f.category c WHERE f.id IN :ids")
+    List<FoodSuggestionRow> findSuggestionRowsByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Platos del menú de un restaurante como proyección. Cada filtro {@code null} no se aplica;
+     * {@code category} se compara en minúsculas. La ordenación se aplica sobre el alias {@code f}.
+     */
+    @Query("SELECT new com.diver.repository.projection.MenuFoodRow(f.id, f.name, f.description, f.price, " +
+           "f.available, f.isVegetarian, f.isSeasonal, f.creationDate, c.id, c.name, r.id, r.name) " +
+           "FROM Food f JOIN f.restaurant r LEFT JOIN f.category c " +
+           "WHERE r.id = :restaurantId " +
+           "AND (:vegetarian IS NULL OR f.isVegetarian = :vegetarian) " +
+           "AND (:seasonal IS NULL OR f.isSeasonal = :seasonal) " +
+           "AND (:available IS NULL OR f.available = :available) " +
+           "AND (:category IS NULL OR LOWER(c.name) = :category)")
+    List<MenuFoodRow> findMenuRows(@Param("restaurantId") Long restaurantId,
+                                   @Param("vegetarian") Boolean vegetarian,
+                                   @Param("seasonal") Boolean seasonal,
+                                   @Param("available") Boolean available,
+                                   @Param("category") String category,
+                                   Sort sort);
+
+    @Query("SELECT new com.diver.repository.projection.FoodImageRow(f.id, i) " +
+           "FROM Food f JOIN f.images i WHERE f.id IN :ids")
+    List<FoodImageRow> findImageRowsByFoodIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT new com.diver.repository.projection.FoodIngredientRow(f.id, i.id, i.name, i.inStock, " +
+           "ic.id, ic.name, icr.id) " +
+           "FROM Food f JOIN f.ingredients i LEFT JOIN i.category ic LEFT JOIN ic.restaurant icr " +
+           "WHERE f.id IN :ids")
+    List<FoodIngredientRow> findIngredientRowsByFoodIdIn(@Param("ids") Collection<Long> ids);
 }
\ No newline at end of file
@@ -0,0 +1,37 @@
+package com.diver.repository;
+
+import com.diver.model.FoodSalesRollup;
+import com.diver.model.RollupGranularity;
+import com.diver.repository.projection.FoodSalesRow;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repositorio de los agregados de ventas por plato.
+ */
+public interface FoodSalesRollupRepository extends JpaRepository<FoodSalesRollup, Long> {
+
+    /**
+     * Platos más vendidos de un restaurante en {@code [from, to)}, sumando los intervalos de la
+     * granularidad indicada. El coste depende del número de platos e intervalos, no de órdenes.
+     */
+    @Query("SELECT new com.diver.repository.projection.FoodSalesRow(r.foodId, f.name, SUM(r.quantity), SUM(r.revenue)) " +
+           "FROM FoodSalesRollup r LEFT JOIN Food f ON f.id = r.foodId " +
+           "WHERE r.restaurantId = :restaurantId AND r.granularity = :granularity " +
+           "AND r.bucketStart >= :from AND r.bucketStart < :to " +
+           "GROUP BY r.foodId, f.name ORDER BY SUM(r.quantity) DESC, r.foodId")
+    List<FoodSalesRow> findTopFoods(@Param("restaurantId") Long restaurantId,
+                                    @Param("granularity") RollupGranularity granularity,
+                                    @Param("from") LocalDateTime from,
+                                    @Param("to") LocalDateTime to,
+                                    Limit limit);
+
+    List<FoodSalesRollup> findByGranularityAndRestaurantIdInAndBucketStartIn(
+            RollupGranularity granularity, Collection<Long> restaurantIds, Collection<LocalDateTime> bucketStarts);
+}
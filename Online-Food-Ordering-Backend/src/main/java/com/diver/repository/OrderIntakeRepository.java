@@ -0,0 +1,70 @@
+package com.diver.repository;
+
+import com.diver.model.OrderIntake;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repositorio de la cola de solicitudes de órdenes asíncronas.
+ */
+public interface OrderIntakeRepository extends JpaRepository<OrderIntake, Long> {
+
+    Optional<OrderIntake> findByTrackingId(String trackingId);
+
+    /**
+     * Bloquea las solicitudes más antiguas en un estado, saltándose las que ya tiene bloqueadas
+     * otro proceso ({@code FOR UPDATE SKIP LOCKED}). Así varios procesos, incluso en distintas
+     * instancias, reclaman lotes disjuntos sin esperarse entre sí.
+     *
+     * @param status El estado a reclamar (normalmente {@code PENDING}).
+     * @param limit  El tamaño máximo del lote.
+     * @return Las solicitudes bloqueadas, por orden de llegada.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT i FROM OrderIntake i WHERE i.status = :status ORDER BY i.id")
+    List<OrderIntake> lockByStatus(@Param("status") OrderIntake.Status status, Limit limit);
+
+    /**
+     * Bloquea las solicitudes de un lote que siguen reclamadas por la misma reclamación. Si la
+     * solicitud volvió a la cola y la reclamó otro proceso, su {@code claimedAt} ya no coincide y
+     * no se devuelve; si la está procesando otro proceso, espera a que confirme.
+     *
+     * @param ids       Los IDs del lote.
+     * @param claimedAt La fecha con la que se reclamó el lote.
+     * @return Las solicitudes aún en {@code PROCESSING} con esa reclamación, por ID.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT i FROM OrderIntake i WHERE i.id IN :ids AND i.status = com.diver.model.OrderIntake.Status.PROCESSING " +
+           "AND i.claimedAt = :claimedAt ORDER BY i.id")
+    List<OrderIntake> lockClaimed(@Param("ids") Collection<Long> ids, @Param("claimedAt") LocalDateTime claimedAt);
+
+    /**
+     * Devuelve a la cola las solicitudes reclamadas antes de una fecha que no llegaron a
+     * completarse (por ejemplo, porque la instancia que las procesaba se detuvo).
+     *
+     * @param before Fecha límite de reclamación.
+     * @return El número de solicitudes devueltas a la cola.
+     */
+    default int requeueClaimedBefore(LocalDateTime before) {
+        return updateStatusClaimedBefore(before, OrderIntake.Status.PROCESSING, OrderIntake.Status.PENDING);
+    }
+
+    @Modifying
+    @Query("UPDATE OrderIntake i SET i.status = :toStatus WHERE i.status = :fromStatus AND i.claimedAt < :before")
+    int updateStatusClaimedBefore(@Param("before") LocalDateTime before,
+                                  @Param("fromStatus") OrderIntake.Status fromStatus,
+                                  @Param("toStatus") OrderIntake.Status toStatus);
+}
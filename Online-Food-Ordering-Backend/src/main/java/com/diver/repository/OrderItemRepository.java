@@ -1,7 +1,36 @@
 package com.diver.repository;
 
 import com.diver.model.OrderItem;
+import com.diver.repository.projection.OrderItemIngredientRow;
+import com.diver.repository.projection.OrderItemRow;
+import com.diver.repository.projection.PopularityRow;
+import com.diver.repository.projection.SalesItemRow;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
 
 public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
+
+    @Query("SELECT new com.diver.repository.projection.OrderItemRow(" +
+           "oi.order.id, oi.id, f.id, f.name, oi.quantity, oi.totalPrice) " +
+           "FROM OrderItem oi JOIN oi.food f " +
+           "WHERE oi.order.id IN :orderIds ORDER BY oi.id")
+    List<OrderItemRow> findRowsByOrderIdIn(@Param("orderIds") Collection<Long> orderIds);
+
+    @Query("SELECT new com.diver.repository.projection.OrderItemIngredientRow(oi.id, ing) " +
+           "FROM OrderItem oi JOIN oi.ingredients ing " +
+           "WHERE oi.order.id IN :orderIds")
+    List<OrderItemIngredientRow> findIngredientRowsByOrderIdIn(@Param("orderIds") Collection<Long> orderIds);
+
+    @Query("SELECT new com.diver.repository.projection.PopularityRow(oi.food.id, SUM(oi.quantity)) " +
+           "FROM OrderItem oi GROUP BY oi.food.id")
+    List<PopularityRow> findFoodPopularity();
+
+    @Query("SELECT new com.diver.repository.projection.SalesItemRow(" +
+           "oi.order.id, oi.food.id, SUM(oi.quantity), SUM(oi.totalPrice)) " +
+           "FROM OrderItem oi WHERE oi.order.id IN :orderIds GROUP BY oi.order.id, oi.food.id")
+    List<SalesItemRow> findSalesRowsByOrderIdIn(@Param("orderIds") Collection<Long> orderIds);
 }
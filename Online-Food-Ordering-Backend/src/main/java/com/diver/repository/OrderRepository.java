@@ -1,13 +1,135 @@
 package com.diver.repository;
 
 import com.diver.model.Order;
+import com.diver.model.OrderStatus;
+import com.diver.repository.projection.DispatchOrderRow;
+import com.diver.repository.projection.KitchenOrderRow;
+import com.diver.repository.projection.OrderRow;
+import com.diver.repository.projection.OrderStatusRow;
+import com.diver.repository.projection.PopularityRow;
+import com.diver.repository.projection.SalesOrderRow;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
+/**
+ * Repositorio de órdenes.
+ * <p>
+ * Los listados se resuelven en dos fases: primero se obtienen los IDs (filtrados, ordenados y,
+ * en su caso, paginados por keyset sobre {@code (createdAt DESC, id DESC)}), y después se cargan
+ * las filas de lectura con {@link #findRowsByIdIn(Collection)} y las consultas de
+ * {@link OrderItemRepository}. Así el número de consultas no depende del número de órdenes.
+ */
 public interface OrderRepository extends JpaRepository<Order, Long> {
 
     List<Order> findByCustomerId(Long customerId);
     List<Order> findByRestaurantId(Long restaurantId);
-    List<Order> findByRestaurantIdAndOrderStatus(Long restaurantId, String orderStatus);
+    List<Order> findByRestaurantIdAndOrderStatus(Long restaurantId, OrderStatus orderStatus);
+
+    // --- Fase 1: IDs (listados completos y paginación por keyset) ---
+
+    @Query("SELECT o.id FROM Order o WHERE o.customer.id = :customerId " +
+           "ORDER BY o.createdAt DESC, o.id DESC")
+    List<Long> findIdsByCustomerId(@Param("customerId") Long customerId, Limit limit);
+
+    @Query("SELECT o.id FROM Order o WHERE o.customer.id = :customerId " +
+           "AND (o.createdAt < :createdAt OR (o.createdAt = :createdAt AND o.id < :id)) " +
+           "ORDER BY o.createdAt DESC, o.id DESC")
+    List<Long> findCustomerPageAfter(@Param("customerId") Long customerId,
+                                     @Param("createdAt") LocalDateTime createdAt,
+                                     @Param("id") Long id,
+                                     Limit limit);
+
+    @Query("SELECT o.id FROM Order o WHERE o.restaurant.id = :restaurantId " +
+           "ORDER BY o.createdAt DESC, o.id DESC")
+    List<Long> findIdsByRestaurantId(@Param("restaurantId") Long restaurantId, Limit limit);
+
+    @Query("SELECT o.id FROM Order o WHERE o.restaurant.id = :restaurantId " +
+           "AND (o.createdAt < :createdAt OR (o.createdAt = :createdAt AND o.id < :id)) " +
+           "ORDER BY o.createdAt DESC, o.id DESC")
+    List<Long> findRestaurantPageAfter(@Param("restaurantId") Long restaurantId,
+                                       @Param("createdAt") LocalDateTime createdAt,
+                                       @Param("id") Long id,
+                                       Limit limit);
+
+    @Query("SELECT o.id FROM Order o WHERE o.restaurant.id = :restaurantId AND o.orderStatus = :orderStatus " +
+           "ORDER BY o.createdAt DESC, o.id DESC")
+    List<Long> findIdsByRestaurantIdAndOrderStatus(@Param("restaurantId") Long restaurantId,
+                                                   @Param("orderStatus") OrderStatus orderStatus,
+                                                   Limit limit);
+
+    @Query("SELECT o.id FROM Order o WHERE o.restaurant.id = :restaurantId AND o.orderStatus = :orderStatus " +
+           "AND (o.createdAt < :createdAt OR (o.createdAt = :createdAt AND o.id < :id)) " +
+           "ORDER BY o.createdAt DESC, o.id DESC")
+    List<Long> findRestaurantPageByStatusAfter(@Param("restaurantId") Long restaurantId,
+                                               @Param("orderStatus") OrderStatus orderStatus,
+                                               @Param("createdAt") LocalDateTime createdAt,
+                                               @Param("id") Long id,
+                                               Limit limit);
+
+    // --- Fase 2: filas de lectura ---
+
+    @Query("SELECT new com.diver.repository.projection.OrderRow(" +
+           "o.id, c.id, c.email, r.id, r.name, o.totalAmount, o.orderStatus, o.version, o.createdAt, " +
+           "a.id, a.street, a.city, a.state, a.latitude, a.longitude, ra.latitude, ra.longitude) " +
+           "FROM Order o JOIN o.customer c JOIN o.restaurant r LEFT JOIN r.address ra LEFT JOIN o.deliveryAddress a " +
+           "WHERE o.id IN :ids")
+    List<OrderRow> findRowsByIdIn(@Param("ids") Collection<Long> ids);
+
+    // --- Estado actual ---
+
+    @Query("SELECT new com.diver.repository.projection.OrderStatusRow(" +
+           "o.id, o.customer.id, r.id, r.owner.id, o.orderStatus, o.version) " +
+           "FROM Order o JOIN o.restaurant r WHERE o.id = :id")
+    Optional<OrderStatusRow> findStatusRowById(@Param("id") Long id);
+
+    // --- Tablero de cocina ---
+
+    @Query("SELECT new com.diver.repository.projection.KitchenOrderRow(" +
+           "o.id, r.id, r.owner.id, c.id, c.email, o.orderStatus, o.version, o.createdAt, o.totalAmount, o.totalItems) " +
+           "FROM Order o JOIN o.restaurant r JOIN o.customer c WHERE o.orderStatus IN :statuses")
+    List<KitchenOrderRow> findKitchenRowsByStatusIn(@Param("statuses") Collection<OrderStatus> statuses);
+
+    @Query("SELECT new com.diver.repository.projection.KitchenOrderRow(" +
+           "o.id, r.id, r.owner.id, c.id, c.email, o.orderStatus, o.version, o.createdAt, o.totalAmount, o.totalItems) " +
+           "FROM Order o JOIN o.restaurant r JOIN o.customer c WHERE o.id = :id")
+    Optional<KitchenOrderRow> findKitchenRowById(@Param("id") Long id);
+
+    // --- Reparto ---
+
+    @Query("SELECT new com.diver.repository.projection.DispatchOrderRow(" +
+           "o.id, r.id, ra.latitude, ra.longitude, da.latitude, da.longitude, o.orderStatus, o.createdAt, ca.courierId) " +
+           "FROM Order o JOIN o.restaurant r LEFT JOIN r.address ra LEFT JOIN o.deliveryAddress da " +
+           "LEFT JOIN CourierAssignment ca ON ca.orderId = o.id WHERE o.orderStatus IN :statuses")
+    List<DispatchOrderRow> findDispatchRowsByStatusIn(@Param("statuses") Collection<OrderStatus> statuses);
+
+    @Query("SELECT new com.diver.repository.projection.DispatchOrderRow(" +
+           "o.id, r.id, ra.latitude, ra.longitude, da.latitude, da.longitude, o.orderStatus, o.createdAt, ca.courierId) " +
+           "FROM Order o JOIN o.restaurant r LEFT JOIN r.address ra LEFT JOIN o.deliveryAddress da " +
+           "LEFT JOIN CourierAssignment ca ON ca.orderId = o.id WHERE o.id = :id")
+    Optional<DispatchOrderRow> findDispatchRowById(@Param("id") Long id);
+
+    /**
+     * De entre las órdenes dadas, las que siguen en uno de los estados indicados y sin repartidor.
+     */
+    @Query("SELECT o.id FROM Order o WHERE o.id IN :ids AND o.orderStatus IN :statuses " +
+           "AND NOT EXISTS (SELECT ca.id FROM CourierAssignment ca WHERE ca.orderId = o.id)")
+    List<Long> findUnassignedIdsByIdInAndStatusIn(@Param("ids") Collection<Long> ids,
+                                                  @Param("statuses") Collection<OrderStatus> statuses);
+
+    // --- Agregados ---
+
+    @Query("SELECT new com.diver.repository.projection.SalesOrderRow(o.id, o.restaurant.id, o.createdAt, o.totalAmount) " +
+           "FROM Order o WHERE o.id IN :ids")
+    List<SalesOrderRow> findSalesRowsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT new com.diver.repository.projection.PopularityRow(o.restaurant.id, COUNT(o)) " +
+           "FROM Order o GROUP BY o.restaurant.id")
+    List<PopularityRow> findRestaurantPopularity();
 }
@@ -0,0 +1,78 @@
+package com.diver.repository;
+
+import com.diver.model.OrderStatusEvent;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Repositorio del registro de cambios de estado de las órdenes.
+ */
+public interface OrderStatusEventRepository extends JpaRepository<OrderStatusEvent, Long> {
+
+    /**
+     * @param orderId El ID de la orden.
+     * @return Los cambios de estado de la orden, del más antiguo al más reciente.
+     */
+    List<OrderStatusEvent> findByOrderIdOrderByIdAsc(Long orderId);
+
+    /**
+     * Cambios de estado de las órdenes de un restaurante posteriores a una posición, para que
+     * los clientes que consultan periódicamente solo reciban lo nuevo.
+     *
+     * @param restaurantId El ID del restaurante.
+     * @param afterId      El ID del último evento recibido (0 para empezar desde el principio).
+     * @param limit        El número máximo de eventos.
+     * @return Los eventos en orden de ID ascendente.
+     */
+    List<OrderStatusEvent> findByRestaurantIdAndIdGreaterThanOrderByIdAsc(Long restaurantId, Long afterId, Limit limit);
+
+    /**
+     * Cambios de estado de las órdenes de un cliente posteriores a una posición.
+     *
+     * @param customerId El ID del cliente.
+     * @param afterId    El ID del último evento recibido.
+     * @param limit      El número máximo de eventos.
+     * @return Los eventos en orden de ID ascendente.
+     */
+    List<OrderStatusEvent> findByCustomerIdAndIdGreaterThanOrderByIdAsc(Long customerId, Long afterId, Limit limit);
+
+    /**
+     * Eventos posteriores a una posición y anteriores a una fecha, para los procesos que consumen
+     * el registro completo. La fecha deja margen a las transacciones que obtuvieron un ID menor
+     * pero aún no han confirmado.
+     *
+     * @param afterId El ID del último evento consumido.
+     * @param before  Solo eventos con {@code changedAt} anterior a esta fecha.
+     * @param limit   El número máximo de eventos.
+     * @return Los eventos en orden de ID ascendente.
+     */
+    List<OrderStatusEvent> findByIdGreaterThanAndChangedAtBeforeOrderByIdAsc(Long afterId, LocalDateTime before, Limit limit);
+
+    /**
+     * Eventos posteriores a una posición y a una fecha, para los procesos que al arrancar solo
+     * necesitan el historial reciente.
+     *
+     * @param afterId El ID del último evento consumido.
+     * @param after   Solo eventos con {@code changedAt} posterior a esta fecha.
+     * @param limit   El número máximo de eventos.
+     * @return Los eventos en orden de ID ascendente.
+     */
+    List<OrderStatusEvent> findByIdGreaterThanAndChangedAtAfterOrderByIdAsc(Long afterId, LocalDateTime after, Limit limit);
+
+    /**
+     * Eventos cuyos IDs quedaron como huecos del compactador de analíticas
+     * ({@link com.diver.model.AnalyticsGap}) y que ya han confirmado con la antigüedad mínima.
+     *
+     * @param before Solo eventos con {@code changedAt} anterior a esta fecha.
+     * @param limit  El número máximo de eventos.
+     * @return Los eventos en orden de ID ascendente.
+     */
+    @Query("SELECT e FROM OrderStatusEvent e WHERE e.changedAt < :before " +
+           "AND e.id IN (SELECT g.eventId FROM AnalyticsGap g) ORDER BY e.id")
+    List<OrderStatusEvent> findGapEventsChangedBefore(@Param("before") LocalDateTime before, Limit limit);
+}
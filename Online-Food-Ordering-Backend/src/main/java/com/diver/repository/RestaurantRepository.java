@@ -1,39 +1,48 @@
 package com.diver.repository;
 
 import com.diver.model.Restaurant;
+import com.diver.repository.projection.RestaurantLocationRow;
+import com.diver.repository.projection.RestaurantSuggestionRow;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
+import java.util.Optional;
 
 public interface RestaurantRepository extends JpaRepository<Restaurant, Long> {
 
     /**
-     * 🔎 Búsqueda flexible de restaurantes por nombre o tipo de cocina.
+     * Proyección mínima (ID, nombre y tipo de cocina) de todos los restaurantes,
+     * usada para construir el índice de autocompletado sin cargar las entidades.
      *
-     * Esta consulta personalizada permite buscar restaurantes cuyos nombres
-     * o tipos de cocina contengan una palabra clave específica, sin importar
-     * si está escrita en mayúsculas o minúsculas.
-     *
-     * <p><b>Ejemplo de uso:</b></p>
-     * <pre>
-     * findBySearchQuery("sushi")
-     * </pre>
-     *
-     * Buscará coincidencias como:
-     * - "Sushi World" (en el nombre)
-     * - "Japonesa" (en el tipo de cocina)
+     * @return Una fila por restaurante.
+     */
+    @Query("SELECT new com.diver.repository.projection.RestaurantSuggestionRow(r.id, r.name, r.cuisineType) " +
+           "FROM Restaurant r")
+    List<RestaurantSuggestionRow> findSuggestionRows();
+
+    /**
+     * Restaurantes abiertos con coordenadas, para construir el índice de búsqueda por cercanía.
      *
-     * @param query Palabra clave para buscar (por ejemplo: "pizza", "italiana").
-     * @return Lista de restaurantes que coinciden con el criterio de búsqueda.
+     * @return Una fila por restaurante abierto y geolocalizado.
      */
-    @Query("""
-           SELECT r FROM Restaurant r
-           WHERE LOWER(r.name) LIKE LOWER(CONCAT('%', :query, '%'))
-              OR LOWER(r.cuisineType) LIKE LOWER(CONCAT('%', :query, '%'))
-           """)
-    List<Restaurant> findBySearchQuery(String query);
+    @Query("SELECT new com.diver.repository.projection.RestaurantLocationRow(" +
+           "r.id, r.name, r.cuisineType, a.street, a.city, a.latitude, a.longitude, r.open) " +
+           "FROM Restaurant r JOIN r.address a " +
+           "WHERE r.open = true AND a.latitude IS NOT NULL AND a.longitude IS NOT NULL")
+    List<RestaurantLocationRow> findOpenLocationRows();
 
+    /**
+     * Ubicación y estado de un restaurante, para actualizar el índice de búsqueda por cercanía.
+     *
+     * @param id El ID del restaurante.
+     * @return La fila del restaurante, o vacío si no existe o no tiene dirección.
+     */
+    @Query("SELECT new com.diver.repository.projection.RestaurantLocationRow(" +
+           "r.id, r.name, r.cuisineType, a.street, a.city, a.latitude, a.longitude, r.open) " +
+           "FROM Restaurant r JOIN r.address a WHERE r.id = :id")
+    Optional<RestaurantLocationRow> findLocationRowById(@Param("id") Long id);
 
     /**
      * 🔐 Obtiene un restaurante por el ID de su propietario.
@@ -0,0 +1,29 @@
+package com.diver.repository;
+
+import com.diver.model.RollupGranularity;
+import com.diver.model.SalesRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repositorio de los agregados de ventas por restaurante.
+ */
+public interface SalesRollupRepository extends JpaRepository<SalesRollup, Long> {
+
+    /**
+     * Intervalos de un restaurante en {@code [from, to)}, en orden cronológico. Solo existen
+     * filas para los intervalos con actividad.
+     */
+    List<SalesRollup> findByRestaurantIdAndGranularityAndBucketStartGreaterThanEqualAndBucketStartLessThanOrderByBucketStartAsc(
+            Long restaurantId, RollupGranularity granularity, LocalDateTime from, LocalDateTime to);
+
+    /**
+     * Filas existentes para un conjunto de restaurantes e intervalos; el compactador las carga de
+     * una vez y descarta en memoria las combinaciones que no necesita.
+     */
+    List<SalesRollup> findByGranularityAndRestaurantIdInAndBucketStartIn(
+            RollupGranularity granularity, Collection<Long> restaurantIds, Collection<LocalDateTime> bucketStarts);
+}
@@ -0,0 +1,16 @@
+package com.diver.repository.projection;
+
+/**
+ * Carrito cuyo total guardado no coincide con la suma de sus ítems.
+ *
+ * @param cartId      El ID del carrito.
+ * @param customerId  El ID del cliente propietario.
+ * @param storedTotal El total guardado en el carrito (puede ser {@code null}).
+ * @param itemsTotal  La suma de los importes de sus ítems.
+ */
+public record CartTotalDriftRow(
+        Long cartId,
+        Long customerId,
+        Long storedTotal,
+        Long itemsTotal) {
+}
@@ -0,0 +1,31 @@
+package com.diver.repository.projection;
+
+import com.diver.model.OrderStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * Proyección de una orden con lo necesario para el reparto: las coordenadas del restaurante
+ * y de la entrega, y el repartidor asignado, si lo hay.
+ *
+ * @param orderId            El ID de la orden.
+ * @param restaurantId       El ID del restaurante.
+ * @param restaurantLatitude Latitud del restaurante ({@code null} si no está geolocalizado).
+ * @param restaurantLongitude Longitud del restaurante.
+ * @param deliveryLatitude   Latitud de la entrega ({@code null} si no se conoce).
+ * @param deliveryLongitude  Longitud de la entrega.
+ * @param status             El estado actual.
+ * @param createdAt          La fecha de creación.
+ * @param courierId          El ID del repartidor asignado, o {@code null}.
+ */
+public record DispatchOrderRow(
+        Long orderId,
+        Long restaurantId,
+        Double restaurantLatitude,
+        Double restaurantLongitude,
+        Double deliveryLatitude,
+        Double deliveryLongitude,
+        OrderStatus status,
+        LocalDateTime createdAt,
+        Long courierId) {
+}
@@ -0,0 +1,7 @@
+package com.diver.repository.projection;
+
+/**
+ * Una imagen de un plato, leída directamente de la colección de elementos.
+ */
+public record FoodImageRow(Long foodId, String image) {
+}
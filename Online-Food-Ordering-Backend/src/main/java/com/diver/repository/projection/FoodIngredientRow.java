@@ -0,0 +1,14 @@
+package com.diver.repository.projection;
+
+/**
+ * Un ingrediente de un plato del menú, con su categoría aplanada.
+ */
+public record FoodIngredientRow(
+        Long foodId,
+        Long id,
+        String name,
+        boolean inStock,
+        Long categoryId,
+        String categoryName,
+        Long categoryRestaurantId) {
+}
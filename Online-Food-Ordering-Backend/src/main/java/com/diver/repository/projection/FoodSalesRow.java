@@ -0,0 +1,12 @@
+package com.diver.repository.projection;
+
+/**
+ * Ventas de un plato sumadas sobre un rango de intervalos.
+ *
+ * @param foodId   El ID del plato.
+ * @param foodName El nombre del plato ({@code null} si ya no existe).
+ * @param quantity Las unidades vendidas.
+ * @param revenue  Los ingresos.
+ */
+public record FoodSalesRow(Long foodId, String foodName, Long quantity, Long revenue) {
+}
@@ -0,0 +1,11 @@
+package com.diver.repository.projection;
+
+/**
+ * Proyección mínima de un plato para construir el índice de autocompletado.
+ */
+public record FoodSuggestionRow(
+        Long id,
+        Long restaurantId,
+        String name,
+        String categoryName) {
+}
@@ -0,0 +1,33 @@
+package com.diver.repository.projection;
+
+import com.diver.model.OrderStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * Datos de una orden activa que muestra el tablero de cocina, leídos sin cargar la entidad
+ * ni sus ítems.
+ *
+ * @param orderId         El ID de la orden.
+ * @param restaurantId    El ID del restaurante.
+ * @param restaurantOwner El ID del propietario del restaurante.
+ * @param customerId      El ID del cliente.
+ * @param customerEmail   El email del cliente.
+ * @param status          El estado actual.
+ * @param version         La versión actual.
+ * @param createdAt       La fecha de creación de la orden.
+ * @param totalAmount     El monto total.
+ * @param totalItems      El número de ítems.
+ */
+public record KitchenOrderRow(
+        Long orderId,
+        Long restaurantId,
+        Long restaurantOwner,
+        Long customerId,
+        String customerEmail,
+        OrderStatus status,
+        long version,
+        LocalDateTime createdAt,
+        Long totalAmount,
+        int totalItems) {
+}
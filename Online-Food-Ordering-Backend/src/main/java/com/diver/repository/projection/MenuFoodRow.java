@@ -0,0 +1,22 @@
+package com.diver.repository.projection;
+
+import java.util.Date;
+
+/**
+ * Proyección de un plato del menú con su categoría y su restaurante, leída en una sola
+ * consulta sin cargar las entidades.
+ */
+public record MenuFoodRow(
+        Long id,
+        String name,
+        String description,
+        Long price,
+        boolean available,
+        boolean vegetarian,
+        boolean seasonal,
+        Date creationDate,
+        Long categoryId,
+        String categoryName,
+        Long restaurantId,
+        String restaurantName) {
+}
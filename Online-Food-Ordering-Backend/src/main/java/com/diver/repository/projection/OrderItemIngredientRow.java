@@ -0,0 +1,7 @@
+package com.diver.repository.projection;
+
+/**
+ * Un ingrediente de una línea de pedido, leído directamente de la colección de elementos.
+ */
+public record OrderItemIngredientRow(Long orderItemId, String ingredient) {
+}
@@ -0,0 +1,15 @@
+package com.diver.repository.projection;
+
+/**
+ * Proyección plana de una línea de pedido junto con el ID y nombre del plato.
+ * <p>
+ * No carga la entidad {@code Food}, evitando la carga EAGER de sus imágenes.
+ */
+public record OrderItemRow(
+        Long orderId,
+        Long id,
+        Long foodId,
+        String foodName,
+        int quantity,
+        Long totalPrice) {
+}
@@ -0,0 +1,32 @@
+package com.diver.repository.projection;
+
+import com.diver.model.OrderStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * Proyección plana de una orden con los datos de su cliente, restaurante y dirección de entrega.
+ * <p>
+ * Se obtiene con una única consulta JPQL que no carga entidades, por lo que no dispara
+ * las relaciones EAGER de {@code Restaurant} ni de {@code User}. Incluye las coordenadas del
+ * restaurante y de la entrega para estimar el tiempo de entrega sin más consultas.
+ */
+public record OrderRow(
+        Long id,
+        Long customerId,
+        String customerEmail,
+        Long restaurantId,
+        String restaurantName,
+        Long totalAmount,
+        OrderStatus orderStatus,
+        long version,
+        LocalDateTime createdAt,
+        Long addressId,
+        String addressStreet,
+        String addressCity,
+        String addressState,
+        Double addressLatitude,
+        Double addressLongitude,
+        Double restaurantLatitude,
+        Double restaurantLongitude) {
+}
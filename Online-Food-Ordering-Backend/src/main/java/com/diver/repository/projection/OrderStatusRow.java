@@ -0,0 +1,23 @@
+package com.diver.repository.projection;
+
+import com.diver.model.OrderStatus;
+
+/**
+ * Estado actual de una orden con los IDs necesarios para validar permisos, leído sin cargar
+ * la entidad ni sus relaciones.
+ *
+ * @param orderId         El ID de la orden.
+ * @param customerId      El ID del cliente.
+ * @param restaurantId    El ID del restaurante.
+ * @param restaurantOwner El ID del propietario del restaurante.
+ * @param status          El estado actual.
+ * @param version         La versión actual.
+ */
+public record OrderStatusRow(
+        Long orderId,
+        Long customerId,
+        Long restaurantId,
+        Long restaurantOwner,
+        OrderStatus status,
+        long version) {
+}
@@ -0,0 +1,12 @@
+package com.diver.repository.projection;
+
+/**
+ * Popularidad agregada de una entidad (plato o restaurante) a partir de sus pedidos.
+ *
+ * @param id     El ID del plato o restaurante.
+ * @param weight Unidades pedidas (platos) o número de pedidos (restaurantes).
+ */
+public record PopularityRow(
+        Long id,
+        Long weight) {
+}
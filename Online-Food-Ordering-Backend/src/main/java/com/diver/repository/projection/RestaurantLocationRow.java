@@ -0,0 +1,16 @@
+package com.diver.repository.projection;
+
+/**
+ * Proyección de un restaurante con las coordenadas de su dirección, usada para construir
+ * el índice de búsqueda por cercanía.
+ */
+public record RestaurantLocationRow(
+        Long id,
+        String name,
+        String cuisineType,
+        String street,
+        String city,
+        Double latitude,
+        Double longitude,
+        boolean open) {
+}
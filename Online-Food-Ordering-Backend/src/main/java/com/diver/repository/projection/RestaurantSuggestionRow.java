@@ -0,0 +1,10 @@
+package com.diver.repository.projection;
+
+/**
+ * Proyección mínima de un restaurante para construir el índice de autocompletado.
+ */
+public record RestaurantSuggestionRow(
+        Long id,
+        String name,
+        String cuisineType) {
+}
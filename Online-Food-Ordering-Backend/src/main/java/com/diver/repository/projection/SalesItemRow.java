@@ -0,0 +1,12 @@
+package com.diver.repository.projection;
+
+/**
+ * Unidades e ingresos de un plato dentro de una orden.
+ *
+ * @param orderId  El ID de la orden.
+ * @param foodId   El ID del plato.
+ * @param quantity Las unidades pedidas.
+ * @param revenue  La suma de los precios de esos ítems.
+ */
+public record SalesItemRow(Long orderId, Long foodId, Long quantity, Long revenue) {
+}
@@ -0,0 +1,14 @@
+package com.diver.repository.projection;
+
+import java.time.LocalDateTime;
+
+/**
+ * Datos de una orden necesarios para agregarla a las ventas.
+ *
+ * @param orderId      El ID de la orden.
+ * @param restaurantId El ID del restaurante.
+ * @param createdAt    La fecha de creación de la orden.
+ * @param totalAmount  El monto total.
+ */
+public record SalesOrderRow(Long orderId, Long restaurantId, LocalDateTime createdAt, Long totalAmount) {
+}
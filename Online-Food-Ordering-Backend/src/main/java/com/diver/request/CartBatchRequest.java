@@ -0,0 +1,26 @@
+package com.diver.request;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * DTO para aplicar varios cambios al carrito en una sola petición y una sola transacción.
+ * <p>
+ * Las operaciones se aplican en el orden recibido; si alguna falla, no se aplica ninguna.
+ */
+@Data
+public class CartBatchRequest {
+
+    public static final int MAX_OPERATIONS = 100;
+
+    @Schema(description = "Operaciones a aplicar, en orden", requiredMode = Schema.RequiredMode.REQUIRED)
+    @NotEmpty(message = "El lote debe contener al menos una operación.")
+    @Size(max = MAX_OPERATIONS, message = "El lote no puede contener más de " + MAX_OPERATIONS + " operaciones.")
+    private List<@Valid @NotNull CartOperation> operations;
+}
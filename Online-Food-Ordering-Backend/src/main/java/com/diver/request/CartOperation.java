@@ -0,0 +1,44 @@
+package com.diver.request;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Una operación individual dentro de un lote de cambios del carrito.
+ * <p>
+ * Los campos requeridos dependen del tipo:
+ * <ul>
+ *     <li>{@code ADD}: {@code foodId} y {@code quantity} (al menos 1); {@code ingredients} opcional.</li>
+ *     <li>{@code UPDATE}: {@code cartItemId} y {@code quantity} (0 elimina el ítem).</li>
+ *     <li>{@code REMOVE}: {@code cartItemId}.</li>
+ * </ul>
+ */
+@Data
+public class CartOperation {
+
+    public enum Type {
+        ADD,
+        UPDATE,
+        REMOVE
+    }
+
+    @Schema(description = "Tipo de operación", example = "ADD", requiredMode = Schema.RequiredMode.REQUIRED)
+    @NotNull(message = "El tipo de operación no puede ser nulo.")
+    private Type type;
+
+    @Schema(description = "ID del plato (solo ADD)", example = "101")
+    private Long foodId;
+
+    @Schema(description = "ID del ítem del carrito (UPDATE y REMOVE)", example = "15")
+    private Long cartItemId;
+
+    @Schema(description = "Cantidad a añadir (ADD) o nueva cantidad (UPDATE)", example = "2")
+    private Integer quantity;
+
+    @Schema(description = "Ingredientes o notas personalizadas (solo ADD)",
+            example = "[\"Sin cebolla\"]")
+    private List<String> ingredients;
+}
@@ -0,0 +1,28 @@
+package com.diver.request;
+
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+/**
+ * Ubicación y disponibilidad que envía periódicamente un repartidor.
+ */
+@Data
+public class CourierLocationRequest {
+
+    @NotNull
+    @DecimalMin(value = "-90", message = "La latitud debe estar entre -90 y 90.")
+    @DecimalMax(value = "90", message = "La latitud debe estar entre -90 y 90.")
+    private Double latitude;
+
+    @NotNull
+    @DecimalMin(value = "-180", message = "La longitud debe estar entre -180 y 180.")
+    @DecimalMax(value = "180", message = "La longitud debe estar entre -180 y 180.")
+    private Double longitude;
+
+    /**
+     * {@code false} para dejar de recibir órdenes (la orden en curso se mantiene).
+     */
+    private boolean available = true;
+}
@@ -0,0 +1,39 @@
+package com.diver.request;
+
+import lombok.Data;
+
+/**
+ * Criterios de filtrado y ordenación para consultar el menú de un restaurante.
+ * Todos los filtros son opcionales; un valor {@code null} significa "sin filtrar".
+ */
+@Data
+public class MenuFilterRequest {
+
+    private Boolean vegetarian;
+    private Boolean nonVeg;
+    private Boolean seasonal;
+    private Boolean available;
+
+    /** Nombre de la categoría (sin distinguir mayúsculas). */
+    private String category;
+
+    /** Campo de ordenación: {@code name}, {@code price} o {@code creationDate}. */
+    private String sortBy;
+
+    /** Dirección de ordenación: {@code asc} (por defecto) o {@code desc}. */
+    private String direction;
+
+    /** Si es {@code false}, los ingredientes no se cargan ni se incluyen en la respuesta. */
+    private boolean includeIngredients;
+
+    /**
+     * @return {@code true} si no hay filtros ni ordenación, es decir, se pide el menú completo
+     * en su orden por defecto (el que se sirve desde la instantánea precalculada).
+     */
+    public boolean isUnfiltered() {
+        return vegetarian == null && nonVeg == null && seasonal == null && available == null
+                && (category == null || category.isBlank())
+                && (sortBy == null || sortBy.isBlank())
+                && (direction == null || direction.isBlank());
+    }
+}
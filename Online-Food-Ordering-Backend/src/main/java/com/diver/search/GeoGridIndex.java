@@ -0,0 +1,272 @@
+package com.diver.search;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Índice espacial en memoria para consultas de los k puntos más cercanos.
+ * <p>
+ * Divide la superficie en celdas de {@code cellDegrees} × {@code cellDegrees} grados (una rejilla
+ * al estilo geohash, con la clave de celda como un {@code long}) y guarda en cada celda los puntos
+ * que caen en ella. Una consulta recorre anillos de celdas alrededor de la celda del origen,
+ * de dentro hacia fuera, y se detiene en cuanto la distancia mínima posible a un anillo supera
+ * el radio pedido o la distancia del k-ésimo candidato: con celdas bien dimensionadas solo se
+ * examinan unas pocas decenas de puntos, independientemente del tamaño del índice.
+ * <p>
+ * Las distancias son de gran círculo (haversine) en metros. La longitud da la vuelta en ±180°;
+ * cerca de los polos las celdas se estrechan y las consultas examinan más anillos. Cuando el
+ * siguiente anillo tendría más celdas que celdas ocupadas tiene el índice (un índice disperso,
+ * o un origen junto al polo, donde la cota apenas crece), se examinan directamente todas las
+ * celdas ocupadas.
+ * <p>
+ * Es seguro para uso concurrente: las consultas comparten un candado de lectura y las
+ * modificaciones toman el de escritura.
+ */
+public class GeoGridIndex {
+
+    /** Radio medio de la Tierra, en metros. */
+    public static final double EARTH_RADIUS_METERS = 6_371_008.8;
+
+    private static final Comparator<Hit> FARTHEST_FIRST = Comparator.comparingDouble(Hit::distanceMeters)
+            .thenComparingLong(Hit::id).reversed();
+
+    /**
+     * Un resultado de la búsqueda.
+     *
+     * @param id             El ID del punto.
+     * @param distanceMeters La distancia al origen de la consulta, en metros.
+     */
+    public record Hit(long id, double distanceMeters) {
+    }
+
+    private record Point(long id, double latitude, double longitude, long cell) {
+    }
+
+    private final double cellDegrees;
+    private final int latitudeCells;
+    private final int longitudeCells;
+    private final Map<Long, Point> points = new HashMap<>();
+    private final Map<Long, List<Point>> cells = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * @param cellDegrees El lado de cada celda, en grados. Conviene que sea del orden del radio
+     *                    típico de búsqueda: 0.01° son unos 1.1 km en latitud.
+     */
+    public GeoGridIndex(double cellDegrees) {
+        if (!(cellDegrees > 0 && cellDegrees <= 10)) {
+            throw new IllegalArgumentException("El tamaño de celda debe estar entre 0 y 10 grados.");
+        }
+        this.cellDegrees = cellDegrees;
+        this.latitudeCells = (int) Math.ceil(180 / cellDegrees);
+        this.longitudeCells = (int) Math.ceil(360 / cellDegrees);
+    }
+
+    /**
+     * Inserta un punto o lo mueve si ya existía.
+     */
+    public void put(long id, double latitude, double longitude) {
+        checkCoordinates(latitude, longitude);
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+            Point point = new Point(id, latitude, longitude,
+                    cellKey(latitudeIndex(latitude), longitudeIndex(longitude)));
+            points.put(id, point);
+            cells.computeIfAbsent(point.cell(), key -> new ArrayList<>()).add(point);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Elimina un punto; no hace nada si no existe.
+     */
+    public void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return points.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Busca los puntos más cercanos a un origen dentro de un radio.
+     *
+     * @param latitude     Latitud del origen, en grados.
+     * @param longitude    Longitud del origen, en grados.
+     * @param radiusMeters El radio máximo de búsqueda, en metros.
+     * @param limit        El número máximo de resultados.
+     * @return Los puntos encontrados, del más cercano al más lejano.
+     */
+    public List<Hit> nearest(double latitude, double longitude, double radiusMeters, int limit) {
+        checkCoordinates(latitude, longitude);
+        if (limit < 1 || !(radiusMeters >= 0)) {
+            return List.of();
+        }
+        PriorityQueue<Hit> best = new PriorityQueue<>(limit + 1, FARTHEST_FIRST);
+        int originLatitude = latitudeIndex(latitude);
+        int originLongitude = longitudeIndex(longitude);
+        // Más allá de media vuelta en longitud, los anillos repetirían columnas
+        int maxRing = longitudeCells / 2;
+
+        lock.readLock().lock();
+        try {
+            for (int ring = 0; ring <= maxRing; ring++) {
+                double bound = ringLowerBoundMeters(latitude, ring);
+                if (bound > radiusMeters
+                        || (best.size() == limit && bound > best.peek().distanceMeters())) {
+                    break;
+                }
+                if (8L * ring > cells.size()) {
+                    // Quedan más celdas por recorrer que celdas ocupadas: se examinan todas una vez
+                    best.clear();
+                    for (List<Point> cell : cells.values()) {
+                        scanPoints(cell, latitude, longitude, radiusMeters, limit, best);
+                    }
+                    break;
+                }
+                if (ring == 0) {
+                    scanCell(originLatitude, originLongitude, latitude, longitude, radiusMeters, limit, best);
+                    continue;
+                }
+                for (int dLat = -ring; dLat <= ring; dLat++) {
+                    int row = originLatitude + dLat;
+                    if (row < 0 || row >= latitudeCells) {
+                        continue;
+                    }
+                    boolean edgeRow = dLat == -ring || dLat == ring;
+                    int step = edgeRow ? 1 : 2 * ring;
+                    // En el anillo de media vuelta exacta, las columnas -ring y +ring son la misma
+                    int firstLon = 2 * ring == longitudeCells ? -ring + step : -ring;
+                    for (int dLon = firstLon; dLon <= ring; dLon += step) {
+                        scanCell(row, originLongitude + dLon, latitude, longitude, radiusMeters, limit, best);
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<Hit> result = new ArrayList<>(best);
+        result.sort(FARTHEST_FIRST.reversed());
+        return result;
+    }
+
+    /**
+     * Distancia de gran círculo (haversine) entre dos puntos, en metros.
+     */
+    public static double distanceMeters(double lat1, double lon1, double lat2, double lon2) {
+        double phi1 = Math.toRadians(lat1);
+        double phi2 = Math.toRadians(lat2);
+        double sinDLat = Math.sin((phi2 - phi1) / 2);
+        double sinDLon = Math.sin(Math.toRadians(lon2 - lon1) / 2);
+        double h = sinDLat * sinDLat + Math.cos(phi1) * Math.cos(phi2) * sinDLon * sinDLon;
+        return 2 * EARTH_RADIUS_METERS * Math.asin(Math.min(1, Math.sqrt(h)));
+    }
+
+    // --- METODOS PRIVADOS ---
+
+    private void scanCell(int row, int column, double latitude, double longitude,
+                          double radiusMeters, int limit, PriorityQueue<Hit> best) {
+        List<Point> cell = cells.get(cellKey(row, Math.floorMod(column, longitudeCells)));
+        if (cell != null) {
+            scanPoints(cell, latitude, longitude, radiusMeters, limit, best);
+        }
+    }
+
+    private static void scanPoints(List<Point> cell, double latitude, double longitude,
+                                   double radiusMeters, int limit, PriorityQueue<Hit> best) {
+        for (Point point : cell) {
+            double distance = distanceMeters(latitude, longitude, point.latitude(), point.longitude());
+            if (distance > radiusMeters) {
+                continue;
+            }
+            if (best.size() < limit) {
+                best.add(new Hit(point.id(), distance));
+            } else if (distance < best.peek().distanceMeters()) {
+                best.poll();
+                best.add(new Hit(point.id(), distance));
+            }
+        }
+    }
+
+    /**
+     * Distancia mínima desde el origen a cualquier punto de una celda del anillo {@code ring}.
+     * Entre el origen y esa celda hay al menos {@code ring - 1} celdas completas en latitud (filas
+     * del borde) o en longitud (columnas del borde). En el segundo caso, con una separación en
+     * longitud de al menos {@code g}, el haversine es como mínimo
+     * {@code (1 − (cos g · cos φ₁ · cos φ₂ + sen φ₁ · sen φ₂)) / 2}, que se minimiza en φ₂ dentro
+     * de la franja de latitudes del anillo; así la cota sigue siendo válida al cruzar el polo.
+     */
+    private double ringLowerBoundMeters(double latitude, int ring) {
+        if (ring <= 1) {
+            return 0;
+        }
+        double byLatitude = Math.sin(Math.toRadians(Math.min(180, (ring - 1) * cellDegrees)) / 2);
+        // Si 360 no es múltiplo del tamaño de celda, la última columna es más estrecha
+        double narrowColumn = Math.max(0, longitudeCells * cellDegrees - 360);
+        double gap = Math.toRadians(Math.max(0, Math.min(180, (ring - 1) * cellDegrees - narrowColumn)));
+
+        double phi = Math.toRadians(latitude);
+        double a = Math.cos(gap) * Math.cos(phi);
+        double b = Math.sin(phi);
+        double low = Math.toRadians(Math.max(-90, latitude - (ring + 1) * cellDegrees));
+        double high = Math.toRadians(Math.min(90, latitude + (ring + 1) * cellDegrees));
+        // a·cos φ₂ + b·sen φ₂ tiene su máximo en atan2(b, a); en la franja, ahí o en un extremo
+        double closest = Math.max(a * Math.cos(low) + b * Math.sin(low), a * Math.cos(high) + b * Math.sin(high));
+        double peak = Math.atan2(b, a);
+        if (peak >= low && peak <= high) {
+            closest = Math.hypot(a, b);
+        }
+        double byLongitude = Math.sqrt(Math.max(0, (1 - closest) / 2));
+
+        return 2 * EARTH_RADIUS_METERS * Math.asin(Math.min(1, Math.min(byLatitude, byLongitude)));
+    }
+
+    private void removeLocked(long id) {
+        Point previous = points.remove(id);
+        if (previous == null) {
+            return;
+        }
+        List<Point> cell = cells.get(previous.cell());
+        cell.remove(previous);
+        if (cell.isEmpty()) {
+            cells.remove(previous.cell());
+        }
+    }
+
+    private int latitudeIndex(double latitude) {
+        return Math.min(latitudeCells - 1, (int) Math.floor((latitude + 90) / cellDegrees));
+    }
+
+    private int longitudeIndex(double longitude) {
+        return Math.floorMod((int) Math.floor((longitude + 180) / cellDegrees), longitudeCells);
+    }
+
+    private long cellKey(int row, int column) {
+        return (long) row * longitudeCells + column;
+    }
+
+    private static void checkCoordinates(double latitude, double longitude) {
+        if (!(latitude >= -90 && latitude <= 90) || !(longitude >= -180 && longitude <= 180)) {
+            throw new IllegalArgumentException("Coordenadas fuera de rango: " + latitude + ", " + longitude);
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package com.diver.search;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Índice invertido en memoria con ranking TF-IDF, búsqueda por prefijo y tolerancia a erratas.
+ * <p>
+ * Cada documento se identifica por un {@code long} y se compone de varios campos con distinto
+ * peso (por ejemplo, el nombre pesa más que la descripción). Los términos se guardan en un
+ * {@link TreeMap} ordenado, de modo que la expansión por prefijo es un {@code subMap} y no un
+ * recorrido de todos los documentos.
+ * <p>
+ * Semántica de la consulta: todos los términos deben coincidir (AND). Cada término de la consulta
+ * coincide de forma exacta, como prefijo de un término indexado o, si no hay ninguna de las dos,
+ * con una distancia de edición acotada. Las coincidencias aproximadas puntúan menos que las exactas.
+ * <p>
+ * Es seguro para uso concurrente: las búsquedas comparten un candado de lectura y las
+ * modificaciones toman el de escritura.
+ */
+public class InvertedIndex {
+
+    private static final float PREFIX_WEIGHT = 0.7f;
+    private static final float FUZZY_WEIGHT = 0.5f;
+    private static final int MIN_PREFIX_LENGTH = 2;
+    private static final int MIN_FUZZY_LENGTH = 4;
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+
+    /** término → (documento → frecuencia ponderada por el peso del campo). */
+    private final NavigableMap<String, Map<Long, Float>> postings = new TreeMap<>();
+    /** documento → términos que contiene, para poder eliminarlo o reemplazarlo. */
+    private final Map<Long, List<String>> documentTerms = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Un campo de texto de un documento y su peso en el ranking.
+     *
+     * @param text  El texto original; se analiza con {@link TextAnalyzer}.
+     * @param boost El multiplicador aplicado a cada aparición de sus términos.
+     */
+    public record Field(String text, float boost) {
+    }
+
+    /**
+     * Una página de resultados.
+     *
+     * @param ids   Los IDs de los documentos de la página, de mayor a menor relevancia.
+     * @param total El número total de documentos que coinciden con la consulta.
+     */
+    public record Result(List<Long> ids, int total) {
+    }
+
+    private record Hit(long id, double score) {
+    }
+
+    private record Expansion(String term, float weight) {
+    }
+
+    /**
+     * Indexa un documento, reemplazando la versión anterior si existía.
+     *
+     * @param id     El ID del documento.
+     * @param fields Los campos del documento.
+     */
+    public void put(long id, List<Field> fields) {
+        Map<String, Float> frequencies = new HashMap<>();
+        for (Field field : fields) {
+            for (String term : TextAnalyzer.analyze(field.text())) {
+                frequencies.merge(term, field.boost(), Float::sum);
+            }
+        }
+
+        lock.writeLock().lock();
+        try {
+            removeInternal(id);
+            frequencies.forEach((term, frequency) ->
+                    postings.computeIfAbsent(term, t -> new HashMap<>()).put(id, frequency));
+            documentTerms.put(id, List.copyOf(frequencies.keySet()));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Elimina un documento del índice. No hace nada si no existe.
+     *
+     * @param id El ID del documento.
+     */
+    public void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return El número de documentos indexados.
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documentTerms.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Busca los documentos que coinciden con todos los términos de la consulta.
+     *
+     * @param query  El texto de la consulta.
+     * @param offset El número de resultados a saltar (paginación).
+     * @param limit  El número máximo de resultados a devolver.
+     * @return La página de resultados ordenada por relevancia y el total de coincidencias.
+     */
+    public Result search(String query, int offset, int limit) {
+        List<String> queryTerms = TextAnalyzer.analyze(query);
+        if (queryTerms.isEmpty() || limit <= 0) {
+            return new Result(List.of(), 0);
+        }
+
+        lock.readLock().lock();
+        try {
+            int documentCount = documentTerms.size();
+            Map<Long, Double> scores = null;
+
+            for (String queryTerm : queryTerms) {
+                Map<Long, Double> termScores = new HashMap<>();
+                for (Expansion expansion : expand(queryTerm)) {
+                    Map<Long, Float> postingList = postings.get(expansion.term());
+                    double idf = Math.log(1.0 + (double) documentCount / postingList.size());
+                    postingList.forEach((id, frequency) ->
+                            termScores.merge(id, idf * expansion.weight() * (1.0 + Math.log(frequency)), Math::max));
+                }
+
+                // Intersección con los resultados de los términos anteriores (AND)
+                if (scores == null) {
+                    scores = termScores;
+                } else {
+                    Map<Long, Double> previous = scores;
+                    scores = new HashMap<>();
+                    for (Map.Entry<Long, Double> entry : termScores.entrySet()) {
+                        Double score = previous.get(entry.getKey());
+                        if (score != null) {
+                            scores.put(entry.getKey(), score + entry.getValue());
+                        }
+                    }
+                }
+                if (scores.isEmpty()) {
+                    return new Result(List.of(), 0);
+                }
+            }
+
+            return topK(scores, offset, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // --- METODOS PRIVADOS ---
+
+    private void removeInternal(long id) {
+        List<String> terms = documentTerms.remove(id);
+        if (terms == null) {
+            return;
+        }
+        for (String term : terms) {
+            Map<Long, Float> postingList = postings.get(term);
+            if (postingList != null) {
+                postingList.remove(id);
+                if (postingList.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+    }
+
+    /**
+     * Traduce un término de la consulta a los términos indexados con los que coincide.
+     * Solo se recurre a la búsqueda aproximada cuando no hay coincidencia exacta ni por prefijo.
+     */
+    private List<Expansion> expand(String queryTerm) {
+        List<Expansion> expansions = new ArrayList<>();
+        if (postings.containsKey(queryTerm)) {
+            expansions.add(new Expansion(queryTerm, 1.0f));
+        }
+
+        if (queryTerm.length() >= MIN_PREFIX_LENGTH) {
+            for (String term : postings.subMap(queryTerm, false, queryTerm + Character.MAX_VALUE, false).keySet()) {
+                if (expansions.size() >= MAX_PREFIX_EXPANSIONS) {
+                    break;
+                }
+                expansions.add(new Expansion(term, PREFIX_WEIGHT));
+            }
+        }
+
+        if (expansions.isEmpty() && queryTerm.length() >= MIN_FUZZY_LENGTH) {
+            int maxDistance = queryTerm.length() >= 8 ? 2 : 1;
+            for (String term : postings.keySet()) {
+                if (Math.abs(term.length() - queryTerm.length()) <= maxDistance
+                        && editDistance(queryTerm, term, maxDistance) <= maxDistance) {
+                    expansions.add(new Expansion(term, FUZZY_WEIGHT));
+                }
+            }
+        }
+        return expansions;
+    }
+
+    /**
+     * Selecciona la página pedida con un montículo acotado a {@code offset + limit} elementos,
+     * sin ordenar todas las coincidencias. A igual puntuación, gana el ID menor.
+     */
+    private static Result topK(Map<Long, Double> scores, int offset, int limit) {
+        int k = offset + limit;
+        Comparator<Hit> byRelevance = Comparator.comparingDouble(Hit::score).reversed()
+                .thenComparingLong(Hit::id);
+        PriorityQueue<Hit> heap = new PriorityQueue<>(Math.min(k, scores.size()) + 1, byRelevance.reversed());
+        scores.forEach((id, score) -> {
+            heap.offer(new Hit(id, score));
+            if (heap.size() > k) {
+                heap.poll();
+            }
+        });
+
+        List<Hit> best = new ArrayList<>(heap);
+        best.sort(byRelevance);
+        List<Long> ids = best.stream().skip(offset).map(Hit::id).toList();
+        return new Result(ids, scores.size());
+    }
+
+    /**
+     * Distancia de Levenshtein con corte: devuelve {@code max + 1} en cuanto se sabe que la
+     * distancia supera {@code max}.
+     */
+    static int editDistance(String a, String b, int max) {
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()];
+    }
+}
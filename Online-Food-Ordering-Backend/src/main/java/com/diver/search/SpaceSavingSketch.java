@@ -0,0 +1,147 @@
+package com.diver.search;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Resumen Space-Saving para encontrar los elementos más frecuentes de un flujo con memoria acotada.
+ * <p>
+ * Guarda como mucho {@code capacity} contadores. Un elemento nuevo con el resumen lleno sustituye
+ * al contador mínimo y hereda su valor como cota de error, así que cualquier elemento cuyo peso
+ * real supere {@code total / capacity} está garantizado en el resumen, y su contador sobreestima
+ * el peso real en como mucho {@code error}.
+ * <p>
+ * Los pesos son {@code double} para admitir decaimiento hacia adelante (forward decay): quien lo
+ * usa suma {@code cantidad · e^(λ·(t − L))} en lugar de la cantidad y, cuando el factor crece
+ * demasiado, reescala todos los contadores con {@link #scale(double)}. Es seguro para uso
+ * concurrente: todas las operaciones están sincronizadas y cuestan O(log capacity).
+ */
+public class SpaceSavingSketch {
+
+    /**
+     * Un contador del resumen.
+     *
+     * @param key   El elemento (por ejemplo, el ID de un plato).
+     * @param count El peso acumulado (cota superior del peso real).
+     * @param error La sobreestimación máxima de {@code count}.
+     */
+    public record Counter(long key, double count, double error) {
+    }
+
+    private static final Comparator<Node> BY_COUNT = Comparator.comparingDouble((Node node) -> node.count)
+            .thenComparingLong(node -> node.key);
+
+    private final int capacity;
+    private final Map<Long, Node> nodes = new HashMap<>();
+    private final TreeSet<Node> byCount = new TreeSet<>(BY_COUNT);
+
+    public SpaceSavingSketch(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("La capacidad debe ser mayor que cero.");
+        }
+        this.capacity = capacity;
+    }
+
+    /**
+     * Suma un peso a un elemento.
+     */
+    public synchronized void add(long key, double weight) {
+        Node node = nodes.get(key);
+        if (node != null) {
+            byCount.remove(node);
+            node.count += weight;
+            byCount.add(node);
+            return;
+        }
+        if (nodes.size() < capacity) {
+            insert(new Node(key, weight, 0.0));
+            return;
+        }
+        Node min = byCount.pollFirst();
+        nodes.remove(min.key);
+        insert(new Node(key, min.count + weight, min.count));
+    }
+
+    /**
+     * @return Los {@code k} contadores de mayor peso, de mayor a menor.
+     */
+    public synchronized List<Counter> top(int k) {
+        List<Counter> result = new ArrayList<>(Math.min(k, nodes.size()));
+        Iterator<Node> it = byCount.descendingIterator();
+        while (it.hasNext() && result.size() < k) {
+            Node node = it.next();
+            result.add(new Counter(node.key, node.count, node.error));
+        }
+        return result;
+    }
+
+    /**
+     * Multiplica todos los contadores por un factor positivo (para renormalizar el decaimiento).
+     */
+    public synchronized void scale(double factor) {
+        byCount.clear();
+        for (Node node : nodes.values()) {
+            node.count *= factor;
+            node.error *= factor;
+            byCount.add(node);
+        }
+    }
+
+    /**
+     * Elimina un elemento del resumen (por ejemplo, un plato borrado).
+     */
+    public synchronized void remove(long key) {
+        Node node = nodes.remove(key);
+        if (node != null) {
+            byCount.remove(node);
+        }
+    }
+
+    /**
+     * @return Todos los contadores, para guardar una instantánea.
+     */
+    public synchronized List<Counter> counters() {
+        return top(nodes.size());
+    }
+
+    /**
+     * Reconstruye un resumen a partir de una instantánea.
+     */
+    public static SpaceSavingSketch restore(int capacity, List<Counter> counters) {
+        SpaceSavingSketch sketch = new SpaceSavingSketch(capacity);
+        // Las instantáneas van de mayor a menor: si la capacidad se ha reducido, se conservan los mayores
+        for (Counter counter : counters) {
+            if (sketch.nodes.size() >= capacity) {
+                break;
+            }
+            sketch.insert(new Node(counter.key(), counter.count(), counter.error()));
+        }
+        return sketch;
+    }
+
+    public synchronized int size() {
+        return nodes.size();
+    }
+
+    private void insert(Node node) {
+        nodes.put(node.key, node);
+        byCount.add(node);
+    }
+
+    private static final class Node {
+        private final long key;
+        private double count;
+        private double error;
+
+        private Node(long key, double count, double error) {
+            this.key = key;
+            this.count = count;
+            this.error = error;
+        }
+    }
+}
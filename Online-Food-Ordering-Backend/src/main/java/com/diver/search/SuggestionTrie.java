@@ -0,0 +1,297 @@
+package com.diver.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Trie ponderado para autocompletado.
+ * <p>
+ * Cada entrada se inserta una vez por cada palabra con la que empieza su texto normalizado
+ * ("pizza margarita" cuelga de "pizza margarita" y de "margarita"), así que un prefijo
+ * encuentra la entrada aunque no empiece por la primera palabra. Cada nodo guarda precalculadas
+ * las {@value #TOP_K} entradas de mayor peso de su subárbol: una consulta solo recorre los
+ * caracteres del prefijo y devuelve esa lista, sin explorar el subárbol.
+ * <p>
+ * Los hijos se guardan en arrays ordenados (etiquetas y nodos) con búsqueda binaria, más
+ * compactos que un mapa por nodo. Es seguro para uso concurrente: las consultas comparten un
+ * candado de lectura y las modificaciones toman el de escritura.
+ */
+public class SuggestionTrie {
+
+    public static final int TOP_K = 10;
+
+    /** Longitud máxima (normalizada) que se indexa de cada texto. */
+    private static final int MAX_KEY_LENGTH = 64;
+
+    private static final Entry[] NO_ENTRIES = new Entry[0];
+    private static final Comparator<Entry> BY_WEIGHT = Comparator.comparingLong(Entry::weight).reversed()
+            .thenComparing(Entry::text);
+
+    /**
+     * Una sugerencia indexada.
+     *
+     * @param type   El origen de la sugerencia.
+     * @param text   El texto a mostrar.
+     * @param weight La popularidad; a mayor peso, antes aparece.
+     */
+    public record Entry(SuggestionType type, String text, long weight) {
+    }
+
+    private record EntryKey(SuggestionType type, String normalized) {
+    }
+
+    private static final class Node {
+        private char[] labels = new char[0];
+        private Node[] children = new Node[0];
+        private Entry[] terminals = NO_ENTRIES;
+        private Entry[] top = NO_ENTRIES;
+
+        private Node child(char label) {
+            int index = Arrays.binarySearch(labels, label);
+            return index >= 0 ? children[index] : null;
+        }
+
+        private Node childOrCreate(char label) {
+            int index = Arrays.binarySearch(labels, label);
+            if (index >= 0) {
+                return children[index];
+            }
+            int insertAt = -index - 1;
+            Node node = new Node();
+            char[] newLabels = new char[labels.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(labels, 0, newLabels, 0, insertAt);
+            System.arraycopy(children, 0, newChildren, 0, insertAt);
+            newLabels[insertAt] = label;
+            newChildren[insertAt] = node;
+            System.arraycopy(labels, insertAt, newLabels, insertAt + 1, labels.length - insertAt);
+            System.arraycopy(children, insertAt, newChildren, insertAt + 1, children.length - insertAt);
+            labels = newLabels;
+            children = newChildren;
+            return node;
+        }
+
+        private void removeChild(char label) {
+            int index = Arrays.binarySearch(labels, label);
+            if (index < 0) {
+                return;
+            }
+            char[] newLabels = new char[labels.length - 1];
+            Node[] newChildren = new Node[children.length - 1];
+            System.arraycopy(labels, 0, newLabels, 0, index);
+            System.arraycopy(children, 0, newChildren, 0, index);
+            System.arraycopy(labels, index + 1, newLabels, index, labels.length - index - 1);
+            System.arraycopy(children, index + 1, newChildren, index, children.length - index - 1);
+            labels = newLabels;
+            children = newChildren;
+        }
+
+        private boolean isEmpty() {
+            return terminals.length == 0 && children.length == 0;
+        }
+    }
+
+    private final Node root = new Node();
+    private final Map<EntryKey, Entry> entries = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Normaliza un texto para el trie: sin acentos, en minúsculas y con un único espacio
+     * entre palabras.
+     *
+     * @param text El texto original.
+     * @return El texto normalizado (posiblemente vacío).
+     */
+    public static String normalize(String text) {
+        String normalized = TextAnalyzer.normalize(text).replaceAll("[^a-z0-9ñ]+", " ").trim();
+        return normalized.length() > MAX_KEY_LENGTH ? normalized.substring(0, MAX_KEY_LENGTH).trim() : normalized;
+    }
+
+    /**
+     * Inserta o actualiza una sugerencia. Dos textos que se normalizan igual y tienen el mismo
+     * tipo son la misma sugerencia: la nueva reemplaza a la anterior.
+     *
+     * @param type   El origen de la sugerencia.
+     * @param text   El texto a mostrar.
+     * @param weight La popularidad.
+     */
+    public void put(SuggestionType type, String text, long weight) {
+        String normalized = normalize(text);
+        if (normalized.isEmpty()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            EntryKey key = new EntryKey(type, normalized);
+            Entry previous = entries.get(key);
+            if (previous != null) {
+                removeInternal(normalized, previous);
+            }
+            Entry entry = new Entry(type, text.trim(), weight);
+            entries.put(key, entry);
+            for (String suffix : wordSuffixes(normalized)) {
+                insertPath(suffix, entry);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Elimina una sugerencia. No hace nada si no existe.
+     *
+     * @param type El origen de la sugerencia.
+     * @param text El texto de la sugerencia.
+     */
+    public void remove(SuggestionType type, String text) {
+        String normalized = normalize(text);
+        lock.writeLock().lock();
+        try {
+            Entry previous = entries.remove(new EntryKey(type, normalized));
+            if (previous != null) {
+                removeInternal(normalized, previous);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Devuelve las sugerencias de mayor peso que empiezan por el prefijo, en cualquier palabra.
+     *
+     * @param prefix El texto tecleado.
+     * @param limit  El número máximo de sugerencias (como mucho {@value #TOP_K}).
+     * @return Las sugerencias ordenadas por peso descendente.
+     */
+    public List<Entry> suggest(String prefix, int limit) {
+        String normalized = normalize(prefix);
+        if (normalized.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            Node node = root;
+            for (int i = 0; i < normalized.length() && node != null; i++) {
+                node = node.child(normalized.charAt(i));
+            }
+            if (node == null) {
+                return List.of();
+            }
+            Entry[] top = node.top;
+            return List.of(Arrays.copyOf(top, Math.min(limit, top.length)));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return El número de sugerencias distintas indexadas.
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // --- METODOS PRIVADOS ---
+
+    private static List<String> wordSuffixes(String normalized) {
+        List<String> suffixes = new ArrayList<>();
+        suffixes.add(normalized);
+        for (int i = normalized.indexOf(' '); i >= 0; i = normalized.indexOf(' ', i + 1)) {
+            suffixes.add(normalized.substring(i + 1));
+        }
+        return suffixes;
+    }
+
+    private void insertPath(String key, Entry entry) {
+        Node[] path = new Node[key.length() + 1];
+        path[0] = root;
+        for (int i = 0; i < key.length(); i++) {
+            path[i + 1] = path[i].childOrCreate(key.charAt(i));
+        }
+        Node last = path[key.length()];
+        last.terminals = append(last.terminals, entry);
+        // Una inserción solo puede añadir la entrada al top de cada nodo del camino
+        for (Node node : path) {
+            node.top = insertTop(node.top, entry);
+        }
+    }
+
+    private void removeInternal(String normalized, Entry entry) {
+        for (String suffix : wordSuffixes(normalized)) {
+            removePath(suffix, entry);
+        }
+    }
+
+    /**
+     * Quita la entrada del nodo final y recalcula el top de abajo arriba, porque al salir una
+     * entrada del top hay que recuperar la siguiente de los hijos. Los nodos que quedan vacíos
+     * se podan.
+     */
+    private void removePath(String key, Entry entry) {
+        Node[] path = new Node[key.length() + 1];
+        path[0] = root;
+        for (int i = 0; i < key.length(); i++) {
+            path[i + 1] = path[i].child(key.charAt(i));
+            if (path[i + 1] == null) {
+                return;
+            }
+        }
+        Node last = path[key.length()];
+        last.terminals = without(last.terminals, entry);
+
+        for (int depth = key.length(); depth >= 0; depth--) {
+            Node node = path[depth];
+            if (depth > 0 && node.isEmpty()) {
+                path[depth - 1].removeChild(key.charAt(depth - 1));
+                continue;
+            }
+            node.top = recomputeTop(node);
+        }
+    }
+
+    private static Entry[] recomputeTop(Node node) {
+        Set<Entry> candidates = new LinkedHashSet<>(Arrays.asList(node.terminals));
+        for (Node child : node.children) {
+            candidates.addAll(Arrays.asList(child.top));
+        }
+        return candidates.stream().sorted(BY_WEIGHT).limit(TOP_K).toArray(Entry[]::new);
+    }
+
+    private static Entry[] insertTop(Entry[] top, Entry entry) {
+        for (Entry existing : top) {
+            if (existing == entry) {
+                return top;
+            }
+        }
+        if (top.length == TOP_K && BY_WEIGHT.compare(entry, top[TOP_K - 1]) >= 0) {
+            return top;
+        }
+        Entry[] merged = Arrays.copyOf(top, top.length + 1);
+        merged[top.length] = entry;
+        Arrays.sort(merged, BY_WEIGHT);
+        return merged.length > TOP_K ? Arrays.copyOf(merged, TOP_K) : merged;
+    }
+
+    private static Entry[] append(Entry[] array, Entry entry) {
+        Entry[] result = Arrays.copyOf(array, array.length + 1);
+        result[array.length] = entry;
+        return result;
+    }
+
+    private static Entry[] without(Entry[] array, Entry entry) {
+        return Arrays.stream(array).filter(e -> e != entry).toArray(Entry[]::new);
+    }
+}
@@ -0,0 +1,11 @@
+package com.diver.search;
+
+/**
+ * Origen de una sugerencia de autocompletado.
+ */
+public enum SuggestionType {
+    DISH,
+    RESTAURANT,
+    CUISINE,
+    CATEGORY
+}
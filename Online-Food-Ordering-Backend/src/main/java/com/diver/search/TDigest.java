@@ -0,0 +1,228 @@
+package com.diver.search;
+
+import java.util.Arrays;
+
+/**
+ * Estimador de cuantiles en flujo (t-digest en su variante con fusión) con memoria acotada.
+ * <p>
+ * Resume la distribución como una lista ordenada de centroides (media y peso). Los valores nuevos
+ * se acumulan en un búfer y, al llenarse, se fusionan con los centroides en una sola pasada
+ * ordenada: dos centroides vecinos se unen mientras el peso resultante no supere
+ * {@code 4 · N · q · (1 − q) / compression}, donde {@code q} es su posición en la distribución.
+ * Así los centroides son pequeños en las colas y grandes en el centro, y los cuantiles extremos
+ * (p90, p99) se estiman con mucha más precisión que la mediana de un histograma de igual tamaño.
+ * <p>
+ * Guarda del orden de {@code compression} centroides, independientemente del número de valores, y
+ * un resumen con pocos valores ocupa poco más que esos valores.
+ * Dos resúmenes se combinan con {@link #add(TDigest)}. Es seguro para uso concurrente: todas las
+ * operaciones están sincronizadas; {@link #quantile(double)} cuesta O(centroides).
+ */
+public class TDigest {
+
+    /** Capacidad inicial del búfer; crece hasta {@code 5 · compression} a medida que llegan valores. */
+    private static final int INITIAL_BUFFER = 16;
+
+    private final double compression;
+    private final int maxBuffer;
+
+    private double[] means = new double[0];
+    private double[] weights = new double[0];
+    private int centroidCount;
+
+    private double[] bufferValues = new double[INITIAL_BUFFER];
+    private double[] bufferWeights = new double[INITIAL_BUFFER];
+    private int bufferCount;
+
+    private double totalWeight;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    /**
+     * @param compression El parámetro de compresión: más alto es más preciso y ocupa más memoria.
+     *                    Con 100 el error de los cuantiles extremos queda por debajo del 1 %.
+     */
+    public TDigest(double compression) {
+        if (!(compression >= 10 && compression <= 1000)) {
+            throw new IllegalArgumentException("La compresión debe estar entre 10 y 1000.");
+        }
+        this.compression = compression;
+        this.maxBuffer = (int) Math.ceil(5 * compression);
+    }
+
+    /**
+     * Añade un valor con peso 1.
+     */
+    public void add(double value) {
+        add(value, 1);
+    }
+
+    /**
+     * Añade un valor con un peso dado. Los valores no finitos y los pesos no positivos se ignoran.
+     */
+    public synchronized void add(double value, double weight) {
+        if (!Double.isFinite(value) || !(weight > 0)) {
+            return;
+        }
+        if (bufferCount == bufferValues.length) {
+            if (bufferValues.length < maxBuffer) {
+                int capacity = Math.min(maxBuffer, bufferValues.length * 2);
+                bufferValues = Arrays.copyOf(bufferValues, capacity);
+                bufferWeights = Arrays.copyOf(bufferWeights, capacity);
+            } else {
+                compress();
+            }
+        }
+        bufferValues[bufferCount] = value;
+        bufferWeights[bufferCount] = weight;
+        bufferCount++;
+        totalWeight += weight;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    /**
+     * Añade todos los centroides de otro resumen.
+     */
+    public void add(TDigest other) {
+        double[][] centroids;
+        double otherMin;
+        double otherMax;
+        synchronized (other) {
+            other.compress();
+            centroids = new double[][]{
+                    Arrays.copyOf(other.means, other.centroidCount),
+                    Arrays.copyOf(other.weights, other.centroidCount)};
+            otherMin = other.min;
+            otherMax = other.max;
+        }
+        synchronized (this) {
+            for (int i = 0; i < centroids[0].length; i++) {
+                add(centroids[0][i], centroids[1][i]);
+            }
+            if (centroids[0].length > 0) {
+                // Los extremos reales del otro resumen, no los de sus centroides
+                min = Math.min(min, otherMin);
+                max = Math.max(max, otherMax);
+            }
+        }
+    }
+
+    /**
+     * @return El peso total añadido (el número de valores si todos tenían peso 1).
+     */
+    public synchronized long size() {
+        return Math.round(totalWeight);
+    }
+
+    /**
+     * Estima el cuantil {@code q} de los valores añadidos.
+     *
+     * @param q El cuantil, entre 0 y 1 (0.5 es la mediana).
+     * @return El valor estimado, o {@link Double#NaN} si el resumen está vacío.
+     */
+    public synchronized double quantile(double q) {
+        if (!(q >= 0 && q <= 1)) {
+            throw new IllegalArgumentException("El cuantil debe estar entre 0 y 1: " + q);
+        }
+        compress();
+        if (centroidCount == 0) {
+            return Double.NaN;
+        }
+        if (q == 0 || q == 1) {
+            return q == 0 ? min : max;
+        }
+        double index = q * totalWeight;
+        // Cada centroide se considera centrado en su media: entre el mínimo y el primer centro, y
+        // entre el último centro y el máximo, se interpola con los extremos reales
+        double firstHalf = weights[0] / 2;
+        if (index < firstHalf) {
+            return min + (means[0] - min) * index / firstHalf;
+        }
+        double cumulative = firstHalf;
+        for (int i = 0; i < centroidCount - 1; i++) {
+            double gap = (weights[i] + weights[i + 1]) / 2;
+            if (cumulative + gap > index) {
+                return means[i] + (means[i + 1] - means[i]) * (index - cumulative) / gap;
+            }
+            cumulative += gap;
+        }
+        int last = centroidCount - 1;
+        double lastHalf = weights[last] / 2;
+        return means[last] + (max - means[last]) * Math.min(1, (index - cumulative) / lastHalf);
+    }
+
+    // --- METODOS PRIVADOS ---
+
+    /**
+     * Fusiona el búfer con los centroides en una pasada ordenada.
+     */
+    private void compress() {
+        if (bufferCount == 0) {
+            return;
+        }
+        // Los centroides ya están ordenados: basta ordenar el búfer y mezclar ambas listas
+        sortBuffer();
+        int count = centroidCount + bufferCount;
+        double[] allMeans = new double[count];
+        double[] allWeights = new double[count];
+        int c = 0;
+        int b = 0;
+        for (int i = 0; i < count; i++) {
+            boolean fromCentroids = b == bufferCount || (c < centroidCount && means[c] <= bufferValues[b]);
+            allMeans[i] = fromCentroids ? means[c] : bufferValues[b];
+            allWeights[i] = fromCentroids ? weights[c++] : bufferWeights[b++];
+        }
+        bufferCount = 0;
+
+        double[] mergedMeans = new double[count];
+        double[] mergedWeights = new double[count];
+        int merged = 0;
+        mergedMeans[0] = allMeans[0];
+        mergedWeights[0] = allWeights[0];
+        double before = 0;
+        for (int i = 1; i < count; i++) {
+            double combined = mergedWeights[merged] + allWeights[i];
+            double q = (before + combined / 2) / totalWeight;
+            if (combined <= 4 * totalWeight * q * (1 - q) / compression) {
+                mergedMeans[merged] += (allMeans[i] - mergedMeans[merged]) * allWeights[i] / combined;
+                mergedWeights[merged] = combined;
+            } else {
+                before += mergedWeights[merged];
+                merged++;
+                mergedMeans[merged] = allMeans[i];
+                mergedWeights[merged] = allWeights[i];
+            }
+        }
+        centroidCount = merged + 1;
+        means = Arrays.copyOf(mergedMeans, centroidCount);
+        weights = Arrays.copyOf(mergedWeights, centroidCount);
+    }
+
+    /**
+     * Ordena el búfer por valor. Si todos los pesos son iguales (lo habitual) basta ordenar los
+     * valores como primitivos; si no, se ordenan los índices.
+     */
+    private void sortBuffer() {
+        boolean uniformWeights = true;
+        for (int i = 1; i < bufferCount && uniformWeights; i++) {
+            uniformWeights = bufferWeights[i] == bufferWeights[0];
+        }
+        if (uniformWeights) {
+            Arrays.sort(bufferValues, 0, bufferCount);
+            return;
+        }
+        Integer[] order = new Integer[bufferCount];
+        for (int i = 0; i < bufferCount; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (x, y) -> Double.compare(bufferValues[x], bufferValues[y]));
+        double[] sortedValues = new double[bufferCount];
+        double[] sortedWeights = new double[bufferCount];
+        for (int i = 0; i < bufferCount; i++) {
+            sortedValues[i] = bufferValues[order[i]];
+            sortedWeights[i] = bufferWeights[order[i]];
+        }
+        System.arraycopy(sortedValues, 0, bufferValues, 0, bufferCount);
+        System.arraycopy(sortedWeights, 0, bufferWeights, 0, bufferCount);
+    }
+}
@@ -0,0 +1,83 @@
+package com.diver.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Análisis de texto para el índice de búsqueda, pensado para contenido en español.
+ * <p>
+ * Pasos: descomposición Unicode y eliminación de acentos ("Jamón" → "jamon"), minúsculas,
+ * separación en palabras por cualquier carácter no alfanumérico, descarte de palabras vacías
+ * y un stemming ligero de plurales ("pizzas" → "pizza", "lombrices" → "lombriz").
+ * El mismo análisis se aplica al indexar y al consultar.
+ */
+public final class TextAnalyzer {
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern NON_ALPHANUMERIC = Pattern.compile("[^a-z0-9ñ]+");
+
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "al", "con", "de", "del", "el", "en", "la", "las", "lo", "los",
+            "o", "para", "por", "sin", "su", "un", "una", "unas", "unos", "y");
+
+    private TextAnalyzer() {
+    }
+
+    /**
+     * Normaliza un texto sin dividirlo: sin acentos y en minúsculas. La "ñ" se conserva.
+     *
+     * @param text El texto original (puede ser {@code null}).
+     * @return El texto normalizado, o una cadena vacía.
+     */
+    public static String normalize(String text) {
+        if (text == null || text.isEmpty()) {
+            return "";
+        }
+        String lower = text.toLowerCase(Locale.ROOT).replace('ñ', '\u0001');
+        String folded = DIACRITICS.matcher(Normalizer.normalize(lower, Normalizer.Form.NFD)).replaceAll("");
+        return folded.replace('\u0001', 'ñ');
+    }
+
+    /**
+     * Divide un texto en términos indexables.
+     *
+     * @param text El texto original (puede ser {@code null}).
+     * @return Los términos normalizados y reducidos, en orden de aparición (con repeticiones).
+     */
+    public static List<String> analyze(String text) {
+        List<String> terms = new ArrayList<>();
+        for (String token : NON_ALPHANUMERIC.split(normalize(text))) {
+            if (token.isEmpty() || STOP_WORDS.contains(token)) {
+                continue;
+            }
+            terms.add(stem(token));
+        }
+        return terms;
+    }
+
+    /**
+     * Stemming ligero: solo elimina las terminaciones de plural más comunes.
+     */
+    static String stem(String token) {
+        int length = token.length();
+        if (length > 4 && token.endsWith("ces")) {
+            return token.substring(0, length - 3) + "z";
+        }
+        // "panes" → "pan", "pasteles" → "pastel"; no se aplica a "-res" ("postres" → "postre")
+        if (length > 4 && token.endsWith("es") && "lndj".indexOf(token.charAt(length - 3)) >= 0) {
+            return token.substring(0, length - 2);
+        }
+        if (length > 3 && token.endsWith("s") && isVowel(token.charAt(length - 2))) {
+            return token.substring(0, length - 1);
+        }
+        return token;
+    }
+
+    private static boolean isVowel(char c) {
+        return c == 'a' || c == 'e' || c == 'i' || c == 'o' || c == 'u';
+    }
+}
@@ -0,0 +1,18 @@
+package com.diver.service;
+
+/**
+ * Contrato para el compactador de analíticas.
+ * <p>
+ * Consume el registro de cambios de estado de las órdenes desde la última posición guardada y
+ * suma cada orden nueva, cancelada o entregada a los agregados por hora y por día de su
+ * restaurante y de sus platos.
+ */
+public interface AnalyticsCompactionService {
+
+    /**
+     * Agrega los eventos pendientes del registro de estados.
+     *
+     * @return El número de eventos procesados.
+     */
+    int compact();
+}
@@ -0,0 +1,42 @@
+package com.diver.service;
+
+import com.diver.dto.FoodSalesDto;
+import com.diver.dto.SalesReportDto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Contrato para los informes de ventas de los restaurantes.
+ * <p>
+ * Los informes se leen de tablas de agregados por hora y por día que mantiene
+ * {@link AnalyticsCompactionService}, por lo que su coste depende del rango pedido y no del
+ * número de órdenes. Reflejan las órdenes hasta la última compactación.
+ */
+public interface AnalyticsService {
+
+    /**
+     * Obtiene las ventas de un restaurante por intervalos.
+     *
+     * @param restaurantId El ID del restaurante.
+     * @param granularity  (Opcional) {@code HOUR} o {@code DAY}; por defecto {@code DAY}.
+     * @param from         (Opcional) Inicio del rango; se alinea al inicio de su intervalo.
+     * @param to           (Opcional) Fin del rango (exclusivo); se alinea al final de su intervalo.
+     * @return El informe con los totales y un elemento por intervalo.
+     * @throws com.diver.exception.BadRequestException si el rango es inválido o demasiado largo.
+     */
+    SalesReportDto getSalesReport(Long restaurantId, String granularity, LocalDateTime from, LocalDateTime to);
+
+    /**
+     * Obtiene los platos más vendidos de un restaurante en un rango.
+     *
+     * @param restaurantId El ID del restaurante.
+     * @param granularity  (Opcional) Granularidad con la que se alinea el rango; por defecto {@code DAY}.
+     * @param from         (Opcional) Inicio del rango.
+     * @param to           (Opcional) Fin del rango (exclusivo).
+     * @param limit        (Opcional) Número máximo de platos.
+     * @return Los platos ordenados por unidades vendidas.
+     */
+    List<FoodSalesDto> getTopFoods(Long restaurantId, String granularity, LocalDateTime from, LocalDateTime to,
+                                   Integer limit);
+}
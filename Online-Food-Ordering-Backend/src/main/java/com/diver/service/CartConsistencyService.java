@@ -0,0 +1,18 @@
+package com.diver.service;
+
+/**
+ * Contrato para la comprobación de consistencia de los carritos.
+ * <p>
+ * Los totales de los carritos se mantienen de forma incremental (sumando y restando la
+ * diferencia de cada modificación). Este servicio los recalcula desde los ítems y corrige
+ * cualquier desviación.
+ */
+public interface CartConsistencyService {
+
+    /**
+     * Busca los carritos cuyo total no coincide con la suma de sus ítems y lo corrige.
+     *
+     * @return El número de carritos corregidos.
+     */
+    int reconcileTotals();
+}
@@ -1,8 +1,11 @@
 package com.diver.service;
 
+import com.diver.dto.AuthenticatedUser;
 import com.diver.dto.CartDto;
-import com.diver.model.User;
 import com.diver.request.AddCartItemRequest;
+import com.diver.request.CartOperation;
+
+import java.util.List;
 
 /**
  * Contrato para el servicio de gestión del Carrito de Compras.
@@ -18,7 +21,7 @@ public interface CartService {
      * @param user    El usuario autenticado.
      * @return El DTO del carrito completo y actualizado.
      */
-    CartDto addItemToCart(AddCartItemRequest req, User user);
+    CartDto addItemToCart(AddCartItemRequest req, AuthenticatedUser user);
 
     /**
      * Actualiza la cantidad de un ítem específico en el carrito.
@@ -28,7 +31,7 @@ public interface CartService {
      * @param user       El usuario autenticado, para validación de propiedad.
      * @return El DTO del carrito completo y actualizado.
      */
-    CartDto updateCartItemQuantity(Long cartItemId, int quantity, User user);
+    CartDto updateCartItemQuantity(Long cartItemId, int quantity, AuthenticatedUser user);
 
     /**
      * Elimina un ítem del carrito.
@@ -37,7 +40,18 @@ public interface CartService {
      * @param user       El usuario autenticado, para validación de propiedad.
      * @return El DTO del carrito completo y actualizado.
      */
-    CartDto removeItemFromCart(Long cartItemId, User user);
+    CartDto removeItemFromCart(Long cartItemId, AuthenticatedUser user);
+
+    /**
+     * Aplica un lote ordenado de operaciones (añadir, actualizar, eliminar) al carrito del usuario
+     * en una única transacción, con un solo recálculo del total. Si una operación falla, no se
+     * aplica ninguna.
+     *
+     * @param operations Las operaciones a aplicar, en orden.
+     * @param user       El usuario autenticado.
+     * @return El DTO del carrito completo tras aplicar todas las operaciones.
+     */
+    CartDto applyBatch(List<CartOperation> operations, AuthenticatedUser user);
 
     /**
      * Encuentra el carrito de un usuario por su objeto User.
@@ -46,7 +60,7 @@ public interface CartService {
      * @return El DTO del carrito del usuario.
 
      */
-    CartDto findCartByUserId(User user);
+    CartDto findCartByUserId(AuthenticatedUser user);
 
     /**
      * Elimina todos los ítems del carrito de un usuario.
@@ -54,5 +68,5 @@ public interface CartService {
      * @param user El usuario autenticado.
      * @return El DTO del carrito vacío.
      */
-    CartDto clearCart(User user);
+    CartDto clearCart(AuthenticatedUser user);
 }
\ No newline at end of file
@@ -0,0 +1,43 @@
+package com.diver.service;
+
+import com.diver.model.Cart;
+
+import java.util.function.Consumer;
+
+/**
+ * Almacenamiento de los carritos de compra, indexados por el ID del usuario propietario.
+ * <p>
+ * {@link CartService} y la creación de órdenes acceden a los carritos solo a través de este
+ * contrato, de modo que la estrategia de persistencia se puede elegir con la propiedad
+ * {@code app.cart.store}:
+ * <ul>
+ *     <li>{@code jpa} (por defecto): cada modificación es una escritura JPA en la transacción del llamante.</li>
+ *     <li>{@code memory}: los carritos vivos se mantienen en memoria y se vuelcan a la base de datos
+ *     en segundo plano (write-behind).</li>
+ * </ul>
+ * El {@link Cart} devuelto por ambos métodos debe tratarse como de solo lectura: cualquier cambio
+ * debe hacerse dentro de la mutación pasada a {@link #write}.
+ */
+public interface CartStore {
+
+    /**
+     * Obtiene el carrito de un usuario.
+     *
+     * @param userId El ID del usuario.
+     * @return El carrito del usuario.
+     * @throws com.diver.exception.ResourceNotFoundException si el usuario no tiene carrito.
+     */
+    Cart read(Long userId);
+
+    /**
+     * Aplica una modificación al carrito de un usuario de forma atómica respecto a otras
+     * modificaciones del mismo carrito, y la persiste según la estrategia del almacén.
+     * Si la mutación lanza una excepción, el carrito queda como estaba.
+     *
+     * @param userId   El ID del usuario.
+     * @param mutation Los cambios a aplicar sobre el carrito.
+     * @return El carrito tras la modificación, con IDs asignados a los ítems nuevos.
+     * @throws com.diver.exception.ResourceNotFoundException si el usuario no tiene carrito.
+     */
+    Cart write(Long userId, Consumer<Cart> mutation);
+}
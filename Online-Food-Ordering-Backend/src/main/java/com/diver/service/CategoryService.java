@@ -1,7 +1,7 @@
 package com.diver.service;
 
+import com.diver.dto.AuthenticatedUser;
 import com.diver.dto.CategoryDto;
-import com.diver.model.User;
 
 import java.util.List;
 
@@ -23,7 +23,7 @@ public interface CategoryService {
      * @return El DTO de la categoría recién creada.
      * @throws com.diver.exception.OperationNotAllowedException si el usuario no es propietario.
      */
-    CategoryDto createCategory(String name, User user);
+    CategoryDto createCategory(String name, AuthenticatedUser user);
 
     /**
      * Encuentra todas las categorías asociadas a un restaurante específico.
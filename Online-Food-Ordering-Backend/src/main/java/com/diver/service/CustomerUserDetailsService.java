@@ -1,15 +1,22 @@
 package com.diver.service;
 
-import com.diver.dto.AuthenticatedUser;
-import com.diver.exception.RestaurantNotFoundException;
-
+import com.diver.config.VirtualThreads;
 import com.diver.model.User;
 import com.diver.repository.UserRepository;
-import lombok.RequiredArgsConstructor;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
 
 /**
  * Servicio personalizado para cargar los detalles de un usuario para Spring Security.
@@ -19,12 +26,34 @@ import org.springframework.stereotype.Service;
  * Como nuestra entidad {@code com.diver.model.User} ya implementa {@link UserDetails},
  * podemos devolverla directamente, proporcionando al contexto de seguridad el
  * objeto de usuario completo con todos sus datos.
+ * <p>
+ * Delante del repositorio hay una caché acotada por tamaño y con expiración tras escritura,
+ * indexada por email. Cualquier operación que modifique el rol, los favoritos o las direcciones
+ * de un usuario debe invocar {@link #evictUser(String)} para que la siguiente carga lea de la BD.
+ * Las estadísticas (aciertos, fallos, tiempo de carga) se publican en Micrometer bajo el nombre
+ * de caché {@value #CACHE_NAME}.
  */
+@Slf4j
 @Service
-@RequiredArgsConstructor
 public class CustomerUserDetailsService implements UserDetailsService {
 
+    public static final String CACHE_NAME = "userPrincipals";
+
     private final UserRepository userRepository;
+    private final AsyncCache<String, User> userCache;
+
+    public CustomerUserDetailsService(UserRepository userRepository,
+                                      MeterRegistry meterRegistry,
+                                      @Value("${app.security.user-cache.max-size:10000}") long maxSize,
+                                      @Value("${app.security.user-cache.ttl:5m}") Duration ttl) {
+        this.userRepository = userRepository;
+        this.userCache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, userCache.synchronous(), CACHE_NAME);
+    }
 
     /**
      * Carga un usuario por su nombre de usuario (que en nuestro caso es el email).
@@ -36,12 +65,36 @@ public class CustomerUserDetailsService implements UserDetailsService {
      */
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        // Buscamos el usuario por email y lo devolvemos directamente.
-        // El método .orElseThrow() de Optional nos permite lanzar una excepción de forma concisa si no se encuentra.
-        return userRepository.findByEmail(username)
-                .orElseThrow(() -> new UsernameNotFoundException("Usuario no encontrado con email: " + username));
-
-
+        // La carga se hace fuera del compute de Caffeine (no fija el hilo virtual mientras espera
+        // a la BD). Devuelve null si el usuario no existe: no cacheamos emails inexistentes.
+        User user = VirtualThreads.getOrLoad(userCache, username, email -> userRepository.findByEmail(email).orElse(null));
+        if (user == null) {
+            throw new UsernameNotFoundException("Usuario no encontrado con email: " + username);
+        }
+        return user;
+    }
 
+    /**
+     * Invalida la entrada cacheada de un usuario.
+     * <p>
+     * Si hay una transacción activa, la entrada se invalida de inmediato y de nuevo tras el commit,
+     * para que una petición concurrente no deje cacheado el estado anterior a la modificación.
+     *
+     * @param email El email del usuario cuya entrada debe invalidarse.
+     */
+    public void evictUser(String email) {
+        if (email == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    userCache.synchronous().invalidate(email);
+                }
+            });
+        }
+        userCache.synchronous().invalidate(email);
+        log.debug("Entrada de la caché de usuarios invalidada para '{}'.", email);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,46 @@
+package com.diver.service;
+
+import com.diver.dto.AuthenticatedUser;
+import com.diver.dto.CourierAssignmentDto;
+import com.diver.dto.DispatchStatsDto;
+import com.diver.request.CourierLocationRequest;
+
+import java.util.Optional;
+
+/**
+ * Contrato para el reparto: asignación de órdenes a repartidores.
+ * <p>
+ * Los repartidores conectados y las órdenes que esperan repartidor se mantienen en memoria.
+ * Una orden entra en la cola al pasar a {@code EN_PREPARACION} (o a {@code EN_CAMINO} si aún no
+ * tenía repartidor) y las asignaciones se calculan por lotes periódicos, todas a la vez.
+ */
+public interface DispatchService {
+
+    /**
+     * Registra la ubicación y la disponibilidad del repartidor autenticado.
+     *
+     * @param courier El repartidor autenticado.
+     * @param request La ubicación y la disponibilidad.
+     */
+    void updateLocation(AuthenticatedUser courier, CourierLocationRequest request);
+
+    /**
+     * Obtiene la orden asignada al repartidor autenticado.
+     *
+     * @param courier El repartidor autenticado.
+     * @return La orden en curso, o vacío si no tiene ninguna.
+     */
+    Optional<CourierAssignmentDto> getCurrentAssignment(AuthenticatedUser courier);
+
+    /**
+     * Ejecuta un lote de asignación y persiste las asignaciones.
+     *
+     * @return El número de órdenes asignadas.
+     */
+    int dispatch();
+
+    /**
+     * @return El estado actual del reparto.
+     */
+    DispatchStatsDto getStats();
+}
@@ -0,0 +1,45 @@
+package com.diver.service;
+
+import com.diver.model.OrderStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * Contrato para la estimación de tiempos de entrega (ETA).
+ * <p>
+ * Las estimaciones combinan los tiempos de aceptación, preparación y entrega aprendidos de los
+ * cambios de estado de cada restaurante, la cola actual de su cocina y una estimación del viaje
+ * según la distancia. Todo se resuelve en memoria: ninguna estimación consulta la base de datos,
+ * así que pueden calcularse al mapear cada orden o cada restaurante de un listado.
+ */
+public interface EtaService {
+
+    /**
+     * Estima el momento de entrega de una orden en curso.
+     *
+     * @param orderId        El ID de la orden.
+     * @param restaurantId   El ID del restaurante de la orden.
+     * @param status         El estado actual de la orden.
+     * @param createdAt      La fecha de creación de la orden.
+     * @param distanceMeters (Opcional) La distancia entre el restaurante y la dirección de entrega;
+     *                       sin ella el viaje se estima con los tiempos de entrega aprendidos.
+     * @return El momento estimado de entrega, o {@code null} si la orden ya terminó o se canceló.
+     */
+    LocalDateTime estimateDelivery(Long orderId, Long restaurantId, OrderStatus status,
+                                   LocalDateTime createdAt, Double distanceMeters);
+
+    /**
+     * Estima cuántos minutos tardaría en llegar una orden hecha ahora a un restaurante.
+     *
+     * @param restaurantId   El ID del restaurante.
+     * @param distanceMeters (Opcional) La distancia hasta el cliente; sin ella el viaje se estima
+     *                       con los tiempos de entrega aprendidos.
+     * @return Los minutos estimados, redondeados hacia arriba.
+     */
+    int estimateMinutes(Long restaurantId, Double distanceMeters);
+
+    /**
+     * Reconstruye los estimadores a partir del registro de cambios de estado reciente.
+     */
+    void rebuild();
+}
@@ -1,8 +1,9 @@
 package com.diver.service;
 
+import com.diver.dto.AuthenticatedUser;
 import com.diver.dto.FoodDto; // Asumiendo que crearás este DTO
-import com.diver.model.User;
 import com.diver.request.CreateFoodRequest; // Nombre de clase corregido
+import com.diver.request.MenuFilterRequest;
 
 import java.util.List;
 
@@ -24,7 +25,7 @@ public interface FoodService {
      * @param user         El usuario (propietario) que realiza la creación.
      * @return El DTO del plato recién creado.
      */
-    FoodDto createFood(CreateFoodRequest req, Long categoryId, Long restaurantId, User user);
+    FoodDto createFood(CreateFoodRequest req, Long categoryId, Long restaurantId, AuthenticatedUser user);
 
     /**
      * Elimina un plato de comida por su ID.
@@ -36,33 +37,29 @@ public interface FoodService {
      * @throws com.diver.exception.FoodNotFoundException si el plato no existe.
      * @throws com.diver.exception.AccessDeniedException si el usuario no tiene permisos.
      */
-    void deleteFood(Long foodId, User user);
+    void deleteFood(Long foodId, AuthenticatedUser user);
 
     /**
-     * Obtiene una lista de platos de un restaurante, con filtros opcionales.
+     * Obtiene una lista de platos de un restaurante, con filtros y ordenación opcionales.
+     * Los filtros se aplican en la base de datos.
      *
-     * @param restaurantId   El ID del restaurante.
-     * @param isVegetarian   Filtra por platos vegetarianos.
-     * @param isNonVeg       Filtra por platos no vegetarianos.
-     * @param isSeasonal     Filtra por platos de temporada.
-     * @param foodCategory   Filtra por el nombre de una categoría específica.
+     * @param restaurantId El ID del restaurante.
+     * @param filter       Filtros (vegetariano, no vegetariano, temporada, disponibilidad, categoría),
+     *                     ordenación y si se deben incluir los ingredientes.
      * @return Una lista de DTOs de los platos que coinciden con los filtros.
+     * @throws com.diver.exception.BadRequestException si el campo o la dirección de ordenación no son válidos.
      */
-    List<FoodDto> getRestaurantFoods(
-            Long restaurantId,
-            Boolean isVegetarian,
-            Boolean isNonVeg,
-            Boolean isSeasonal,
-            String foodCategory
-    );
+    List<FoodDto> getRestaurantFoods(Long restaurantId, MenuFilterRequest filter);
 
     /**
-     * Busca platos en toda la aplicación por una palabra clave.
+     * Busca platos en toda la aplicación por una palabra clave, ordenados por relevancia.
      *
-     * @param keyword La palabra clave para buscar en nombres o descripciones.
+     * @param keyword La palabra clave para buscar en nombres, descripciones, categorías y restaurantes.
+     * @param page    El número de página (empezando en 0); {@code null} equivale a 0.
+     * @param size    El tamaño de página; {@code null} usa el valor por defecto.
      * @return Una lista de DTOs de los platos encontrados.
      */
-    List<FoodDto> searchFood(String keyword); // Renombrado a singular para consistencia
+    List<FoodDto> searchFood(String keyword, Integer page, Integer size); // Renombrado a singular para consistencia
 
     /**
      * Encuentra un plato por su ID.
@@ -82,5 +79,5 @@ public interface FoodService {
      * @throws com.diver.exception.FoodNotFoundException si el plato no existe.
      * @throws com.diver.exception.AccessDeniedException si el usuario no tiene permisos.
      */
-    FoodDto updateAvailabilityStatus(Long foodId, User user);
+    FoodDto updateAvailabilityStatus(Long foodId, AuthenticatedUser user);
 }
\ No newline at end of file
@@ -0,0 +1,43 @@
+package com.diver.service;
+
+import java.util.function.Supplier;
+
+/**
+ * Contrato para ejecutar operaciones de forma idempotente a partir de una clave enviada por el
+ * cliente en la cabecera {@code Idempotency-Key}.
+ * <p>
+ * La primera petición con una clave ejecuta la operación y guarda su resultado; los reintentos con
+ * la misma clave y la misma petición reciben ese resultado sin volver a ejecutarla. Las claves
+ * tienen ámbito por operación y por usuario, y caducan pasado un tiempo.
+ */
+public interface IdempotencyService {
+
+    /**
+     * Resultado de una ejecución idempotente.
+     *
+     * @param value    El resultado de la operación.
+     * @param replayed {@code true} si es el resultado guardado de una ejecución anterior.
+     * @param <T>      El tipo del resultado.
+     */
+    record Outcome<T>(T value, boolean replayed) {
+    }
+
+    /**
+     * Ejecuta la operación una única vez por clave.
+     * <p>
+     * Si otra petición con la misma clave está en curso, espera a que termine y devuelve su
+     * resultado. Si la operación falla, la clave se libera y un reintento la ejecuta de nuevo.
+     *
+     * @param scope     La operación (por ejemplo {@code "order"}); la misma clave en dos operaciones
+     *                  distintas son dos claves independientes, cada una con su tipo de resultado.
+     * @param userId    El ID del usuario que hace la petición (ámbito de la clave).
+     * @param key       La clave de idempotencia enviada por el cliente.
+     * @param request   El cuerpo de la petición; un reintento con la misma clave debe ser idéntico.
+     * @param operation La operación a ejecutar.
+     * @param <T>       El tipo del resultado.
+     * @return El resultado, nuevo o guardado.
+     * @throws com.diver.exception.BadRequestException             si la clave está vacía o es demasiado larga.
+     * @throws com.diver.exception.IdempotencyKeyConflictException si la clave ya se usó con otra petición.
+     */
+    <T> Outcome<T> execute(String scope, Long userId, String key, Object request, Supplier<T> operation);
+}
@@ -0,0 +1,369 @@
+package com.diver.service.Imp;
+
+import com.diver.model.AnalyticsGap;
+import com.diver.model.AnalyticsWatermark;
+import com.diver.model.FoodSalesRollup;
+import com.diver.model.OrderStatus;
+import com.diver.model.OrderStatusEvent;
+import com.diver.model.RollupGranularity;
+import com.diver.model.SalesRollup;
+import com.diver.repository.AnalyticsGapRepository;
+import com.diver.repository.AnalyticsWatermarkRepository;
+import com.diver.repository.FoodSalesRollupRepository;
+import com.diver.repository.OrderItemRepository;
+import com.diver.repository.OrderRepository;
+import com.diver.repository.OrderStatusEventRepository;
+import com.diver.repository.SalesRollupRepository;
+import com.diver.repository.projection.SalesItemRow;
+import com.diver.repository.projection.SalesOrderRow;
+import com.diver.service.AnalyticsCompactionService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Implementación del compactador de analíticas.
+ * <p>
+ * Cada lote se procesa en una transacción que bloquea la fila de posición
+ * ({@link AnalyticsWatermark}), así que varias instancias no agregan dos veces el mismo evento,
+ * y la posición avanza en la misma transacción que los agregados. Por lote se hacen unas pocas
+ * consultas: los eventos, las órdenes afectadas, sus ítems agrupados por plato y las filas de
+ * agregados existentes; las sumas se calculan en memoria y se guardan con {@code saveAll}.
+ * <p>
+ * Solo se leen eventos con más de {@code app.analytics.compactor.settle-delay} de antigüedad.
+ * Aun así, un ID menor que la posición puede confirmar más tarde: una transacción larga, o un
+ * evento de otra instancia que reservó un bloque anterior de la secuencia. Por eso cada ID que
+ * la posición deja atrás sin haberlo visto se guarda como hueco ({@link AnalyticsGap}); cada
+ * lote vuelve a buscarlos y agrega los que ya han aparecido. Los huecos que siguen vacíos tras
+ * {@code app.analytics.compactor.gap-timeout} (normalmente IDs que nunca se usaron) se descartan
+ * y se registran en el log. Las métricas {@code analytics.compactor.gaps.*} exponen los huecos
+ * abiertos, los eventos recuperados y los huecos descartados.
+ */
+@Slf4j
+@Service
+public class AnalyticsCompactionServiceImp implements AnalyticsCompactionService {
+
+    static final String SALES_WATERMARK = "sales";
+
+    private final OrderStatusEventRepository eventRepository;
+    private final OrderRepository orderRepository;
+    private final OrderItemRepository orderItemRepository;
+    private final SalesRollupRepository salesRollupRepository;
+    private final FoodSalesRollupRepository foodSalesRollupRepository;
+    private final AnalyticsWatermarkRepository watermarkRepository;
+    private final AnalyticsGapRepository gapRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final Duration settleDelay;
+    private final Duration gapTimeout;
+    private final int maxGap;
+    private final Counter recoveredEvents;
+    private final Counter expiredGaps;
+
+    public AnalyticsCompactionServiceImp(OrderStatusEventRepository eventRepository,
+                                         OrderRepository orderRepository,
+                                         OrderItemRepository orderItemRepository,
+                                         SalesRollupRepository salesRollupRepository,
+                                         FoodSalesRollupRepository foodSalesRollupRepository,
+                                         AnalyticsWatermarkRepository watermarkRepository,
+                                         AnalyticsGapRepository gapRepository,
+                                         PlatformTransactionManager transactionManager,
+                                         MeterRegistry meterRegistry,
+                                         @Value("${app.analytics.compactor.batch-size:1000}") int batchSize,
+                                         @Value("${app.analytics.compactor.settle-delay:10s}") Duration settleDelay,
+                                         @Value("${app.analytics.compactor.gap-timeout:24h}") Duration gapTimeout,
+                                         @Value("${app.analytics.compactor.max-gap:10000}") int maxGap) {
+        this.eventRepository = eventRepository;
+        this.orderRepository = orderRepository;
+        this.orderItemRepository = orderItemRepository;
+        this.salesRollupRepository = salesRollupRepository;
+        this.foodSalesRollupRepository = foodSalesRollupRepository;
+        this.watermarkRepository = watermarkRepository;
+        this.gapRepository = gapRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.settleDelay = settleDelay;
+        this.gapTimeout = gapTimeout;
+        this.maxGap = maxGap;
+        this.recoveredEvents = Counter.builder("analytics.compactor.gaps.recovered")
+                .description("Eventos agregados tras haber quedado por debajo de la posición")
+                .register(meterRegistry);
+        this.expiredGaps = Counter.builder("analytics.compactor.gaps.expired")
+                .description("Huecos descartados sin que apareciera su evento")
+                .register(meterRegistry);
+        Gauge.builder("analytics.compactor.gaps.open", gapRepository, AnalyticsGapRepository::count)
+                .description("Huecos pendientes de volver a comprobar")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public int compact() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime before = now.minus(settleDelay);
+        transactionTemplate.executeWithoutResult(status -> expireGaps(now.minus(gapTimeout)));
+        int total = 0;
+        while (true) {
+            Integer processed = transactionTemplate.execute(status -> compactBatch(before));
+            if (processed == null || processed == 0) {
+                break;
+            }
+            total += processed;
+            if (processed < batchSize) {
+                break;
+            }
+        }
+        if (total > 0) {
+            log.info("Compactación de analíticas: {} eventos agregados.", total);
+        }
+        return total;
+    }
+
+    @Scheduled(fixedDelayString = "${app.analytics.compactor.fixed-delay:30000}")
+    public void scheduledCompact() {
+        compact();
+    }
+
+    // --- METODOS PRIVADOS ---
+
+    private int compactBatch(LocalDateTime before) {
+        AnalyticsWatermark watermark = lockWatermark();
+
+        // Primero los eventos de huecos anteriores que ya han confirmado, luego los nuevos
+        List<OrderStatusEvent> recovered = eventRepository.findGapEventsChangedBefore(before, Limit.of(batchSize));
+        List<OrderStatusEvent> fresh = eventRepository.findByIdGreaterThanAndChangedAtBeforeOrderByIdAsc(
+                watermark.getLastEventId(), before, Limit.of(batchSize));
+        if (recovered.isEmpty() && fresh.isEmpty()) {
+            return 0;
+        }
+        List<OrderStatusEvent> events = new ArrayList<>(recovered.size() + fresh.size());
+        events.addAll(recovered);
+        events.addAll(fresh);
+
+        Set<Long> orderIds = new HashSet<>();
+        Set<Long> createdOrderIds = new HashSet<>();
+        for (OrderStatusEvent event : events) {
+            if (event.getFromStatus() == null) {
+                createdOrderIds.add(event.getOrderId());
+                orderIds.add(event.getOrderId());
+            } else if (event.getToStatus() == OrderStatus.CANCELADO || event.getToStatus() == OrderStatus.ENTREGADO) {
+                orderIds.add(event.getOrderId());
+            }
+        }
+        Map<Long, SalesOrderRow> orders = orderIds.isEmpty() ? Map.of() :
+                orderRepository.findSalesRowsByIdIn(orderIds).stream()
+                        .collect(Collectors.toMap(SalesOrderRow::orderId, Function.identity()));
+        Map<Long, List<SalesItemRow>> itemsByOrder = createdOrderIds.isEmpty() ? Map.of() :
+                orderItemRepository.findSalesRowsByOrderIdIn(createdOrderIds).stream()
+                        .collect(Collectors.groupingBy(SalesItemRow::orderId));
+
+        Deltas deltas = new Deltas();
+        for (OrderStatusEvent event : events) {
+            SalesOrderRow order = orders.get(event.getOrderId());
+            if (order == null) {
+                continue; // Transición que no afecta a las ventas, u orden eliminada
+            }
+            LocalDateTime placedAt = order.createdAt() != null ? order.createdAt() : event.getChangedAt();
+            long amount = order.totalAmount() != null ? order.totalAmount() : 0L;
+            for (RollupGranularity granularity : RollupGranularity.values()) {
+                LocalDateTime bucket = granularity.bucketStart(placedAt);
+                SalesRollup sales = deltas.sales(order.restaurantId(), granularity, bucket);
+                if (event.getFromStatus() == null) {
+                    sales.setOrderCount(sales.getOrderCount() + 1);
+                    sales.setRevenue(sales.getRevenue() + amount);
+                    for (SalesItemRow item : itemsByOrder.getOrDefault(order.orderId(), List.of())) {
+                        FoodSalesRollup food = deltas.food(order.restaurantId(), item.foodId(), granularity, bucket);
+                        food.setQuantity(food.getQuantity() + item.quantity());
+                        food.setRevenue(food.getRevenue() + (item.revenue() != null ? item.revenue() : 0L));
+                    }
+                } else if (event.getToStatus() == OrderStatus.CANCELADO) {
+                    sales.setCancelledCount(sales.getCancelledCount() + 1);
+                    sales.setCancelledRevenue(sales.getCancelledRevenue() + amount);
+                } else {
+                    sales.setDeliveredCount(sales.getDeliveredCount() + 1);
+                }
+            }
+        }
+
+        applySales(deltas.sales);
+        applyFoods(deltas.foods);
+        if (!recovered.isEmpty()) {
+            gapRepository.deleteAllByIdInBatch(recovered.stream().map(OrderStatusEvent::getId).toList());
+            recoveredEvents.increment(recovered.size());
+            log.info("Compactación de analíticas: {} eventos recuperados de huecos anteriores a la posición.",
+                    recovered.size());
+        }
+        if (!fresh.isEmpty()) {
+            long lastEventId = fresh.get(fresh.size() - 1).getId();
+            recordGaps(watermark.getLastEventId(), lastEventId, fresh);
+            watermark.setLastEventId(lastEventId);
+            watermarkRepository.save(watermark);
+        }
+        return recovered.size() + fresh.size();
+    }
+
+    private AnalyticsWatermark lockWatermark() {
+        return watermarkRepository.lockByName(SALES_WATERMARK)
+                .orElseGet(() -> watermarkRepository.saveAndFlush(new AnalyticsWatermark(SALES_WATERMARK, 0L)));
+    }
+
+    /**
+     * Guarda como huecos los IDs entre la posición anterior y la nueva que no estaban en el lote.
+     * Un salto mayor que {@code max-gap} (p. ej. la secuencia movida a mano) no se guarda entero:
+     * se registra en el log para no llenar la tabla de IDs que nunca existirán.
+     */
+    private void recordGaps(long fromExclusive, long toInclusive, List<OrderStatusEvent> fresh) {
+        Set<Long> seen = fresh.stream().map(OrderStatusEvent::getId).collect(Collectors.toSet());
+        long missing = (toInclusive - fromExclusive) - seen.size();
+        if (missing <= 0) {
+            return;
+        }
+        if (missing > maxGap) {
+            log.warn("La posición de analíticas salta de {} a {} con {} IDs sin ver; supera max-gap ({}) y no se "
+                    + "comprobarán: los eventos que confirmen más tarde en ese rango no se agregarán.",
+                    fromExclusive, toInclusive, missing, maxGap);
+            return;
+        }
+        LocalDateTime detectedAt = LocalDateTime.now();
+        List<AnalyticsGap> gaps = new ArrayList<>((int) missing);
+        for (long id = fromExclusive + 1; id <= toInclusive; id++) {
+            if (!seen.contains(id)) {
+                gaps.add(new AnalyticsGap(id, detectedAt));
+            }
+        }
+        gapRepository.saveAll(gaps);
+        log.debug("Compactación de analíticas: {} huecos registrados entre los IDs {} y {}.",
+                gaps.size(), fromExclusive, toInclusive);
+    }
+
+    /**
+     * Descarta los huecos que siguen vacíos tras {@code gap-timeout}. Se hace con la posición
+     * bloqueada para no competir con el lote de otra instancia.
+     */
+    private void expireGaps(LocalDateTime cutoff) {
+        lockWatermark();
+        List<Long> expired = gapRepository.findEventIdsDetectedBefore(cutoff);
+        if (expired.isEmpty()) {
+            return;
+        }
+        gapRepository.deleteAllByIdInBatch(expired);
+        expiredGaps.increment(expired.size());
+        log.info("Compactación de analíticas: {} huecos descartados sin evento tras {} (IDs {}). Un evento con "
+                + "alguno de estos IDs que confirme ahora no se agregará.",
+                expired.size(), gapTimeout, expired.size() <= 20 ? expired : expired.subList(0, 20) + "...");
+    }
+
+    /**
+     * Suma los incrementos a las filas existentes (leídas de una vez por granularidad) o crea
+     * las que faltan.
+     */
+    private void applySales(Map<SalesKey, SalesRollup> deltas) {
+        List<SalesRollup> toSave = new ArrayList<>(deltas.size());
+        for (RollupGranularity granularity : RollupGranularity.values()) {
+            Set<Long> restaurantIds = new HashSet<>();
+            Set<LocalDateTime> buckets = new HashSet<>();
+            deltas.keySet().stream().filter(key -> key.granularity() == granularity).forEach(key -> {
+                restaurantIds.add(key.restaurantId());
+                buckets.add(key.bucketStart());
+            });
+            if (restaurantIds.isEmpty()) {
+                continue;
+            }
+            Map<SalesKey, SalesRollup> existing = new HashMap<>();
+            for (SalesRollup row : salesRollupRepository.findByGranularityAndRestaurantIdInAndBucketStartIn(
+                    granularity, restaurantIds, buckets)) {
+                existing.put(new SalesKey(row.getRestaurantId(), granularity, row.getBucketStart()), row);
+            }
+            deltas.forEach((key, delta) -> {
+                if (key.granularity() != granularity) {
+                    return;
+                }
+                SalesRollup row = existing.get(key);
+                if (row == null) {
+                    toSave.add(delta);
+                    return;
+                }
+                row.setOrderCount(row.getOrderCount() + delta.getOrderCount());
+                row.setCancelledCount(row.getCancelledCount() + delta.getCancelledCount());
+                row.setDeliveredCount(row.getDeliveredCount() + delta.getDeliveredCount());
+                row.setRevenue(row.getRevenue() + delta.getRevenue());
+                row.setCancelledRevenue(row.getCancelledRevenue() + delta.getCancelledRevenue());
+                toSave.add(row);
+            });
+        }
+        salesRollupRepository.saveAll(toSave);
+    }
+
+    private void applyFoods(Map<FoodKey, FoodSalesRollup> deltas) {
+        List<FoodSalesRollup> toSave = new ArrayList<>(deltas.size());
+        for (RollupGranularity granularity : RollupGranularity.values()) {
+            Set<Long> restaurantIds = new HashSet<>();
+            Set<LocalDateTime> buckets = new HashSet<>();
+            deltas.keySet().stream().filter(key -> key.granularity() == granularity).forEach(key -> {
+                restaurantIds.add(key.restaurantId());
+                buckets.add(key.bucketStart());
+            });
+            if (restaurantIds.isEmpty()) {
+                continue;
+            }
+            Map<FoodKey, FoodSalesRollup> existing = new HashMap<>();
+            for (FoodSalesRollup row : foodSalesRollupRepository.findByGranularityAndRestaurantIdInAndBucketStartIn(
+                    granularity, restaurantIds, buckets)) {
+                existing.put(new FoodKey(row.getRestaurantId(), row.getFoodId(), granularity, row.getBucketStart()), row);
+            }
+            deltas.forEach((key, delta) -> {
+                if (key.granularity() != granularity) {
+                    return;
+                }
+                FoodSalesRollup row = existing.get(key);
+                if (row == null) {
+                    toSave.add(delta);
+                    return;
+                }
+                row.setQuantity(row.getQuantity() + delta.getQuantity());
+                row.setRevenue(row.getRevenue() + delta.getRevenue());
+                toSave.add(row);
+            });
+        }
+        foodSalesRollupRepository.saveAll(toSave);
+    }
+
+    private record SalesKey(Long restaurantId, RollupGranularity granularity, LocalDateTime bucketStart) {
+    }
+
+    private record FoodKey(Long restaurantId, Long foodId, RollupGranularity granularity, LocalDateTime bucketStart) {
+    }
+
+    /** Incrementos de un lote, acumulados en entidades nuevas (sin ID) por clave. */
+    private static final class Deltas {
+        private final Map<SalesKey, SalesRollup> sales = new HashMap<>();
+        private final Map<FoodKey, FoodSalesRollup> foods = new HashMap<>();
+
+        private SalesRollup sales(Long restaurantId, RollupGranularity granularity, LocalDateTime bucket) {
+            return sales.computeIfAbsent(new SalesKey(restaurantId, granularity, bucket),
+                    key -> new SalesRollup(null, restaurantId, granularity, bucket, 0, 0, 0, 0, 0));
+        }
+
+        private FoodSalesRollup food(Long restaurantId, Long foodId, RollupGranularity granularity, LocalDateTime bucket) {
+            return foods.computeIfAbsent(new FoodKey(restaurantId, foodId, granularity, bucket),
+                    key -> new FoodSalesRollup(null, restaurantId, foodId, granularity, bucket, 0, 0));
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.diver.service.Imp;
+
+import com.diver.dto.FoodSalesDto;
+import com.diver.dto.SalesBucketDto;
+import com.diver.dto.SalesReportDto;
+import com.diver.exception.BadRequestException;
+import com.diver.model.RollupGranularity;
+import com.diver.model.SalesRollup;
+import com.diver.repository.FoodSalesRollupRepository;
+import com.diver.repository.SalesRollupRepository;
+import com.diver.service.AnalyticsService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Implementación de los informes de ventas sobre las tablas de agregados.
+ * <p>
+ * Un informe lee como mucho una fila por intervalo del rango, y el rango se limita a
+ * {@code app.analytics.max-buckets} intervalos; los intervalos sin ventas se devuelven a cero.
+ */
+@Service
+public class AnalyticsServiceImp implements AnalyticsService {
+
+    private static final RollupGranularity DEFAULT_GRANULARITY = RollupGranularity.DAY;
+
+    private final SalesRollupRepository salesRollupRepository;
+    private final FoodSalesRollupRepository foodSalesRollupRepository;
+    private final int maxBuckets;
+    private final int defaultBuckets;
+    private final int defaultTopFoods;
+
+    public AnalyticsServiceImp(SalesRollupRepository salesRollupRepository,
+                               FoodSalesRollupRepository foodSalesRollupRepository,
+                               @Value("${app.analytics.max-buckets:744}") int maxBuckets,
+                               @Value("${app.analytics.default-buckets:30}") int defaultBuckets,
+                               @Value("${app.analytics.top-foods.default-limit:10}") int defaultTopFoods) {
+        this.salesRollupRepository = salesRollupRepository;
+        this.foodSalesRollupRepository = foodSalesRollupRepository;
+        this.maxBuckets = maxBuckets;
+        this.defaultBuckets = defaultBuckets;
+        this.defaultTopFoods = defaultTopFoods;
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public SalesReportDto getSalesReport(Long restaurantId, String granularity, LocalDateTime from, LocalDateTime to) {
+        RollupGranularity resolved = resolveGranularity(granularity);
+        Range range = resolveRange(resolved, from, to);
+
+        Map<LocalDateTime, SalesRollup> rows = new HashMap<>();
+        for (SalesRollup row : salesRollupRepository
+                .findByRestaurantIdAndGranularityAndBucketStartGreaterThanEqualAndBucketStartLessThanOrderByBucketStartAsc(
+                        restaurantId, resolved, range.from(), range.to())) {
+            rows.put(row.getBucketStart(), row);
+        }
+
+        List<SalesBucketDto> buckets = new ArrayList<>();
+        SalesRollup totals = new SalesRollup(null, restaurantId, resolved, range.from(), 0, 0, 0, 0, 0);
+        for (LocalDateTime bucket = range.from(); bucket.isBefore(range.to()); bucket = resolved.plus(bucket, 1)) {
+            SalesRollup row = rows.get(bucket);
+            if (row == null) {
+                buckets.add(toDto(bucket, new SalesRollup()));
+                continue;
+            }
+            buckets.add(toDto(bucket, row));
+            totals.setOrderCount(totals.getOrderCount() + row.getOrderCount());
+            totals.setCancelledCount(totals.getCancelledCount() + row.getCancelledCount());
+            totals.setDeliveredCount(totals.getDeliveredCount() + row.getDeliveredCount());
+            totals.setRevenue(totals.getRevenue() + row.getRevenue());
+            totals.setCancelledRevenue(totals.getCancelledRevenue() + row.getCancelledRevenue());
+        }
+        return new SalesReportDto(restaurantId, resolved, range.from(), range.to(),
+                toDto(range.from(), totals), buckets);
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public List<FoodSalesDto> getTopFoods(Long restaurantId, String granularity, LocalDateTime from, LocalDateTime to,
+                                          Integer limit) {
+        RollupGranularity resolved = resolveGranularity(granularity);
+        Range range = resolveRange(resolved, from, to);
+        int resolvedLimit = limit == null ? defaultTopFoods : limit;
+        if (resolvedLimit < 1) {
+            throw new BadRequestException("El límite de platos debe ser mayor que cero.");
+        }
+        return foodSalesRollupRepository.findTopFoods(restaurantId, resolved, range.from(), range.to(),
+                        Limit.of(resolvedLimit)).stream()
+                .map(row -> new FoodSalesDto(row.foodId(), row.foodName(),
+                        row.quantity() != null ? row.quantity() : 0L,
+                        row.revenue() != null ? row.revenue() : 0L))
+                .toList();
+    }
+
+    // --- METODOS PRIVADOS ---
+
+    private static RollupGranularity resolveGranularity(String granularity) {
+        return granularity == null || granularity.isBlank() ? DEFAULT_GRANULARITY : RollupGranularity.parse(granularity);
+    }
+
+    /**
+     * Alinea el rango a la granularidad: {@code from} al inicio de su intervalo y {@code to} al final
+     * del suyo. Sin {@code to}, el rango termina con el intervalo actual; sin {@code from}, cubre
+     * {@code app.analytics.default-buckets} intervalos.
+     */
+    private Range resolveRange(RollupGranularity granularity, LocalDateTime from, LocalDateTime to) {
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        LocalDateTime alignedEnd = granularity.bucketStart(end);
+        if (to == null || !alignedEnd.equals(end)) {
+            alignedEnd = granularity.plus(alignedEnd, 1);
+        }
+        LocalDateTime alignedStart = from != null
+                ? granularity.bucketStart(from)
+                : granularity.plus(alignedEnd, -defaultBuckets);
+        if (!alignedStart.isBefore(alignedEnd)) {
+            throw new BadRequestException("El inicio del rango debe ser anterior al final.");
+        }
+        long buckets = granularity.bucketsBetween(alignedStart, alignedEnd);
+        if (buckets > maxBuckets) {
+            throw new BadRequestException("El rango pedido tiene " + buckets + " intervalos; el máximo es " + maxBuckets + ".");
+        }
+        return new Range(alignedStart, alignedEnd);
+    }
+
+    private static SalesBucketDto toDto(LocalDateTime bucket, SalesRollup row) {
+        double cancellationRate = row.getOrderCount() == 0 ? 0.0
+                : (double) row.getCancelledCount() / row.getOrderCount();
+        return new SalesBucketDto(bucket, row.getOrderCount(), row.getCancelledCount(), row.getDeliveredCount(),
+                row.getRevenue(), row.getCancelledRevenue(), row.getRevenue() - row.getCancelledRevenue(),
+                cancellationRate);
+    }
+
+    /** Rango {@code [from, to)} alineado a una granularidad. */
+    private record Range(LocalDateTime from, LocalDateTime to) {
+    }
+}
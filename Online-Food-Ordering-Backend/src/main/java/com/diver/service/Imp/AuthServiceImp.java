@@ -9,6 +9,7 @@ import com.diver.repository.CartRepository;
 import com.diver.repository.UserRepository;
 import com.diver.request.LoginRequest;
 import com.diver.response.AuthResponse;
+import com.diver.service.CustomerUserDetailsService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
@@ -32,6 +33,7 @@ public class AuthServiceImp {
     private final PasswordEncoder passwordEncoder;
     private final JwtProvider jwtProvider;
     private final AuthenticationManager authenticationManager;
+    private final CustomerUserDetailsService userDetailsService;
 
     /**
      * Registra un nuevo usuario en el sistema.
@@ -65,9 +67,14 @@ public class AuthServiceImp {
         cart.setCustomer(savedUser);
         cartRepository.save(cart);
 
+        // Por si existía una entrada cacheada para este email, la invalidamos.
+        userDetailsService.evictUser(savedUser.getEmail());
+
         // 4. Crear un objeto Authentication para el nuevo usuario
         // Nota: Spring Security no está involucrado aquí, es para la generación del token.
-        Authentication authentication = new UsernamePasswordAuthenticationToken(savedUser.getEmail(), savedUser.getPassword());
+        // Usamos la entidad como principal para que el token incluya su ID y su rol.
+        Authentication authentication = new UsernamePasswordAuthenticationToken(
+                savedUser, null, savedUser.getAuthorities());
 
         // 5. Generar el token
         String token = jwtProvider.generateToken(authentication);
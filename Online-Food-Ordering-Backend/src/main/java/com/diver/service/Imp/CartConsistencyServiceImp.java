@@ -0,0 +1,66 @@
+package com.diver.service.Imp;
+
+import com.diver.exception.ResourceNotFoundException;
+import com.diver.model.Cart;
+import com.diver.repository.CartRepository;
+import com.diver.repository.projection.CartTotalDriftRow;
+import com.diver.service.CartConsistencyService;
+import com.diver.service.CartStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Implementación del comprobador de consistencia de carritos.
+ * <p>
+ * La detección es una única consulta agregada sobre la base de datos. La corrección de cada
+ * carrito pasa por el {@link CartStore}, en su propia transacción, para que también se corrija
+ * la copia en memoria cuando el almacén es write-behind. Se ejecuta de forma programada según
+ * {@code app.cart.consistency-check.cron} y bajo demanda desde el endpoint de administración.
+ */
+@Slf4j
+@Service
+public class CartConsistencyServiceImp implements CartConsistencyService {
+
+    private final CartRepository cartRepository;
+    private final CartStore cartStore;
+    private final TransactionTemplate transactionTemplate;
+
+    public CartConsistencyServiceImp(CartRepository cartRepository,
+                                     CartStore cartStore,
+                                     PlatformTransactionManager transactionManager) {
+        this.cartRepository = cartRepository;
+        this.cartStore = cartStore;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public int reconcileTotals() {
+        List<CartTotalDriftRow> drifted = cartRepository.findTotalDrift();
+        int repaired = 0;
+        for (CartTotalDriftRow row : drifted) {
+            try {
+                Cart cart = transactionTemplate.execute(status ->
+                        cartStore.write(row.customerId(), c -> c.setTotal(c.computeItemsTotal())));
+                log.warn("Total del carrito ID {} corregido: guardado {}, suma de ítems {}, corregido a {}.",
+                        row.cartId(), row.storedTotal(), row.itemsTotal(), cart != null ? cart.getTotal() : null);
+                repaired++;
+            } catch (ResourceNotFoundException e) {
+                log.debug("El carrito ID {} ya no existe; se omite.", row.cartId());
+            }
+        }
+        if (repaired > 0) {
+            log.info("Comprobación de consistencia de carritos: {} carritos corregidos.", repaired);
+        }
+        return repaired;
+    }
+
+    @Scheduled(cron = "${app.cart.consistency-check.cron:0 0 4 * * *}")
+    public void scheduledReconcile() {
+        reconcileTotals();
+    }
+}
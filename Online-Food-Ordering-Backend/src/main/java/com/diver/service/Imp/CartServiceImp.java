@@ -1,33 +1,38 @@
 package com.diver.service.Imp;
 
+import com.diver.dto.AuthenticatedUser;
 import com.diver.dto.CartDto;
 import com.diver.dto.CartItemDto;
 import com.diver.dto.UserSimpleDto;
 import com.diver.exception.AccessDeniedException;
+import com.diver.exception.BadRequestException;
 import com.diver.exception.ResourceNotFoundException;
 import com.diver.model.Cart;
 import com.diver.model.CartItem;
 import com.diver.model.Food;
 import com.diver.model.User;
 import com.diver.repository.CartItemRepository;
-import com.diver.repository.CartRepository;
 import com.diver.repository.FoodRepository;
 import com.diver.request.AddCartItemRequest;
+import com.diver.request.CartOperation;
 import com.diver.service.CartService;
+import com.diver.service.CartStore;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.client.ResourceAccessException;
 
-import java.util.Optional;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 class CartServiceImp implements CartService {
 
-    private final CartRepository cartRepository;
+    private final CartStore cartStore;
     private final FoodRepository foodRepository;
     private final CartItemRepository cartItemRepository;
 
@@ -42,39 +47,33 @@ class CartServiceImp implements CartService {
      */
     @Override
     @Transactional
-    public CartDto addItemToCart(AddCartItemRequest req, User user) {
+    public CartDto addItemToCart(AddCartItemRequest req, AuthenticatedUser user) {
         log.info("Usuario '{}' solicita añadir el plato ID {} (cantidad: {}) a su carrito.",
                 user.getEmail(), req.getFoodId(), req.getQuantity());
 
-        Cart cart = findCartByUserIdInternal(user.getId());
         Food food = foodRepository.findById(req.getFoodId())
                 .orElseThrow(() -> new ResourceNotFoundException("Plato no encontrado con ID: " + req.getFoodId()));
 
-        Optional<CartItem> existingItemOpt = cart.getCartItems().stream()
-                .filter(item -> item.getFood().getId().equals(req.getFoodId()))
-                .findFirst();
-
-        if (existingItemOpt.isPresent()) {
-            CartItem existingItem = existingItemOpt.get();
-            int oldQuantity = existingItem.getQuantity();
-            existingItem.setQuantity(oldQuantity + req.getQuantity());
-            existingItem.setTotalPrice(existingItem.getQuantity() * food.getPrice());
-            existingItem.setIngredients(req.getIngredients());
-
-            log.debug("Ítem existente encontrado. Actualizando cantidad de {} a {}.", oldQuantity, existingItem.getQuantity());
-        } else {
-            CartItem newItem = new CartItem();
-            newItem.setFood(food);
-            newItem.setCart(cart);
-            newItem.setQuantity(req.getQuantity());
-            newItem.setTotalPrice((long) req.getQuantity() * food.getPrice());
-            newItem.setIngredients(req.getIngredients());
-            cart.getCartItems().add(newItem);
-            log.debug("Añadiendo nuevo ítem al carrito para el plato '{}'.", food.getName());
-        }
+        Cart updatedCart = cartStore.write(user.getId(), cart -> {
+            CartItem existingItem = cart.findItemByFoodId(req.getFoodId());
+
+            if (existingItem != null) {
+                int oldQuantity = existingItem.getQuantity();
+                int newQuantity = oldQuantity + req.getQuantity();
+                cart.updateItem(existingItem, newQuantity, (long) newQuantity * food.getPrice());
+                existingItem.setIngredients(req.getIngredients());
 
-        recalculateCartTotal(cart);
-        Cart updatedCart = cartRepository.save(cart);
+                log.debug("Ítem existente encontrado. Actualizando cantidad de {} a {}.", oldQuantity, newQuantity);
+            } else {
+                CartItem newItem = new CartItem();
+                newItem.setFood(food);
+                newItem.setQuantity(req.getQuantity());
+                newItem.setTotalPrice((long) req.getQuantity() * food.getPrice());
+                newItem.setIngredients(req.getIngredients());
+                cart.addItem(newItem);
+                log.debug("Añadiendo nuevo ítem al carrito para el plato '{}'.", food.getName());
+            }
+        });
         log.info("Carrito del usuario '{}' actualizado. Nuevo total: {}.", user.getEmail(), updatedCart.getTotal());
         return mapToCartDto(updatedCart);
     }
@@ -91,25 +90,22 @@ class CartServiceImp implements CartService {
      */
     @Override
     @Transactional
-    public CartDto updateCartItemQuantity(Long cartItemId, int quantity, User user) {
+    public CartDto updateCartItemQuantity(Long cartItemId, int quantity, AuthenticatedUser user) {
         log.info("Usuario '{}' solicita actualizar la cantidad del ítem de carrito ID {} a {}.",
                 user.getEmail(), cartItemId, quantity);
 
-        CartItem cartItem = findCartItemByIdAndValidateOwnership(cartItemId, user);
-        Cart cart = cartItem.getCart();
-
-        if (quantity <= 0) {
-            log.warn("Cantidad solicitada es {} (<= 0). Eliminando el ítem ID {} del carrito.", quantity, cartItemId);
-            cart.getCartItems().remove(cartItem);
-        } else {
-            int oldQuantity = cartItem.getQuantity();
-            cartItem.setQuantity(quantity);
-            cartItem.setTotalPrice((long) quantity * cartItem.getFood().getPrice());
-            log.debug("Cantidad del ítem ID {} actualizada de {} a {}.", cartItemId, oldQuantity, quantity);
-        }
+        Cart updatedCart = cartStore.write(user.getId(), cart -> {
+            CartItem cartItem = findOwnedCartItem(cart, cartItemId);
 
-        recalculateCartTotal(cart);
-        Cart updatedCart = cartRepository.save(cart);
+            if (quantity <= 0) {
+                log.warn("Cantidad solicitada es {} (<= 0). Eliminando el ítem ID {} del carrito.", quantity, cartItemId);
+                cart.removeItem(cartItem);
+            } else {
+                int oldQuantity = cartItem.getQuantity();
+                cart.updateItem(cartItem, quantity, (long) quantity * cartItem.getFood().getPrice());
+                log.debug("Cantidad del ítem ID {} actualizada de {} a {}.", cartItemId, oldQuantity, quantity);
+            }
+        });
         log.info("Cantidad del ítem en el carrito de '{}' actualizada. Nuevo total: {}.", user.getEmail(), updatedCart.getTotal());
         return mapToCartDto(updatedCart);
     }
@@ -125,18 +121,83 @@ class CartServiceImp implements CartService {
      */
     @Override
     @Transactional
-    public CartDto removeItemFromCart(Long cartItemId, User user) {
+    public CartDto removeItemFromCart(Long cartItemId, AuthenticatedUser user) {
         log.warn("Usuario '{}' solicita eliminar el ítem de carrito ID {}.", user.getEmail(), cartItemId);
-        CartItem cartItem = findCartItemByIdAndValidateOwnership(cartItemId, user);
-        Cart cart = cartItem.getCart();
-        cart.getCartItems().remove(cartItem);
-
-        recalculateCartTotal(cart);
-        Cart updatedCart = cartRepository.save(cart);
+        Cart updatedCart = cartStore.write(user.getId(), cart -> cart.removeItem(findOwnedCartItem(cart, cartItemId)));
         log.info("Ítem ID {} eliminado del carrito de '{}'. Nuevo total: {}.", cartItemId, user.getEmail(), updatedCart.getTotal());
         return mapToCartDto(updatedCart);
     }
 
+    /**
+     * Aplica un lote ordenado de operaciones al carrito del usuario en una única transacción.
+     * <p>
+     * El carrito se carga una vez, los platos de todas las operaciones {@code ADD} se cargan con
+     * una sola consulta y los ítems se localizan mediante los índices del carrito (por plato y
+     * por ID). El carrito se guarda y se mapea una única vez al final.
+     *
+     * @param operations Las operaciones a aplicar, en orden.
+     * @param user       El usuario autenticado.
+     * @return El DTO del carrito completo tras aplicar todas las operaciones.
+     * @throws BadRequestException       Si una operación no trae los campos que su tipo requiere.
+     * @throws ResourceNotFoundException Si un plato no existe o un ítem no pertenece al carrito del usuario.
+     */
+    @Override
+    @Transactional
+    public CartDto applyBatch(List<CartOperation> operations, AuthenticatedUser user) {
+        log.info("Usuario '{}' solicita aplicar un lote de {} operaciones a su carrito.",
+                user.getEmail(), operations.size());
+
+        for (int i = 0; i < operations.size(); i++) {
+            validateOperation(i, operations.get(i));
+        }
+
+        List<Long> foodIds = operations.stream()
+                .filter(op -> op.getType() == CartOperation.Type.ADD)
+                .map(CartOperation::getFoodId)
+                .distinct()
+                .toList();
+        Map<Long, Food> foodsById = foodIds.isEmpty()
+                ? Map.of()
+                : foodRepository.findAllById(foodIds).stream()
+                        .collect(Collectors.toMap(Food::getId, Function.identity()));
+
+        Cart updatedCart = cartStore.write(user.getId(), cart -> {
+            for (CartOperation op : operations) {
+                switch (op.getType()) {
+                    case ADD -> {
+                        Food food = foodsById.get(op.getFoodId());
+                        if (food == null) {
+                            throw new ResourceNotFoundException("Plato no encontrado con ID: " + op.getFoodId());
+                        }
+                        CartItem item = cart.findItemByFoodId(food.getId());
+                        if (item == null) {
+                            item = new CartItem();
+                            item.setFood(food);
+                            item.setQuantity(op.getQuantity());
+                            item.setTotalPrice((long) op.getQuantity() * food.getPrice());
+                            cart.addItem(item);
+                        } else {
+                            int quantity = item.getQuantity() + op.getQuantity();
+                            cart.updateItem(item, quantity, (long) quantity * food.getPrice());
+                        }
+                        item.setIngredients(op.getIngredients());
+                    }
+                    case UPDATE -> {
+                        CartItem item = findItemInCart(cart, op.getCartItemId());
+                        if (op.getQuantity() <= 0) {
+                            cart.removeItem(item);
+                        } else {
+                            cart.updateItem(item, op.getQuantity(), (long) op.getQuantity() * item.getFood().getPrice());
+                        }
+                    }
+                    case REMOVE -> cart.removeItem(findItemInCart(cart, op.getCartItemId()));
+                }
+            }
+        });
+        log.info("Lote aplicado al carrito de '{}'. Nuevo total: {}.", user.getEmail(), updatedCart.getTotal());
+        return mapToCartDto(updatedCart);
+    }
+
     /**
      * Encuentra el carrito de un usuario por su objeto User.
      *
@@ -146,10 +207,9 @@ class CartServiceImp implements CartService {
      */
     @Override
     @Transactional(readOnly = true)
-    public CartDto findCartByUserId(User user) {
+    public CartDto findCartByUserId(AuthenticatedUser user) {
         log.debug("Solicitud para encontrar el carrito del usuario '{}'.", user.getEmail());
-        Cart cart = findCartByUserIdInternal(user.getId());
-        return mapToCartDto(cart);
+        return mapToCartDto(cartStore.read(user.getId()));
     }
 
     /**
@@ -161,43 +221,84 @@ class CartServiceImp implements CartService {
      */
     @Override
     @Transactional
-    public CartDto clearCart(User user) {
+    public CartDto clearCart(AuthenticatedUser user) {
         log.warn("Usuario '{}' solicita vaciar su carrito por completo.", user.getEmail());
-        Cart cart = findCartByUserIdInternal(user.getId());
+        Cart cart = cartStore.read(user.getId());
 
         if (cart.getCartItems().isEmpty()) {
             log.info("El carrito del usuario '{}' ya estaba vacío. No se realizaron cambios.", user.getEmail());
             return mapToCartDto(cart);
         }
 
-        cart.getCartItems().clear();
-        recalculateCartTotal(cart); // Esto pondrá el total a 0
-        Cart clearedCart = cartRepository.save(cart);
+        Cart clearedCart = cartStore.write(user.getId(), Cart::clearItems);
         log.info("Carrito del usuario '{}' vaciado exitosamente.", user.getEmail());
         return mapToCartDto(clearedCart);
     }
 
     // --- MÉTODOS PRIVADOS ---
 
-    private Cart findCartByUserIdInternal(Long userId) {
-        return cartRepository.findByCustomerId(userId)
-                .orElseThrow(() -> new ResourceNotFoundException("Carrito no encontrado para el usuario con ID: " + userId));
+    /**
+     * Busca un ítem dentro del carrito del usuario. Si no está, distingue entre un ítem que no
+     * existe y uno que pertenece a otro carrito, como hacía la validación de propiedad original.
+     */
+    private CartItem findOwnedCartItem(Cart cart, Long cartItemId) {
+        CartItem item = cart.findItemById(cartItemId);
+        if (item != null) {
+            return item;
+        }
+        boolean ownedByAnotherCart = cartItemRepository.findById(cartItemId)
+                .map(other -> !other.getCart().getId().equals(cart.getId()))
+                .orElse(false);
+        if (ownedByAnotherCart) {
+            throw new AccessDeniedException("No tienes permiso para modificar este ítem del carrito.");
+        }
+        throw new ResourceNotFoundException("Ítem de carrito no encontrado con ID: " + cartItemId);
     }
 
-    private CartItem findCartItemByIdAndValidateOwnership(Long cartItemId, User user) {
-        CartItem cartItem = cartItemRepository.findById(cartItemId)
-                .orElseThrow(() -> new ResourceNotFoundException("Ítem de carrito no encontrado con ID: " + cartItemId));
-        if (!cartItem.getCart().getCustomer().getId().equals(user.getId())) {
-            throw new AccessDeniedException("No tienes permiso para modificar este ítem del carrito.");
+    private static void validateOperation(int index, CartOperation op) {
+        String prefix = "Operación " + index + " (" + op.getType() + "): ";
+        switch (op.getType()) {
+            case ADD -> {
+                if (op.getFoodId() == null) {
+                    throw new BadRequestException(prefix + "el ID del plato es obligatorio.");
+                }
+                if (op.getQuantity() == null || op.getQuantity() < 1) {
+                    throw new BadRequestException(prefix + "la cantidad debe ser al menos 1.");
+                }
+            }
+            case UPDATE -> {
+                if (op.getCartItemId() == null) {
+                    throw new BadRequestException(prefix + "el ID del ítem del carrito es obligatorio.");
+                }
+                if (op.getQuantity() == null) {
+                    throw new BadRequestException(prefix + "la cantidad es obligatoria.");
+                }
+            }
+            case REMOVE -> {
+                if (op.getCartItemId() == null) {
+                    throw new BadRequestException(prefix + "el ID del ítem del carrito es obligatorio.");
+                }
+            }
+        }
+    }
+
+    /**
+     * Busca un ítem entre los del carrito del usuario. Un ítem de otro carrito se trata como
+     * inexistente, lo que equivale a la validación de propiedad de las operaciones individuales.
+     */
+    private static CartItem findItemInCart(Cart cart, Long cartItemId) {
+        CartItem item = cart.findItemById(cartItemId);
+        if (item == null) {
+            throw new ResourceNotFoundException("Ítem de carrito no encontrado con ID: " + cartItemId);
         }
-        return cartItem;
+        return item;
     }
 
-    private void recalculateCartTotal(Cart cart) {
-        long total = cart.getCartItems().stream().mapToLong(CartItem::getTotalPrice).sum();
-        cart.setTotal(total);
+    // Visibilidad de paquete: los benchmarks JMH de src/jmh invocan este método y mapToCartDto.
+    void recalculateCartTotal(Cart cart) {
+        cart.setTotal(cart.computeItemsTotal());
     }
-    private CartDto mapToCartDto(Cart cart) {
+    CartDto mapToCartDto(Cart cart) {
         CartDto dto = new CartDto();
         dto.setId(cart.getId());
         dto.setCustomer( mapToSimpleUserDto(cart.getCustomer()) );
@@ -1,11 +1,11 @@
 package com.diver.service.Imp;
 
+import com.diver.dto.AuthenticatedUser;
 import com.diver.dto.CategoryDto;
 import com.diver.exception.OperationNotAllowedException;
 import com.diver.exception.RestaurantNotFoundException;
 import com.diver.model.Category;
 import com.diver.model.Restaurant;
-import com.diver.model.User;
 import com.diver.repository.CategoryRepository;
 import com.diver.repository.RestaurantRepository;
 import com.diver.service.CategoryService;
@@ -43,7 +43,7 @@ public class CategoryServiceImp implements CategoryService {
      */
     @Transactional
     @Override
-    public CategoryDto createCategory(String name, User user) {
+    public CategoryDto createCategory(String name, AuthenticatedUser user) {
 
         log.info("Usuario '{}' solicita crear una nueva categoría: '{}'.", user.getEmail(), name);
         // 1. Validamos que el usuario sea propietario del restaurante
@@ -0,0 +1,213 @@
+package com.diver.service.Imp;
+
+import com.diver.dispatch.DispatchEngine;
+import com.diver.dto.AuthenticatedUser;
+import com.diver.dto.CourierAssignmentDto;
+import com.diver.dto.DispatchStatsDto;
+import com.diver.event.OrderStatusChangedEvent;
+import com.diver.model.CourierAssignment;
+import com.diver.model.OrderStatus;
+import com.diver.repository.CourierAssignmentRepository;
+import com.diver.repository.OrderRepository;
+import com.diver.repository.projection.DispatchOrderRow;
+import com.diver.request.CourierLocationRequest;
+import com.diver.service.DispatchService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Implementación del reparto sobre un {@link DispatchEngine} en memoria.
+ * <p>
+ * Las órdenes entran en la cola tras el commit de su paso a {@code EN_PREPARACION} o
+ * {@code EN_CAMINO} ({@link OrderStatusChangedEvent}) y salen al entregarse o cancelarse, lo que
+ * libera a su repartidor. Solo se reparten automáticamente las órdenes cuyo restaurante tiene
+ * coordenadas. Cada {@code app.dispatch.batch-interval} se ejecuta un lote que asigna todas las
+ * órdenes pendientes a la vez y guarda las asignaciones en una sola transacción; las que ya no
+ * proceden (orden cancelada o ya asignada entretanto) se deshacen en memoria.
+ * <p>
+ * Los repartidores envían su ubicación periódicamente; el que deja de hacerlo durante
+ * {@code app.dispatch.courier-ttl} sin una orden en curso se considera desconectado. Al arrancar
+ * se recuperan de la base de datos las órdenes en reparto y los repartidores ocupados.
+ * <p>
+ * Solo es correcto con una única instancia de la aplicación.
+ */
+@Slf4j
+@Service
+public class DispatchServiceImp implements DispatchService {
+
+    private static final Set<OrderStatus> DISPATCH_STATUSES = EnumSet.of(OrderStatus.EN_PREPARACION, OrderStatus.EN_CAMINO);
+
+    private final OrderRepository orderRepository;
+    private final CourierAssignmentRepository courierAssignmentRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final TransactionTemplate writeTransaction;
+    private final boolean enabled;
+    private final DispatchEngine engine;
+
+    public DispatchServiceImp(OrderRepository orderRepository,
+                              CourierAssignmentRepository courierAssignmentRepository,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${app.dispatch.enabled:true}") boolean enabled,
+                              @Value("${app.dispatch.cell-degrees:0.05}") double cellDegrees,
+                              @Value("${app.dispatch.max-pickup-km:10}") double maxPickupKm,
+                              @Value("${app.dispatch.candidates-per-order:8}") int candidatesPerOrder,
+                              @Value("${app.dispatch.age-weight-meters-per-second:5}") double ageWeightMetersPerSecond,
+                              @Value("${app.dispatch.improvement-passes:3}") int improvementPasses,
+                              @Value("${app.dispatch.courier-ttl:2m}") Duration courierTtl) {
+        this.orderRepository = orderRepository;
+        this.courierAssignmentRepository = courierAssignmentRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.engine = new DispatchEngine(cellDegrees, maxPickupKm * 1000, candidatesPerOrder,
+                ageWeightMetersPerSecond, improvementPasses, courierTtl.toMillis());
+    }
+
+    @Override
+    public void updateLocation(AuthenticatedUser courier, CourierLocationRequest request) {
+        engine.updateCourier(courier.getId(), request.getLatitude(), request.getLongitude(),
+                request.isAvailable(), System.currentTimeMillis());
+    }
+
+    @Override
+    public Optional<CourierAssignmentDto> getCurrentAssignment(AuthenticatedUser courier) {
+        return engine.assignmentOf(courier.getId())
+                .map(order -> new CourierAssignmentDto(order.orderId(), order.restaurantId(),
+                        order.pickupLatitude(), order.pickupLongitude(),
+                        order.dropoffLatitude(), order.dropoffLongitude()));
+    }
+
+    @Override
+    public int dispatch() {
+        List<DispatchEngine.Assignment> assignments = engine.runBatch(System.currentTimeMillis());
+        if (assignments.isEmpty()) {
+            return 0;
+        }
+        Set<Long> persisted;
+        try {
+            persisted = writeTransaction.execute(status -> persist(assignments));
+        } catch (RuntimeException e) {
+            log.error("No se pudieron guardar {} asignaciones de reparto. Las órdenes vuelven a la cola.",
+                    assignments.size(), e);
+            assignments.forEach(assignment -> engine.reject(assignment, true));
+            return 0;
+        }
+        for (DispatchEngine.Assignment assignment : assignments) {
+            if (!persisted.contains(assignment.order().orderId())) {
+                engine.reject(assignment, false);
+            }
+        }
+        DispatchEngine.Stats stats = engine.stats();
+        log.debug("Lote de reparto: {} de {} órdenes asignadas en {} µs ({} pendientes, {} repartidores libres).",
+                persisted.size(), stats.lastBatchOrders(), stats.lastBatchMicros(),
+                stats.pendingOrders(), stats.idleCouriers());
+        return persisted.size();
+    }
+
+    @Scheduled(fixedDelayString = "${app.dispatch.batch-interval:2000}")
+    public void scheduledDispatch() {
+        if (enabled) {
+            dispatch();
+        }
+    }
+
+    @Override
+    public DispatchStatsDto getStats() {
+        DispatchEngine.Stats stats = engine.stats();
+        return new DispatchStatsDto(stats.pendingOrders(), stats.idleCouriers(), stats.busyCouriers(),
+                stats.lastBatchOrders(), stats.lastBatchAssigned(), stats.lastBatchMicros());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void restoreOnStartup() {
+        if (!enabled) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        List<DispatchOrderRow> rows = readOnlyTransaction.execute(status ->
+                orderRepository.findDispatchRowsByStatusIn(DISPATCH_STATUSES));
+        rows.forEach(row -> track(row, now));
+        DispatchEngine.Stats stats = engine.stats();
+        log.info("Reparto restaurado: {} órdenes esperando repartidor y {} asignadas.",
+                stats.pendingOrders(), stats.busyCouriers());
+    }
+
+    /**
+     * Mantiene la cola de reparto tras el commit de cada cambio de estado.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (event.toStatus().isFinal()) {
+            engine.release(event.orderId(), now).ifPresent(courierId ->
+                    log.debug("Repartidor ID {} liberado: orden ID {} {}.", courierId, event.orderId(), event.toStatus()));
+            return;
+        }
+        if (!DISPATCH_STATUSES.contains(event.toStatus()) || engine.isTracked(event.orderId())) {
+            return;
+        }
+        orderRepository.findDispatchRowById(event.orderId()).ifPresent(row -> track(row, now));
+    }
+
+    // --- METODOS PRIVADOS ---
+
+    /**
+     * Guarda las asignaciones de las órdenes que siguen necesitando repartidor.
+     *
+     * @return Los IDs de las órdenes asignadas.
+     */
+    private Set<Long> persist(List<DispatchEngine.Assignment> assignments) {
+        List<Long> orderIds = assignments.stream().map(assignment -> assignment.order().orderId()).toList();
+        Set<Long> assignable = new HashSet<>(orderRepository.findUnassignedIdsByIdInAndStatusIn(orderIds, DISPATCH_STATUSES));
+        LocalDateTime now = LocalDateTime.now();
+        List<CourierAssignment> rows = new ArrayList<>(assignable.size());
+        for (DispatchEngine.Assignment assignment : assignments) {
+            if (assignable.contains(assignment.order().orderId())) {
+                rows.add(new CourierAssignment(null, assignment.order().orderId(), assignment.courierId(),
+                        Math.round(assignment.pickupDistanceMeters()), now));
+            }
+        }
+        courierAssignmentRepository.saveAll(rows);
+        return assignable;
+    }
+
+    private void track(DispatchOrderRow row, long nowMillis) {
+        if (row.restaurantLatitude() == null || row.restaurantLongitude() == null) {
+            log.debug("Orden ID {}: el restaurante ID {} no tiene coordenadas; no entra en el reparto automático.",
+                    row.orderId(), row.restaurantId());
+            return;
+        }
+        DispatchEngine.PendingOrder order = new DispatchEngine.PendingOrder(row.orderId(), row.restaurantId(),
+                row.restaurantLatitude(), row.restaurantLongitude(),
+                row.deliveryLatitude(), row.deliveryLongitude(), nowMillis);
+        if (row.courierId() != null) {
+            engine.restoreAssignment(order, row.courierId(), nowMillis);
+        } else {
+            engine.enqueue(order);
+        }
+    }
+}
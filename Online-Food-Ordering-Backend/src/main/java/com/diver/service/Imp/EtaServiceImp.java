@@ -0,0 +1,358 @@
+package com.diver.service.Imp;
+
+import com.diver.event.OrderStatusChangedEvent;
+import com.diver.event.RestaurantChangedEvent;
+import com.diver.model.OrderStatus;
+import com.diver.model.OrderStatusEvent;
+import com.diver.repository.OrderStatusEventRepository;
+import com.diver.search.TDigest;
+import com.diver.service.EtaService;
+import com.diver.service.KitchenBoardService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Implementación de las estimaciones de entrega en memoria.
+ * <p>
+ * Cada restaurante tiene un {@link TDigest} por etapa: aceptación ({@code PENDIENTE} →
+ * {@code EN_PREPARACION}), preparación ({@code EN_PREPARACION} → {@code EN_CAMINO}) y entrega
+ * ({@code EN_CAMINO} → {@code ENTREGADO}). Las duraciones se aprenden tras cada commit a partir de
+ * {@link OrderStatusChangedEvent}, recordando en memoria desde cuándo está cada orden activa en su
+ * estado. Cada etapa usa el cuantil {@code app.eta.quantile} de las dos últimas ventanas de
+ * {@code app.eta.window}, para olvidar los tiempos antiguos; mientras un restaurante no tiene
+ * {@code app.eta.min-samples} muestras se usan los tiempos de todos los restaurantes, y mientras
+ * tampoco estos las tienen, los valores por defecto.
+ * <p>
+ * El cuantil de cada etapa se recalcula al registrar una muestra, de modo que estimar solo suma
+ * valores ya calculados, la longitud de la cola de cocina ({@link KitchenBoardService}) y el viaje:
+ * la distancia a la velocidad configurada más un tiempo fijo de recogida y entrega o, sin
+ * coordenadas, el tiempo de entrega aprendido. Al arrancar se reproduce el registro de cambios de
+ * estado de las dos últimas ventanas.
+ * <p>
+ * Solo es correcto con una única instancia de la aplicación.
+ */
+@Slf4j
+@Service
+public class EtaServiceImp implements EtaService {
+
+    private static final int WARMUP_PAGE_SIZE = 5000;
+
+    /** Compresión de los resúmenes: unos 50 centroides por etapa y restaurante bastan para un ETA. */
+    private static final double DIGEST_COMPRESSION = 50;
+
+    /** Tiempo restante mínimo de una orden en curso, aunque vaya con retraso sobre lo estimado. */
+    private static final long MIN_REMAINING_SECONDS = 60;
+
+    /**
+     * Etapas cuya duración se aprende.
+     */
+    private enum Stage {
+        ACCEPT, PREPARATION, DELIVERY;
+
+        private static Stage between(OrderStatus from, OrderStatus to) {
+            if (from == OrderStatus.PENDIENTE && to == OrderStatus.EN_PREPARACION) {
+                return ACCEPT;
+            }
+            if (from == OrderStatus.EN_PREPARACION && to == OrderStatus.EN_CAMINO) {
+                return PREPARATION;
+            }
+            if (from == OrderStatus.EN_CAMINO && to == OrderStatus.ENTREGADO) {
+                return DELIVERY;
+            }
+            return null;
+        }
+    }
+
+    /**
+     * El estado en que está una orden activa y desde cuándo.
+     */
+    private record Progress(Long restaurantId, OrderStatus status, LocalDateTime since, long version) {
+    }
+
+    private final OrderStatusEventRepository orderStatusEventRepository;
+    private final KitchenBoardService kitchenBoardService;
+    private final TransactionTemplate readOnlyTransaction;
+    private final boolean warmupOnStartup;
+    private final double quantile;
+    private final int minSamples;
+    private final Duration window;
+    private final Duration maxStage;
+    private final int kitchenParallelism;
+    private final double travelMetersPerSecond;
+    private final long handoffSeconds;
+    private final double[] defaultSeconds;
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private volatile State state = new State();
+
+    public EtaServiceImp(OrderStatusEventRepository orderStatusEventRepository,
+                         KitchenBoardService kitchenBoardService,
+                         PlatformTransactionManager transactionManager,
+                         @Value("${app.eta.warmup-on-startup:true}") boolean warmupOnStartup,
+                         @Value("${app.eta.quantile:0.75}") double quantile,
+                         @Value("${app.eta.min-samples:20}") int minSamples,
+                         @Value("${app.eta.window:7d}") Duration window,
+                         @Value("${app.eta.max-stage:4h}") Duration maxStage,
+                         @Value("${app.eta.kitchen-parallelism:3}") int kitchenParallelism,
+                         @Value("${app.eta.travel-speed-kmh:18}") double travelSpeedKmh,
+                         @Value("${app.eta.handoff:4m}") Duration handoff,
+                         @Value("${app.eta.default-accept:3m}") Duration defaultAccept,
+                         @Value("${app.eta.default-preparation:15m}") Duration defaultPreparation,
+                         @Value("${app.eta.default-delivery:20m}") Duration defaultDelivery) {
+        if (!(quantile > 0 && quantile < 1)) {
+            throw new IllegalArgumentException("app.eta.quantile debe estar entre 0 y 1.");
+        }
+        this.orderStatusEventRepository = orderStatusEventRepository;
+        this.kitchenBoardService = kitchenBoardService;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.warmupOnStartup = warmupOnStartup;
+        this.quantile = quantile;
+        this.minSamples = Math.max(1, minSamples);
+        this.window = window;
+        this.maxStage = maxStage;
+        this.kitchenParallelism = Math.max(1, kitchenParallelism);
+        this.travelMetersPerSecond = travelSpeedKmh / 3.6;
+        this.handoffSeconds = handoff.toSeconds();
+        this.defaultSeconds = new double[]{
+                defaultAccept.toSeconds(), defaultPreparation.toSeconds(), defaultDelivery.toSeconds()};
+    }
+
+    @Override
+    public LocalDateTime estimateDelivery(Long orderId, Long restaurantId, OrderStatus status,
+                                          LocalDateTime createdAt, Double distanceMeters) {
+        if (status == null || status.isFinal()) {
+            return null;
+        }
+        State current = state;
+        LocalDateTime now = LocalDateTime.now();
+        // Sin seguimiento (orden anterior al arranque, por ejemplo) se cuenta la etapa desde ahora,
+        // salvo la aceptación, que empieza con la creación de la orden
+        Progress progress = current.inProgress.get(orderId);
+        LocalDateTime since = progress != null && progress.status() == status
+                ? progress.since()
+                : (status == OrderStatus.PENDIENTE && createdAt != null ? createdAt : now);
+        double elapsed = Math.max(0, Duration.between(since, now).toMillis() / 1000.0);
+
+        double travel = travelSeconds(current, restaurantId, distanceMeters);
+        double remaining = switch (status) {
+            case PENDIENTE -> Math.max(0, stageSeconds(current, restaurantId, Stage.ACCEPT) - elapsed)
+                    + queueSeconds(current, restaurantId, kitchenBoardService.queueLength(restaurantId) - 1)
+                    + stageSeconds(current, restaurantId, Stage.PREPARATION) + travel;
+            case EN_PREPARACION -> Math.max(0, stageSeconds(current, restaurantId, Stage.PREPARATION) - elapsed) + travel;
+            case EN_CAMINO -> Math.max(0, travel - elapsed);
+            default -> 0;
+        };
+        return now.plusSeconds(Math.max(MIN_REMAINING_SECONDS, Math.round(remaining)));
+    }
+
+    @Override
+    public int estimateMinutes(Long restaurantId, Double distanceMeters) {
+        State current = state;
+        double seconds = stageSeconds(current, restaurantId, Stage.ACCEPT)
+                + queueSeconds(current, restaurantId, kitchenBoardService.queueLength(restaurantId))
+                + stageSeconds(current, restaurantId, Stage.PREPARATION)
+                + travelSeconds(current, restaurantId, distanceMeters);
+        return (int) Math.ceil(seconds / 60);
+    }
+
+    @Override
+    public void rebuild() {
+        writeLock.lock();
+        try {
+            long start = System.currentTimeMillis();
+            State rebuilt = new State();
+            LocalDateTime after = LocalDateTime.now().minus(window.multipliedBy(2));
+            long afterId = 0;
+            int replayed = 0;
+            while (true) {
+                long position = afterId;
+                List<OrderStatusEvent> page = readOnlyTransaction.execute(status ->
+                        orderStatusEventRepository.findByIdGreaterThanAndChangedAtAfterOrderByIdAsc(
+                                position, after, Limit.of(WARMUP_PAGE_SIZE)));
+                for (OrderStatusEvent event : page) {
+                    apply(rebuilt, event.getOrderId(), event.getRestaurantId(), event.getFromStatus(),
+                            event.getToStatus(), event.getOrderVersion(), event.getChangedAt());
+                }
+                replayed += page.size();
+                if (page.size() < WARMUP_PAGE_SIZE) {
+                    break;
+                }
+                afterId = page.get(page.size() - 1).getId();
+            }
+            state = rebuilt;
+            log.info("Estimador de ETA reconstruido en {} ms: {} cambios de estado, {} restaurantes, {} órdenes activas.",
+                    System.currentTimeMillis() - start, replayed, rebuilt.profiles.size(), rebuilt.inProgress.size());
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmupOnStartup() {
+        if (warmupOnStartup) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Aprende la duración de la etapa que termina con cada cambio de estado confirmado.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        writeLock.lock();
+        try {
+            apply(state, event.orderId(), event.restaurantId(), event.fromStatus(), event.toStatus(),
+                    event.orderVersion(), event.changedAt());
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Olvida los tiempos de un restaurante eliminado.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onRestaurantChanged(RestaurantChangedEvent event) {
+        if (event.removed()) {
+            state.profiles.remove(event.restaurantId());
+        }
+    }
+
+    // --- METODOS PRIVADOS ---
+
+    /**
+     * Aplica un cambio de estado. Se llama con {@code writeLock} tomado; los eventos repetidos o
+     * más antiguos que el último conocido de la orden se ignoran por su versión.
+     */
+    private void apply(State target, Long orderId, Long restaurantId, OrderStatus from, OrderStatus to,
+                       long version, LocalDateTime changedAt) {
+        if (to == null || changedAt == null) {
+            return;
+        }
+        Progress previous = target.inProgress.get(orderId);
+        if (previous != null && version <= previous.version()) {
+            return;
+        }
+        Stage stage = Stage.between(from, to);
+        if (previous != null && previous.status() == from && stage != null) {
+            Duration duration = Duration.between(previous.since(), changedAt);
+            if (!duration.isNegative() && duration.compareTo(maxStage) <= 0) {
+                double seconds = duration.toMillis() / 1000.0;
+                target.profiles.computeIfAbsent(restaurantId, id -> new Profile())
+                        .record(stage, seconds, changedAt, window, quantile);
+                target.global.record(stage, seconds, changedAt, window, quantile);
+            }
+        }
+        if (to.isFinal()) {
+            target.inProgress.remove(orderId);
+        } else {
+            target.inProgress.put(orderId, new Progress(restaurantId, to, changedAt, version));
+        }
+    }
+
+    private double stageSeconds(State current, Long restaurantId, Stage stage) {
+        Profile profile = current.profiles.get(restaurantId);
+        if (profile != null && profile.samples(stage) >= minSamples) {
+            return profile.estimate(stage);
+        }
+        if (current.global.samples(stage) >= minSamples) {
+            return current.global.estimate(stage);
+        }
+        return defaultSeconds[stage.ordinal()];
+    }
+
+    /**
+     * Espera extra por la cola de cocina: con {@code kitchenParallelism} órdenes preparándose a la
+     * vez, cada tanda de órdenes por delante más allá de la capacidad añade un tiempo de preparación.
+     */
+    private double queueSeconds(State current, Long restaurantId, int ordersAhead) {
+        int waiting = ordersAhead - kitchenParallelism + 1;
+        if (waiting <= 0) {
+            return 0;
+        }
+        return waiting * stageSeconds(current, restaurantId, Stage.PREPARATION) / kitchenParallelism;
+    }
+
+    private double travelSeconds(State current, Long restaurantId, Double distanceMeters) {
+        if (distanceMeters == null || !(distanceMeters >= 0)) {
+            return stageSeconds(current, restaurantId, Stage.DELIVERY);
+        }
+        return handoffSeconds + distanceMeters / travelMetersPerSecond;
+    }
+
+    /**
+     * Los tiempos aprendidos y las órdenes activas; se sustituye entero al reconstruir.
+     */
+    private static final class State {
+        private final Map<Long, Profile> profiles = new ConcurrentHashMap<>();
+        private final Profile global = new Profile();
+        private final Map<Long, Progress> inProgress = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Los tiempos de las tres etapas de un restaurante (o de todos).
+     */
+    private static final class Profile {
+        private final StageTimes[] stages = {new StageTimes(), new StageTimes(), new StageTimes()};
+
+        private void record(Stage stage, double seconds, LocalDateTime at, Duration window, double quantile) {
+            stages[stage.ordinal()].record(seconds, at, window, quantile);
+        }
+
+        private long samples(Stage stage) {
+            return stages[stage.ordinal()].samples;
+        }
+
+        private double estimate(Stage stage) {
+            return stages[stage.ordinal()].estimateSeconds;
+        }
+    }
+
+    /**
+     * Duraciones de una etapa en dos ventanas consecutivas. Las escrituras llegan serializadas por
+     * {@code writeLock}; las lecturas solo ven el cuantil y el número de muestras ya calculados.
+     */
+    private static final class StageTimes {
+        private TDigest current = new TDigest(DIGEST_COMPRESSION);
+        private TDigest previous;
+        private LocalDateTime windowStart;
+        private volatile double estimateSeconds = Double.NaN;
+        private volatile long samples;
+
+        private void record(double seconds, LocalDateTime at, Duration window, double quantile) {
+            if (windowStart == null) {
+                windowStart = at;
+            } else if (!at.isBefore(windowStart.plus(window))) {
+                // Tras dos ventanas sin muestras la anterior ya no es representativa
+                previous = at.isBefore(windowStart.plus(window.multipliedBy(2))) ? current : null;
+                current = new TDigest(DIGEST_COMPRESSION);
+                windowStart = at;
+            }
+            current.add(seconds);
+            TDigest merged = current;
+            if (previous != null) {
+                merged = new TDigest(DIGEST_COMPRESSION);
+                merged.add(previous);
+                merged.add(current);
+            }
+            estimateSeconds = merged.quantile(quantile);
+            samples = merged.size();
+        }
+    }
+}
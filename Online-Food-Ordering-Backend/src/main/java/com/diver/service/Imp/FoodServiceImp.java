@@ -1,10 +1,13 @@
 package com.diver.service.Imp;
 
 
+import com.diver.dto.AuthenticatedUser;
 import com.diver.dto.FoodDto;
 import com.diver.dto.IngredientCategoryDto;
 import com.diver.dto.IngredientItemDto;
+import com.diver.event.MenuChangedEvent;
 import com.diver.exception.AccessDeniedException;
+import com.diver.exception.BadRequestException;
 import com.diver.exception.FoodNotFoundException;
 import com.diver.exception.RestaurantNotFoundException;
 import com.diver.model.*;
@@ -12,16 +15,30 @@ import com.diver.repository.CategoryRepository;
 import com.diver.repository.FoodRepository;
 import com.diver.repository.IngredientItemRepository;
 import com.diver.repository.RestaurantRepository;
+import com.diver.repository.projection.FoodImageRow;
+import com.diver.repository.projection.FoodIngredientRow;
+import com.diver.repository.projection.MenuFoodRow;
 import com.diver.request.CreateFoodRequest;
+import com.diver.request.MenuFilterRequest;
 import com.diver.service.FoodService;
+import com.diver.service.SearchIndexService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -33,6 +50,10 @@ public class FoodServiceImp implements FoodService {
     private final RestaurantRepository restaurantRepository;
     private final CategoryRepository categoryRepository;
     private final IngredientItemRepository ingredientItemRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final SearchIndexService searchIndexService;
+
+    private static final Set<String> MENU_SORT_FIELDS = Set.of("name", "price", "creationDate");
 
 
     /**
@@ -48,7 +69,7 @@ public class FoodServiceImp implements FoodService {
      */
     @Transactional
     @Override
-    public FoodDto createFood(CreateFoodRequest req, Long categoryId, Long restaurantId, User user) {
+    public FoodDto createFood(CreateFoodRequest req, Long categoryId, Long restaurantId, AuthenticatedUser user) {
 
         log.info("Iniciando creación de plato de comida para el restaurante con ID: {}",
                 req.getName(),
@@ -95,6 +116,7 @@ public class FoodServiceImp implements FoodService {
                 savedFood.getId(),
                 savedFood.getName(),
                 restaurant.getName());
+        eventPublisher.publishEvent(MenuChangedEvent.foodChanged(restaurantId, savedFood.getId()));
 
         // Mapear el plato de comida a un DTO
         return mapToFoodDto(savedFood);
@@ -113,7 +135,7 @@ public class FoodServiceImp implements FoodService {
      */
     @Transactional
     @Override
-    public void deleteFood(Long foodId, User user) {
+    public void deleteFood(Long foodId, AuthenticatedUser user) {
 
         log.info("Iniciando eliminación de plato de comida con ID: {}", foodId);
 
@@ -123,78 +145,89 @@ public class FoodServiceImp implements FoodService {
         // Eliminar el plato de comida
         foodRepository.delete(food);
         log.info("Plato de comida eliminado con ID: {}", foodId);
+        eventPublisher.publishEvent(MenuChangedEvent.foodRemoved(food.getRestaurant().getId(), foodId));
 
     }
 
     /**
-     * Obtiene una lista de platos de un restaurante, con filtros opcionales.
+     * Obtiene una lista de platos de un restaurante, con filtros y ordenación opcionales.
+     * <p>
+     * Los filtros se resuelven en la base de datos, apoyándose en los índices de la tabla
+     * {@code food}, con una proyección que no carga entidades: una consulta para los platos
+     * (con su categoría y restaurante), otra para sus imágenes y, solo si el filtro lo solicita,
+     * otra para sus ingredientes. El número de consultas no depende del tamaño del menú.
      *
      * @param restaurantId El ID del restaurante.
-     * @param isVegetarian Filtra por platos vegetarianos.
-     * @param isNonVeg     Filtra por platos no vegetarianos.
-     * @param isSeasonal   Filtra por platos de temporada.
-     * @param foodCategory Filtra por el nombre de una categoría específica.
+     * @param filter       Filtros, ordenación e inclusión de ingredientes.
      * @return Una lista de DTOs de los platos que coinciden con los filtros.
      */
+    @Transactional(readOnly = true)
     @Override
-    public List<FoodDto> getRestaurantFoods(Long restaurantId,
-                                            Boolean isVegetarian,
-                                            Boolean isNonVeg,
-                                            Boolean isSeasonal,
-                                            String foodCategory) {
-
-        // buscar el restaurante por id en la base de datos
-        List<Food> foods= foodRepository.findByRestaurantId(restaurantId);
-
-        log.info("El repositorio encontró {} platos para el restaurante ID {}.", foods.size(), restaurantId);
-
-        log.debug("Obteniendo platos para el restaurante ID {}. Filtros: " +
-                        "isVeg={}, isNonVeg={}, isSeasonal={}, category='{}'",
-                restaurantId, isVegetarian, isNonVeg, isSeasonal, foodCategory);
-
-
-        var foodStream = foods.stream();
+    public List<FoodDto> getRestaurantFoods(Long restaurantId, MenuFilterRequest filter) {
 
+        log.debug("Obteniendo platos para el restaurante ID {}. Filtros: {}", restaurantId, filter);
 
         // Filtro vegetariano/no vegetariano. Son mutuamente excluyentes.
-        if (isVegetarian != null) {
-            log.debug("Aplicando filtro vegetariano: {}", isVegetarian);
-            foodStream = foodStream.filter(food -> food.isVegetarian() == isVegetarian);
-        } else if (isNonVeg != null && isNonVeg) {
-            log.debug("Aplicando filtro no vegetariano.");
-            foodStream = foodStream.filter(food -> !food.isVegetarian());
+        Boolean vegetarian = filter.getVegetarian();
+        if (vegetarian == null && Boolean.TRUE.equals(filter.getNonVeg())) {
+            vegetarian = false;
         }
 
-        // Filtro de temporada.
-        if (isSeasonal != null) {
-            log.debug("Aplicando filtro de temporada: {}", isSeasonal);
-            foodStream = foodStream.filter(food -> food.isSeasonal() == isSeasonal);
-        }
+        String category = filter.getCategory() == null || filter.getCategory().isBlank()
+                ? null : filter.getCategory().toLowerCase(Locale.ROOT);
 
-        // Filtro de categoría.
-        if (foodCategory != null && !foodCategory.isEmpty()) {
-            log.debug("Aplicando filtro de categoría: {}", foodCategory);
-            foodStream = foodStream.filter(food -> food.getCategory() != null
-                    && food.getCategory().getName().equalsIgnoreCase(foodCategory));
+        List<MenuFoodRow> rows = foodRepository.findMenuRows(restaurantId, vegetarian, filter.getSeasonal(),
+                filter.getAvailable(), category, resolveMenuSort(filter));
+        log.info("El repositorio encontró {} platos para el restaurante ID {}.", rows.size(), restaurantId);
+        if (rows.isEmpty()) {
+            return new ArrayList<>();
         }
 
-        // 4. Recolectamos los resultados del stream filtrado.
-        List<Food> filteredFoods = foodStream.collect(Collectors.toList());
-        log.info("Después de aplicar filtros, quedaron {} platos.", filteredFoods.size());
+        List<Long> ids = rows.stream().map(MenuFoodRow::id).toList();
+        Map<Long, List<String>> imagesByFood = new HashMap<>();
+        for (FoodImageRow row : foodRepository.findImageRowsByFoodIdIn(ids)) {
+            imagesByFood.computeIfAbsent(row.foodId(), k -> new ArrayList<>()).add(row.image());
+        }
+        Map<Long, List<IngredientItemDto>> ingredientsByFood = null;
+        if (filter.isIncludeIngredients()) {
+            ingredientsByFood = new HashMap<>();
+            for (FoodIngredientRow row : foodRepository.findIngredientRowsByFoodIdIn(ids)) {
+                ingredientsByFood.computeIfAbsent(row.foodId(), k -> new ArrayList<>()).add(mapToItemDto(row));
+            }
+        }
 
-        return mapToFoodDtoList(filteredFoods);
+        List<FoodDto> foods = new ArrayList<>(rows.size());
+        for (MenuFoodRow row : rows) {
+            foods.add(mapToFoodDto(row, imagesByFood.getOrDefault(row.id(), new ArrayList<>()),
+                    ingredientsByFood == null ? null : ingredientsByFood.getOrDefault(row.id(), new ArrayList<>())));
+        }
+        return foods;
     }
 
-
     /**
-     * Busca platos en toda la aplicación por una palabra clave.
+     * Busca platos en toda la aplicación por una palabra clave, ordenados por relevancia.
+     * <p>
+     * La búsqueda se resuelve en el índice en memoria; la base de datos solo se consulta
+     * para cargar los platos de la página, por ID.
      *
-     * @param keyword La palabra clave para buscar en nombres o descripciones.
+     * @param keyword La palabra clave para buscar en nombres, descripciones, categorías y restaurantes.
+     * @param page    El número de página (empezando en 0); {@code null} equivale a 0.
+     * @param size    El tamaño de página; {@code null} usa el valor por defecto.
      * @return Una lista de DTOs de los platos encontrados.
      */
+    @Transactional(readOnly = true)
     @Override
-    public List<FoodDto> searchFood(String keyword) {
-        return foodRepository.searchFood( keyword).stream()
+    public List<FoodDto> searchFood(String keyword, Integer page, Integer size) {
+        List<Long> ids = searchIndexService.searchFoodIds(keyword, page, size);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        // findAllById no garantiza el orden: se reordena según la relevancia del índice
+        Map<Long, Food> foodsById = foodRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Food::getId, Function.identity()));
+        return ids.stream()
+                .map(foodsById::get)
+                .filter(Objects::nonNull)
                 .map(this::mapToFoodDto)
                 .collect(Collectors.toList());
     }
@@ -228,7 +261,7 @@ public class FoodServiceImp implements FoodService {
      */
     @Transactional
     @Override
-    public FoodDto updateAvailabilityStatus(Long foodId, User user) {
+    public FoodDto updateAvailabilityStatus(Long foodId, AuthenticatedUser user) {
         log.info("Usuario '{}' solicita cambiar estado de disponibilidad para el plato ID {}.",
                 user.getEmail(), foodId);
 
@@ -244,14 +277,21 @@ public class FoodServiceImp implements FoodService {
 
         log.info("Estado de disponibilidad del plato '{}' (ID: {}) cambiado a: {}",
                 updatedFood.getName(), updatedFood.getId(), updatedFood.isAvailable());
+        eventPublisher.publishEvent(
+                MenuChangedEvent.foodChanged(updatedFood.getRestaurant().getId(), updatedFood.getId()));
 
         // 4. RESPUESTA DTO: Devolvemos el estado actualizado.
         return mapToFoodDto(updatedFood);
     }
 
     // methods de mapeos a dto
+    // (visibilidad de paquete: los benchmarks JMH de src/jmh los invocan directamente)
 
-    private FoodDto mapToFoodDto(Food food) {
+    FoodDto mapToFoodDto(Food food) {
+        return mapToFoodDto(food, true);
+    }
+
+    FoodDto mapToFoodDto(Food food, boolean includeIngredients) {
 
         if (food== null)return null;
 
@@ -265,7 +305,7 @@ public class FoodServiceImp implements FoodService {
         foodDto.setVegetarian(food.isVegetarian());
         foodDto.setSeasonal(food.isSeasonal());
         foodDto.setCreationDate(food.getCreationDate());
-        if(food.getIngredients() != null){
+        if(includeIngredients && food.getIngredients() != null){
             foodDto.setIngredients(food.getIngredients().stream()
                     .map(this::mapToItemDto)
                     .collect(Collectors.toList()));
@@ -286,7 +326,38 @@ public class FoodServiceImp implements FoodService {
         }
         return foodDto;
     }
-    private List<FoodDto> mapToFoodDtoList(List<Food> foods) {
+    /**
+     * Mapea un plato del menú leído como proyección. {@code ingredients} es {@code null} cuando
+     * el menú se pide sin ingredientes.
+     */
+    private FoodDto mapToFoodDto(MenuFoodRow row, List<String> images, List<IngredientItemDto> ingredients) {
+        FoodDto foodDto = new FoodDto();
+        foodDto.setId(row.id());
+        foodDto.setName(row.name());
+        foodDto.setDescription(row.description());
+        foodDto.setPrice(row.price());
+        foodDto.setImages(images);
+        foodDto.setAvailable(row.available());
+        foodDto.setVegetarian(row.vegetarian());
+        foodDto.setSeasonal(row.seasonal());
+        foodDto.setCreationDate(row.creationDate());
+        foodDto.setIngredients(ingredients);
+
+        if (row.categoryId() != null) {
+            FoodDto.CategoryDto categoryDto = new FoodDto.CategoryDto();
+            categoryDto.setId(row.categoryId());
+            categoryDto.setName(row.categoryName());
+            foodDto.setCategory(categoryDto);
+        }
+
+        FoodDto.RestaurantSimpleDto restaurantSimpleDto = new FoodDto.RestaurantSimpleDto();
+        restaurantSimpleDto.setId(row.restaurantId());
+        restaurantSimpleDto.setName(row.restaurantName());
+        foodDto.setRestaurant(restaurantSimpleDto);
+        return foodDto;
+    }
+
+    List<FoodDto> mapToFoodDtoList(List<Food> foods) {
         return foods.stream().map(this::mapToFoodDto).collect(Collectors.toList());
     }
 
@@ -302,6 +373,21 @@ public class FoodServiceImp implements FoodService {
         return dto;
     }
 
+    private IngredientItemDto mapToItemDto(FoodIngredientRow row) {
+        IngredientItemDto dto = new IngredientItemDto();
+        dto.setId(row.id());
+        dto.setName(row.name());
+        dto.setInStock(row.inStock());
+        if (row.categoryId() != null) {
+            IngredientCategoryDto category = new IngredientCategoryDto();
+            category.setId(row.categoryId());
+            category.setName(row.categoryName());
+            category.setRestaurantId(row.categoryRestaurantId());
+            dto.setCategory(category);
+        }
+        return dto;
+    }
+
     // Este es tu mapeador de categorías. Es perfecto porque NO contiene la lista de ingredientes.
     private IngredientCategoryDto mapToCategoryDto(IngredientCategory category) {
         if (category == null) return null;
@@ -316,6 +402,30 @@ public class FoodServiceImp implements FoodService {
     }
 
 
+    /**
+     * Traduce los parámetros de ordenación a un {@link Sort}. Solo se permiten campos conocidos
+     * para no exponer propiedades arbitrarias de la entidad. Por defecto se ordena por ID.
+     */
+    private Sort resolveMenuSort(MenuFilterRequest filter) {
+        Sort.Direction direction = Sort.Direction.ASC;
+        if (filter.getDirection() != null && !filter.getDirection().isBlank()) {
+            direction = Sort.Direction.fromOptionalString(filter.getDirection())
+                    .orElseThrow(() -> new BadRequestException(
+                            "Dirección de ordenación inválida: " + filter.getDirection()));
+        }
+
+        String sortBy = filter.getSortBy();
+        if (sortBy == null || sortBy.isBlank()) {
+            return Sort.by(direction, "id");
+        }
+        if (!MENU_SORT_FIELDS.contains(sortBy)) {
+            throw new BadRequestException("Campo de ordenación inválido: " + sortBy
+                    + ". Valores permitidos: " + MENU_SORT_FIELDS);
+        }
+        // El ID desempata para que el orden sea estable.
+        return Sort.by(direction, sortBy).and(Sort.by("id"));
+    }
+
     // --- METODO PRIVADO DE UTILIDAD PARA VALIDACIÓN ---
     /**
      * Busca un plato por su ID y valida que el usuario proporcionado tenga
@@ -330,7 +440,7 @@ public class FoodServiceImp implements FoodService {
      * @throws FoodNotFoundException si el plato no existe.
      * @throws AccessDeniedException si el usuario no tiene los permisos requeridos.
      */
-    private Food findFoodByIdAndValidateOwnership(Long foodId, User user) {
+    private Food findFoodByIdAndValidateOwnership(Long foodId, AuthenticatedUser user) {
         // Buscar el plato por su ID
         Food food = foodRepository.findById( foodId)
                 .orElseThrow(()-> new FoodNotFoundException("Plato no encontrado con ID: " + foodId));
@@ -0,0 +1,134 @@
+package com.diver.service.Imp;
+
+import com.diver.exception.BadRequestException;
+import com.diver.exception.IdempotencyKeyConflictException;
+import com.diver.service.IdempotencyService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Implementación en memoria de las claves de idempotencia, sobre una caché Caffeine acotada en
+ * tamaño ({@code app.idempotency.max-keys}) y con caducidad ({@code app.idempotency.ttl}).
+ * <p>
+ * Cada clave guarda la huella de la petición (su JSON) y un {@link CompletableFuture} con el
+ * resultado. El registro de la clave es atómico, así que dos peticiones simultáneas con la misma
+ * clave ejecutan la operación una sola vez; un reintento tras completarse se resuelve con una
+ * búsqueda en la caché. Un reintento que llega mientras la original sigue en curso espera como
+ * mucho {@code app.idempotency.wait-timeout}. Las estadísticas se publican en Micrometer bajo el nombre de caché
+ * {@value #CACHE_NAME}.
+ * <p>
+ * Las claves viven en la memoria de cada instancia: con varias instancias, los reintentos deben
+ * llegar a la misma (afinidad de sesión) para ser deduplicados.
+ */
+@Slf4j
+@Service
+public class IdempotencyServiceImp implements IdempotencyService {
+
+    public static final String CACHE_NAME = "idempotencyKeys";
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final ObjectMapper objectMapper;
+    private final Cache<String, Entry> entries;
+    private final long waitTimeoutMillis;
+
+    public IdempotencyServiceImp(ObjectMapper objectMapper,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${app.idempotency.max-keys:100000}") long maxKeys,
+                                 @Value("${app.idempotency.ttl:24h}") Duration ttl,
+                                 @Value("${app.idempotency.wait-timeout:30s}") Duration waitTimeout) {
+        this.objectMapper = objectMapper;
+        this.waitTimeoutMillis = waitTimeout.toMillis();
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, entries, CACHE_NAME);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> Outcome<T> execute(String scope, Long userId, String key, Object request, Supplier<T> operation) {
+        if (key == null || key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new BadRequestException("La cabecera Idempotency-Key debe tener entre 1 y "
+                    + MAX_KEY_LENGTH + " caracteres.");
+        }
+        String scopedKey = scope + ":" + userId + ":" + key;
+        // La huella se calcula antes de ejecutar: la operación puede modificar la petición
+        Entry entry = new Entry(fingerprint(request), new CompletableFuture<>());
+
+        Entry existing = entries.asMap().putIfAbsent(scopedKey, entry);
+        if (existing != null) {
+            if (!existing.fingerprint().equals(entry.fingerprint())) {
+                throw new IdempotencyKeyConflictException(
+                        "La clave de idempotencia ya se usó con una petición distinta.");
+            }
+            log.info("Reintento con la clave de idempotencia '{}' del usuario ID {}: se devuelve el resultado original.",
+                    key, userId);
+            return new Outcome<>((T) await(existing.result()), true);
+        }
+
+        try {
+            T value = operation.get();
+            entry.result().complete(value);
+            return new Outcome<>(value, false);
+        } catch (RuntimeException | Error e) {
+            // Un fallo no se guarda: se libera la clave para que el cliente pueda reintentar
+            entries.asMap().remove(scopedKey, entry);
+            entry.result().completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    // --- METODOS PRIVADOS ---
+
+    private String fingerprint(Object request) {
+        try {
+            return objectMapper.writeValueAsString(request);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo serializar la petición para la clave de idempotencia.", e);
+        }
+    }
+
+    /**
+     * Espera el resultado de la ejecución original, que puede seguir en curso. Si falló,
+     * relanza la misma excepción que recibió la petición original.
+     */
+    private Object await(CompletableFuture<Object> result) {
+        try {
+            // Se espera sobre una copia: orTimeout sobre el futuro compartido lo completaría con el
+            // error de espera para todos, también para la ejecución original.
+            return result.copy().orTimeout(waitTimeoutMillis, TimeUnit.MILLISECONDS).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof TimeoutException) {
+                throw new IdempotencyKeyConflictException(
+                        "La petición original con esta clave de idempotencia sigue en curso; reinténtela más tarde.");
+            }
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private record Entry(String fingerprint, CompletableFuture<Object> result) {
+    }
+}
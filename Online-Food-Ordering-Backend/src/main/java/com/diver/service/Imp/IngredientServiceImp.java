@@ -1,19 +1,21 @@
 package com.diver.service.Imp;
 
+import com.diver.dto.AuthenticatedUser;
 import com.diver.dto.IngredientCategoryDto;
 import com.diver.dto.IngredientItemDto;
+import com.diver.event.MenuChangedEvent;
 import com.diver.exception.AccessDeniedException;
 import com.diver.exception.RestaurantNotFoundException;
 import com.diver.model.IngredientCategory;
 import com.diver.model.IngredientItem;
 import com.diver.model.Restaurant;
-import com.diver.model.User;
 import com.diver.repository.IngredientCategoryRepository;
 import com.diver.repository.IngredientItemRepository;
 import com.diver.repository.RestaurantRepository;
 import com.diver.service.IngredientsService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.client.ResourceAccessException;
@@ -29,6 +31,7 @@ public class IngredientServiceImp implements IngredientsService  {
     private final IngredientCategoryRepository ingredientCategoryRepository;
     private final IngredientItemRepository ingredientItemRepository;
     private final RestaurantRepository restaurantRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
 
     /**
@@ -42,7 +45,7 @@ public class IngredientServiceImp implements IngredientsService  {
      */
     @Override
     @Transactional
-    public IngredientCategoryDto createIngredientCategory(String name, Long restaurantId, User user) {
+    public IngredientCategoryDto createIngredientCategory(String name, Long restaurantId, AuthenticatedUser user) {
 
         log.info( "Usuario '{}' solicita crear una nueva categoría de ingredientes para el restaurante con ID '{}'.",
                 user.getEmail(),
@@ -111,7 +114,7 @@ public class IngredientServiceImp implements IngredientsService  {
      */
     @Override
     @Transactional
-    public IngredientItemDto createIngredientItem(String name, Long restaurantId, Long categoryId, User user) {
+    public IngredientItemDto createIngredientItem(String name, Long restaurantId, Long categoryId, AuthenticatedUser user) {
 
         log.info( "Usuario '{}' solicita crear un nuevo ingrediente para el restaurante con ID '{}'.",
                 user.getEmail(),
@@ -173,7 +176,7 @@ public class IngredientServiceImp implements IngredientsService  {
      */
     @Override
     @Transactional
-    public IngredientItemDto updateStock(Long ingredientId, User user) {
+    public IngredientItemDto updateStock(Long ingredientId, AuthenticatedUser user) {
 
         log.info( "Usuario '{}' solicita actualizar el stock de un ingrediente con ID '{}'.",
                 user.getEmail(),
@@ -190,6 +193,9 @@ public class IngredientServiceImp implements IngredientsService  {
                 updatedItem.getName(),
                 updatedItem.getId(),
                 updatedItem.getRestaurant().getId());
+        // Los platos que usan este ingrediente cambian en el menú publicado
+        eventPublisher.publishEvent(
+                MenuChangedEvent.ingredientChanged(updatedItem.getRestaurant().getId(), updatedItem.getId()));
 
         return mapToIngredientItemDto(updatedItem);
 
@@ -202,7 +208,7 @@ public class IngredientServiceImp implements IngredientsService  {
                 .orElseThrow(() -> new RestaurantNotFoundException("Restaurante no encontrado con ID: " + restaurantId));
     }
 
-    private void validateRestaurantOwnership(Restaurant restaurant, User user) {
+    private void validateRestaurantOwnership(Restaurant restaurant, AuthenticatedUser user) {
 
         if (user.getRole().name().equals("ROLE_ADMIN")) return;
 
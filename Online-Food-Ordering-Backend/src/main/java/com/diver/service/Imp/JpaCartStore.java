@@ -0,0 +1,36 @@
+package com.diver.service.Imp;
+
+import com.diver.exception.ResourceNotFoundException;
+import com.diver.model.Cart;
+import com.diver.repository.CartRepository;
+import com.diver.service.CartStore;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Consumer;
+
+/**
+ * Almacén de carritos por defecto: lee y escribe directamente con JPA, dentro de la
+ * transacción del servicio que lo invoca.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.cart.store", havingValue = "jpa", matchIfMissing = true)
+public class JpaCartStore implements CartStore {
+
+    private final CartRepository cartRepository;
+
+    @Override
+    public Cart read(Long userId) {
+        return cartRepository.findByCustomerId(userId)
+                .orElseThrow(() -> new ResourceNotFoundException("Carrito no encontrado para el usuario con ID: " + userId));
+    }
+
+    @Override
+    public Cart write(Long userId, Consumer<Cart> mutation) {
+        Cart cart = read(userId);
+        mutation.accept(cart);
+        return cartRepository.save(cart);
+    }
+}
@@ -0,0 +1,235 @@
+package com.diver.service.Imp;
+
+import com.diver.dto.AuthenticatedUser;
+import com.diver.dto.KitchenBoardDto;
+import com.diver.dto.KitchenOrderDto;
+import com.diver.event.OrderStatusChangedEvent;
+import com.diver.event.RestaurantChangedEvent;
+import com.diver.exception.RestaurantNotFoundException;
+import com.diver.model.OrderStatus;
+import com.diver.model.Restaurant;
+import com.diver.repository.OrderRepository;
+import com.diver.repository.RestaurantRepository;
+import com.diver.repository.projection.KitchenOrderRow;
+import com.diver.service.KitchenBoardService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Implementación del tablero de cocina en memoria.
+ * <p>
+ * Cada restaurante tiene un {@link Board} con sus órdenes activas indexadas por ID y, por cada
+ * estado no final, ordenadas por fecha de creación; servir el tablero cuesta O(órdenes activas)
+ * y no consulta la base de datos. Los tableros se reconstruyen al arrancar y se mantienen tras
+ * cada commit a partir de {@link OrderStatusChangedEvent}: una orden nueva se lee una vez con una
+ * proyección, un cambio de estado la mueve de columna y un estado final la retira.
+ * <p>
+ * Los cambios usan la versión de la orden para ignorar eventos antiguos, de modo que aplicar un
+ * evento dos veces (por ejemplo, uno confirmado mientras se reconstruía) no tiene efecto.
+ */
+@Slf4j
+@Service
+public class KitchenBoardServiceImp implements KitchenBoardService {
+
+    private static final Set<OrderStatus> ACTIVE_STATUSES = EnumSet.copyOf(
+            EnumSet.allOf(OrderStatus.class).stream().filter(status -> !status.isFinal()).toList());
+
+    private static final Set<OrderStatus> KITCHEN_QUEUE_STATUSES = EnumSet.of(OrderStatus.PENDIENTE, OrderStatus.EN_PREPARACION);
+
+    private static final Comparator<KitchenOrderRow> BY_CREATION = Comparator
+            .comparing(KitchenOrderRow::createdAt, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(KitchenOrderRow::orderId);
+
+    private final OrderRepository orderRepository;
+    private final RestaurantRepository restaurantRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final boolean rebuildOnStartup;
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private volatile Map<Long, Board> boards = new ConcurrentHashMap<>();
+    private final Map<Long, Long> restaurantByOwner = new ConcurrentHashMap<>();
+
+    public KitchenBoardServiceImp(OrderRepository orderRepository,
+                                  RestaurantRepository restaurantRepository,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${app.orders.kitchen-board.rebuild-on-startup:true}") boolean rebuildOnStartup) {
+        this.orderRepository = orderRepository;
+        this.restaurantRepository = restaurantRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.rebuildOnStartup = rebuildOnStartup;
+    }
+
+    @Override
+    public KitchenBoardDto getBoard(AuthenticatedUser user) {
+        // La consulta va fuera de computeIfAbsent, que bloquearía el mapa (y fijaría el hilo virtual)
+        Long restaurantId = restaurantByOwner.get(user.getId());
+        if (restaurantId == null) {
+            Restaurant restaurant = restaurantRepository.findByOwnerId(user.getId());
+            if (restaurant == null) {
+                throw new RestaurantNotFoundException("No se encontró restaurante para el usuario con ID: " + user.getId());
+            }
+            restaurantId = restaurant.getId();
+            restaurantByOwner.putIfAbsent(user.getId(), restaurantId);
+        }
+        Board board = boards.get(restaurantId);
+        return board != null ? board.snapshot(restaurantId) : new Board().snapshot(restaurantId);
+    }
+
+    @Override
+    public int queueLength(Long restaurantId) {
+        Board board = boards.get(restaurantId);
+        return board != null ? board.count(KITCHEN_QUEUE_STATUSES) : 0;
+    }
+
+    @Override
+    public void rebuild() {
+        writeLock.lock();
+        try {
+            long start = System.currentTimeMillis();
+            Map<Long, Board> rebuilt = new ConcurrentHashMap<>();
+            List<KitchenOrderRow> rows = readOnlyTransaction.execute(status ->
+                    orderRepository.findKitchenRowsByStatusIn(ACTIVE_STATUSES));
+            for (KitchenOrderRow row : rows) {
+                rebuilt.computeIfAbsent(row.restaurantId(), id -> new Board()).put(row);
+                restaurantByOwner.put(row.restaurantOwner(), row.restaurantId());
+            }
+            boards = rebuilt;
+            log.info("Tablero de cocina reconstruido en {} ms: {} órdenes activas en {} restaurantes.",
+                    System.currentTimeMillis() - start, rows.size(), rebuilt.size());
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        if (rebuildOnStartup) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Aplica tras el commit la creación o el cambio de estado de una orden.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        writeLock.lock();
+        try {
+            Board board = boards.computeIfAbsent(event.restaurantId(), id -> new Board());
+            if (event.toStatus().isFinal()) {
+                board.remove(event.orderId());
+                return;
+            }
+            KitchenOrderRow current = board.get(event.orderId());
+            if (current != null) {
+                if (event.orderVersion() > current.version()) {
+                    board.put(new KitchenOrderRow(current.orderId(), current.restaurantId(), current.restaurantOwner(),
+                            current.customerId(), current.customerEmail(), event.toStatus(), event.orderVersion(),
+                            current.createdAt(), current.totalAmount(), current.totalItems()));
+                }
+                return;
+            }
+            // Orden que el tablero aún no conoce (normalmente recién creada): se lee una sola vez
+            orderRepository.findKitchenRowById(event.orderId())
+                    .filter(row -> !row.status().isFinal())
+                    .ifPresent(board::put);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Descarta el tablero de un restaurante eliminado.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onRestaurantChanged(RestaurantChangedEvent event) {
+        if (!event.removed()) {
+            return;
+        }
+        writeLock.lock();
+        try {
+            boards.remove(event.restaurantId());
+            restaurantByOwner.values().removeIf(event.restaurantId()::equals);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Órdenes activas de un restaurante. Las escrituras llegan serializadas por {@code writeLock};
+     * el monitor del tablero solo las coordina con las lecturas concurrentes.
+     */
+    private static final class Board {
+        private final Map<Long, KitchenOrderRow> byId = new HashMap<>();
+        private final Map<OrderStatus, TreeSet<KitchenOrderRow>> columns = new EnumMap<>(OrderStatus.class);
+
+        private Board() {
+            for (OrderStatus status : ACTIVE_STATUSES) {
+                columns.put(status, new TreeSet<>(BY_CREATION));
+            }
+        }
+
+        private synchronized KitchenOrderRow get(Long orderId) {
+            return byId.get(orderId);
+        }
+
+        private synchronized void put(KitchenOrderRow row) {
+            KitchenOrderRow previous = byId.put(row.orderId(), row);
+            if (previous != null) {
+                columns.get(previous.status()).remove(previous);
+            }
+            columns.get(row.status()).add(row);
+        }
+
+        private synchronized void remove(Long orderId) {
+            KitchenOrderRow previous = byId.remove(orderId);
+            if (previous != null) {
+                columns.get(previous.status()).remove(previous);
+            }
+        }
+
+        private synchronized int count(Set<OrderStatus> statuses) {
+            int count = 0;
+            for (OrderStatus status : statuses) {
+                count += columns.get(status).size();
+            }
+            return count;
+        }
+
+        private synchronized KitchenBoardDto snapshot(Long restaurantId) {
+            Map<OrderStatus, List<KitchenOrderDto>> result = new EnumMap<>(OrderStatus.class);
+            for (Map.Entry<OrderStatus, TreeSet<KitchenOrderRow>> column : columns.entrySet()) {
+                List<KitchenOrderDto> orders = new ArrayList<>(column.getValue().size());
+                for (KitchenOrderRow row : column.getValue()) {
+                    orders.add(new KitchenOrderDto(row.orderId(), row.customerId(), row.customerEmail(),
+                            row.status(), row.version(), row.createdAt(), row.totalAmount(), row.totalItems()));
+                }
+                result.put(column.getKey(), orders);
+            }
+            return new KitchenBoardDto(restaurantId, byId.size(), result);
+        }
+    }
+}
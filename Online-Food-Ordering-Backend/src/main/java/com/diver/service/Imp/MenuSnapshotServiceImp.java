@@ -0,0 +1,251 @@
+package com.diver.service.Imp;
+
+import com.diver.config.VirtualThreads;
+import com.diver.dto.FoodDto;
+import com.diver.dto.MenuSnapshot;
+import com.diver.event.MenuChangedEvent;
+import com.diver.event.RestaurantChangedEvent;
+import com.diver.exception.FoodNotFoundException;
+import com.diver.exception.RestaurantNotFoundException;
+import com.diver.repository.RestaurantRepository;
+import com.diver.request.MenuFilterRequest;
+import com.diver.service.FoodService;
+import com.diver.service.MenuSnapshotService;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.ByteArrayOutputStream;
+import java.io.UncheckedIOException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Mantiene en memoria una instantánea del menú de cada restaurante, lista para servirse
+ * sin consultar la base de datos ni volver a serializar.
+ * <p>
+ * Cada plato se serializa una sola vez (con y sin ingredientes) y el JSON del menú se ensambla
+ * concatenando esos fragmentos. Cuando llega un {@link MenuChangedEvent} tras un commit, solo se
+ * recargan y reserializan los platos afectados. Las versiones provienen de un contador global
+ * del proceso, de modo que una instantánea reconstruida tras un desalojo nunca reutiliza un ETag;
+ * el identificador de arranque evita colisiones entre reinicios.
+ */
+@Slf4j
+@Service
+public class MenuSnapshotServiceImp implements MenuSnapshotService {
+
+    public static final String CACHE_NAME = "menuSnapshots";
+
+    private final FoodService foodService;
+    private final RestaurantRepository restaurantRepository;
+    private final ObjectWriter fullWriter;
+    private final ObjectWriter compactWriter;
+    private final AsyncCache<Long, Entry> snapshots;
+    private final AtomicLong versions = new AtomicLong();
+    private final String bootId = Long.toString(System.currentTimeMillis(), 36);
+
+    public MenuSnapshotServiceImp(FoodService foodService,
+                                  RestaurantRepository restaurantRepository,
+                                  ObjectMapper objectMapper,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${app.menu.snapshot.max-restaurants:2000}") long maxRestaurants) {
+        this.foodService = foodService;
+        this.restaurantRepository = restaurantRepository;
+        this.fullWriter = objectMapper.writerFor(FoodDto.class);
+        this.compactWriter = objectMapper.copy()
+                .addMixIn(FoodDto.class, WithoutIngredients.class)
+                .writerFor(FoodDto.class);
+        this.snapshots = Caffeine.newBuilder()
+                .maximumSize(maxRestaurants)
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, snapshots.synchronous(), CACHE_NAME);
+    }
+
+    /**
+     * Obtiene la instantánea vigente del menú de un restaurante, construyéndola si no existe.
+     *
+     * @param restaurantId El ID del restaurante.
+     * @return La instantánea del menú completo del restaurante.
+     * @throws RestaurantNotFoundException si el restaurante no existe.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public MenuSnapshot getMenu(Long restaurantId) {
+        return VirtualThreads.getOrLoad(snapshots, restaurantId, this::buildEntry).snapshot();
+    }
+
+    /**
+     * Aplica un cambio del menú a la instantánea cacheada, si existe.
+     * <p>
+     * Se ejecuta tras el commit de la transacción que publicó el evento, en una transacción
+     * de solo lectura propia. Los platos afectados se recargan fuera de la caché y la instantánea
+     * solo se sustituye si nadie la cambió entretanto. Si la actualización falla o coincide con
+     * otra, la entrada se descarta y la siguiente lectura reconstruye el menú completo.
+     *
+     * @param event El evento publicado por el servicio de escritura.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public void onMenuChanged(MenuChangedEvent event) {
+        CompletableFuture<Entry> current = snapshots.asMap().get(event.restaurantId());
+        if (current == null) {
+            return;
+        }
+        try {
+            // Si la instantánea aún se está construyendo, puede haber leído el menú anterior al cambio
+            Entry entry = current.join();
+            Entry updated = applyChange(entry, event);
+            if (updated != entry && !snapshots.asMap().replace(event.restaurantId(), current,
+                    CompletableFuture.completedFuture(updated))) {
+                snapshots.synchronous().invalidate(event.restaurantId());
+            }
+        } catch (RuntimeException e) {
+            log.warn("No se pudo actualizar la instantánea del menú del restaurante ID {}. Se descartará.",
+                    event.restaurantId(), e);
+            snapshots.synchronous().invalidate(event.restaurantId());
+        }
+    }
+
+    /**
+     * Descarta la instantánea de un restaurante modificado, cerrado o eliminado: los platos
+     * serializados incluyen datos del restaurante. La siguiente lectura la reconstruye con una
+     * versión nueva o responde 404 si el restaurante ya no existe.
+     *
+     * @param event El evento publicado por el servicio de restaurantes.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onRestaurantChanged(RestaurantChangedEvent event) {
+        snapshots.synchronous().invalidate(event.restaurantId());
+        log.debug("Instantánea del menú del restaurante ID {} descartada tras un cambio del restaurante.",
+                event.restaurantId());
+    }
+
+    // --- METODOS PRIVADOS ---
+
+    private Entry buildEntry(Long restaurantId) {
+        if (!restaurantRepository.existsById(restaurantId)) {
+            throw new RestaurantNotFoundException("Restaurante no encontrado con ID: " + restaurantId);
+        }
+
+        MenuFilterRequest filter = new MenuFilterRequest();
+        filter.setIncludeIngredients(true);
+        List<FoodDto> foods = foodService.getRestaurantFoods(restaurantId, filter);
+
+        TreeMap<Long, Fragment> fragments = new TreeMap<>();
+        for (FoodDto food : foods) {
+            fragments.put(food.getId(), toFragment(food));
+        }
+
+        Entry entry = assemble(restaurantId, fragments);
+        log.info("Instantánea del menú construida para el restaurante ID {}: {} platos, versión {}.",
+                restaurantId, fragments.size(), entry.snapshot().getVersion());
+        return entry;
+    }
+
+    private Entry applyChange(Entry current, MenuChangedEvent event) {
+        TreeMap<Long, Fragment> fragments = new TreeMap<>(current.fragments());
+        Set<Long> toReload = new HashSet<>();
+
+        if (event.foodId() != null) {
+            if (event.removed()) {
+                fragments.remove(event.foodId());
+            } else {
+                toReload.add(event.foodId());
+            }
+        }
+        if (event.ingredientId() != null) {
+            fragments.values().stream()
+                    .filter(fragment -> containsIngredient(fragment.food(), event.ingredientId()))
+                    .forEach(fragment -> toReload.add(fragment.food().getId()));
+        }
+
+        if (toReload.isEmpty() && fragments.size() == current.fragments().size()) {
+            return current;
+        }
+
+        for (Long foodId : toReload) {
+            try {
+                fragments.put(foodId, toFragment(foodService.findFoodById(foodId)));
+            } catch (FoodNotFoundException e) {
+                fragments.remove(foodId);
+            }
+        }
+
+        Entry entry = assemble(event.restaurantId(), fragments);
+        log.debug("Instantánea del menú del restaurante ID {} actualizada a la versión {} ({} platos recargados).",
+                event.restaurantId(), entry.snapshot().getVersion(), toReload.size());
+        return entry;
+    }
+
+    private static boolean containsIngredient(FoodDto food, Long ingredientId) {
+        return food.getIngredients() != null && food.getIngredients().stream()
+                .anyMatch(item -> ingredientId.equals(item.getId()));
+    }
+
+    private Fragment toFragment(FoodDto food) {
+        try {
+            return new Fragment(food, compactWriter.writeValueAsBytes(food), fullWriter.writeValueAsBytes(food));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Entry assemble(Long restaurantId, SortedMap<Long, Fragment> fragments) {
+        long version = versions.incrementAndGet();
+        List<FoodDto> foods = fragments.values().stream().map(Fragment::food).toList();
+        MenuSnapshot snapshot = new MenuSnapshot(
+                restaurantId,
+                version,
+                bootId + "-" + version,
+                foods,
+                joinArray(fragments, false),
+                joinArray(fragments, true));
+        return new Entry(snapshot, fragments);
+    }
+
+    private static byte[] joinArray(SortedMap<Long, Fragment> fragments, boolean withIngredients) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write('[');
+        boolean first = true;
+        for (Fragment fragment : fragments.values()) {
+            if (!first) {
+                out.write(',');
+            }
+            out.writeBytes(withIngredients ? fragment.full() : fragment.compact());
+            first = false;
+        }
+        out.write(']');
+        return out.toByteArray();
+    }
+
+    /** Plato mapeado y sus dos serializaciones. */
+    private record Fragment(FoodDto food, byte[] compact, byte[] full) {
+    }
+
+    /** Valor cacheado: la instantánea publicada y los fragmentos indexados por ID de plato. */
+    private record Entry(MenuSnapshot snapshot, SortedMap<Long, Fragment> fragments) {
+    }
+
+    /** Mixin de Jackson para serializar un {@link FoodDto} sin sus ingredientes. */
+    @JsonIgnoreProperties("ingredients")
+    private abstract static class WithoutIngredients {
+    }
+}
@@ -0,0 +1,193 @@
+package com.diver.service.Imp;
+
+import com.diver.dto.NearbyRestaurantDto;
+import com.diver.event.RestaurantChangedEvent;
+import com.diver.exception.BadRequestException;
+import com.diver.repository.RestaurantRepository;
+import com.diver.repository.projection.RestaurantLocationRow;
+import com.diver.search.GeoGridIndex;
+import com.diver.service.EtaService;
+import com.diver.service.NearbyRestaurantService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Implementación de la búsqueda por cercanía basada en un {@link GeoGridIndex} en memoria.
+ * <p>
+ * Solo se indexan los restaurantes abiertos con latitud y longitud en su dirección. El índice se
+ * construye al arrancar y, entre reconstrucciones, cada {@link RestaurantChangedEvent} (creación,
+ * modificación, apertura o cierre y eliminación) vuelve a leer tras el commit la ubicación y el
+ * estado del restaurante y lo inserta, lo mueve o lo retira.
+ * <p>
+ * Junto al índice se guardan los datos a mostrar de cada restaurante, de modo que una consulta no
+ * toca la base de datos.
+ */
+@Slf4j
+@Service
+public class NearbyRestaurantServiceImp implements NearbyRestaurantService {
+
+    private final RestaurantRepository restaurantRepository;
+    private final EtaService etaService;
+    private final TransactionTemplate readOnlyTransaction;
+    private final double cellDegrees;
+    private final boolean rebuildOnStartup;
+    private final double defaultRadiusKm;
+    private final double maxRadiusKm;
+    private final int defaultLimit;
+    private final int maxLimit;
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private volatile State state;
+
+    public NearbyRestaurantServiceImp(RestaurantRepository restaurantRepository,
+                                      EtaService etaService,
+                                      PlatformTransactionManager transactionManager,
+                                      @Value("${app.restaurant.nearby.cell-degrees:0.01}") double cellDegrees,
+                                      @Value("${app.restaurant.nearby.rebuild-on-startup:true}") boolean rebuildOnStartup,
+                                      @Value("${app.restaurant.nearby.default-radius-km:5}") double defaultRadiusKm,
+                                      @Value("${app.restaurant.nearby.max-radius-km:50}") double maxRadiusKm,
+                                      @Value("${app.restaurant.nearby.default-limit:20}") int defaultLimit,
+                                      @Value("${app.restaurant.nearby.max-limit:100}") int maxLimit) {
+        this.restaurantRepository = restaurantRepository;
+        this.etaService = etaService;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.cellDegrees = cellDegrees;
+        this.rebuildOnStartup = rebuildOnStartup;
+        this.defaultRadiusKm = defaultRadiusKm;
+        this.maxRadiusKm = maxRadiusKm;
+        this.defaultLimit = defaultLimit;
+        this.maxLimit = maxLimit;
+        this.state = new State(new GeoGridIndex(cellDegrees));
+    }
+
+    @Override
+    public List<NearbyRestaurantDto> findNearby(double latitude, double longitude, Double radiusKm, Integer limit) {
+        if (!(latitude >= -90 && latitude <= 90) || !(longitude >= -180 && longitude <= 180)) {
+            throw new BadRequestException("Coordenadas inválidas: la latitud debe estar entre -90 y 90 "
+                    + "y la longitud entre -180 y 180.");
+        }
+        double resolvedRadiusKm = radiusKm == null ? defaultRadiusKm : radiusKm;
+        if (!(resolvedRadiusKm > 0)) {
+            throw new BadRequestException("El radio de búsqueda debe ser mayor que cero.");
+        }
+        int resolvedLimit = limit == null ? defaultLimit : limit;
+        if (resolvedLimit < 1) {
+            throw new BadRequestException("El límite de restaurantes debe ser mayor que cero.");
+        }
+
+        State current = state;
+        List<GeoGridIndex.Hit> hits = current.index.nearest(latitude, longitude,
+                Math.min(resolvedRadiusKm, maxRadiusKm) * 1000, Math.min(resolvedLimit, maxLimit));
+        List<NearbyRestaurantDto> result = new ArrayList<>(hits.size());
+        for (GeoGridIndex.Hit hit : hits) {
+            RestaurantLocationRow row = current.restaurants.get(hit.id());
+            if (row == null) {
+                continue; // Retirado entre la búsqueda en el índice y esta lectura
+            }
+            result.add(new NearbyRestaurantDto(row.id(), row.name(), row.cuisineType(), row.street(), row.city(),
+                    row.latitude(), row.longitude(), Math.round(hit.distanceMeters()),
+                    etaService.estimateMinutes(row.id(), hit.distanceMeters())));
+        }
+        return result;
+    }
+
+    @Override
+    public void rebuild() {
+        writeLock.lock();
+        try {
+            long start = System.currentTimeMillis();
+            State rebuilt = new State(new GeoGridIndex(cellDegrees));
+            readOnlyTransaction.executeWithoutResult(status -> {
+                for (RestaurantLocationRow row : restaurantRepository.findOpenLocationRows()) {
+                    rebuilt.put(row);
+                }
+            });
+            state = rebuilt;
+            log.info("Índice de restaurantes cercanos reconstruido en {} ms: {} restaurantes.",
+                    System.currentTimeMillis() - start, rebuilt.index.size());
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        if (rebuildOnStartup) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Aplica tras el commit la creación, modificación, apertura, cierre o eliminación de un
+     * restaurante. Un restaurante cerrado o sin coordenadas se retira del índice.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public void onRestaurantChanged(RestaurantChangedEvent event) {
+        writeLock.lock();
+        try {
+            State current = state;
+            RestaurantLocationRow row = event.removed()
+                    ? null
+                    : restaurantRepository.findLocationRowById(event.restaurantId()).orElse(null);
+            if (row == null || !row.open() || !hasValidCoordinates(row)) {
+                current.remove(event.restaurantId());
+                return;
+            }
+            current.put(row);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private static boolean hasValidCoordinates(RestaurantLocationRow row) {
+        return row.latitude() != null && row.longitude() != null
+                && row.latitude() >= -90 && row.latitude() <= 90
+                && row.longitude() >= -180 && row.longitude() <= 180;
+    }
+
+    // --- ESTADO DEL ÍNDICE ---
+
+    /**
+     * Índice espacial y datos a mostrar de cada restaurante indexado. Solo se modifica con el
+     * candado de escritura del servicio; las lecturas concurrentes son seguras.
+     */
+    private static final class State {
+        private final GeoGridIndex index;
+        private final Map<Long, RestaurantLocationRow> restaurants = new ConcurrentHashMap<>();
+
+        private State(GeoGridIndex index) {
+            this.index = index;
+        }
+
+        private void put(RestaurantLocationRow row) {
+            if (!hasValidCoordinates(row)) {
+                log.warn("Restaurante ID {} con coordenadas fuera de rango; no se indexa.", row.id());
+                return;
+            }
+            restaurants.put(row.id(), row);
+            index.put(row.id(), row.latitude(), row.longitude());
+        }
+
+        private void remove(Long id) {
+            index.remove(id);
+            restaurants.remove(id);
+        }
+    }
+}
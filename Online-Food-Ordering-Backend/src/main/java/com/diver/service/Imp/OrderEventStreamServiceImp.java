@@ -0,0 +1,309 @@
+package com.diver.service.Imp;
+
+import com.diver.config.VirtualThreads;
+import com.diver.dto.AuthenticatedUser;
+import com.diver.dto.OrderStatusEventDto;
+import com.diver.event.OrderStatusChangedEvent;
+import com.diver.exception.ResourceNotFoundException;
+import com.diver.model.OrderStatusEvent;
+import com.diver.model.Restaurant;
+import com.diver.repository.OrderStatusEventRepository;
+import com.diver.repository.RestaurantRepository;
+import com.diver.service.OrderEventStreamService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiFunction;
+
+/**
+ * Implementación de las notificaciones de estado de órdenes con {@link SseEmitter}.
+ * <p>
+ * Los suscriptores se indexan por cliente y por restaurante. Cada {@link OrderStatusChangedEvent}
+ * confirmado se encola en los suscriptores afectados sin bloquear al hilo que confirmó la
+ * transacción; un pequeño grupo de hilos envía las colas, como mucho un envío en curso por
+ * suscriptor. La cola de cada suscriptor está acotada ({@code app.orders.stream.buffer-size}):
+ * si un cliente no consume a tiempo se cierra su conexión, y al reconectar con
+ * {@code Last-Event-ID} recupera desde el registro de estados lo que se perdió.
+ */
+@Slf4j
+@Service
+public class OrderEventStreamServiceImp implements OrderEventStreamService {
+
+    static final String STATUS_EVENT = "order-status";
+    static final String RESYNC_EVENT = "resync";
+
+    private final OrderStatusEventRepository eventRepository;
+    private final RestaurantRepository restaurantRepository;
+    private final int bufferSize;
+    private final int maxReplay;
+    private final long timeoutMillis;
+
+    private final Map<Long, Set<Subscriber>> byCustomer = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Subscriber>> byRestaurant = new ConcurrentHashMap<>();
+    private final ExecutorService senders;
+    private final ScheduledExecutorService heartbeat;
+
+    public OrderEventStreamServiceImp(OrderStatusEventRepository eventRepository,
+                                      RestaurantRepository restaurantRepository,
+                                      @Value("${app.orders.stream.buffer-size:256}") int bufferSize,
+                                      @Value("${app.orders.stream.max-replay:1000}") int maxReplay,
+                                      @Value("${app.orders.stream.timeout:30m}") Duration timeout,
+                                      @Value("${app.orders.stream.heartbeat-interval:15s}") Duration heartbeatInterval,
+                                      @Value("${app.orders.stream.sender-threads:2}") int senderThreads,
+                                      @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.eventRepository = eventRepository;
+        this.restaurantRepository = restaurantRepository;
+        this.bufferSize = bufferSize;
+        this.maxReplay = maxReplay;
+        this.timeoutMillis = timeout.toMillis();
+
+        this.senders = Executors.newFixedThreadPool(senderThreads,
+                VirtualThreads.threadFactory(virtualThreads, "order-stream"));
+        this.heartbeat = Executors.newSingleThreadScheduledExecutor(
+                VirtualThreads.threadFactory(virtualThreads, "order-stream-heartbeat"));
+        long intervalMillis = heartbeatInterval.toMillis();
+        this.heartbeat.scheduleWithFixedDelay(this::sendHeartbeats, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public SseEmitter subscribeCustomer(AuthenticatedUser user, Long lastEventId) {
+        Long customerId = user.getId();
+        return subscribe(byCustomer, customerId, lastEventId,
+                (after, limit) -> eventRepository.findByCustomerIdAndIdGreaterThanOrderByIdAsc(customerId, after, limit));
+    }
+
+    @Override
+    public SseEmitter subscribeRestaurant(AuthenticatedUser user, Long lastEventId) {
+        Restaurant restaurant = restaurantRepository.findByOwnerId(user.getId());
+        if (restaurant == null) {
+            throw new ResourceNotFoundException("Restaurante no encontrado para el usuario con ID: " + user.getId());
+        }
+        Long restaurantId = restaurant.getId();
+        return subscribe(byRestaurant, restaurantId, lastEventId,
+                (after, limit) -> eventRepository.findByRestaurantIdAndIdGreaterThanOrderByIdAsc(restaurantId, after, limit));
+    }
+
+    /**
+     * Reparte un cambio de estado confirmado entre los suscriptores del cliente y del restaurante.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        OrderStatusEventDto dto = new OrderStatusEventDto(event.eventId(), event.orderId(), event.fromStatus(),
+                event.toStatus(), event.orderVersion(), event.changedBy(), event.changedAt());
+        Outgoing outgoing = new Outgoing(event.eventId(), dto);
+        publish(byCustomer.get(event.customerId()), outgoing);
+        publish(byRestaurant.get(event.restaurantId()), outgoing);
+    }
+
+    /**
+     * Cierra todas las conexiones al detener la aplicación; los clientes se reconectarán
+     * con {@code Last-Event-ID} a otra instancia.
+     */
+    @PreDestroy
+    public void shutdown() {
+        heartbeat.shutdownNow();
+        senders.shutdownNow();
+        byCustomer.values().forEach(subscribers -> subscribers.forEach(subscriber -> subscriber.emitter.complete()));
+        byRestaurant.values().forEach(subscribers -> subscribers.forEach(subscriber -> subscriber.emitter.complete()));
+    }
+
+    // --- METODOS PRIVADOS ---
+
+    /**
+     * Registra la suscripción antes de recuperar los eventos perdidos, para no perder los que se
+     * confirmen mientras tanto: esos se encolan y se envían al terminar la recuperación, omitiendo
+     * los que la recuperación ya incluyó.
+     */
+    private SseEmitter subscribe(Map<Long, Set<Subscriber>> index, Long key, Long lastEventId,
+                                 BiFunction<Long, Limit, List<OrderStatusEvent>> missedEvents) {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Subscriber subscriber = new Subscriber(emitter, new ArrayBlockingQueue<>(bufferSize));
+        index.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(subscriber);
+
+        Runnable unregister = () -> {
+            subscriber.closed = true;
+            index.computeIfPresent(key, (k, subscribers) -> {
+                subscribers.remove(subscriber);
+                return subscribers.isEmpty() ? null : subscribers;
+            });
+        };
+        emitter.onCompletion(unregister);
+        emitter.onTimeout(unregister);
+        emitter.onError(error -> unregister.run());
+
+        try {
+            if (lastEventId != null) {
+                replay(subscriber, lastEventId, missedEvents);
+            }
+        } catch (IOException | RuntimeException e) {
+            unregister.run();
+            emitter.completeWithError(e);
+            return emitter;
+        }
+        subscriber.ready = true;
+        scheduleDrain(subscriber);
+        return emitter;
+    }
+
+    /**
+     * Envía los eventos posteriores a {@code lastEventId} desde el registro de estados, por páginas
+     * y hasta {@code app.orders.stream.max-replay}. Si quedan más, envía {@code resync}.
+     */
+    private void replay(Subscriber subscriber, long lastEventId,
+                        BiFunction<Long, Limit, List<OrderStatusEvent>> missedEvents) throws IOException {
+        long after = lastEventId;
+        int pageSize = Math.min(bufferSize, maxReplay);
+        while (subscriber.replayed.size() < maxReplay) {
+            List<OrderStatusEvent> page = missedEvents.apply(after, Limit.of(pageSize));
+            for (OrderStatusEvent event : page) {
+                subscriber.emitter.send(statusEvent(toDto(event)));
+                subscriber.replayed.add(event.getId());
+                after = event.getId();
+            }
+            if (page.size() < pageSize) {
+                return;
+            }
+        }
+        if (!missedEvents.apply(after, Limit.of(1)).isEmpty()) {
+            subscriber.emitter.send(SseEmitter.event().name(RESYNC_EVENT).data(after));
+        }
+    }
+
+    private void publish(Set<Subscriber> subscribers, Outgoing outgoing) {
+        if (subscribers == null) {
+            return;
+        }
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.closed) {
+                continue;
+            }
+            if (subscriber.queue.offer(outgoing)) {
+                scheduleDrain(subscriber);
+            } else {
+                // Cliente lento: se cierra para que reconecte y recupere desde el registro
+                log.warn("SSE: la cola de un suscriptor está llena ({} eventos). Se cierra la conexión.", bufferSize);
+                subscriber.closed = true;
+                subscriber.queue.clear();
+                close(subscriber);
+            }
+        }
+    }
+
+    /**
+     * Completa el emisor desde el grupo de envío: {@code complete()} espera a que termine el envío
+     * en curso, que en un cliente lento puede tardar, y no debe hacerlo el hilo que confirmó la transacción.
+     */
+    private void close(Subscriber subscriber) {
+        try {
+            senders.execute(subscriber.emitter::complete);
+        } catch (RejectedExecutionException e) {
+            // El servicio se está deteniendo y shutdown() completa todos los emisores
+        }
+    }
+
+    private void scheduleDrain(Subscriber subscriber) {
+        if (!subscriber.ready || subscriber.closed || !subscriber.draining.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            senders.execute(() -> drain(subscriber));
+        } catch (RejectedExecutionException e) {
+            subscriber.draining.set(false);
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        try {
+            Outgoing next;
+            while (!subscriber.closed && (next = subscriber.queue.poll()) != null) {
+                if (next.dto() == null) {
+                    subscriber.emitter.send(SseEmitter.event().comment("ping"));
+                } else if (!subscriber.replayed.contains(next.eventId())) {
+                    subscriber.emitter.send(statusEvent(next.dto()));
+                }
+            }
+        } catch (IOException | IllegalStateException e) {
+            // El cliente se desconectó: el emisor ya está completado o lo estará en breve
+            subscriber.closed = true;
+            subscriber.emitter.completeWithError(e);
+        } finally {
+            subscriber.draining.set(false);
+            if (!subscriber.queue.isEmpty()) {
+                scheduleDrain(subscriber);
+            }
+        }
+    }
+
+    /**
+     * Encola un comentario en las conexiones inactivas para que los proxies no las corten
+     * y para detectar antes los clientes desconectados.
+     */
+    private void sendHeartbeats() {
+        Outgoing ping = new Outgoing(null, null);
+        for (Map<Long, Set<Subscriber>> index : List.of(byCustomer, byRestaurant)) {
+            for (Set<Subscriber> subscribers : index.values()) {
+                for (Subscriber subscriber : subscribers) {
+                    if (subscriber.queue.isEmpty() && subscriber.queue.offer(ping)) {
+                        scheduleDrain(subscriber);
+                    }
+                }
+            }
+        }
+    }
+
+    private static SseEmitter.SseEventBuilder statusEvent(OrderStatusEventDto dto) {
+        return SseEmitter.event()
+                .id(String.valueOf(dto.getId()))
+                .name(STATUS_EVENT)
+                .data(dto);
+    }
+
+    private static OrderStatusEventDto toDto(OrderStatusEvent event) {
+        return new OrderStatusEventDto(event.getId(), event.getOrderId(), event.getFromStatus(), event.getToStatus(),
+                event.getOrderVersion(), event.getChangedBy(), event.getChangedAt());
+    }
+
+    /**
+     * Un mensaje pendiente de envío; {@code dto} es {@code null} en los latidos. Se guarda el DTO y no
+     * el {@code SseEventBuilder}, que no se puede reutilizar entre emisores.
+     */
+    private record Outgoing(Long eventId, OrderStatusEventDto dto) {
+    }
+
+    /** Una conexión SSE abierta. */
+    private static final class Subscriber {
+        private final SseEmitter emitter;
+        private final BlockingQueue<Outgoing> queue;
+        private final AtomicBoolean draining = new AtomicBoolean();
+        /** IDs enviados durante la recuperación; solo se escribe antes de {@code ready}. */
+        private final Set<Long> replayed = new HashSet<>();
+        private volatile boolean ready;
+        private volatile boolean closed;
+
+        private Subscriber(SseEmitter emitter, BlockingQueue<Outgoing> queue) {
+            this.emitter = emitter;
+            this.queue = queue;
+        }
+    }
+}
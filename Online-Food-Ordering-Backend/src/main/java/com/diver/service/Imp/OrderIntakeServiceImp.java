@@ -0,0 +1,464 @@
+package com.diver.service.Imp;
+
+import com.diver.config.VirtualThreads;
+import com.diver.dto.AuthenticatedUser;
+import com.diver.dto.OrderIntakeDto;
+import com.diver.exception.OperationNotAllowedException;
+import com.diver.exception.ResourceNotFoundException;
+import com.diver.exception.UserNotFoundException;
+import com.diver.model.*;
+import com.diver.repository.*;
+import com.diver.request.OrderRequest;
+import com.diver.service.CartService;
+import com.diver.service.CartStore;
+import com.diver.service.CustomerUserDetailsService;
+import com.diver.service.OrderIntakeService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Implementación de la creación asíncrona de órdenes con una tabla outbox ({@link OrderIntake}).
+ * <p>
+ * Aceptar una solicitud cuesta una comprobación del restaurante, la lectura del carrito, un
+ * {@code INSERT} y el vaciado del carrito. Un grupo acotado de {@code app.orders.intake.workers}
+ * hilos reclama las solicitudes pendientes por lotes de {@code app.orders.intake.batch-size}
+ * ({@code SELECT ... FOR UPDATE SKIP LOCKED}) y materializa cada lote en una única transacción:
+ * carga usuarios y restaurantes con una consulta por tipo, y guarda órdenes e ítems juntos.
+ * La orden y el estado {@code COMPLETED} se confirman en la misma transacción, que vuelve a
+ * bloquear las solicitudes y solo completa las que siguen con la misma reclamación
+ * ({@code claimedAt}): si una solicitud volvió a la cola y otro proceso la reclamó mientras este
+ * seguía trabajando, solo una de las dos reclamaciones crea la orden. Así, una solicitud nunca
+ * produce dos órdenes.
+ * <p>
+ * Si un lote falla, sus solicitudes se procesan una a una para aislar la defectuosa. Una
+ * solicitud que falla vuelve a la cola hasta {@code app.orders.intake.max-attempts} veces; después
+ * queda en {@code FAILED} y sus líneas se devuelven al carrito del cliente. Las solicitudes
+ * reclamadas por una instancia que se detuvo vuelven a la cola pasado
+ * {@code app.orders.intake.stale-after}.
+ */
+@Slf4j
+@Service
+public class OrderIntakeServiceImp implements OrderIntakeService {
+
+    private static final int MAX_ERROR_LENGTH = 500;
+    private static final TypeReference<List<Line>> LINES_TYPE = new TypeReference<>() {
+    };
+
+    private final OrderIntakeRepository intakeRepository;
+    private final OrderRepository orderRepository;
+    private final RestaurantRepository restaurantRepository;
+    private final UserRepository userRepository;
+    private final AddressRepository addressRepository;
+    private final FoodRepository foodRepository;
+    private final CartStore cartStore;
+    private final CartService cartService;
+    private final CustomerUserDetailsService userDetailsService;
+    private final OrderStatusLog orderStatusLog;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+
+    private final int workers;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final long pollIntervalMillis;
+    private final Duration staleAfter;
+    private final boolean virtualThreads;
+
+    private volatile boolean running;
+    private ExecutorService executor;
+
+    public OrderIntakeServiceImp(OrderIntakeRepository intakeRepository,
+                                 OrderRepository orderRepository,
+                                 RestaurantRepository restaurantRepository,
+                                 UserRepository userRepository,
+                                 AddressRepository addressRepository,
+                                 FoodRepository foodRepository,
+                                 CartStore cartStore,
+                                 CartService cartService,
+                                 CustomerUserDetailsService userDetailsService,
+                                 OrderStatusLog orderStatusLog,
+                                 ObjectMapper objectMapper,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${app.orders.intake.workers:4}") int workers,
+                                 @Value("${app.orders.intake.batch-size:50}") int batchSize,
+                                 @Value("${app.orders.intake.max-attempts:3}") int maxAttempts,
+                                 @Value("${app.orders.intake.poll-interval:200ms}") Duration pollInterval,
+                                 @Value("${app.orders.intake.stale-after:5m}") Duration staleAfter,
+                                 @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.intakeRepository = intakeRepository;
+        this.orderRepository = orderRepository;
+        this.restaurantRepository = restaurantRepository;
+        this.userRepository = userRepository;
+        this.addressRepository = addressRepository;
+        this.foodRepository = foodRepository;
+        this.cartStore = cartStore;
+        this.cartService = cartService;
+        this.userDetailsService = userDetailsService;
+        this.orderStatusLog = orderStatusLog;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.workers = workers;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.pollIntervalMillis = pollInterval.toMillis();
+        this.staleAfter = staleAfter;
+        this.virtualThreads = virtualThreads;
+    }
+
+    @Override
+    @Transactional
+    public OrderIntakeDto accept(OrderRequest req, AuthenticatedUser user) {
+        log.info("Usuario '{}' envía una orden asíncrona para el restaurante ID {}.", user.getEmail(), req.getRestaurantId());
+
+        if (!restaurantRepository.existsById(req.getRestaurantId())) {
+            throw new ResourceNotFoundException("Restaurante no encontrado con ID: " + req.getRestaurantId());
+        }
+        Cart cart = cartStore.read(user.getId());
+        if (cart.getCartItems().isEmpty()) {
+            throw new OperationNotAllowedException("No se puede crear una orden desde un carrito vacío.");
+        }
+
+        List<Line> lines = cart.getCartItems().stream()
+                .map(item -> new Line(item.getFood().getId(), item.getQuantity(), item.getTotalPrice(),
+                        item.getIngredients() != null ? new ArrayList<>(item.getIngredients()) : List.of()))
+                .toList();
+        Address address = req.getDeliveryAddress();
+
+        OrderIntake intake = new OrderIntake();
+        intake.setTrackingId(UUID.randomUUID().toString());
+        intake.setCustomerId(user.getId());
+        intake.setRestaurantId(req.getRestaurantId());
+        intake.setAddressId(address.getId());
+        intake.setStreet(address.getStreet());
+        intake.setCity(address.getCity());
+        intake.setState(address.getState());
+        intake.setPayload(writeLines(lines));
+        intake.setTotalAmount(cart.getTotal());
+        intake.setTotalItems(lines.size());
+        intake.setStatus(OrderIntake.Status.PENDING);
+        intake.setAcceptedAt(LocalDateTime.now());
+        OrderIntake saved = intakeRepository.save(intake);
+
+        cartService.clearCart(user);
+
+        log.info("Orden asíncrona aceptada con trackingId {} para el usuario '{}'.", saved.getTrackingId(), user.getEmail());
+        return mapToDto(saved);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public OrderIntakeDto findByTrackingId(String trackingId, AuthenticatedUser user) {
+        return intakeRepository.findByTrackingId(trackingId)
+                .filter(intake -> intake.getCustomerId().equals(user.getId()))
+                .map(this::mapToDto)
+                .orElseThrow(() -> new ResourceNotFoundException("Solicitud de orden no encontrada: " + trackingId));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startWorkers() {
+        if (workers < 1) {
+            log.warn("Los procesos de órdenes asíncronas están desactivados (app.orders.intake.workers={}).", workers);
+            return;
+        }
+        running = true;
+        executor = Executors.newFixedThreadPool(workers, VirtualThreads.threadFactory(virtualThreads, "order-intake"));
+        for (int i = 0; i < workers; i++) {
+            executor.execute(this::workerLoop);
+        }
+        log.info("Iniciados {} procesos de órdenes asíncronas (lotes de {}).", workers, batchSize);
+    }
+
+    @PreDestroy
+    public void stopWorkers() throws InterruptedException {
+        running = false;
+        if (executor != null) {
+            executor.shutdown();
+            if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * Devuelve a la cola las solicitudes reclamadas hace más de {@code app.orders.intake.stale-after}.
+     * Se ejecuta cada {@code app.orders.intake.requeue-interval} milisegundos.
+     */
+    @Scheduled(fixedDelayString = "${app.orders.intake.requeue-interval:60000}")
+    public void requeueStaleIntakes() {
+        Integer requeued = transactionTemplate.execute(status ->
+                intakeRepository.requeueClaimedBefore(LocalDateTime.now().minus(staleAfter)));
+        if (requeued != null && requeued > 0) {
+            log.warn("{} solicitudes de orden reclamadas sin completar han vuelto a la cola.", requeued);
+        }
+    }
+
+    // --- METODOS PRIVADOS ---
+
+    private void workerLoop() {
+        while (running) {
+            try {
+                if (processNextBatch() == 0) {
+                    Thread.sleep(pollIntervalMillis);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Error en el proceso de órdenes asíncronas.", e);
+                try {
+                    Thread.sleep(pollIntervalMillis);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Reclama y materializa un lote.
+     *
+     * @return El número de solicitudes reclamadas (0 si la cola estaba vacía).
+     */
+    private int processNextBatch() {
+        Claim claim = claimNextBatch();
+        if (claim.ids().isEmpty()) {
+            return 0;
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> materialize(claim.ids(), claim.claimedAt()));
+            log.debug("Lote de {} órdenes asíncronas materializado.", claim.ids().size());
+        } catch (RuntimeException batchError) {
+            log.warn("Falló un lote de {} órdenes asíncronas; se procesan una a una.", claim.ids().size(), batchError);
+            for (Long id : claim.ids()) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> materialize(List.of(id), claim.claimedAt()));
+                } catch (RuntimeException e) {
+                    handleFailure(id, claim.claimedAt(), e);
+                }
+            }
+        }
+        return claim.ids().size();
+    }
+
+    /**
+     * Reclama un lote de solicitudes pendientes. La fecha se trunca a microsegundos, la precisión
+     * de la columna, para poder compararla después con la guardada.
+     */
+    private Claim claimNextBatch() {
+        LocalDateTime claimedAt = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        List<Long> ids = transactionTemplate.execute(status -> {
+            List<OrderIntake> batch = intakeRepository.lockByStatus(OrderIntake.Status.PENDING, Limit.of(batchSize));
+            for (OrderIntake intake : batch) {
+                intake.setStatus(OrderIntake.Status.PROCESSING);
+                intake.setClaimedAt(claimedAt);
+                intake.setAttempts(intake.getAttempts() + 1);
+            }
+            return batch.stream().map(OrderIntake::getId).toList();
+        });
+        return new Claim(ids != null ? ids : List.of(), claimedAt);
+    }
+
+    private void materialize(List<Long> ids, LocalDateTime claimedAt) {
+        List<OrderIntake> intakes = intakeRepository.lockClaimed(ids, claimedAt);
+        if (intakes.size() < ids.size()) {
+            log.warn("{} solicitudes de orden del lote ya no pertenecen a esta reclamación y se omiten.",
+                    ids.size() - intakes.size());
+        }
+        if (intakes.isEmpty()) {
+            return;
+        }
+        Map<Long, User> users = userRepository.findAllById(
+                        intakes.stream().map(OrderIntake::getCustomerId).distinct().toList()).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+        Map<Long, Restaurant> restaurants = restaurantRepository.findAllById(
+                        intakes.stream().map(OrderIntake::getRestaurantId).distinct().toList()).stream()
+                .collect(Collectors.toMap(Restaurant::getId, Function.identity()));
+
+        List<Order> orders = new ArrayList<>(intakes.size());
+        for (OrderIntake intake : intakes) {
+            orders.add(buildOrder(intake, users, restaurants));
+        }
+        orderRepository.saveAll(orders);
+        orderStatusLog.recordAll(orders, null, null);
+
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < intakes.size(); i++) {
+            OrderIntake intake = intakes.get(i);
+            intake.setStatus(OrderIntake.Status.COMPLETED);
+            intake.setOrderId(orders.get(i).getId());
+            intake.setErrorMessage(null);
+            intake.setProcessedAt(now);
+        }
+    }
+
+    private Order buildOrder(OrderIntake intake, Map<Long, User> users, Map<Long, Restaurant> restaurants) {
+        User customer = users.get(intake.getCustomerId());
+        if (customer == null) {
+            throw new UserNotFoundException("El usuario con ID " + intake.getCustomerId() + " no fue encontrado en la base de datos.");
+        }
+        Restaurant restaurant = restaurants.get(intake.getRestaurantId());
+        if (restaurant == null) {
+            throw new ResourceNotFoundException("Restaurante no encontrado con ID: " + intake.getRestaurantId());
+        }
+
+        Address savedAddress = addressRepository.save(
+                new Address(intake.getAddressId(), intake.getStreet(), intake.getCity(), intake.getState()));
+        boolean addressExistsInProfile = customer.getAddresses().stream()
+                .anyMatch(addr -> addr.getId().equals(savedAddress.getId()));
+        if (!addressExistsInProfile) {
+            customer.getAddresses().add(savedAddress);
+            userDetailsService.evictUser(customer.getEmail());
+        }
+
+        Order order = new Order();
+        order.setCustomer(customer);
+        order.setRestaurant(restaurant);
+        order.setDeliveryAddress(savedAddress);
+        order.setCreatedAt(intake.getAcceptedAt());
+        order.setOrderStatus(OrderStatus.PENDIENTE);
+
+        List<OrderItem> orderItems = new ArrayList<>();
+        for (Line line : readLines(intake.getPayload())) {
+            OrderItem orderItem = new OrderItem();
+            orderItem.setFood(foodRepository.getReferenceById(line.foodId()));
+            orderItem.setQuantity(line.quantity());
+            orderItem.setTotalPrice(line.totalPrice());
+            orderItem.setIngredients(new ArrayList<>(line.ingredients()));
+            orderItem.setOrder(order);
+            orderItems.add(orderItem);
+        }
+        order.setOrderItems(orderItems);
+        order.setTotalAmount(intake.getTotalAmount());
+        order.setTotalItems(intake.getTotalItems());
+        return order;
+    }
+
+    /**
+     * Devuelve la solicitud a la cola o, agotados los intentos, la marca como fallida y
+     * devuelve sus líneas al carrito del cliente.
+     */
+    private void handleFailure(Long id, LocalDateTime claimedAt, RuntimeException error) {
+        OrderIntake failed = transactionTemplate.execute(status -> {
+            List<OrderIntake> claimed = intakeRepository.lockClaimed(List.of(id), claimedAt);
+            if (claimed.isEmpty()) {
+                return null;
+            }
+            OrderIntake intake = claimed.get(0);
+            String message = String.valueOf(error.getMessage());
+            intake.setErrorMessage(message.length() > MAX_ERROR_LENGTH ? message.substring(0, MAX_ERROR_LENGTH) : message);
+            if (intake.getAttempts() < maxAttempts) {
+                intake.setStatus(OrderIntake.Status.PENDING);
+            } else {
+                intake.setStatus(OrderIntake.Status.FAILED);
+                intake.setProcessedAt(LocalDateTime.now());
+            }
+            return intake;
+        });
+        if (failed == null) {
+            log.warn("La solicitud de orden ID {} falló, pero ya no pertenece a esta reclamación: {}", id, error.getMessage());
+            return;
+        }
+        if (failed.getStatus() == OrderIntake.Status.PENDING) {
+            log.warn("La solicitud de orden ID {} falló y vuelve a la cola: {}", id, error.getMessage());
+            return;
+        }
+        log.error("La solicitud de orden {} falló definitivamente tras {} intentos.", failed.getTrackingId(), failed.getAttempts(), error);
+        try {
+            transactionTemplate.executeWithoutResult(status -> restoreCart(failed));
+        } catch (RuntimeException e) {
+            log.error("No se pudieron devolver al carrito las líneas de la solicitud {}.", failed.getTrackingId(), e);
+        }
+    }
+
+    private void restoreCart(OrderIntake intake) {
+        List<Line> lines = readLines(intake.getPayload());
+        Map<Long, Food> foods = foodRepository.findAllById(lines.stream().map(Line::foodId).distinct().toList()).stream()
+                .collect(Collectors.toMap(Food::getId, Function.identity()));
+        cartStore.write(intake.getCustomerId(), cart -> {
+            for (Line line : lines) {
+                Food food = foods.get(line.foodId());
+                if (food == null) {
+                    continue;
+                }
+                CartItem existing = cart.findItemByFoodId(food.getId());
+                if (existing != null) {
+                    int quantity = existing.getQuantity() + line.quantity();
+                    cart.updateItem(existing, quantity, (long) quantity * food.getPrice());
+                } else {
+                    CartItem item = new CartItem();
+                    item.setFood(food);
+                    item.setQuantity(line.quantity());
+                    item.setTotalPrice((long) line.quantity() * food.getPrice());
+                    item.setIngredients(new ArrayList<>(line.ingredients()));
+                    cart.addItem(item);
+                }
+            }
+        });
+    }
+
+    private String writeLines(List<Line> lines) {
+        try {
+            return objectMapper.writeValueAsString(lines);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudieron serializar las líneas del carrito.", e);
+        }
+    }
+
+    private List<Line> readLines(String payload) {
+        try {
+            return objectMapper.readValue(payload, LINES_TYPE);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Contenido de la solicitud de orden ilegible.", e);
+        }
+    }
+
+    private OrderIntakeDto mapToDto(OrderIntake intake) {
+        OrderIntakeDto dto = new OrderIntakeDto();
+        dto.setTrackingId(intake.getTrackingId());
+        dto.setStatus(intake.getStatus().name());
+        dto.setOrderId(intake.getOrderId());
+        dto.setErrorMessage(intake.getStatus() == OrderIntake.Status.FAILED ? intake.getErrorMessage() : null);
+        dto.setAcceptedAt(intake.getAcceptedAt());
+        dto.setProcessedAt(intake.getProcessedAt());
+        return dto;
+    }
+
+    /**
+     * Lote reclamado por un proceso y la fecha con la que se reclamó.
+     */
+    private record Claim(List<Long> ids, LocalDateTime claimedAt) {
+    }
+
+    /**
+     * Línea del carrito guardada en la solicitud.
+     */
+    record Line(Long foodId, int quantity, Long totalPrice, List<String> ingredients) {
+    }
+}
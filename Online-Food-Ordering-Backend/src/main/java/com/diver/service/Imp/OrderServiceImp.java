@@ -4,21 +4,35 @@ import com.diver.dto.*;
 import com.diver.exception.AccessDeniedException;
 import com.diver.exception.OperationNotAllowedException;
 import com.diver.exception.ResourceNotFoundException;
+import com.diver.exception.StaleOrderVersionException;
 import com.diver.exception.UserNotFoundException;
 import com.diver.model.*;
 import com.diver.repository.*;
+import com.diver.repository.projection.OrderItemIngredientRow;
+import com.diver.repository.projection.OrderItemRow;
+import com.diver.repository.projection.OrderRow;
+import com.diver.repository.projection.OrderStatusRow;
 import com.diver.request.OrderRequest;
+import com.diver.search.GeoGridIndex;
 import com.diver.service.CartService;
+import com.diver.service.CartStore;
+import com.diver.service.CustomerUserDetailsService;
+import com.diver.service.EtaService;
 import com.diver.service.OrderService;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
 
 @Slf4j
 @Service
@@ -31,7 +45,22 @@ public class OrderServiceImp implements OrderService {
     private final RestaurantRepository restaurantRepository;
     private final CartService cartService;
     private final UserRepository userRepository;
-    private final CartRepository cartRepository;
+    private final CartStore cartStore;
+    private final CustomerUserDetailsService userDetailsService;
+    private final OrderStatusLog orderStatusLog;
+    private final OrderStatusEventRepository orderStatusEventRepository;
+    private final EtaService etaService;
+
+    /**
+     * Tamaño máximo de la cláusula IN al construir DTOs de órdenes en bloque.
+     */
+    private static final int READ_CHUNK_SIZE = 500;
+
+    @Value("${app.orders.page.default-size:20}")
+    private int defaultPageSize;
+
+    @Value("${app.orders.page.max-size:100}")
+    private int maxPageSize;
 
 
 
@@ -47,7 +76,7 @@ public class OrderServiceImp implements OrderService {
     // Para la creación de órdenes - necesita transacción ya que modifica múltiples entidades
     @Override
     @Transactional
-    public OrderDto createOrder(OrderRequest req, User detachedUser) { // Parámetro renombrado para mayor claridad
+    public OrderDto createOrder(OrderRequest req, AuthenticatedUser detachedUser) { // Parámetro renombrado para mayor claridad
         log.info("Iniciando la creación de una nueva orden para el usuario: {}", detachedUser.getEmail());
 
         // --- PASO 1: CARGAR LA ENTIDAD "USER" GESTIONADA ---
@@ -71,6 +100,8 @@ public class OrderServiceImp implements OrderService {
             // Si no existe, la añadimos a su perfil.
             managedUser.getAddresses().add(savedAddress);
             // No es necesario un save explícito de 'managedUser' aquí, @Transactional se encargará.
+            // Las direcciones forman parte del usuario cacheado: invalidamos su entrada.
+            userDetailsService.evictUser(managedUser.getEmail());
             log.info("Nueva dirección ID {} añadida al perfil del usuario '{}'.", savedAddress.getId(), managedUser.getEmail());
         }
 
@@ -79,9 +110,7 @@ public class OrderServiceImp implements OrderService {
                 .orElseThrow(() -> new ResourceNotFoundException("Restaurante no encontrado con ID: "
                         + req.getRestaurantId()));
 
-        Cart cart = cartRepository.findByCustomerId(managedUser.getId())
-                .orElseThrow(() -> new ResourceNotFoundException("Carrito no encontrado para el usuario con ID: "
-                        + managedUser.getId()));
+        Cart cart = cartStore.read(managedUser.getId());
 
         if (cart.getCartItems().isEmpty()) { // Asumiendo que el campo en Cart se llama 'items'
             throw new OperationNotAllowedException("No se puede crear una orden desde un carrito vacío.");
@@ -93,7 +122,7 @@ public class OrderServiceImp implements OrderService {
         order.setRestaurant(restaurant);
         order.setDeliveryAddress(savedAddress);
         order.setCreatedAt(LocalDateTime.now());
-        order.setOrderStatus("PENDIENTE");
+        order.setOrderStatus(OrderStatus.PENDIENTE);
 
         // --- PASO 5: CONVERTIR ITEMS DEL CARRITO A ITEMS DE ORDEN ---
         List<OrderItem> orderItems = new ArrayList<>();
@@ -115,10 +144,11 @@ public class OrderServiceImp implements OrderService {
         order.setTotalItems(cart.getCartItems().size());
 
         Order savedOrder = orderRepository.save(order);
+        orderStatusLog.record(savedOrder, null, managedUser.getId());
 
         // --- PASO 7: LIMPIAR EL CARRITO ---
         // Llamamos al servicio de carrito, que tiene la lógica de negocio para limpiarlo.
-        cartService.clearCart(managedUser);
+        cartService.clearCart(detachedUser);
 
         log.info("Orden ID {} creada con éxito para el usuario: {}. El carrito ha sido vaciado.",
                 savedOrder.getId(), managedUser.getEmail());
@@ -128,18 +158,20 @@ public class OrderServiceImp implements OrderService {
     }
 
     /**
-     * Actualiza el estado de una orden.
+     * Actualiza el estado de una orden siguiendo las transiciones de {@link OrderStatus}.
      * Esta operación es típicamente realizada por el propietario del restaurante.
      *
-     * @param orderId     El ID de la orden a actualizar.
-     * @param orderStatus El nuevo estado de la orden (ej: "EN_PREPARACION", "EN_CAMINO").
-     * @param user        El usuario (propietario) que realiza la actualización.
+     * @param orderId         El ID de la orden a actualizar.
+     * @param orderStatus     El nuevo estado de la orden (ej: "EN_PREPARACION", "EN_CAMINO").
+     * @param expectedVersion (Opcional) La versión de la orden que el cliente leyó.
+     * @param user            El usuario (propietario) que realiza la actualización.
      * @return El DTO de la orden actualizada.
      */
     // Para actualizar el estado de una orden
     @Transactional
     @Override
-    public OrderDto updateOrderStatus(Long orderId, String orderStatus, User user) {
+    public OrderDto updateOrderStatus(Long orderId, String orderStatus, Long expectedVersion, AuthenticatedUser user) {
+        OrderStatus target = OrderStatus.parse(orderStatus);
 
         Order order = orderRepository.findById(orderId)
                 .orElseThrow(() -> new ResourceNotFoundException("Orden no encontrada"));
@@ -148,18 +180,7 @@ public class OrderServiceImp implements OrderService {
             throw new OperationNotAllowedException("El usuario no es el propietario del restaurante");
         }
 
-        if (
-                orderStatus.equals("EN_PREPARACION")
-                ||orderStatus.equals("EN_CAMINO")
-                ||orderStatus.equals("ENTREGADO")
-                ||orderStatus.equals("PENDIENTE")
-                ||orderStatus.equals("CANCELADO")
-        ) {
-            order.setOrderStatus(orderStatus.toUpperCase());
-            return mapToOrderDto(orderRepository.save(order));
-        }
-
-        throw new OperationNotAllowedException("El estado de la orden no es valido");
+        return mapToOrderDto(changeStatus(order, target, expectedVersion, user.getId()));
     }
 
     /**
@@ -172,19 +193,47 @@ public class OrderServiceImp implements OrderService {
     // Para cancelar una orden
     @Transactional
     @Override
-    public void cancelOrder(Long orderId, User user) {
+    public void cancelOrder(Long orderId, AuthenticatedUser user) {
         Order order = orderRepository.findById(orderId)
                 .orElseThrow(() -> new ResourceNotFoundException("Orden no encontrada"));
 
         if ( !order.getCustomer().getId().equals(user.getId()) ) {
             throw new OperationNotAllowedException("El usuario no es el propietario de la orden");
         }
-        if (!order.getOrderStatus().equals("PENDIENTE")) {
+        // El cliente solo puede cancelar antes de que el restaurante empiece a prepararla
+        if (order.getOrderStatus() != OrderStatus.PENDIENTE) {
             throw new OperationNotAllowedException("La orden no puede ser cancelada");
         }
-        order.setOrderStatus("CANCELADO");
-        orderRepository.save(order);
+        changeStatus(order, OrderStatus.CANCELADO, null, user.getId());
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public OrderStatusDto getOrderStatus(Long orderId, AuthenticatedUser user) {
+        OrderStatusRow row = findStatusRowForUser(orderId, user);
+        return new OrderStatusDto(row.orderId(), row.status(), row.version(), row.status().nextStatuses());
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public List<OrderStatusEventDto> getOrderStatusHistory(Long orderId, AuthenticatedUser user) {
+        findStatusRowForUser(orderId, user);
+        return orderStatusEventRepository.findByOrderIdOrderByIdAsc(orderId).stream()
+                .map(this::mapToStatusEventDto)
+                .toList();
+    }
 
+    @Transactional(readOnly = true)
+    @Override
+    public List<OrderStatusEventDto> findRestaurantStatusEvents(Long restaurantId, Long afterId, Integer limit,
+                                                                AuthenticatedUser user) {
+        validateRestaurantOwnership(restaurantId, user);
+        long after = afterId != null ? afterId : 0L;
+        return orderStatusEventRepository
+                .findByRestaurantIdAndIdGreaterThanOrderByIdAsc(restaurantId, after, Limit.of(resolvePageSize(limit)))
+                .stream()
+                .map(this::mapToStatusEventDto)
+                .toList();
     }
 
     /**
@@ -196,12 +245,9 @@ public class OrderServiceImp implements OrderService {
     // Para consultas de solo lectura
     @Transactional(readOnly = true)
     @Override
-    public List<OrderDto> findOrdersByUserId(User user) {
-        List<Order> orders = orderRepository.findByCustomerId(user.getId());
-
-        return orders.stream()
-                .map(this::mapToOrderDto)
-                .collect(Collectors.toList());
+    public List<OrderDto> findOrdersByUserId(AuthenticatedUser user) {
+        List<Long> orderIds = orderRepository.findIdsByCustomerId(user.getId(), Limit.unlimited());
+        return loadOrderDtos(orderIds);
     }
 
     /**
@@ -216,21 +262,75 @@ public class OrderServiceImp implements OrderService {
     // Para consultas de solo lectura
     @Transactional(readOnly = true)
     @Override
-    public List<OrderDto> findOrdersByRestaurantId(Long restaurantId, String orderStatus, User user) {
-        Restaurant restaurant = restaurantRepository.findById(restaurantId)
-                .orElseThrow(() -> new ResourceNotFoundException("Restaurante no encontrado con ID: " + restaurantId));
+    public List<OrderDto> findOrdersByRestaurantId(Long restaurantId, String orderStatus, AuthenticatedUser user) {
+        validateRestaurantOwnership(restaurantId, user);
 
-        if ( !restaurant.getOwner().getId().equals(user.getId()) ) {
-            throw new AccessDeniedException("El usuario no es el propietario del restaurante");
-        }
+        List<Long> orderIds = (orderStatus !=null && !orderStatus.isEmpty() )
+                ? orderRepository.findIdsByRestaurantIdAndOrderStatus(restaurantId, OrderStatus.parse(orderStatus), Limit.unlimited())
+                : orderRepository.findIdsByRestaurantId(restaurantId, Limit.unlimited());
 
-        List<Order> orders= (orderStatus !=null && !orderStatus.isEmpty() )
-                ? orderRepository.findByRestaurantIdAndOrderStatus(restaurantId, orderStatus.toUpperCase())
-                : orderRepository.findByRestaurantId(restaurantId);
+        return loadOrderDtos(orderIds);
+    }
 
-        return orders.stream()
-                .map(this::mapToOrderDto)
-                .collect(Collectors.toList());
+    /**
+     * Obtiene una página del historial de órdenes de un usuario usando paginación por keyset.
+     * <p>
+     * Se pide una fila más que el tamaño de página para saber si existe una página siguiente
+     * sin necesidad de un {@code COUNT}.
+     *
+     * @param user   El usuario cuyas órdenes se desean obtener.
+     * @param cursor (Opcional) El cursor de la página anterior.
+     * @param size   (Opcional) Tamaño de página solicitado.
+     * @return La página de órdenes y el cursor de la siguiente.
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public OrderPageDto findOrdersByUserId(AuthenticatedUser user, String cursor, Integer size) {
+        int pageSize = resolvePageSize(size);
+        OrderCursor after = OrderCursor.decode(cursor);
+        Limit limit = Limit.of(pageSize + 1);
+
+        List<Long> orderIds = after == null
+                ? orderRepository.findIdsByCustomerId(user.getId(), limit)
+                : orderRepository.findCustomerPageAfter(user.getId(), after.createdAt(), after.id(), limit);
+
+        return toOrderPage(orderIds, pageSize);
+    }
+
+    /**
+     * Obtiene una página del historial de órdenes de un restaurante usando paginación por keyset.
+     *
+     * @param restaurantId El ID del restaurante.
+     * @param orderStatus  (Opcional) El estado por el cual filtrar las órdenes.
+     * @param user         El usuario (propietario) que realiza la consulta.
+     * @param cursor       (Opcional) El cursor de la página anterior.
+     * @param size         (Opcional) Tamaño de página solicitado.
+     * @return La página de órdenes y el cursor de la siguiente.
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public OrderPageDto findOrdersByRestaurantId(Long restaurantId, String orderStatus, AuthenticatedUser user,
+                                                 String cursor, Integer size) {
+        validateRestaurantOwnership(restaurantId, user);
+
+        int pageSize = resolvePageSize(size);
+        OrderCursor after = OrderCursor.decode(cursor);
+        Limit limit = Limit.of(pageSize + 1);
+        boolean byStatus = orderStatus != null && !orderStatus.isEmpty();
+
+        List<Long> orderIds;
+        if (byStatus) {
+            OrderStatus status = OrderStatus.parse(orderStatus);
+            orderIds = after == null
+                    ? orderRepository.findIdsByRestaurantIdAndOrderStatus(restaurantId, status, limit)
+                    : orderRepository.findRestaurantPageByStatusAfter(restaurantId, status, after.createdAt(), after.id(), limit);
+        } else {
+            orderIds = after == null
+                    ? orderRepository.findIdsByRestaurantId(restaurantId, limit)
+                    : orderRepository.findRestaurantPageAfter(restaurantId, after.createdAt(), after.id(), limit);
+        }
+
+        return toOrderPage(orderIds, pageSize);
     }
 
     /**
@@ -245,7 +345,7 @@ public class OrderServiceImp implements OrderService {
     // Para consultas de solo lectura
     @Transactional(readOnly = true)
     @Override
-    public OrderDto findOrderById(Long orderId, User user) {
+    public OrderDto findOrderById(Long orderId, AuthenticatedUser user) {
 
         Order order = findOrderByIdInternal(orderId);
 
@@ -263,26 +363,218 @@ public class OrderServiceImp implements OrderService {
     // methods auxiliares
     // =================================================================================
 
+    private void validateRestaurantOwnership(Long restaurantId, AuthenticatedUser user) {
+        Restaurant restaurant = restaurantRepository.findById(restaurantId)
+                .orElseThrow(() -> new ResourceNotFoundException("Restaurante no encontrado con ID: " + restaurantId));
+
+        if ( !restaurant.getOwner().getId().equals(user.getId()) ) {
+            throw new AccessDeniedException("El usuario no es el propietario del restaurante");
+        }
+    }
+
+    /**
+     * Aplica una transición de estado con control de concurrencia optimista y la registra.
+     * Si el cliente envía la versión que leyó, se compara antes de nada; en cualquier caso,
+     * el {@code UPDATE ... WHERE version = ?} de Hibernate detecta un cambio concurrente.
+     */
+    private Order changeStatus(Order order, OrderStatus target, Long expectedVersion, Long changedBy) {
+        if (expectedVersion != null && expectedVersion != order.getVersion()) {
+            throw new StaleOrderVersionException("La orden ID " + order.getId() + " ha cambiado (versión actual "
+                    + order.getVersion() + "). Vuelve a consultarla antes de modificarla.");
+        }
+        OrderStatus current = order.getOrderStatus();
+        if (current == null || !current.canTransitionTo(target)) {
+            throw new OperationNotAllowedException("No se puede pasar una orden de " + current + " a " + target + ".");
+        }
+
+        order.setOrderStatus(target);
+        Order saved;
+        try {
+            saved = orderRepository.saveAndFlush(order);
+        } catch (ObjectOptimisticLockingFailureException e) {
+            throw new StaleOrderVersionException("La orden ID " + order.getId()
+                    + " ha sido modificada por otra petición. Vuelve a consultarla antes de modificarla.");
+        }
+        orderStatusLog.record(saved, current, changedBy);
+        log.info("Orden ID {}: {} → {} (versión {}).", saved.getId(), current, target, saved.getVersion());
+        return saved;
+    }
+
+    private OrderStatusRow findStatusRowForUser(Long orderId, AuthenticatedUser user) {
+        OrderStatusRow row = orderRepository.findStatusRowById(orderId)
+                .orElseThrow(() -> new ResourceNotFoundException("Orden no encontrada con ID: " + orderId));
+        if (!user.getId().equals(row.customerId()) && !user.getId().equals(row.restaurantOwner())) {
+            throw new AccessDeniedException("El usuario no tiene permiso para ver la orden");
+        }
+        return row;
+    }
+
+    private OrderStatusEventDto mapToStatusEventDto(OrderStatusEvent event) {
+        return new OrderStatusEventDto(event.getId(), event.getOrderId(), event.getFromStatus(), event.getToStatus(),
+                event.getOrderVersion(), event.getChangedBy(), event.getChangedAt());
+    }
+
+    private int resolvePageSize(Integer requested) {
+        if (requested == null || requested <= 0) {
+            return defaultPageSize;
+        }
+        return Math.min(requested, maxPageSize);
+    }
+
+    /**
+     * Convierte el resultado de una consulta keyset (que trae {@code pageSize + 1} IDs como máximo)
+     * en una página, calculando el cursor de la siguiente a partir de la última orden devuelta.
+     */
+    private OrderPageDto toOrderPage(List<Long> orderIds, int pageSize) {
+        boolean hasNext = orderIds.size() > pageSize;
+        List<OrderDto> items = loadOrderDtos(hasNext ? orderIds.subList(0, pageSize) : orderIds);
+
+        String next = null;
+        if (hasNext) {
+            OrderDto last = items.get(items.size() - 1);
+            next = new OrderCursor(last.getCreatedAt(), last.getId()).encode();
+        }
+        return new OrderPageDto(items, next, items.size());
+    }
+
+    /**
+     * Construye los DTOs de un conjunto de órdenes con un número constante de consultas por bloque:
+     * una para las órdenes (con cliente, restaurante y dirección), otra para sus líneas (con el plato)
+     * y otra para los ingredientes de esas líneas. No se cargan entidades, por lo que tampoco se
+     * disparan las relaciones EAGER. El resultado respeta el orden de {@code orderIds}.
+     */
+    private List<OrderDto> loadOrderDtos(List<Long> orderIds) {
+        List<OrderDto> result = new ArrayList<>(orderIds.size());
+        for (int from = 0; from < orderIds.size(); from += READ_CHUNK_SIZE) {
+            List<Long> chunk = orderIds.subList(from, Math.min(from + READ_CHUNK_SIZE, orderIds.size()));
+            result.addAll(loadOrderDtoChunk(chunk));
+        }
+        return result;
+    }
+
+    private List<OrderDto> loadOrderDtoChunk(List<Long> orderIds) {
+        if (orderIds.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, List<String>> ingredientsByItem = new HashMap<>();
+        for (OrderItemIngredientRow row : orderItemRepository.findIngredientRowsByOrderIdIn(orderIds)) {
+            ingredientsByItem.computeIfAbsent(row.orderItemId(), k -> new ArrayList<>()).add(row.ingredient());
+        }
+
+        Map<Long, List<OrderItemDto>> itemsByOrder = new HashMap<>();
+        for (OrderItemRow row : orderItemRepository.findRowsByOrderIdIn(orderIds)) {
+            SimpleFoodDto food = new SimpleFoodDto();
+            food.setId(row.foodId());
+            food.setName(row.foodName());
+
+            OrderItemDto item = new OrderItemDto();
+            item.setId(row.id());
+            item.setFood(food);
+            item.setQuantity(row.quantity());
+            item.setTotalPrice(row.totalPrice());
+            item.setIngredients(ingredientsByItem.getOrDefault(row.id(), new ArrayList<>()));
+            itemsByOrder.computeIfAbsent(row.orderId(), k -> new ArrayList<>()).add(item);
+        }
+
+        Map<Long, OrderDto> ordersById = new HashMap<>();
+        for (OrderRow row : orderRepository.findRowsByIdIn(orderIds)) {
+            ordersById.put(row.id(), mapToOrderDto(row, itemsByOrder.getOrDefault(row.id(), List.of())));
+        }
+
+        List<OrderDto> result = new ArrayList<>(orderIds.size());
+        for (Long id : orderIds) {
+            OrderDto dto = ordersById.get(id);
+            if (dto != null) {
+                result.add(dto);
+            }
+        }
+        return result;
+    }
+
+    private OrderDto mapToOrderDto(OrderRow row, List<OrderItemDto> items) {
+        UserSimpleDto customer = new UserSimpleDto();
+        customer.setId(row.customerId());
+        customer.setEmail(row.customerEmail());
+
+        RestaurantSimpleDto restaurant = new RestaurantSimpleDto();
+        restaurant.setId(row.restaurantId());
+        restaurant.setName(row.restaurantName());
+
+        Address address = null;
+        if (row.addressId() != null) {
+            address = new Address(row.addressId(), row.addressStreet(), row.addressCity(), row.addressState(),
+                    row.addressLatitude(), row.addressLongitude());
+        }
+
+        OrderDto dto = new OrderDto();
+        dto.setId(row.id());
+        dto.setCustomer(customer);
+        dto.setRestaurant(restaurant);
+        dto.setTotalAmount(row.totalAmount());
+        dto.setOrderStatus(row.orderStatus() != null ? row.orderStatus().name() : null);
+        dto.setVersion(row.version());
+        dto.setCreatedAt(row.createdAt());
+        dto.setDeliveryAddress(address);
+        dto.setItems(items);
+        dto.setTotalItemCount(items.size());
+        setEta(dto, row.restaurantId(), row.orderStatus(), distanceMeters(row.restaurantLatitude(),
+                row.restaurantLongitude(), row.addressLatitude(), row.addressLongitude()));
+        return dto;
+    }
+
     private Order findOrderByIdInternal(Long orderId) {
 
         return orderRepository.findById( orderId )
                 .orElseThrow(() -> new ResourceNotFoundException("Orden no encontrada con ID: " + orderId));
     }
 
-    private OrderDto mapToOrderDto(Order order) {
+    // Visibilidad de paquete: los benchmarks JMH de src/jmh lo invocan directamente.
+    OrderDto mapToOrderDto(Order order) {
         OrderDto dto = new OrderDto();
         dto.setId(order.getId());
         dto.setCustomer(mapToSimpleUserDto(order.getCustomer()));
         dto.setRestaurant(mapToRestaurantSimpleDto(order.getRestaurant()));
         dto.setTotalAmount(order.getTotalAmount());
-        dto.setOrderStatus(order.getOrderStatus());
+        dto.setOrderStatus(order.getOrderStatus() != null ? order.getOrderStatus().name() : null);
+        dto.setVersion(order.getVersion());
         dto.setCreatedAt(order.getCreatedAt());
         dto.setDeliveryAddress(order.getDeliveryAddress());
         dto.setItems(order.getOrderItems().stream().map(this::mapToOrderItemDto).toList());
         dto.setTotalItemCount(order.getOrderItems().size());
+        // Restaurante, su dirección y la dirección de entrega son EAGER: ya están cargados
+        Address restaurantAddress = order.getRestaurant().getAddress();
+        Address deliveryAddress = order.getDeliveryAddress();
+        setEta(dto, order.getRestaurant().getId(), order.getOrderStatus(), distanceMeters(
+                restaurantAddress != null ? restaurantAddress.getLatitude() : null,
+                restaurantAddress != null ? restaurantAddress.getLongitude() : null,
+                deliveryAddress != null ? deliveryAddress.getLatitude() : null,
+                deliveryAddress != null ? deliveryAddress.getLongitude() : null));
         return dto;
     }
 
+    /**
+     * Completa el ETA de la orden. {@link EtaService} lo calcula en memoria, sin consultas.
+     */
+    private void setEta(OrderDto dto, Long restaurantId, OrderStatus status, Double distanceMeters) {
+        LocalDateTime estimated = etaService.estimateDelivery(dto.getId(), restaurantId, status,
+                dto.getCreatedAt(), distanceMeters);
+        dto.setEstimatedDeliveryAt(estimated);
+        if (estimated != null) {
+            dto.setEtaMinutes((int) Math.ceil(Duration.between(LocalDateTime.now(), estimated).toSeconds() / 60.0));
+        }
+    }
+
+    /**
+     * Distancia en línea recta entre el restaurante y la entrega, o {@code null} si falta alguna coordenada.
+     */
+    private static Double distanceMeters(Double fromLatitude, Double fromLongitude, Double toLatitude, Double toLongitude) {
+        if (fromLatitude == null || fromLongitude == null || toLatitude == null || toLongitude == null) {
+            return null;
+        }
+        return GeoGridIndex.distanceMeters(fromLatitude, fromLongitude, toLatitude, toLongitude);
+    }
+
     private UserSimpleDto mapToSimpleUserDto(User customer) {
         UserSimpleDto dto = new UserSimpleDto();
         dto.setId(customer.getId());
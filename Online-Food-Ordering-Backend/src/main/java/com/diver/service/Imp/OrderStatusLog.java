@@ -0,0 +1,84 @@
+package com.diver.service.Imp;
+
+import com.diver.event.OrderPlacedEvent;
+import com.diver.event.OrderStatusChangedEvent;
+import com.diver.model.Address;
+import com.diver.model.Order;
+import com.diver.model.OrderItem;
+import com.diver.model.OrderStatus;
+import com.diver.model.OrderStatusEvent;
+import com.diver.repository.OrderStatusEventRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Añade filas al registro de estados ({@link OrderStatusEvent}) y publica el
+ * {@link OrderStatusChangedEvent} correspondiente. Debe invocarse dentro de la transacción que
+ * guardó la orden, después de guardarla (para que tenga ID y versión).
+ * <p>
+ * Las creaciones ({@code from == null}) publican además un {@link OrderPlacedEvent} con los platos
+ * de la orden, de modo que ambos caminos de creación (síncrono y por cola) lo emiten igual.
+ */
+@Component
+@RequiredArgsConstructor
+class OrderStatusLog {
+
+    private final OrderStatusEventRepository eventRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Registra el cambio de estado de una orden.
+     *
+     * @param order     La orden ya guardada, con su nuevo estado.
+     * @param from      El estado anterior ({@code null} si la orden se acaba de crear).
+     * @param changedBy El ID del usuario que hizo el cambio.
+     */
+    void record(Order order, OrderStatus from, Long changedBy) {
+        recordAll(List.of(order), from, changedBy);
+    }
+
+    /**
+     * Registra con una sola inserción por lotes el mismo cambio en varias órdenes.
+     */
+    void recordAll(List<Order> orders, OrderStatus from, Long changedBy) {
+        LocalDateTime now = LocalDateTime.now();
+        List<OrderStatusEvent> events = new ArrayList<>(orders.size());
+        for (Order order : orders) {
+            OrderStatusEvent event = new OrderStatusEvent();
+            event.setOrderId(order.getId());
+            event.setRestaurantId(order.getRestaurant().getId());
+            event.setCustomerId(order.getCustomer().getId());
+            event.setFromStatus(from);
+            event.setToStatus(order.getOrderStatus());
+            event.setOrderVersion(order.getVersion());
+            event.setChangedBy(changedBy != null ? changedBy : order.getCustomer().getId());
+            event.setChangedAt(now);
+            events.add(event);
+        }
+        for (OrderStatusEvent event : eventRepository.saveAll(events)) {
+            eventPublisher.publishEvent(new OrderStatusChangedEvent(event.getId(), event.getOrderId(),
+                    event.getRestaurantId(), event.getCustomerId(), event.getFromStatus(), event.getToStatus(),
+                    event.getOrderVersion(), event.getChangedBy(), event.getChangedAt()));
+        }
+        if (from == null) {
+            orders.forEach(this::publishPlaced);
+        }
+    }
+
+    private void publishPlaced(Order order) {
+        List<OrderPlacedEvent.Item> items = new ArrayList<>();
+        if (order.getOrderItems() != null) {
+            for (OrderItem item : order.getOrderItems()) {
+                items.add(new OrderPlacedEvent.Item(item.getFood().getId(), item.getQuantity()));
+            }
+        }
+        Address address = order.getRestaurant().getAddress();
+        eventPublisher.publishEvent(new OrderPlacedEvent(order.getId(), order.getRestaurant().getId(),
+                address != null ? address.getCity() : null, items));
+    }
+}
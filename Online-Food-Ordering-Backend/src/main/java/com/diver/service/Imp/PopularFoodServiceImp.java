@@ -0,0 +1,292 @@
+package com.diver.service.Imp;
+
+import com.diver.dto.PopularFoodDto;
+import com.diver.event.MenuChangedEvent;
+import com.diver.event.OrderPlacedEvent;
+import com.diver.exception.BadRequestException;
+import com.diver.repository.FoodRepository;
+import com.diver.repository.projection.FoodSuggestionRow;
+import com.diver.search.SpaceSavingSketch;
+import com.diver.service.PopularFoodService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Implementación del ranking de platos populares con resúmenes Space-Saving y decaimiento hacia
+ * adelante (forward decay).
+ * <p>
+ * Hay un {@link SpaceSavingSketch} por restaurante, uno por ciudad y uno global. Cada orden creada
+ * suma a los tres {@code cantidad · e^(λ·(t − L))}, con {@code λ = ln 2 / half-life} y {@code L} un
+ * instante de referencia; así un pedido de hace una vida media pesa la mitad que uno de ahora, sin
+ * recorrer los contadores para envejecerlos. Cuando el factor crece demasiado se mueve {@code L}
+ * y se reescalan todos los resúmenes.
+ * <p>
+ * Una tarea periódica recalcula las listas de los resúmenes modificados (resolviendo en bloque los
+ * nombres que falten) y las publica en un mapa inmutable: una consulta es una búsqueda en ese mapa.
+ * Los resúmenes se guardan periódicamente en {@code app.food.popular.snapshot-path} (escritura a un
+ * fichero temporal y renombrado atómico) y se restauran al arrancar.
+ */
+@Slf4j
+@Service
+public class PopularFoodServiceImp implements PopularFoodService {
+
+    private static final String GLOBAL_KEY = "global";
+    /** Exponente a partir del cual se mueve el instante de referencia (e^40 ≈ 2,4·10^17). */
+    private static final double MAX_EXPONENT = 40.0;
+
+    private final FoodRepository foodRepository;
+    private final ObjectMapper objectMapper;
+    private final double lambdaPerMilli;
+    private final int restaurantCapacity;
+    private final int cityCapacity;
+    private final int globalCapacity;
+    private final int maxLimit;
+    private final int defaultLimit;
+    private final Path snapshotPath;
+
+    private final Map<String, SpaceSavingSketch> sketches = new ConcurrentHashMap<>();
+    private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+    private final Map<Long, FoodSuggestionRow> foods = new ConcurrentHashMap<>();
+    /** Las sumas comparten el candado de lectura; mover el instante de referencia toma el de escritura. */
+    private final ReadWriteLock decayLock = new ReentrantReadWriteLock();
+    /** Serializa el refresco y la instantánea; no es un monitor para no fijar un hilo virtual durante la E/S. */
+    private final ReentrantLock maintenanceLock = new ReentrantLock();
+    private volatile long landmarkMillis = System.currentTimeMillis();
+    private volatile Map<String, List<PopularFoodDto>> rankings = Map.of();
+
+    public PopularFoodServiceImp(FoodRepository foodRepository,
+                                 ObjectMapper objectMapper,
+                                 @Value("${app.food.popular.half-life:24h}") Duration halfLife,
+                                 @Value("${app.food.popular.capacity.restaurant:64}") int restaurantCapacity,
+                                 @Value("${app.food.popular.capacity.city:512}") int cityCapacity,
+                                 @Value("${app.food.popular.capacity.global:1024}") int globalCapacity,
+                                 @Value("${app.food.popular.max-limit:20}") int maxLimit,
+                                 @Value("${app.food.popular.default-limit:10}") int defaultLimit,
+                                 @Value("${app.food.popular.snapshot-path:data/popular-foods.json}") String snapshotPath) {
+        this.foodRepository = foodRepository;
+        this.objectMapper = objectMapper;
+        this.lambdaPerMilli = Math.log(2) / halfLife.toMillis();
+        this.restaurantCapacity = restaurantCapacity;
+        this.cityCapacity = cityCapacity;
+        this.globalCapacity = globalCapacity;
+        this.maxLimit = maxLimit;
+        this.defaultLimit = defaultLimit;
+        this.snapshotPath = Path.of(snapshotPath);
+    }
+
+    @Override
+    public List<PopularFoodDto> getPopular(Long restaurantId, String city, Integer limit) {
+        int resolvedLimit = limit == null ? defaultLimit : limit;
+        if (resolvedLimit < 1) {
+            throw new BadRequestException("El límite de platos debe ser mayor que cero.");
+        }
+        String key = restaurantId != null ? restaurantKey(restaurantId)
+                : city != null && !city.isBlank() ? cityKey(city) : GLOBAL_KEY;
+        List<PopularFoodDto> ranking = rankings.getOrDefault(key, List.of());
+        return ranking.subList(0, Math.min(resolvedLimit, ranking.size()));
+    }
+
+    /**
+     * Suma los platos de una orden confirmada a los resúmenes de su restaurante, su ciudad y global.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onOrderPlaced(OrderPlacedEvent event) {
+        List<String> keys = new ArrayList<>(3);
+        keys.add(restaurantKey(event.restaurantId()));
+        if (event.city() != null && !event.city().isBlank()) {
+            keys.add(cityKey(event.city()));
+        }
+        keys.add(GLOBAL_KEY);
+        decayLock.readLock().lock();
+        try {
+            double factor = Math.exp(lambdaPerMilli * (System.currentTimeMillis() - landmarkMillis));
+            for (String key : keys) {
+                SpaceSavingSketch sketch = sketches.computeIfAbsent(key, this::newSketch);
+                for (OrderPlacedEvent.Item item : event.items()) {
+                    sketch.add(item.foodId(), item.quantity() * factor);
+                }
+                dirty.add(key);
+            }
+        } finally {
+            decayLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Los cambios de un plato se reflejan en la siguiente actualización; los platos eliminados
+     * salen de todos los rankings.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onMenuChanged(MenuChangedEvent event) {
+        if (event.foodId() == null) {
+            return;
+        }
+        foods.remove(event.foodId());
+        if (event.removed()) {
+            sketches.values().forEach(sketch -> sketch.remove(event.foodId()));
+        }
+        dirty.addAll(sketches.keySet());
+    }
+
+    /**
+     * Recalcula las listas de los resúmenes modificados y, si hace falta, mueve el instante
+     * de referencia del decaimiento.
+     */
+    @Scheduled(fixedDelayString = "${app.food.popular.refresh-interval:5000}")
+    public void refresh() {
+        maintenanceLock.lock();
+        try {
+            long now = System.currentTimeMillis();
+            double exponent = lambdaPerMilli * (now - landmarkMillis);
+            if (exponent > MAX_EXPONENT) {
+                decayLock.writeLock().lock();
+                try {
+                    double factor = Math.exp(-exponent);
+                    sketches.values().forEach(sketch -> sketch.scale(factor));
+                    landmarkMillis = now;
+                    dirty.addAll(sketches.keySet());
+                    exponent = 0.0;
+                } finally {
+                    decayLock.writeLock().unlock();
+                }
+            }
+            if (dirty.isEmpty()) {
+                return;
+            }
+            Set<String> keys = new HashSet<>(dirty);
+            dirty.removeAll(keys);
+
+            Map<String, List<SpaceSavingSketch.Counter>> tops = new HashMap<>();
+            Set<Long> missing = new HashSet<>();
+            for (String key : keys) {
+                SpaceSavingSketch sketch = sketches.get(key);
+                if (sketch == null) {
+                    continue;
+                }
+                // Se piden algunos más por si hay platos eliminados que descartar
+                List<SpaceSavingSketch.Counter> top = sketch.top(maxLimit * 2);
+                tops.put(key, top);
+                top.stream().map(SpaceSavingSketch.Counter::key).filter(id -> !foods.containsKey(id)).forEach(missing::add);
+            }
+            if (!missing.isEmpty()) {
+                foodRepository.findSuggestionRowsByIdIn(missing).forEach(row -> foods.put(row.id(), row));
+            }
+
+            double decay = Math.exp(-exponent);
+            Map<String, List<PopularFoodDto>> updated = new HashMap<>(rankings);
+            tops.forEach((key, top) -> {
+                List<PopularFoodDto> ranking = new ArrayList<>(maxLimit);
+                for (SpaceSavingSketch.Counter counter : top) {
+                    FoodSuggestionRow food = foods.get(counter.key());
+                    if (food == null) {
+                        continue; // Plato eliminado
+                    }
+                    ranking.add(new PopularFoodDto(food.id(), food.name(), food.restaurantId(), counter.count() * decay));
+                    if (ranking.size() == maxLimit) {
+                        break;
+                    }
+                }
+                updated.put(key, List.copyOf(ranking));
+            });
+            rankings = Map.copyOf(updated);
+        } finally {
+            maintenanceLock.unlock();
+        }
+    }
+
+    @PostConstruct
+    public void restoreSnapshot() {
+        if (!Files.exists(snapshotPath)) {
+            return;
+        }
+        try {
+            Snapshot snapshot = objectMapper.readValue(snapshotPath.toFile(), Snapshot.class);
+            landmarkMillis = snapshot.landmarkMillis();
+            snapshot.sketches().forEach((key, counters) ->
+                    sketches.put(key, SpaceSavingSketch.restore(capacityFor(key), counters)));
+            dirty.addAll(sketches.keySet());
+            log.info("Ranking de platos populares restaurado desde {}: {} resúmenes.", snapshotPath, sketches.size());
+        } catch (IOException | RuntimeException e) {
+            log.warn("No se pudo leer la instantánea de platos populares {}; se empieza de cero.", snapshotPath, e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.food.popular.snapshot-interval:60000}")
+    public void writeSnapshot() {
+        maintenanceLock.lock();
+        try {
+            if (sketches.isEmpty()) {
+                return;
+            }
+            Map<String, List<SpaceSavingSketch.Counter>> counters = new HashMap<>();
+            sketches.forEach((key, sketch) -> counters.put(key, sketch.counters()));
+            try {
+                Path parent = snapshotPath.toAbsolutePath().getParent();
+                if (parent != null) {
+                    Files.createDirectories(parent);
+                }
+                Path temp = snapshotPath.resolveSibling(snapshotPath.getFileName() + ".tmp");
+                objectMapper.writeValue(temp.toFile(), new Snapshot(landmarkMillis, counters));
+                Files.move(temp, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                log.warn("No se pudo guardar la instantánea de platos populares en {}.", snapshotPath, e);
+            }
+        } finally {
+            maintenanceLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        writeSnapshot();
+    }
+
+    // --- METODOS PRIVADOS ---
+
+    private SpaceSavingSketch newSketch(String key) {
+        return new SpaceSavingSketch(capacityFor(key));
+    }
+
+    private int capacityFor(String key) {
+        if (key.equals(GLOBAL_KEY)) {
+            return globalCapacity;
+        }
+        return key.startsWith("city:") ? cityCapacity : restaurantCapacity;
+    }
+
+    private static String restaurantKey(Long restaurantId) {
+        return "restaurant:" + restaurantId;
+    }
+
+    private static String cityKey(String city) {
+        return "city:" + city.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /** Contenido del fichero de instantánea. */
+    record Snapshot(long landmarkMillis, Map<String, List<SpaceSavingSketch.Counter>> sketches) {
+    }
+}
@@ -2,7 +2,9 @@ package com.diver.service.Imp;
 
 import com.diver.dto.AdddToFavoritesDto;
 
+import com.diver.dto.AuthenticatedUser;
 import com.diver.dto.RestaurantDto;
+import com.diver.event.RestaurantChangedEvent;
 import com.diver.exception.AccessDeniedException;
 import com.diver.exception.OperationNotAllowedException;
 import com.diver.exception.RestaurantNotFoundException;
@@ -15,16 +17,24 @@ import com.diver.repository.AddressRepository;
 import com.diver.repository.RestaurantRepository;
 import com.diver.repository.UserRepository;
 import com.diver.request.CreateRestaurantRequest;
+import com.diver.service.CustomerUserDetailsService;
+import com.diver.service.EtaService;
 import com.diver.service.RestaurantService;
+import com.diver.service.SearchIndexService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * Implementación del servicio para la gestión de restaurantes.
@@ -49,6 +59,10 @@ public class RestaurantServiceImp implements RestaurantService {
     private final RestaurantRepository restaurantRepository;
     private final AddressRepository addressRepository;
     private final UserRepository userRepository;
+    private final CustomerUserDetailsService userDetailsService;
+    private final SearchIndexService searchIndexService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final EtaService etaService;
 
     /**
      * Crea un nuevo restaurante basado en la solicitud y lo asocia a un usuario propietario.
@@ -65,7 +79,7 @@ public class RestaurantServiceImp implements RestaurantService {
 
     @Override
     @Transactional
-    public RestaurantDto createRestaurant(CreateRestaurantRequest req, User user) {
+    public RestaurantDto createRestaurant(CreateRestaurantRequest req, AuthenticatedUser user) {
         log.info("Iniciando creación/verificación de restaurante para el usuario '{}'", user.getEmail());
 
         Optional<Restaurant> existingRestaurantOpt = Optional.ofNullable(restaurantRepository.findByOwnerId(user.getId()));
@@ -78,6 +92,11 @@ public class RestaurantServiceImp implements RestaurantService {
 
         log.info("No se encontró restaurante existente para '{}'. Procediendo a crear uno nuevo.", user.getEmail());
 
+        // El principal autenticado no es una entidad JPA; cargamos el propietario gestionado para la relación.
+        User owner = userRepository.findById(user.getId())
+                .orElseThrow(() -> new UserNotFoundException("El usuario autenticado con ID " + user.getId() +
+                                                             " no fue encontrado en la base de datos."));
+
         // Primero, guardamos la dirección para obtener su ID.
         Address address = addressRepository.save(req.getAddress());
 
@@ -93,11 +112,12 @@ public class RestaurantServiceImp implements RestaurantService {
         restaurant.setImages(req.getImages());
         restaurant.setRegistrationDate(LocalDateTime.now());
         restaurant.setOpen(false);
-        restaurant.setOwner(user);
+        restaurant.setOwner(owner);
 
 
         Restaurant savedRestaurant = restaurantRepository.save(restaurant);
         log.info("Restaurante '{}' (ID: {}) creado exitosamente.", savedRestaurant.getName(), savedRestaurant.getId());
+        eventPublisher.publishEvent(RestaurantChangedEvent.changed(savedRestaurant.getId()));
 
         return mapToRestaurantDto(savedRestaurant);
     }
@@ -120,7 +140,7 @@ public class RestaurantServiceImp implements RestaurantService {
      */
     @Override
     @Transactional
-    public Restaurant updateRestaurant(Long id, CreateRestaurantRequest updateRequest, User user) {
+    public Restaurant updateRestaurant(Long id, CreateRestaurantRequest updateRequest, AuthenticatedUser user) {
         Restaurant restaurant = validateOwnershipAndGetRestaurant(id, user);
 
         log.info("Usuario '{}' actualizando el restaurante '{}' (ID: {}).", user.getEmail(), restaurant.getName(), id);
@@ -137,13 +157,17 @@ public class RestaurantServiceImp implements RestaurantService {
                 restaurant.getAddress().setStreet(newAddress.getStreet());
                 restaurant.getAddress().setCity(newAddress.getCity());
                 restaurant.getAddress().setState(newAddress.getState());
+                restaurant.getAddress().setLatitude(newAddress.getLatitude());
+                restaurant.getAddress().setLongitude(newAddress.getLongitude());
                 addressRepository.save(restaurant.getAddress());
             } else {
                 restaurant.setAddress(addressRepository.save(newAddress));
             }
         }
 
-        return restaurantRepository.save(restaurant);
+        Restaurant savedRestaurant = restaurantRepository.save(restaurant);
+        eventPublisher.publishEvent(RestaurantChangedEvent.changed(savedRestaurant.getId()));
+        return savedRestaurant;
 
     }
 
@@ -160,13 +184,14 @@ public class RestaurantServiceImp implements RestaurantService {
      */
     @Override
     @Transactional
-    public void deleteRestaurant(Long id, User user) {
+    public void deleteRestaurant(Long id, AuthenticatedUser user) {
         Restaurant restaurant = validateOwnershipAndGetRestaurant(id, user);
 
         log.warn("¡ACCIÓN CRÍTICA! Usuario '{}' eliminando el restaurante '{}' (ID: {}).",
                 user.getEmail(), restaurant.getName(), id);
 
         restaurantRepository.delete(restaurant);
+        eventPublisher.publishEvent(RestaurantChangedEvent.removed(id));
     }
 
     /**
@@ -182,7 +207,7 @@ public class RestaurantServiceImp implements RestaurantService {
 
     @Override
     @Transactional
-    public List<AdddToFavoritesDto>  addToFavorite(Long restaurantId, User detachedUser) {
+    public List<AdddToFavoritesDto>  addToFavorite(Long restaurantId, AuthenticatedUser detachedUser) {
         // 1. Buscamos el restaurante que se va a añadir.
         Restaurant restaurant = findRestaurantById(restaurantId);
 
@@ -217,6 +242,8 @@ public class RestaurantServiceImp implements RestaurantService {
         // 6. Guardamos el usuario gestionado. JPA/Hibernate se encargará de actualizar
         // la tabla de favoritos.
         userRepository.save(managedUser);
+        // Los favoritos forman parte del usuario cacheado: invalidamos su entrada.
+        userDetailsService.evictUser(managedUser.getEmail());
 
         log.info("Usuario '{}' agregó el restaurante '{}' a sus favoritos.", managedUser.getEmail(), restaurant.getName());
 
@@ -233,7 +260,7 @@ public class RestaurantServiceImp implements RestaurantService {
      */
     @Override
     @Transactional
-    public RestaurantDto updateRestaurantStatus(Long id, User user) {
+    public RestaurantDto updateRestaurantStatus(Long id, AuthenticatedUser user) {
         Restaurant restaurant = validateOwnershipAndGetRestaurant(id, user);
 
         restaurant.setOpen(!restaurant.isOpen());
@@ -242,6 +269,8 @@ public class RestaurantServiceImp implements RestaurantService {
                 user.getEmail(), restaurant.getName(), id, restaurant.isOpen() ? "ABIERTO" : "CERRADO");
 
         Restaurant savedRestaurant = restaurantRepository.save(restaurant);
+        // Abrir o cerrar cambia su visibilidad en la búsqueda por cercanía.
+        eventPublisher.publishEvent(RestaurantChangedEvent.changed(savedRestaurant.getId()));
 
         return mapToRestaurantDto( savedRestaurant );
     }
@@ -250,23 +279,38 @@ public class RestaurantServiceImp implements RestaurantService {
 
     /**
      * Obtiene una lista de todos los restaurantes registrados en el sistema.
-      * @return Una lista de entidades {@link Restaurant}.
+      * @return Una lista de entidades {@link Restaurant}, con su tiempo estimado de entrega.
       */
     @Override
     public List<Restaurant> getAllRestaurants() {
         log.debug("Recuperando todos los restaurantes.");
-        return restaurantRepository.findAll();
+        return withEta(restaurantRepository.findAll());
     }
 
     /**
-     * Busca restaurantes cuyo nombre o tipo de cocina coincidan con una palabra clave.
+     * Busca restaurantes cuyo nombre, tipo de cocina o descripción coincidan con una palabra clave,
+     * ordenados por relevancia. La búsqueda se resuelve en el índice en memoria y solo se cargan
+     * de la base de datos los restaurantes de la página.
      * @param keyword La palabra clave para la búsqueda.
+     * @param page    Número de página (empezando en 0); {@code null} equivale a 0.
+     * @param size    Tamaño de página; {@code null} usa el valor por defecto.
      * @return Una lista de restaurantes que coinciden con el criterio.
      */
     @Override
-    public List<Restaurant> searchRestaurants(String keyword) {
+    @Transactional(readOnly = true)
+    public List<Restaurant> searchRestaurants(String keyword, Integer page, Integer size) {
         log.debug("Buscando restaurantes con la palabra clave: '{}'", keyword);
-        return restaurantRepository.findBySearchQuery(keyword);
+        List<Long> ids = searchIndexService.searchRestaurantIds(keyword, page, size);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        // findAllById no garantiza el orden: se reordena según la relevancia del índice
+        Map<Long, Restaurant> restaurantsById = restaurantRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Restaurant::getId, Function.identity()));
+        return withEta(ids.stream()
+                .map(restaurantsById::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList()));
     }
 
     /**
@@ -316,7 +360,7 @@ public class RestaurantServiceImp implements RestaurantService {
      * @throws RestaurantNotFoundException si el restaurante no existe.
      * @throws AccessDeniedException si el usuario no cumple con las reglas de permisos.
      */
-    private Restaurant validateOwnershipAndGetRestaurant(Long restaurantId, User user) {
+    private Restaurant validateOwnershipAndGetRestaurant(Long restaurantId, AuthenticatedUser user) {
         Restaurant restaurant = findRestaurantById(restaurantId);
 
         String userRole = user.getRole().name();
@@ -341,6 +385,17 @@ public class RestaurantServiceImp implements RestaurantService {
         throw new AccessDeniedException("No tienes permiso para realizar esta acción en este restaurante.");
     }
 
+    /**
+     * Completa el tiempo estimado de entrega de cada restaurante. Sin la ubicación del cliente el
+     * viaje se estima con los tiempos de entrega aprendidos; no consulta la base de datos.
+     */
+    private List<Restaurant> withEta(List<Restaurant> restaurants) {
+        for (Restaurant restaurant : restaurants) {
+            restaurant.setEtaMinutes(etaService.estimateMinutes(restaurant.getId(), null));
+        }
+        return restaurants;
+    }
+
     private RestaurantDto mapToRestaurantDto(Restaurant restaurant) {
         RestaurantDto dto = new RestaurantDto();
         dto.setId(restaurant.getId());
@@ -354,6 +409,7 @@ public class RestaurantServiceImp implements RestaurantService {
         dto.setOpen(restaurant.isOpen()); // Asegúrate de que la entidad Restaurant tiene este campo.
         dto.setRegistrationDate(restaurant.getRegistrationDate());
         dto.setOwner(restaurant.getOwner());
+        dto.setEtaMinutes(etaService.estimateMinutes(restaurant.getId(), null));
         return dto;
     }
 }
\ No newline at end of file
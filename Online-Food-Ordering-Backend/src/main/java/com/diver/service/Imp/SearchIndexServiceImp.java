@@ -0,0 +1,263 @@
+package com.diver.service.Imp;
+
+import com.diver.event.MenuChangedEvent;
+import com.diver.event.RestaurantChangedEvent;
+import com.diver.exception.BadRequestException;
+import com.diver.model.Food;
+import com.diver.model.Restaurant;
+import com.diver.repository.FoodRepository;
+import com.diver.repository.RestaurantRepository;
+import com.diver.search.InvertedIndex;
+import com.diver.service.SearchIndexService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Implementación del índice de búsqueda basada en dos {@link InvertedIndex} en memoria:
+ * uno de platos y otro de restaurantes.
+ * <p>
+ * Los documentos de platos incluyen también el nombre y el tipo de cocina de su restaurante,
+ * de modo que buscar "sushi" encuentra los platos de los restaurantes japoneses. Por eso, al
+ * cambiar un restaurante se reindexan también sus platos.
+ * <p>
+ * Las actualizaciones incrementales y la reconstrucción completa se serializan con un candado;
+ * la reconstrucción crea índices nuevos y los publica al terminar, así que las búsquedas nunca
+ * ven un índice a medio construir.
+ */
+@Slf4j
+@Service
+public class SearchIndexServiceImp implements SearchIndexService {
+
+    private static final int REBUILD_BATCH_SIZE = 500;
+
+    private static final float NAME_BOOST = 3.0f;
+    private static final float CATEGORY_BOOST = 2.0f;
+    private static final float CUISINE_BOOST = 2.0f;
+    private static final float DESCRIPTION_BOOST = 1.0f;
+    private static final float PARENT_BOOST = 1.0f;
+
+    private final FoodRepository foodRepository;
+    private final RestaurantRepository restaurantRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final boolean rebuildOnStartup;
+    private final int defaultPageSize;
+    private final int maxPageSize;
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private volatile Indexes indexes = new Indexes();
+
+    public SearchIndexServiceImp(FoodRepository foodRepository,
+                                 RestaurantRepository restaurantRepository,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${app.search.rebuild-on-startup:true}") boolean rebuildOnStartup,
+                                 @Value("${app.search.page.default-size:20}") int defaultPageSize,
+                                 @Value("${app.search.page.max-size:100}") int maxPageSize) {
+        this.foodRepository = foodRepository;
+        this.restaurantRepository = restaurantRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.rebuildOnStartup = rebuildOnStartup;
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
+    }
+
+    @Override
+    public List<Long> searchFoodIds(String keyword, Integer page, Integer size) {
+        return search(indexes.foods, keyword, page, size);
+    }
+
+    @Override
+    public List<Long> searchRestaurantIds(String keyword, Integer page, Integer size) {
+        return search(indexes.restaurants, keyword, page, size);
+    }
+
+    /**
+     * Reconstruye los índices desde la base de datos, leyendo por lotes de
+     * {@value #REBUILD_BATCH_SIZE} filas, cada lote en su propia transacción de solo lectura
+     * para no acumular entidades en un único contexto de persistencia.
+     */
+    @Override
+    public void rebuild() {
+        writeLock.lock();
+        try {
+            long start = System.currentTimeMillis();
+            Indexes rebuilt = new Indexes();
+
+            Slice<Restaurant> restaurants;
+            int page = 0;
+            do {
+                PageRequest pageRequest = PageRequest.of(page++, REBUILD_BATCH_SIZE, Sort.by("id"));
+                restaurants = readOnlyTransaction.execute(status -> {
+                    Slice<Restaurant> slice = restaurantRepository.findAll(pageRequest);
+                    slice.forEach(restaurant -> indexRestaurant(rebuilt, restaurant));
+                    return slice;
+                });
+            } while (restaurants != null && restaurants.hasNext());
+
+            Slice<Food> foods;
+            page = 0;
+            do {
+                PageRequest pageRequest = PageRequest.of(page++, REBUILD_BATCH_SIZE, Sort.by("id"));
+                foods = readOnlyTransaction.execute(status -> {
+                    Slice<Food> slice = foodRepository.findAll(pageRequest);
+                    slice.forEach(food -> indexFood(rebuilt, food));
+                    return slice;
+                });
+            } while (foods != null && foods.hasNext());
+
+            indexes = rebuilt;
+            log.info("Índice de búsqueda reconstruido en {} ms: {} restaurantes, {} platos.",
+                    System.currentTimeMillis() - start, rebuilt.restaurants.size(), rebuilt.foods.size());
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        if (rebuildOnStartup) {
+            rebuild();
+        } else {
+            log.warn("La reconstrucción del índice de búsqueda al arrancar está desactivada; "
+                    + "las búsquedas no devolverán resultados hasta que se reconstruya.");
+        }
+    }
+
+    /**
+     * Mantiene el índice de platos sincronizado tras el commit de un cambio en el menú.
+     * Los cambios de stock de ingredientes no afectan al texto indexado y se ignoran.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public void onMenuChanged(MenuChangedEvent event) {
+        if (event.foodId() == null) {
+            return;
+        }
+        writeLock.lock();
+        try {
+            Indexes current = indexes;
+            if (event.removed()) {
+                removeFood(current, event.restaurantId(), event.foodId());
+            } else {
+                foodRepository.findById(event.foodId()).ifPresentOrElse(
+                        food -> indexFood(current, food),
+                        () -> removeFood(current, event.restaurantId(), event.foodId()));
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Mantiene el índice de restaurantes sincronizado tras el commit de un cambio, y reindexa
+     * los platos del restaurante porque sus documentos incluyen el nombre y la cocina.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public void onRestaurantChanged(RestaurantChangedEvent event) {
+        writeLock.lock();
+        try {
+            Indexes current = indexes;
+            Restaurant restaurant = event.removed()
+                    ? null
+                    : restaurantRepository.findById(event.restaurantId()).orElse(null);
+
+            if (restaurant == null) {
+                current.restaurants.remove(event.restaurantId());
+                Set<Long> foodIds = current.foodsByRestaurant.remove(event.restaurantId());
+                if (foodIds != null) {
+                    foodIds.forEach(current.foods::remove);
+                }
+                return;
+            }
+
+            indexRestaurant(current, restaurant);
+            foodRepository.findByRestaurantId(restaurant.getId()).forEach(food -> indexFood(current, food));
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // --- METODOS PRIVADOS ---
+
+    private List<Long> search(InvertedIndex index, String keyword, Integer page, Integer size) {
+        if (keyword == null || keyword.isBlank()) {
+            return List.of();
+        }
+        int pageNumber = page == null ? 0 : page;
+        if (pageNumber < 0) {
+            throw new BadRequestException("El número de página no puede ser negativo.");
+        }
+        int pageSize = resolvePageSize(size);
+        long offset = (long) pageNumber * pageSize;
+        if (offset > Integer.MAX_VALUE - pageSize) {
+            return List.of();
+        }
+        return index.search(keyword, (int) offset, pageSize).ids();
+    }
+
+    private int resolvePageSize(Integer size) {
+        if (size == null) {
+            return defaultPageSize;
+        }
+        if (size < 1) {
+            throw new BadRequestException("El tamaño de página debe ser mayor que cero.");
+        }
+        return Math.min(size, maxPageSize);
+    }
+
+    private static void indexRestaurant(Indexes target, Restaurant restaurant) {
+        target.restaurants.put(restaurant.getId(), List.of(
+                new InvertedIndex.Field(restaurant.getName(), NAME_BOOST),
+                new InvertedIndex.Field(restaurant.getCuisineType(), CUISINE_BOOST),
+                new InvertedIndex.Field(restaurant.getDescription(), DESCRIPTION_BOOST)));
+    }
+
+    private static void indexFood(Indexes target, Food food) {
+        Restaurant restaurant = food.getRestaurant();
+        target.foods.put(food.getId(), List.of(
+                new InvertedIndex.Field(food.getName(), NAME_BOOST),
+                new InvertedIndex.Field(food.getCategory() != null ? food.getCategory().getName() : null, CATEGORY_BOOST),
+                new InvertedIndex.Field(food.getDescription(), DESCRIPTION_BOOST),
+                new InvertedIndex.Field(restaurant != null ? restaurant.getName() : null, PARENT_BOOST),
+                new InvertedIndex.Field(restaurant != null ? restaurant.getCuisineType() : null, PARENT_BOOST)));
+        if (restaurant != null) {
+            target.foodsByRestaurant
+                    .computeIfAbsent(restaurant.getId(), id -> ConcurrentHashMap.newKeySet())
+                    .add(food.getId());
+        }
+    }
+
+    private static void removeFood(Indexes target, Long restaurantId, Long foodId) {
+        target.foods.remove(foodId);
+        Set<Long> foodIds = target.foodsByRestaurant.get(restaurantId);
+        if (foodIds != null) {
+            foodIds.remove(foodId);
+        }
+    }
+
+    /** Conjunto de índices que se publica de forma atómica tras una reconstrucción. */
+    private static final class Indexes {
+        private final InvertedIndex foods = new InvertedIndex();
+        private final InvertedIndex restaurants = new InvertedIndex();
+        private final Map<Long, Set<Long>> foodsByRestaurant = new ConcurrentHashMap<>();
+    }
+}
@@ -0,0 +1,329 @@
+package com.diver.service.Imp;
+
+import com.diver.dto.SuggestionDto;
+import com.diver.event.MenuChangedEvent;
+import com.diver.event.OrderPlacedEvent;
+import com.diver.event.RestaurantChangedEvent;
+import com.diver.exception.BadRequestException;
+import com.diver.model.Food;
+import com.diver.model.Restaurant;
+import com.diver.repository.FoodRepository;
+import com.diver.repository.OrderItemRepository;
+import com.diver.repository.OrderRepository;
+import com.diver.repository.RestaurantRepository;
+import com.diver.repository.projection.FoodSuggestionRow;
+import com.diver.repository.projection.PopularityRow;
+import com.diver.repository.projection.RestaurantSuggestionRow;
+import com.diver.search.SuggestionTrie;
+import com.diver.search.SuggestionType;
+import com.diver.service.SuggestionService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * Implementación del autocompletado basada en un {@link SuggestionTrie} en memoria.
+ * <p>
+ * El peso de cada sugerencia es la suma de la popularidad de las entidades que la aportan:
+ * un plato pesa {@code 1 + unidades pedidas} y un restaurante {@code 1 + pedidos recibidos}.
+ * Así, "Pizza Margarita" servida por varios restaurantes acumula el peso de todos sus platos,
+ * y una categoría o un tipo de cocina pesa tanto como sus platos o restaurantes.
+ * <p>
+ * La popularidad por pedidos se calcula al reconstruir (al arrancar); entre reconstrucciones,
+ * cada orden confirmada suma sus unidades a sus platos y un pedido a su restaurante, y los
+ * cambios de platos y restaurantes se aplican de forma incremental tras cada commit, restando la
+ * aportación anterior de la entidad y sumando la nueva.
+ */
+@Slf4j
+@Service
+public class SuggestionServiceImp implements SuggestionService {
+
+    private final FoodRepository foodRepository;
+    private final RestaurantRepository restaurantRepository;
+    private final OrderItemRepository orderItemRepository;
+    private final OrderRepository orderRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final boolean rebuildOnStartup;
+    private final int defaultLimit;
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private volatile State state = new State();
+
+    public SuggestionServiceImp(FoodRepository foodRepository,
+                                RestaurantRepository restaurantRepository,
+                                OrderItemRepository orderItemRepository,
+                                OrderRepository orderRepository,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${app.search.rebuild-on-startup:true}") boolean rebuildOnStartup,
+                                @Value("${app.search.suggest.default-limit:8}") int defaultLimit) {
+        this.foodRepository = foodRepository;
+        this.restaurantRepository = restaurantRepository;
+        this.orderItemRepository = orderItemRepository;
+        this.orderRepository = orderRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.rebuildOnStartup = rebuildOnStartup;
+        this.defaultLimit = defaultLimit;
+    }
+
+    @Override
+    public List<SuggestionDto> suggest(String prefix, Integer limit) {
+        int resolvedLimit = limit == null ? defaultLimit : limit;
+        if (resolvedLimit < 1) {
+            throw new BadRequestException("El límite de sugerencias debe ser mayor que cero.");
+        }
+        return state.trie.suggest(prefix, Math.min(resolvedLimit, SuggestionTrie.TOP_K)).stream()
+                .map(entry -> new SuggestionDto(entry.text(), entry.type(), entry.weight()))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public void rebuild() {
+        writeLock.lock();
+        try {
+            long start = System.currentTimeMillis();
+            State rebuilt = new State();
+            readOnlyTransaction.executeWithoutResult(status -> {
+                Map<Long, Long> foodPopularity = toMap(orderItemRepository.findFoodPopularity());
+                Map<Long, Long> restaurantPopularity = toMap(orderRepository.findRestaurantPopularity());
+
+                for (RestaurantSuggestionRow row : restaurantRepository.findSuggestionRows()) {
+                    rebuilt.putRestaurant(row.id(), row.name(), row.cuisineType(),
+                            1 + restaurantPopularity.getOrDefault(row.id(), 0L));
+                }
+                for (FoodSuggestionRow row : foodRepository.findSuggestionRows()) {
+                    rebuilt.putFood(row.id(), row.restaurantId(), row.name(), row.categoryName(),
+                            1 + foodPopularity.getOrDefault(row.id(), 0L));
+                }
+            });
+            state = rebuilt;
+            log.info("Índice de autocompletado reconstruido en {} ms: {} sugerencias.",
+                    System.currentTimeMillis() - start, rebuilt.trie.size());
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        if (rebuildOnStartup) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Aplica tras el commit la creación, modificación o eliminación de un plato.
+     * Los cambios de stock de ingredientes no afectan a las sugerencias y se ignoran.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public void onMenuChanged(MenuChangedEvent event) {
+        if (event.foodId() == null) {
+            return;
+        }
+        writeLock.lock();
+        try {
+            State current = state;
+            Food food = event.removed() ? null : foodRepository.findById(event.foodId()).orElse(null);
+            if (food == null) {
+                current.removeFood(event.foodId());
+                return;
+            }
+            current.putFood(food.getId(), event.restaurantId(), food.getName(),
+                    food.getCategory() != null ? food.getCategory().getName() : null,
+                    current.foodWeight(food.getId()));
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Aplica tras el commit la creación, modificación o eliminación de un restaurante.
+     * Al eliminarlo se retiran también las aportaciones de sus platos (borrados en cascada).
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public void onRestaurantChanged(RestaurantChangedEvent event) {
+        writeLock.lock();
+        try {
+            State current = state;
+            Restaurant restaurant = event.removed()
+                    ? null
+                    : restaurantRepository.findById(event.restaurantId()).orElse(null);
+            if (restaurant == null) {
+                current.removeRestaurant(event.restaurantId());
+                return;
+            }
+            current.putRestaurant(restaurant.getId(), restaurant.getName(), restaurant.getCuisineType(),
+                    current.restaurantWeight(restaurant.getId()));
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Suma tras el commit la popularidad de una orden nueva: sus unidades a cada plato y un
+     * pedido a su restaurante. Los platos o restaurantes que aún no están indexados se ignoran.
+     * <p>
+     * Una orden confirmada mientras se reconstruye el índice puede contarse dos veces (en la
+     * consulta de la reconstrucción y aquí); el desvío es de una orden y se corrige en la
+     * siguiente reconstrucción.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onOrderPlaced(OrderPlacedEvent event) {
+        writeLock.lock();
+        try {
+            State current = state;
+            for (OrderPlacedEvent.Item item : event.items()) {
+                if (item.quantity() > 0) {
+                    current.addFoodWeight(item.foodId(), item.quantity());
+                }
+            }
+            current.addRestaurantWeight(event.restaurantId(), 1);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private static Map<Long, Long> toMap(List<PopularityRow> rows) {
+        Map<Long, Long> map = new HashMap<>();
+        for (PopularityRow row : rows) {
+            if (row.id() != null && row.weight() != null) {
+                map.put(row.id(), row.weight());
+            }
+        }
+        return map;
+    }
+
+    // --- ESTADO DEL ÍNDICE ---
+
+    private record FoodSource(Long restaurantId, String name, String category, long weight) {
+    }
+
+    private record RestaurantSource(String name, String cuisineType, long weight) {
+    }
+
+    private record AggregateKey(SuggestionType type, String normalized) {
+    }
+
+    /** Texto a mostrar y peso acumulado de una sugerencia. */
+    private static final class Aggregate {
+        private final String text;
+        private long weight;
+
+        private Aggregate(String text) {
+            this.text = text;
+        }
+    }
+
+    /**
+     * Trie y contabilidad de aportaciones. Solo se modifica con el candado de escritura del
+     * servicio; las lecturas concurrentes pasan únicamente por el trie, que es seguro.
+     */
+    private static final class State {
+        private final SuggestionTrie trie = new SuggestionTrie();
+        private final Map<Long, FoodSource> foods = new HashMap<>();
+        private final Map<Long, RestaurantSource> restaurants = new HashMap<>();
+        private final Map<Long, Set<Long>> foodsByRestaurant = new HashMap<>();
+        private final Map<AggregateKey, Aggregate> aggregates = new HashMap<>();
+
+        private long foodWeight(Long foodId) {
+            FoodSource source = foods.get(foodId);
+            return source != null ? source.weight() : 1;
+        }
+
+        private long restaurantWeight(Long restaurantId) {
+            RestaurantSource source = restaurants.get(restaurantId);
+            return source != null ? source.weight() : 1;
+        }
+
+        private void putFood(Long id, Long restaurantId, String name, String category, long weight) {
+            removeFood(id);
+            foods.put(id, new FoodSource(restaurantId, name, category, weight));
+            foodsByRestaurant.computeIfAbsent(restaurantId, r -> new HashSet<>()).add(id);
+            adjust(SuggestionType.DISH, name, weight);
+            adjust(SuggestionType.CATEGORY, category, weight);
+        }
+
+        private void addFoodWeight(Long id, long delta) {
+            FoodSource source = foods.get(id);
+            if (source != null) {
+                putFood(id, source.restaurantId(), source.name(), source.category(), source.weight() + delta);
+            }
+        }
+
+        private void addRestaurantWeight(Long id, long delta) {
+            RestaurantSource source = restaurants.get(id);
+            if (source != null) {
+                putRestaurant(id, source.name(), source.cuisineType(), source.weight() + delta);
+            }
+        }
+
+        private void removeFood(Long id) {
+            FoodSource previous = foods.remove(id);
+            if (previous == null) {
+                return;
+            }
+            Set<Long> siblings = foodsByRestaurant.get(previous.restaurantId());
+            if (siblings != null) {
+                siblings.remove(id);
+            }
+            adjust(SuggestionType.DISH, previous.name(), -previous.weight());
+            adjust(SuggestionType.CATEGORY, previous.category(), -previous.weight());
+        }
+
+        private void putRestaurant(Long id, String name, String cuisineType, long weight) {
+            RestaurantSource previous = restaurants.put(id, new RestaurantSource(name, cuisineType, weight));
+            if (previous != null) {
+                adjust(SuggestionType.RESTAURANT, previous.name(), -previous.weight());
+                adjust(SuggestionType.CUISINE, previous.cuisineType(), -previous.weight());
+            }
+            adjust(SuggestionType.RESTAURANT, name, weight);
+            adjust(SuggestionType.CUISINE, cuisineType, weight);
+        }
+
+        private void removeRestaurant(Long id) {
+            RestaurantSource previous = restaurants.remove(id);
+            if (previous != null) {
+                adjust(SuggestionType.RESTAURANT, previous.name(), -previous.weight());
+                adjust(SuggestionType.CUISINE, previous.cuisineType(), -previous.weight());
+            }
+            Set<Long> foodIds = foodsByRestaurant.remove(id);
+            if (foodIds != null) {
+                foodIds.forEach(this::removeFood);
+            }
+        }
+
+        private void adjust(SuggestionType type, String text, long delta) {
+            String normalized = SuggestionTrie.normalize(text);
+            if (normalized.isEmpty()) {
+                return;
+            }
+            AggregateKey key = new AggregateKey(type, normalized);
+            Aggregate aggregate = aggregates.computeIfAbsent(key, k -> new Aggregate(text.trim()));
+            aggregate.weight += delta;
+            if (aggregate.weight <= 0) {
+                aggregates.remove(key);
+                trie.remove(type, aggregate.text);
+            } else {
+                trie.put(type, aggregate.text, aggregate.weight);
+            }
+        }
+    }
+}
@@ -0,0 +1,324 @@
+package com.diver.service.Imp;
+
+import com.diver.config.VirtualThreads;
+import com.diver.exception.ResourceNotFoundException;
+import com.diver.model.Cart;
+import com.diver.model.CartItem;
+import com.diver.repository.CartRepository;
+import com.diver.service.CartStore;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Almacén de carritos en memoria con escritura diferida (write-behind) a MySQL.
+ * <p>
+ * Cada carrito vivo es una instantánea inmutable por convención: una modificación copia el
+ * carrito, aplica la mutación sobre la copia y la publica solo si termina sin errores, por lo
+ * que las lecturas no necesitan candado. Las escrituras del mismo carrito se serializan con un
+ * candado por usuario.
+ * <p>
+ * Un hilo en segundo plano vuelca cada {@code app.cart.write-behind.flush-interval} los carritos
+ * modificados (un {@code merge} en su propia transacción) y descarta de memoria los que llevan
+ * más de {@code app.cart.write-behind.idle-ttl} sin uso. Los ítems nuevos necesitan un ID estable
+ * para la API, así que una modificación que los crea se vuelca de inmediato (write-through);
+ * cambios de cantidad, eliminaciones y vaciados se quedan en memoria hasta el siguiente volcado.
+ * <p>
+ * La carga de un carrito que no está en memoria y el write-through se unen a la transacción del
+ * servicio si hay una en curso, en lugar de abrir otra: así cada petición usa una sola conexión
+ * del pool, también en los picos de carga. Por eso el write-through requiere una transacción de
+ * escritura, no de solo lectura.
+ * <p>
+ * Si la transacción del servicio que hizo la modificación se revierte (por ejemplo, al vaciar el
+ * carrito dentro de una creación de orden que falla), se restaura la instantánea anterior. Si
+ * otra petición ya modificó el carrito, se conserva su versión, pero los ítems que la
+ * transacción revertida había insertado pierden su ID y se insertan de nuevo en el siguiente
+ * volcado.
+ * <p>
+ * Solo es correcto con una única instancia de la aplicación, o con afinidad de sesión por usuario.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.cart.store", havingValue = "memory")
+public class WriteBehindCartStore implements CartStore {
+
+    private final CartRepository cartRepository;
+    private final TransactionTemplate readTransaction;
+    private final TransactionTemplate writeTransaction;
+    private final long idleTtlMillis;
+    private final Map<Long, Entry> carts = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService flusher;
+
+    public WriteBehindCartStore(CartRepository cartRepository,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${app.cart.write-behind.flush-interval:5s}") Duration flushInterval,
+                                @Value("${app.cart.write-behind.idle-ttl:30m}") Duration idleTtl,
+                                @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.cartRepository = cartRepository;
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.idleTtlMillis = idleTtl.toMillis();
+
+        this.flusher = Executors.newSingleThreadScheduledExecutor(
+                VirtualThreads.threadFactory(virtualThreads, "cart-write-behind"));
+        long intervalMillis = flushInterval.toMillis();
+        this.flusher.scheduleWithFixedDelay(this::flushDirtyCarts, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public Cart read(Long userId) {
+        Entry entry = entryFor(userId);
+        entry.lastAccess = System.currentTimeMillis();
+        return entry.state;
+    }
+
+    @Override
+    public Cart write(Long userId, Consumer<Cart> mutation) {
+        while (true) {
+            Entry entry = entryFor(userId);
+            entry.lock.lock();
+            try {
+                if (entry.evicted) {
+                    continue;
+                }
+                Cart previous = entry.state;
+                Cart next = copyOf(previous);
+                mutation.accept(next);
+
+                entry.version++;
+                if (hasUnsavedItems(next)) {
+                    // Write-through: los ítems nuevos necesitan su ID antes de responder
+                    next = persist(next);
+                    entry.flushedVersion = entry.version;
+                }
+                entry.state = next;
+                entry.lastAccess = System.currentTimeMillis();
+                guardAgainstRollback(entry, previous);
+                return next;
+            } finally {
+                entry.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Vuelca todos los carritos pendientes al detener la aplicación.
+     */
+    @PreDestroy
+    public void shutdown() {
+        flusher.shutdown();
+        for (Entry entry : carts.values()) {
+            entry.lock.lock();
+            try {
+                if (entry.isDirty() && !entry.evicted) {
+                    flushLocked(entry);
+                }
+            } catch (RuntimeException e) {
+                log.error("No se pudo volcar el carrito del usuario ID {} al detener la aplicación.", entry.userId, e);
+            } finally {
+                entry.lock.unlock();
+            }
+        }
+    }
+
+    // --- METODOS PRIVADOS ---
+
+    private Entry entryFor(Long userId) {
+        Entry entry = carts.get(userId);
+        if (entry != null) {
+            return entry;
+        }
+        Cart loaded = readTransaction.execute(status -> {
+            Cart cart = cartRepository.findByCustomerId(userId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Carrito no encontrado para el usuario con ID: " + userId));
+            return copyOf(cart);
+        });
+        Entry created = new Entry(userId, loaded);
+        Entry existing = carts.putIfAbsent(userId, created);
+        return existing != null ? existing : created;
+    }
+
+    /**
+     * Ejecución periódica: vuelca los carritos modificados y descarta los inactivos.
+     * Los carritos ocupados o con una transacción del servicio en curso se dejan para la siguiente.
+     */
+    private void flushDirtyCarts() {
+        long now = System.currentTimeMillis();
+        int flushed = 0;
+        for (Entry entry : carts.values()) {
+            if (!entry.lock.tryLock()) {
+                continue;
+            }
+            try {
+                if (entry.evicted || entry.activeTransactions > 0) {
+                    continue;
+                }
+                if (entry.isDirty()) {
+                    flushLocked(entry);
+                    flushed++;
+                } else if (now - entry.lastAccess > idleTtlMillis) {
+                    entry.evicted = true;
+                    carts.remove(entry.userId, entry);
+                }
+            } catch (RuntimeException e) {
+                log.error("Error al volcar el carrito del usuario ID {}. Se reintentará.", entry.userId, e);
+            } finally {
+                entry.lock.unlock();
+            }
+        }
+        if (flushed > 0) {
+            log.debug("Write-behind: {} carritos volcados a la base de datos.", flushed);
+        }
+    }
+
+    /**
+     * Persiste la instantánea actual y la reemplaza por la versión guardada, que trae los IDs
+     * de los ítems nuevos. Debe llamarse con el candado de la entrada.
+     */
+    private void flushLocked(Entry entry) {
+        entry.state = persist(entry.state);
+        entry.flushedVersion = entry.version;
+    }
+
+    private Cart persist(Cart cart) {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            throw new IllegalStateException("No se pueden añadir ítems al carrito en una transacción de solo lectura.");
+        }
+        return writeTransaction.execute(status -> copyOf(cartRepository.save(copyOf(cart))));
+    }
+
+    /**
+     * Registra, una vez por transacción y carrito, la restauración de la instantánea previa
+     * a la primera modificación si la transacción del servicio se revierte.
+     */
+    private void guardAgainstRollback(Entry entry, Cart previous) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        RollbackGuard guard = (RollbackGuard) TransactionSynchronizationManager.getResource(entry);
+        if (guard == null) {
+            guard = new RollbackGuard(entry, previous);
+            TransactionSynchronizationManager.bindResource(entry, guard);
+            TransactionSynchronizationManager.registerSynchronization(guard);
+            entry.activeTransactions++;
+        }
+        guard.latest = entry.state;
+    }
+
+    private static boolean hasUnsavedItems(Cart cart) {
+        return cart.getCartItems().stream().anyMatch(item -> item.getId() == null);
+    }
+
+    /**
+     * Copia profunda del carrito y sus ítems. Los platos y el cliente se comparten:
+     * no se modifican desde el carrito.
+     */
+    private static Cart copyOf(Cart source) {
+        Cart copy = new Cart();
+        copy.setId(source.getId());
+        copy.setCustomer(source.getCustomer());
+        copy.setTotal(source.getTotal());
+        List<CartItem> items = new ArrayList<>(source.getCartItems().size());
+        for (CartItem item : source.getCartItems()) {
+            CartItem itemCopy = new CartItem();
+            itemCopy.setId(item.getId());
+            itemCopy.setCart(copy);
+            itemCopy.setFood(item.getFood());
+            itemCopy.setQuantity(item.getQuantity());
+            itemCopy.setTotalPrice(item.getTotalPrice());
+            itemCopy.setIngredients(item.getIngredients() != null ? new ArrayList<>(item.getIngredients()) : null);
+            items.add(itemCopy);
+        }
+        copy.setCartItems(items);
+        return copy;
+    }
+
+    /** Estado en memoria del carrito de un usuario. */
+    private static final class Entry {
+        private final Long userId;
+        private final ReentrantLock lock = new ReentrantLock();
+        private volatile Cart state;
+        private volatile long lastAccess = System.currentTimeMillis();
+        private long version;
+        private long flushedVersion;
+        private int activeTransactions;
+        private volatile boolean evicted;
+
+        private Entry(Long userId, Cart state) {
+            this.userId = userId;
+            this.state = state;
+        }
+
+        private boolean isDirty() {
+            return version != flushedVersion;
+        }
+    }
+
+    /** Restaura el carrito si la transacción que lo modificó se revierte. */
+    private static final class RollbackGuard implements TransactionSynchronization {
+        private final Entry entry;
+        private final Cart original;
+        private Cart latest;
+
+        private RollbackGuard(Entry entry, Cart original) {
+            this.entry = entry;
+            this.original = original;
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(entry);
+            entry.lock.lock();
+            try {
+                entry.activeTransactions--;
+                if (status != STATUS_ROLLED_BACK) {
+                    return;
+                }
+                if (entry.state == latest) {
+                    entry.state = original;
+                    entry.version++;
+                    return;
+                }
+                // Otra petición partió de esta versión: sus ítems insertados aquí ya no existen
+                Set<Long> rolledBack = itemIds(latest);
+                rolledBack.removeAll(itemIds(original));
+                if (!rolledBack.isEmpty()) {
+                    Cart current = copyOf(entry.state);
+                    current.getCartItems().stream()
+                            .filter(item -> rolledBack.contains(item.getId()))
+                            .forEach(item -> item.setId(null));
+                    entry.state = current;
+                    entry.version++;
+                }
+            } finally {
+                entry.lock.unlock();
+            }
+        }
+
+        private static Set<Long> itemIds(Cart cart) {
+            Set<Long> ids = new HashSet<>();
+            cart.getCartItems().forEach(item -> ids.add(item.getId()));
+            return ids;
+        }
+    }
+}
@@ -1,8 +1,8 @@
 package com.diver.service;
 
+import com.diver.dto.AuthenticatedUser;
 import com.diver.dto.IngredientCategoryDto;
 import com.diver.dto.IngredientItemDto;
-import com.diver.model.User;
 
 import java.util.List;
 
@@ -22,7 +22,7 @@ public interface IngredientsService {
      * @param user         El usuario que realiza la acción.
      * @return El DTO de la categoría creada.
      */
-    IngredientCategoryDto createIngredientCategory(String name, Long restaurantId, User user);
+    IngredientCategoryDto createIngredientCategory(String name, Long restaurantId, AuthenticatedUser user);
 
     /**
      * Encuentra una categoría de ingredientes por su ID.
@@ -51,7 +51,7 @@ public interface IngredientsService {
      * @param user         El usuario que realiza la acción.
      * @return El DTO del ingrediente creado.
      */
-    IngredientItemDto createIngredientItem(String name, Long restaurantId, Long categoryId, User user);
+    IngredientItemDto createIngredientItem(String name, Long restaurantId, Long categoryId, AuthenticatedUser user);
 
     /**
      * Encuentra todos los ingredientes de un restaurante.
@@ -69,5 +69,5 @@ public interface IngredientsService {
      * @param user         El usuario que realiza la acción.
      * @return El DTO del ingrediente con su estado actualizado.
      */
-    IngredientItemDto updateStock(Long ingredientId, User user);
+    IngredientItemDto updateStock(Long ingredientId, AuthenticatedUser user);
 }
\ No newline at end of file
@@ -0,0 +1,35 @@
+package com.diver.service;
+
+import com.diver.dto.AuthenticatedUser;
+import com.diver.dto.KitchenBoardDto;
+
+/**
+ * Contrato para el tablero de cocina: las órdenes activas (no finalizadas ni canceladas) de cada
+ * restaurante, mantenidas en memoria a partir de los cambios de estado.
+ */
+public interface KitchenBoardService {
+
+    /**
+     * Obtiene el tablero del restaurante del propietario. No consulta la base de datos salvo la
+     * primera vez que se resuelve el restaurante del propietario.
+     *
+     * @param user El usuario (propietario) autenticado.
+     * @return Las órdenes activas del restaurante agrupadas por estado.
+     * @throws com.diver.exception.RestaurantNotFoundException si el usuario no tiene restaurante.
+     */
+    KitchenBoardDto getBoard(AuthenticatedUser user);
+
+    /**
+     * Número de órdenes de un restaurante que esperan cocina ({@code PENDIENTE} o
+     * {@code EN_PREPARACION}). Se lee del tablero en memoria, sin consultar la base de datos.
+     *
+     * @param restaurantId El ID del restaurante.
+     * @return La longitud de la cola de cocina; 0 si el restaurante no tiene órdenes activas.
+     */
+    int queueLength(Long restaurantId);
+
+    /**
+     * Reconstruye todos los tableros desde la base de datos.
+     */
+    void rebuild();
+}
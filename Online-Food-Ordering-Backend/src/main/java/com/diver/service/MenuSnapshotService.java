@@ -0,0 +1,21 @@
+package com.diver.service;
+
+import com.diver.dto.MenuSnapshot;
+
+/**
+ * Contrato para el servicio que mantiene instantáneas precalculadas del menú de cada restaurante.
+ * <p>
+ * Las instantáneas se construyen bajo demanda y se actualizan de forma incremental cuando
+ * los servicios de escritura publican un {@link com.diver.event.MenuChangedEvent}.
+ */
+public interface MenuSnapshotService {
+
+    /**
+     * Obtiene la instantánea vigente del menú de un restaurante, construyéndola si no existe.
+     *
+     * @param restaurantId El ID del restaurante.
+     * @return La instantánea del menú completo del restaurante.
+     * @throws com.diver.exception.RestaurantNotFoundException si el restaurante no existe.
+     */
+    MenuSnapshot getMenu(Long restaurantId);
+}
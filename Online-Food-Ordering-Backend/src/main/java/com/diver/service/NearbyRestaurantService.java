@@ -0,0 +1,31 @@
+package com.diver.service;
+
+import com.diver.dto.NearbyRestaurantDto;
+
+import java.util.List;
+
+/**
+ * Contrato para la búsqueda de restaurantes abiertos cercanos a una ubicación.
+ * <p>
+ * Las consultas se resuelven en memoria con un índice espacial que se mantiene al crear,
+ * modificar, abrir, cerrar o eliminar restaurantes, sin consultar la base de datos.
+ */
+public interface NearbyRestaurantService {
+
+    /**
+     * Busca los restaurantes abiertos más cercanos a un punto.
+     *
+     * @param latitude  Latitud del punto, en grados.
+     * @param longitude Longitud del punto, en grados.
+     * @param radiusKm  (Opcional) Radio máximo de búsqueda en kilómetros; se acota al máximo configurado.
+     * @param limit     (Opcional) Número máximo de restaurantes; se acota al máximo configurado.
+     * @return Los restaurantes encontrados, del más cercano al más lejano.
+     * @throws com.diver.exception.BadRequestException si las coordenadas, el radio o el límite no son válidos.
+     */
+    List<NearbyRestaurantDto> findNearby(double latitude, double longitude, Double radiusKm, Integer limit);
+
+    /**
+     * Reconstruye el índice desde la base de datos.
+     */
+    void rebuild();
+}
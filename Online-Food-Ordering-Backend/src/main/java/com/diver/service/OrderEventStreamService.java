@@ -0,0 +1,35 @@
+package com.diver.service;
+
+import com.diver.dto.AuthenticatedUser;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Contrato para las notificaciones de cambios de estado de órdenes en tiempo real
+ * (Server-Sent Events), como alternativa a consultar periódicamente las órdenes.
+ * <p>
+ * Cada evento lleva como {@code id} el ID de la fila del registro de estados; un cliente que se
+ * reconecta envía el último recibido en la cabecera {@code Last-Event-ID} y recibe primero los
+ * eventos que se perdió. Si son demasiados, recibe un evento {@code resync} y debe volver a
+ * consultar las órdenes por la API REST.
+ */
+public interface OrderEventStreamService {
+
+    /**
+     * Suscribe al cliente a los cambios de estado de sus órdenes.
+     *
+     * @param user        El usuario (cliente) autenticado.
+     * @param lastEventId (Opcional) El ID del último evento recibido.
+     * @return El emisor SSE de la suscripción.
+     */
+    SseEmitter subscribeCustomer(AuthenticatedUser user, Long lastEventId);
+
+    /**
+     * Suscribe al propietario a los cambios de estado de las órdenes de su restaurante.
+     *
+     * @param user        El usuario (propietario) autenticado.
+     * @param lastEventId (Opcional) El ID del último evento recibido.
+     * @return El emisor SSE de la suscripción.
+     * @throws com.diver.exception.ResourceNotFoundException si el usuario no tiene restaurante.
+     */
+    SseEmitter subscribeRestaurant(AuthenticatedUser user, Long lastEventId);
+}
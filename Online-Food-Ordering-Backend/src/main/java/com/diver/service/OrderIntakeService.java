@@ -0,0 +1,36 @@
+package com.diver.service;
+
+import com.diver.dto.AuthenticatedUser;
+import com.diver.dto.OrderIntakeDto;
+import com.diver.request.OrderRequest;
+
+/**
+ * Contrato para la creación asíncrona de órdenes.
+ * <p>
+ * La petición se valida y se guarda en una cola duradera (tabla outbox) junto con una instantánea
+ * del carrito, que se vacía en ese momento; la respuesta es inmediata. Las órdenes se crean
+ * después, por lotes, en segundo plano.
+ */
+public interface OrderIntakeService {
+
+    /**
+     * Acepta una solicitud de orden y la encola.
+     *
+     * @param req  El DTO de la petición, con el ID del restaurante y la dirección de entrega.
+     * @param user El usuario (cliente) que realiza la orden.
+     * @return El estado inicial de la solicitud, con su {@code trackingId}.
+     * @throws com.diver.exception.ResourceNotFoundException     si el restaurante o el carrito no existen.
+     * @throws com.diver.exception.OperationNotAllowedException si el carrito está vacío.
+     */
+    OrderIntakeDto accept(OrderRequest req, AuthenticatedUser user);
+
+    /**
+     * Consulta el estado de una solicitud del usuario.
+     *
+     * @param trackingId El identificador devuelto al aceptarla.
+     * @param user       El usuario autenticado; solo puede consultar sus propias solicitudes.
+     * @return El estado de la solicitud.
+     * @throws com.diver.exception.ResourceNotFoundException si no existe o no pertenece al usuario.
+     */
+    OrderIntakeDto findByTrackingId(String trackingId, AuthenticatedUser user);
+}
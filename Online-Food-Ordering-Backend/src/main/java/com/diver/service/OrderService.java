@@ -1,7 +1,10 @@
 package com.diver.service;
 
+import com.diver.dto.AuthenticatedUser;
 import com.diver.dto.OrderDto;
-import com.diver.model.User;
+import com.diver.dto.OrderPageDto;
+import com.diver.dto.OrderStatusDto;
+import com.diver.dto.OrderStatusEventDto;
 import com.diver.request.OrderRequest;
 
 import java.util.List;
@@ -22,18 +25,21 @@ public interface OrderService {
      * @param user El usuario (cliente) que realiza la orden.
      * @return El DTO de la orden recién creada.
      */
-    OrderDto createOrder(OrderRequest req, User user);
+    OrderDto createOrder(OrderRequest req, AuthenticatedUser user);
 
     /**
      * Actualiza el estado de una orden.
      * Esta operación es típicamente realizada por el propietario del restaurante.
+     * Solo se permiten las transiciones definidas en {@link com.diver.model.OrderStatus}.
      *
-     * @param orderId     El ID de la orden a actualizar.
-     * @param orderStatus El nuevo estado de la orden (ej: "EN_PREPARACION", "EN_CAMINO").
-     * @param user        El usuario (propietario) que realiza la actualización.
+     * @param orderId         El ID de la orden a actualizar.
+     * @param orderStatus     El nuevo estado de la orden (ej: "EN_PREPARACION", "EN_CAMINO").
+     * @param expectedVersion (Opcional) La versión de la orden que el cliente leyó (cabecera {@code If-Match}).
+     * @param user            El usuario (propietario) que realiza la actualización.
      * @return El DTO de la orden actualizada.
+     * @throws com.diver.exception.StaleOrderVersionException si la orden cambió desde esa versión.
      */
-    OrderDto updateOrderStatus(Long orderId, String orderStatus, User user);
+    OrderDto updateOrderStatus(Long orderId, String orderStatus, Long expectedVersion, AuthenticatedUser user);
 
     /**
      * Cancela una orden.
@@ -42,7 +48,7 @@ public interface OrderService {
      * @param orderId El ID de la orden a cancelar.
      * @param user    El usuario (cliente) que realiza la cancelación.
      */
-    void cancelOrder(Long orderId, User user);
+    void cancelOrder(Long orderId, AuthenticatedUser user);
 
     /**
      * Obtiene todas las órdenes realizadas por un usuario.
@@ -50,7 +56,7 @@ public interface OrderService {
      * @param user El usuario cuyas órdenes se desean obtener.
      * @return Una lista de DTOs de las órdenes del usuario.
      */
-    List<OrderDto> findOrdersByUserId(User user);
+    List<OrderDto> findOrdersByUserId(AuthenticatedUser user);
 
     /**
      * Obtiene todas las órdenes de un restaurante, con un filtro opcional por estado.
@@ -61,7 +67,31 @@ public interface OrderService {
      * @param user         El usuario (propietario) que realiza la consulta.
      * @return Una lista de DTOs de las órdenes del restaurante.
      */
-    List<OrderDto> findOrdersByRestaurantId(Long restaurantId, String orderStatus, User user);
+    List<OrderDto> findOrdersByRestaurantId(Long restaurantId, String orderStatus, AuthenticatedUser user);
+
+    /**
+     * Obtiene una página del historial de órdenes de un usuario, de la más reciente a la más antigua.
+     *
+     * @param user   El usuario cuyas órdenes se desean obtener.
+     * @param cursor (Opcional) El cursor {@code next} de la página anterior; {@code null} para la primera.
+     * @param size   (Opcional) Tamaño de página; se acota al máximo configurado.
+     * @return La página de órdenes junto con el cursor de la siguiente.
+     */
+    OrderPageDto findOrdersByUserId(AuthenticatedUser user, String cursor, Integer size);
+
+    /**
+     * Obtiene una página del historial de órdenes de un restaurante, con un filtro opcional por estado.
+     * La implementación debe validar que el 'user' es el propietario del restaurante.
+     *
+     * @param restaurantId El ID del restaurante.
+     * @param orderStatus  (Opcional) El estado por el cual filtrar las órdenes.
+     * @param user         El usuario (propietario) que realiza la consulta.
+     * @param cursor       (Opcional) El cursor {@code next} de la página anterior; {@code null} para la primera.
+     * @param size         (Opcional) Tamaño de página; se acota al máximo configurado.
+     * @return La página de órdenes junto con el cursor de la siguiente.
+     */
+    OrderPageDto findOrdersByRestaurantId(Long restaurantId, String orderStatus, AuthenticatedUser user,
+                                          String cursor, Integer size);
 
     /**
      * Encuentra una orden específica por su ID, validando los permisos del usuario.
@@ -72,5 +102,37 @@ public interface OrderService {
      * @param user    El usuario que realiza la consulta.
      * @return El DTO de la orden encontrada.
      */
-    OrderDto findOrderById(Long orderId, User user);
-}
\ No newline at end of file
+    OrderDto findOrderById(Long orderId, AuthenticatedUser user);
+
+    /**
+     * Obtiene el estado actual de una orden, su versión y los estados a los que puede pasar.
+     * Pensado para consultas frecuentes: no carga la orden ni sus ítems.
+     *
+     * @param orderId El ID de la orden.
+     * @param user    El cliente de la orden o el propietario del restaurante.
+     * @return El estado de la orden.
+     */
+    OrderStatusDto getOrderStatus(Long orderId, AuthenticatedUser user);
+
+    /**
+     * Obtiene el historial de cambios de estado de una orden, del más antiguo al más reciente.
+     *
+     * @param orderId El ID de la orden.
+     * @param user    El cliente de la orden o el propietario del restaurante.
+     * @return Los cambios de estado de la orden.
+     */
+    List<OrderStatusEventDto> getOrderStatusHistory(Long orderId, AuthenticatedUser user);
+
+    /**
+     * Obtiene los cambios de estado de las órdenes de un restaurante posteriores a un evento dado,
+     * para que un panel de cocina se mantenga al día sin volver a pedir todas las órdenes.
+     *
+     * @param restaurantId El ID del restaurante.
+     * @param afterId      (Opcional) El ID del último evento que ya se tiene; {@code null} para empezar desde el principio.
+     * @param limit        (Opcional) Número máximo de eventos; se acota al máximo configurado.
+     * @param user         El usuario (propietario) que realiza la consulta.
+     * @return Los eventos posteriores, ordenados por ID.
+     */
+    List<OrderStatusEventDto> findRestaurantStatusEvents(Long restaurantId, Long afterId, Integer limit,
+                                                         AuthenticatedUser user);
+}
@@ -0,0 +1,24 @@
+package com.diver.service;
+
+import com.diver.dto.PopularFoodDto;
+
+import java.util.List;
+
+/**
+ * Contrato para el ranking de platos populares (los más pedidos recientemente).
+ * <p>
+ * El ranking se mantiene en memoria a partir de las órdenes creadas, con resúmenes de memoria
+ * acotada y decaimiento temporal, y se sirve desde listas precalculadas.
+ */
+public interface PopularFoodService {
+
+    /**
+     * Obtiene los platos más populares de un restaurante, de una ciudad o de toda la plataforma.
+     *
+     * @param restaurantId (Opcional) El ID del restaurante; tiene prioridad sobre la ciudad.
+     * @param city         (Opcional) La ciudad de los restaurantes (sin distinguir mayúsculas).
+     * @param limit        (Opcional) Número máximo de platos; se acota al máximo precalculado.
+     * @return Los platos ordenados por popularidad.
+     */
+    List<PopularFoodDto> getPopular(Long restaurantId, String city, Integer limit);
+}
@@ -2,9 +2,9 @@ package com.diver.service;
 
 import com.diver.dto.AdddToFavoritesDto;
 
+import com.diver.dto.AuthenticatedUser;
 import com.diver.dto.RestaurantDto;
 import com.diver.model.Restaurant;
-import com.diver.model.User;
 import com.diver.request.CreateRestaurantRequest;
 
 import java.util.List;
@@ -18,7 +18,7 @@ public interface RestaurantService {
          * @param user Usuario que realiza la operación.
          * @return Restaurante creado.
          */
-        RestaurantDto createRestaurant(CreateRestaurantRequest req, User user);
+        RestaurantDto createRestaurant(CreateRestaurantRequest req, AuthenticatedUser user);
 
         /**
          * Actualiza un restaurante existente identificado por su ID, validando el usuario.
@@ -28,7 +28,7 @@ public interface RestaurantService {
          * @param user           Usuario que realiza la operación.
          * @return Restaurante actualizado.
          */
-        Restaurant updateRestaurant(Long id, CreateRestaurantRequest updateRequest, User user);
+        Restaurant updateRestaurant(Long id, CreateRestaurantRequest updateRequest, AuthenticatedUser user);
 
         /**
          * Elimina un restaurante por su ID, validando el usuario.
@@ -36,7 +36,7 @@ public interface RestaurantService {
          * @param id   ID del restaurante a eliminar.
          * @param user Usuario que realiza la operación.
          */
-        void deleteRestaurant(Long id, User user);
+        void deleteRestaurant(Long id, AuthenticatedUser user);
 
         /**
          * Obtiene la lista de todos los restaurantes.
@@ -46,12 +46,14 @@ public interface RestaurantService {
         List<Restaurant> getAllRestaurants();
 
         /**
-         * Busca restaurantes por palabra clave.
+         * Busca restaurantes por palabra clave, ordenados por relevancia.
          *
          * @param keyword Palabra clave para buscar.
+         * @param page    Número de página (empezando en 0); {@code null} equivale a 0.
+         * @param size    Tamaño de página; {@code null} usa el valor por defecto.
          * @return Lista de restaurantes que coinciden.
          */
-        List<Restaurant> searchRestaurants(String keyword);
+        List<Restaurant> searchRestaurants(String keyword, Integer page, Integer size);
 
         /**
          * Busca un restaurante por su ID.
@@ -76,7 +78,7 @@ public interface RestaurantService {
          * @param user         Usuario que realiza la operación.
          * @return DTO del restaurante actualizado.
          */
-        List<AdddToFavoritesDto> addToFavorite(Long restaurantId, User user);
+        List<AdddToFavoritesDto> addToFavorite(Long restaurantId, AuthenticatedUser user);
 
         /**
          * Actualiza el estado de un restaurante, validando el usuario.
@@ -85,5 +87,5 @@ public interface RestaurantService {
          * @param user Usuario que realiza la operación.
          * @return Restaurante con el estado actualizado.
          */
-        RestaurantDto updateRestaurantStatus(Long id, User user);
+        RestaurantDto updateRestaurantStatus(Long id, AuthenticatedUser user);
 }
\ No newline at end of file
@@ -0,0 +1,40 @@
+package com.diver.service;
+
+import java.util.List;
+
+/**
+ * Contrato para el índice de búsqueda de texto completo de platos y restaurantes.
+ * <p>
+ * El índice vive en memoria, se reconstruye desde la base de datos al arrancar y se
+ * mantiene sincronizado con los eventos que publican los servicios de escritura.
+ * Las búsquedas no tocan la base de datos: devuelven IDs ordenados por relevancia que
+ * el servicio llamante carga y mapea.
+ */
+public interface SearchIndexService {
+
+    /**
+     * Busca platos por nombre, descripción, categoría, restaurante y tipo de cocina.
+     *
+     * @param keyword El texto de búsqueda.
+     * @param page    El número de página (empezando en 0); {@code null} equivale a 0.
+     * @param size    El tamaño de página; {@code null} usa el valor por defecto.
+     * @return Los IDs de los platos de la página, de mayor a menor relevancia.
+     */
+    List<Long> searchFoodIds(String keyword, Integer page, Integer size);
+
+    /**
+     * Busca restaurantes por nombre, tipo de cocina y descripción.
+     *
+     * @param keyword El texto de búsqueda.
+     * @param page    El número de página (empezando en 0); {@code null} equivale a 0.
+     * @param size    El tamaño de página; {@code null} usa el valor por defecto.
+     * @return Los IDs de los restaurantes de la página, de mayor a menor relevancia.
+     */
+    List<Long> searchRestaurantIds(String keyword, Integer page, Integer size);
+
+    /**
+     * Reconstruye ambos índices completos desde la base de datos. Las búsquedas siguen
+     * respondiendo con el índice anterior hasta que el nuevo está listo.
+     */
+    void rebuild();
+}
@@ -0,0 +1,29 @@
+package com.diver.service;
+
+import com.diver.dto.SuggestionDto;
+
+import java.util.List;
+
+/**
+ * Contrato para el servicio de autocompletado de la búsqueda.
+ * <p>
+ * Las sugerencias (platos, restaurantes, tipos de cocina y categorías) se resuelven en memoria,
+ * sin consultar la base de datos, y se ordenan por popularidad.
+ */
+public interface SuggestionService {
+
+    /**
+     * Devuelve sugerencias para el texto tecleado.
+     *
+     * @param prefix El texto tecleado por el usuario.
+     * @param limit  El número máximo de sugerencias; {@code null} usa el valor por defecto.
+     * @return Las sugerencias ordenadas por popularidad descendente.
+     */
+    List<SuggestionDto> suggest(String prefix, Integer limit);
+
+    /**
+     * Reconstruye el índice de sugerencias desde la base de datos, recalculando la popularidad
+     * a partir de los pedidos.
+     */
+    void rebuild();
+}
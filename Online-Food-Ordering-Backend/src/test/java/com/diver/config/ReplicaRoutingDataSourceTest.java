@@ -0,0 +1,221 @@
+package com.diver.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Verifica el enrutado de {@link ReplicaRoutingDataSource} con tres bases H2 en memoria que hacen
+ * de primario y réplicas; cada una guarda su nombre en la tabla {@code node}, así que una lectura
+ * dice a qué base fue.
+ */
+class ReplicaRoutingDataSourceTest {
+
+    private static final Duration READ_YOUR_WRITES_WINDOW = Duration.ofSeconds(5);
+
+    private final AtomicLong clock = new AtomicLong();
+    private final AtomicReference<String> currentUser = new AtomicReference<>();
+
+    private ToggleableDataSource replica1;
+    private ToggleableDataSource replica2;
+    private ReplicaRoutingDataSource routing;
+    private JdbcTemplate jdbc;
+    private TransactionTemplate writeTransaction;
+    private TransactionTemplate readOnlyTransaction;
+
+    @BeforeEach
+    void setUp() {
+        DataSource primary = database("primary");
+        replica1 = new ToggleableDataSource(database("replica-1"));
+        replica2 = new ToggleableDataSource(database("replica-2"));
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        replicas.put("replica-1", replica1);
+        replicas.put("replica-2", replica2);
+        routing = new ReplicaRoutingDataSource(primary, replicas, currentUser::get, READ_YOUR_WRITES_WINDOW,
+                Duration.ofSeconds(1), null, Duration.ofSeconds(10), clock::get);
+
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routing);
+        jdbc = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        writeTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+    }
+
+    @Test
+    void readOnlyTransactionsAlternateBetweenReplicas() {
+        Set<String> nodes = new HashSet<>();
+        for (int i = 0; i < 4; i++) {
+            nodes.add(readOnly());
+        }
+
+        assertThat(nodes).containsExactlyInAnyOrder("replica-1", "replica-2");
+    }
+
+    @Test
+    void writeTransactionsAndCallsWithoutTransactionUsePrimary() {
+        String written = writeTransaction.execute(status -> node());
+        assertThat(written).isEqualTo("primary");
+        assertThat(node()).isEqualTo("primary");
+    }
+
+    @Test
+    void readsFollowOwnWritesToPrimaryUntilWindowExpires() {
+        currentUser.set("ana@diver.com");
+        write();
+
+        assertThat(readOnly()).isEqualTo("primary");
+
+        currentUser.set("bruno@diver.com");
+        assertThat(readOnly()).startsWith("replica-");
+
+        currentUser.set("ana@diver.com");
+        clock.addAndGet(READ_YOUR_WRITES_WINDOW.plusSeconds(1).toNanos());
+        assertThat(readOnly()).startsWith("replica-");
+    }
+
+    @Test
+    void rolledBackWriteDoesNotPinSessionToPrimary() {
+        currentUser.set("ana@diver.com");
+        writeTransaction.executeWithoutResult(status -> {
+            jdbc.update("UPDATE node SET name = name");
+            status.setRollbackOnly();
+        });
+
+        assertThat(readOnly()).startsWith("replica-");
+    }
+
+    @Test
+    void readOnlyTransactionAfterCommitOnSameThreadReadsPrimary() {
+        AtomicReference<String> readAfterCommit = new AtomicReference<>();
+        TransactionTemplate requiresNewReadOnly = new TransactionTemplate(writeTransaction.getTransactionManager());
+        requiresNewReadOnly.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        requiresNewReadOnly.setReadOnly(true);
+
+        // Como un @TransactionalEventListener(AFTER_COMMIT) que relee la fila recién escrita
+        writeTransaction.executeWithoutResult(status -> {
+            jdbc.update("UPDATE node SET name = name");
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    readAfterCommit.set(requiresNewReadOnly.execute(inner -> node()));
+                }
+            });
+        });
+
+        assertThat(readAfterCommit.get()).isEqualTo("primary");
+    }
+
+    @Test
+    void failingReplicasFallBackToHealthyReplicaThenPrimary() {
+        replica1.down = true;
+        for (int i = 0; i < 4; i++) {
+            assertThat(readOnly()).isEqualTo("replica-2");
+        }
+        assertThat(routing.healthyReplicaCount()).isEqualTo(1);
+
+        replica2.down = true;
+        assertThat(readOnly()).isEqualTo("primary");
+        assertThat(routing.healthyReplicaCount()).isZero();
+
+        replica1.down = false;
+        replica2.down = false;
+        routing.checkReplicas();
+        assertThat(routing.healthyReplicaCount()).isEqualTo(2);
+        assertThat(readOnly()).startsWith("replica-");
+    }
+
+    @Test
+    void healthCheckTakesDownUnreachableReplicas() {
+        replica2.down = true;
+        routing.checkReplicas();
+
+        assertThat(routing.healthyReplicaCount()).isEqualTo(1);
+        for (int i = 0; i < 4; i++) {
+            assertThat(readOnly()).isEqualTo("replica-1");
+        }
+    }
+
+    @Test
+    void replicaLaggingBehindIsTakenDown() {
+        DataSource primary = database("primary");
+        DataSource lagging = database("lagging");
+        new JdbcTemplate(lagging).execute("CREATE TABLE replication_lag (lag_seconds INT)");
+        new JdbcTemplate(lagging).update("INSERT INTO replication_lag VALUES (30)");
+        ReplicaRoutingDataSource lagAware = new ReplicaRoutingDataSource(primary, Map.of("lagging", lagging),
+                currentUser::get, READ_YOUR_WRITES_WINDOW, Duration.ofSeconds(1),
+                "SELECT lag_seconds FROM replication_lag", Duration.ofSeconds(10), clock::get);
+
+        lagAware.checkReplicas();
+        assertThat(lagAware.healthyReplicaCount()).isZero();
+
+        new JdbcTemplate(lagging).update("UPDATE replication_lag SET lag_seconds = 2");
+        lagAware.checkReplicas();
+        assertThat(lagAware.healthyReplicaCount()).isEqualTo(1);
+    }
+
+    // --- METODOS PRIVADOS ---
+
+    private String readOnly() {
+        return readOnlyTransaction.execute(status -> node());
+    }
+
+    private void write() {
+        writeTransaction.executeWithoutResult(status -> jdbc.update("UPDATE node SET name = name"));
+    }
+
+    private String node() {
+        return jdbc.queryForObject("SELECT name FROM node", String.class);
+    }
+
+    private static DataSource database(String name) {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + name + "-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        dataSource.setDriverClassName("org.h2.Driver");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("CREATE TABLE node (name VARCHAR(20))");
+        jdbc.update("INSERT INTO node VALUES (?)", name);
+        return dataSource;
+    }
+
+    /**
+     * Réplica que se puede "apagar": mientras está caída no da conexiones.
+     */
+    private static final class ToggleableDataSource extends DelegatingDataSource {
+        private volatile boolean down;
+
+        private ToggleableDataSource(DataSource target) {
+            super(target);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            if (down) {
+                throw new SQLException("Conexión rechazada");
+            }
+            return super.getConnection();
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.diver.config;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Verifica la carga de {@link VirtualThreads#getOrLoad} fuera del {@code compute} de Caffeine.
+ */
+class VirtualThreadsTest {
+
+    private final AsyncCache<String, String> cache = Caffeine.newBuilder().buildAsync();
+
+    @Test
+    void concurrentCallersShareOneLoad() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> first = executor.submit(() -> VirtualThreads.getOrLoad(cache, "ana", key -> {
+                loads.incrementAndGet();
+                loading.countDown();
+                await(release);
+                return "Ana";
+            }));
+            loading.await(5, TimeUnit.SECONDS);
+            Future<String> second = executor.submit(() -> VirtualThreads.getOrLoad(cache, "ana", key -> {
+                loads.incrementAndGet();
+                return "otra";
+            }));
+            release.countDown();
+
+            assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo("Ana");
+            assertThat(second.get(5, TimeUnit.SECONDS)).isEqualTo("Ana");
+            assertThat(loads).hasValue(1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void invalidationDuringLoadDiscardsLoadedValue() {
+        String loaded = VirtualThreads.getOrLoad(cache, "ana", key -> {
+            cache.synchronous().invalidate(key);
+            return "Ana (anterior)";
+        });
+
+        assertThat(loaded).isEqualTo("Ana (anterior)");
+        assertThat(VirtualThreads.getOrLoad(cache, "ana", key -> "Ana")).isEqualTo("Ana");
+    }
+
+    @Test
+    void nullResultsAndErrorsAreNotCached() {
+        assertThat(VirtualThreads.<String, String>getOrLoad(cache, "nadie", key -> null)).isNull();
+        assertThatThrownBy(() -> VirtualThreads.getOrLoad(cache, "error", key -> {
+            throw new IllegalStateException("BD caída");
+        })).isInstanceOf(IllegalStateException.class).hasMessage("BD caída");
+
+        assertThat(VirtualThreads.getOrLoad(cache, "nadie", key -> "Nadie")).isEqualTo("Nadie");
+        assertThat(VirtualThreads.getOrLoad(cache, "error", key -> "Recuperado")).isEqualTo("Recuperado");
+    }
+
+    @Test
+    void threadFactoryUsesNamedDaemonThreadsWhenDisabled() {
+        Thread thread = VirtualThreads.threadFactory(false, "prueba").newThread(() -> {
+        });
+
+        assertThat(thread.getName()).isEqualTo("prueba-1");
+        assertThat(thread.isDaemon()).isTrue();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.diver.dispatch;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static com.diver.dispatch.AssignmentSolver.UNASSIGNED;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Verifica {@link AssignmentSolver} con instancias pequeñas resueltas a mano (asignación y coste)
+ * y, en instancias aleatorias, que ningún repartidor se usa dos veces.
+ */
+class AssignmentSolverTest {
+
+    private static final int PASSES = 10;
+
+    @Test
+    void moreOrdersThanCouriersLeavesCheapestMatchingAndOneUnassigned() {
+        // o0: c0=1, c1=5 | o1: c0=2, c1=3 | o2: c0=4
+        int[][] candidates = {{0, 1}, {0, 1}, {0}};
+        double[][] costs = {{1, 5}, {2, 3}, {4}};
+
+        int[] courierOf = AssignmentSolver.solve(candidates, costs, 2, PASSES);
+
+        // Cualquier emparejamiento de dos órdenes cuesta al menos 1 + 3
+        assertThat(courierOf).containsExactly(0, 1, UNASSIGNED);
+        assertThat(AssignmentSolver.totalCost(courierOf, candidates, costs)).isCloseTo(4, within(1e-9));
+    }
+
+    @Test
+    void orderWithoutCandidatesStaysUnassigned() {
+        int[][] candidates = {{0}, {}, {1}};
+        double[][] costs = {{3}, {}, {2}};
+
+        int[] courierOf = AssignmentSolver.solve(candidates, costs, 2, PASSES);
+
+        assertThat(courierOf).containsExactly(0, UNASSIGNED, 1);
+        assertThat(AssignmentSolver.totalCost(courierOf, candidates, costs)).isCloseTo(5, within(1e-9));
+    }
+
+    @Test
+    void noCandidatesAtAllAssignsNothing() {
+        int[] courierOf = AssignmentSolver.solve(new int[][]{{}, {}}, new double[][]{{}, {}}, 3, PASSES);
+
+        assertThat(courierOf).containsExactly(UNASSIGNED, UNASSIGNED);
+    }
+
+    @Test
+    void swapStrictlyLowersGreedyCost() {
+        // El voraz toma o0-c0 (1) y deja a o1 con c1 (10): 11. El intercambio da 2 + 2 = 4
+        int[][] candidates = {{0, 1}, {0, 1}};
+        double[][] costs = {{1, 2}, {2, 10}};
+
+        int[] greedy = AssignmentSolver.solve(candidates, costs, 2, 0);
+        int[] improved = AssignmentSolver.solve(candidates, costs, 2, PASSES);
+
+        assertThat(greedy).containsExactly(0, 1);
+        assertThat(AssignmentSolver.totalCost(greedy, candidates, costs)).isCloseTo(11, within(1e-9));
+        assertThat(improved).containsExactly(1, 0);
+        assertThat(AssignmentSolver.totalCost(improved, candidates, costs)).isCloseTo(4, within(1e-9));
+    }
+
+    @Test
+    void augmentingPathAssignsOrderLeftOutByGreedy() {
+        // El voraz da c0 a o0 (empate resuelto por índice) y o1, que solo acepta c0, se queda fuera
+        int[][] candidates = {{0, 1}, {0}};
+        double[][] costs = {{1, 2}, {1}};
+
+        int[] greedy = AssignmentSolver.solve(candidates, costs, 2, 0);
+        int[] courierOf = AssignmentSolver.solve(candidates, costs, 2, PASSES);
+
+        assertThat(greedy).containsExactly(0, UNASSIGNED);
+        assertThat(courierOf).containsExactly(1, 0);
+        assertThat(AssignmentSolver.totalCost(courierOf, candidates, costs)).isCloseTo(3, within(1e-9));
+    }
+
+    @Test
+    void everyCourierIsUsedAtMostOnce() {
+        Random random = new Random(42);
+        for (int round = 0; round < 200; round++) {
+            int orders = 1 + random.nextInt(40);
+            int couriers = 1 + random.nextInt(40);
+            int[][] candidates = new int[orders][];
+            double[][] costs = new double[orders][];
+            for (int order = 0; order < orders; order++) {
+                int[] list = random.ints(0, couriers).distinct().limit(random.nextInt(Math.min(couriers, 5) + 1)).toArray();
+                candidates[order] = list;
+                costs[order] = random.doubles(list.length, 0, 100).toArray();
+            }
+
+            int[] greedy = AssignmentSolver.solve(candidates, costs, couriers, 0);
+            int[] courierOf = AssignmentSolver.solve(candidates, costs, couriers, PASSES);
+
+            Set<Integer> used = new HashSet<>();
+            for (int order = 0; order < orders; order++) {
+                int courier = courierOf[order];
+                if (courier == UNASSIGNED) {
+                    continue;
+                }
+                assertThat(used.add(courier)).as("repartidor %d repetido", courier).isTrue();
+                assertThat(candidates[order]).contains(courier);
+            }
+            // La mejora local nunca pierde asignaciones ni, con las mismas, encarece
+            long greedyAssigned = Arrays.stream(greedy).filter(c -> c != UNASSIGNED).count();
+            assertThat((long) used.size()).isGreaterThanOrEqualTo(greedyAssigned);
+            if (used.size() == greedyAssigned) {
+                assertThat(AssignmentSolver.totalCost(courierOf, candidates, costs))
+                        .isLessThanOrEqualTo(AssignmentSolver.totalCost(greedy, candidates, costs) + 1e-9);
+            }
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.diver.dto;
+
+import com.diver.model.USER_ROLE;
+import com.diver.model.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.GrantedAuthority;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Verifica los permisos del principal ligero, incluido el de un usuario cargado sin rol.
+ */
+class AuthenticatedUserTest {
+
+    @Test
+    void roleBecomesSingleAuthority() {
+        AuthenticatedUser user = new AuthenticatedUser(1L, "owner@diver.com", USER_ROLE.ROLE_RESTAURANT_OWNER);
+
+        assertThat(user.getAuthorities()).extracting(GrantedAuthority::getAuthority)
+                .containsExactly("ROLE_RESTAURANT_OWNER");
+    }
+
+    @Test
+    void userWithoutRoleHasNoAuthorities() {
+        User entity = new User();
+        entity.setId(2L);
+        entity.setEmail("sin-rol@diver.com");
+        entity.setRole(null); // Fila antigua o editada a mano: la columna role es NULL
+
+        AuthenticatedUser user = AuthenticatedUser.from(entity);
+
+        assertThat(user.getAuthorities()).isEmpty();
+        assertThat(user.getAuthorities()).isEqualTo(entity.getAuthorities());
+    }
+}
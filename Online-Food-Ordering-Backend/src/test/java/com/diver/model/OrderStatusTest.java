@@ -0,0 +1,77 @@
+package com.diver.model;
+
+import com.diver.exception.BadRequestException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.NullSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static com.diver.model.OrderStatus.CANCELADO;
+import static com.diver.model.OrderStatus.EN_CAMINO;
+import static com.diver.model.OrderStatus.EN_PREPARACION;
+import static com.diver.model.OrderStatus.ENTREGADO;
+import static com.diver.model.OrderStatus.PENDIENTE;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Verifica la máquina de estados de {@link OrderStatus}: cada par origen-destino se comprueba
+ * contra la tabla de transiciones del diagrama, y el texto de la API se convierte sin distinguir
+ * mayúsculas.
+ */
+class OrderStatusTest {
+
+    private static final Map<OrderStatus, Set<OrderStatus>> ALLOWED = Map.of(
+            PENDIENTE, Set.of(EN_PREPARACION, CANCELADO),
+            EN_PREPARACION, Set.of(EN_CAMINO, CANCELADO),
+            EN_CAMINO, Set.of(ENTREGADO),
+            ENTREGADO, Set.of(),
+            CANCELADO, Set.of());
+
+    static Stream<Arguments> everyTransition() {
+        return Arrays.stream(OrderStatus.values()).flatMap(from -> Arrays.stream(OrderStatus.values())
+                .map(to -> Arguments.of(from, to, ALLOWED.get(from).contains(to))));
+    }
+
+    @ParameterizedTest(name = "{0} → {1}: {2}")
+    @MethodSource("everyTransition")
+    void canTransitionToMatchesDiagram(OrderStatus from, OrderStatus to, boolean allowed) {
+        assertThat(from.canTransitionTo(to)).isEqualTo(allowed);
+        assertThat(from.nextStatuses().contains(to)).isEqualTo(allowed);
+    }
+
+    @Test
+    void onlyDeliveredAndCancelledAreFinal() {
+        assertThat(Arrays.stream(OrderStatus.values()).filter(OrderStatus::isFinal))
+                .containsExactlyInAnyOrder(ENTREGADO, CANCELADO);
+    }
+
+    @Test
+    void nextStatusesIsACopy() {
+        PENDIENTE.nextStatuses().clear();
+
+        assertThat(PENDIENTE.canTransitionTo(EN_PREPARACION)).isTrue();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"EN_PREPARACION", "en_preparacion", "  En_Preparacion  "})
+    void parseIgnoresCaseAndSurroundingSpaces(String value) {
+        assertThat(OrderStatus.parse(value)).isEqualTo(EN_PREPARACION);
+    }
+
+    @ParameterizedTest
+    @NullSource
+    @ValueSource(strings = {"", "PREPARANDO", "EN PREPARACION"})
+    void parseRejectsUnknownValues(String value) {
+        assertThatThrownBy(() -> OrderStatus.parse(value))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessageContaining("Estado de orden no válido");
+    }
+}
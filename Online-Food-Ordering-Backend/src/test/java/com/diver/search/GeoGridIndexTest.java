@@ -0,0 +1,183 @@
+package com.diver.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Verifica {@link GeoGridIndex#nearest} contra una búsqueda exhaustiva sobre los mismos puntos,
+ * incluidos los que quedan a ambos lados de ±180° y los orígenes de latitud alta, donde las
+ * celdas se estrechan y la poda por anillos es más delicada.
+ */
+class GeoGridIndexTest {
+
+    @Test
+    void matchesBruteForceOnRandomPoints() {
+        Random random = new Random(11);
+        Map<Long, double[]> points = new LinkedHashMap<>();
+        GeoGridIndex index = new GeoGridIndex(0.5);
+        for (long id = 0; id < 3_000; id++) {
+            double[] point = {random.nextDouble() * 180 - 90, random.nextDouble() * 360 - 180};
+            points.put(id, point);
+            index.put(id, point[0], point[1]);
+        }
+
+        for (int query = 0; query < 300; query++) {
+            double latitude = random.nextDouble() * 180 - 90;
+            double longitude = random.nextDouble() * 360 - 180;
+            double radius = random.nextDouble() * 2_000_000;
+            int limit = 1 + random.nextInt(20);
+            assertMatchesBruteForce(index, points, latitude, longitude, radius, limit);
+        }
+    }
+
+    @Test
+    void matchesBruteForceWhenCellsDoNotDivideTheCircle() {
+        // 360 / 0.7 no es entero: la última columna mide 0.2°
+        Random random = new Random(14);
+        Map<Long, double[]> points = new LinkedHashMap<>();
+        GeoGridIndex index = new GeoGridIndex(0.7);
+        for (long id = 0; id < 2_000; id++) {
+            double[] point = {random.nextDouble() * 40 - 20, random.nextDouble() * 360 - 180};
+            points.put(id, point);
+            index.put(id, point[0], point[1]);
+        }
+
+        for (int query = 0; query < 200; query++) {
+            assertMatchesBruteForce(index, points, random.nextDouble() * 40 - 20, random.nextDouble() * 360 - 180,
+                    random.nextDouble() * 3_000_000, 1 + random.nextInt(20));
+        }
+    }
+
+    @Test
+    void matchesBruteForceAcrossAntimeridian() {
+        Random random = new Random(12);
+        Map<Long, double[]> points = new LinkedHashMap<>();
+        GeoGridIndex index = new GeoGridIndex(0.1);
+        for (long id = 0; id < 2_000; id++) {
+            // Longitudes en [177, 180] y [-180, -177]
+            double longitude = random.nextDouble() * 6 - 3;
+            longitude = longitude >= 0 ? 180 - longitude : -180 - longitude;
+            double[] point = {random.nextDouble() * 10 - 5, longitude};
+            points.put(id, point);
+            index.put(id, point[0], point[1]);
+        }
+
+        for (double longitude : new double[]{180, -180, 179.95, -179.95, 178.5, -178.5}) {
+            for (int query = 0; query < 20; query++) {
+                double latitude = random.nextDouble() * 10 - 5;
+                assertMatchesBruteForce(index, points, latitude, longitude, 100_000 + random.nextDouble() * 200_000,
+                        1 + random.nextInt(30));
+            }
+        }
+        // El más cercano a un origen en 179.99° está al otro lado del antimeridiano
+        index.put(-1, 0, -179.99);
+        index.put(-2, 0, 179.9);
+        assertThat(index.nearest(0, 179.99, 5_000, 1)).extracting(GeoGridIndex.Hit::id).containsExactly(-1L);
+    }
+
+    @Test
+    void matchesBruteForceFromHighLatitudeOrigins() {
+        Random random = new Random(13);
+        Map<Long, double[]> points = new LinkedHashMap<>();
+        GeoGridIndex index = new GeoGridIndex(0.25);
+        for (long id = 0; id < 3_000; id++) {
+            // Casquete polar norte y sur, a partir de 70°
+            double latitude = 70 + random.nextDouble() * 20;
+            double[] point = {id % 2 == 0 ? latitude : -latitude, random.nextDouble() * 360 - 180};
+            points.put(id, point);
+            index.put(id, point[0], point[1]);
+        }
+
+        for (double latitude : new double[]{70, 78.2, 85, 88.9, 89.6, 89.99, 90, -80, -89.5, -90}) {
+            for (int query = 0; query < 15; query++) {
+                double longitude = random.nextDouble() * 360 - 180;
+                assertMatchesBruteForce(index, points, latitude, longitude, 50_000 + random.nextDouble() * 500_000,
+                        1 + random.nextInt(20));
+            }
+        }
+    }
+
+    @Test
+    void pointAcrossThePoleIsFound() {
+        GeoGridIndex index = new GeoGridIndex(0.01);
+        // 89.6° N en longitudes opuestas: 0.8° por encima del polo, unos 89 km
+        index.put(1, 89.6, 170);
+        index.put(2, 88.0, 10);
+
+        List<GeoGridIndex.Hit> hits = index.nearest(89.6, -10, 150_000, 1);
+
+        assertThat(hits).extracting(GeoGridIndex.Hit::id).containsExactly(1L);
+        assertThat(hits.get(0).distanceMeters()).isCloseTo(GeoGridIndex.distanceMeters(89.6, -10, 89.6, 170), within(1e-6));
+    }
+
+    @Test
+    void putMovesExistingPoint() {
+        GeoGridIndex index = new GeoGridIndex(0.01);
+        index.put(1, 40.4168, -3.7038); // Madrid
+        index.put(2, 40.4200, -3.7000);
+
+        index.put(1, 41.3874, 2.1686); // Barcelona
+
+        assertThat(index.size()).isEqualTo(2);
+        assertThat(index.nearest(40.4168, -3.7038, 10_000, 5)).extracting(GeoGridIndex.Hit::id).containsExactly(2L);
+        List<GeoGridIndex.Hit> hits = index.nearest(41.3874, 2.1686, 10_000, 5);
+        assertThat(hits).extracting(GeoGridIndex.Hit::id).containsExactly(1L);
+        assertThat(hits.get(0).distanceMeters()).isCloseTo(0, within(1e-6));
+    }
+
+    @Test
+    void removeDropsPointAndIgnoresUnknownIds() {
+        GeoGridIndex index = new GeoGridIndex(0.01);
+        index.put(1, 40.4168, -3.7038);
+        index.put(2, 40.4200, -3.7000);
+
+        index.remove(1);
+        index.remove(99);
+
+        assertThat(index.size()).isEqualTo(1);
+        assertThat(index.nearest(40.4168, -3.7038, 10_000, 5)).extracting(GeoGridIndex.Hit::id).containsExactly(2L);
+        index.remove(2);
+        assertThat(index.nearest(40.4168, -3.7038, 10_000, 5)).isEmpty();
+    }
+
+    @Test
+    void invalidQueriesReturnNothingOrFail() {
+        GeoGridIndex index = new GeoGridIndex(0.01);
+        index.put(1, 0, 0);
+
+        assertThat(index.nearest(0, 0, 1_000, 0)).isEmpty();
+        assertThat(index.nearest(0, 0, -1, 5)).isEmpty();
+        assertThatThrownBy(() -> index.nearest(91, 0, 1_000, 5)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> index.put(2, 0, 181)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    // --- METODOS PRIVADOS ---
+
+    private static void assertMatchesBruteForce(GeoGridIndex index, Map<Long, double[]> points,
+                                                double latitude, double longitude, double radius, int limit) {
+        List<GeoGridIndex.Hit> expected = new ArrayList<>();
+        points.forEach((id, point) -> {
+            double distance = GeoGridIndex.distanceMeters(latitude, longitude, point[0], point[1]);
+            if (distance <= radius) {
+                expected.add(new GeoGridIndex.Hit(id, distance));
+            }
+        });
+        expected.sort(Comparator.comparingDouble(GeoGridIndex.Hit::distanceMeters).thenComparingLong(GeoGridIndex.Hit::id));
+
+        List<GeoGridIndex.Hit> actual = index.nearest(latitude, longitude, radius, limit);
+
+        assertThat(actual)
+                .as("origen (%s, %s), radio %s m, límite %d", latitude, longitude, radius, limit)
+                .isEqualTo(expected.subList(0, Math.min(limit, expected.size())));
+    }
+}
@@ -0,0 +1,163 @@
+package com.diver.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Verifica la búsqueda de {@link InvertedIndex}: la semántica AND, el peso de los campos, la
+ * expansión por prefijo y por erratas (que puntúan por debajo de la coincidencia exacta), la
+ * paginación y el reemplazo y borrado de documentos.
+ */
+class InvertedIndexTest {
+
+    @Test
+    void everyQueryTermMustMatch() {
+        InvertedIndex index = new InvertedIndex();
+        index.put(1, fields("Pizza margarita"));
+        index.put(2, fields("Pizza barbacoa"));
+        index.put(3, fields("Ensalada margarita"));
+
+        assertThat(index.search("pizza margarita", 0, 10)).isEqualTo(new InvertedIndex.Result(List.of(1L), 1));
+        assertThat(index.search("pizza", 0, 10).ids()).containsExactly(1L, 2L);
+        assertThat(index.search("pizza ensalada", 0, 10)).isEqualTo(new InvertedIndex.Result(List.of(), 0));
+    }
+
+    @Test
+    void termsMayMatchInDifferentFields() {
+        InvertedIndex index = new InvertedIndex();
+        index.put(1, List.of(new InvertedIndex.Field("Pollo asado", 3), new InvertedIndex.Field("con patatas", 1)));
+        index.put(2, List.of(new InvertedIndex.Field("Ensalada", 3), new InvertedIndex.Field("con pollo", 1)));
+
+        assertThat(index.search("pollo patatas", 0, 10).ids()).containsExactly(1L);
+        // El nombre pesa más que la descripción
+        assertThat(index.search("pollo", 0, 10).ids()).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void accentsCaseAndPluralsDoNotAffectMatching() {
+        InvertedIndex index = new InvertedIndex();
+        index.put(1, fields("Jamón ibérico"));
+        index.put(2, fields("Tacos de pollo"));
+
+        assertThat(index.search("JAMON IBERICO", 0, 10).ids()).containsExactly(1L);
+        assertThat(index.search("taco", 0, 10).ids()).containsExactly(2L);
+        assertThat(index.search("de la", 0, 10)).isEqualTo(new InvertedIndex.Result(List.of(), 0));
+    }
+
+    @Test
+    void repeatedTermsRankHigher() {
+        InvertedIndex index = new InvertedIndex();
+        index.put(1, fields("Pollo"));
+        index.put(2, fields("Pollo con pollo y más pollo"));
+
+        assertThat(index.search("pollo", 0, 10).ids()).containsExactly(2L, 1L);
+    }
+
+    @Test
+    void prefixMatchesRankBelowExactMatches() {
+        InvertedIndex index = new InvertedIndex();
+        index.put(1, fields("Panceta"));
+        index.put(2, fields("Pan"));
+
+        assertThat(index.search("pan", 0, 10).ids()).containsExactly(2L, 1L);
+        assertThat(index.search("marg", 0, 10).ids()).isEmpty();
+        index.put(3, fields("Margarita"));
+        assertThat(index.search("marg", 0, 10).ids()).containsExactly(3L);
+        // Un prefijo de una sola letra no se expande
+        assertThat(index.search("m", 0, 10).ids()).isEmpty();
+    }
+
+    @Test
+    void fuzzyMatchIsFallbackWhenNothingMatchesExactlyOrByPrefix() {
+        InvertedIndex index = new InvertedIndex();
+        index.put(1, fields("Hamburguesa"));
+        index.put(2, fields("Tomate"));
+        index.put(3, fields("Pizza"));
+
+        assertThat(index.search("hamburgesa", 0, 10).ids()).containsExactly(1L);
+        // A partir de 8 caracteres se admiten dos erratas; por debajo, solo una
+        assertThat(index.search("hamburgsa", 0, 10).ids()).containsExactly(1L);
+        assertThat(index.search("tomte", 0, 10).ids()).containsExactly(2L);
+        assertThat(index.search("tmte", 0, 10).ids()).isEmpty();
+        // Con menos de 4 caracteres no se busca con erratas
+        assertThat(index.search("piz", 0, 10).ids()).containsExactly(3L);
+        assertThat(index.search("pza", 0, 10).ids()).isEmpty();
+    }
+
+    @Test
+    void fuzzyMatchIsNotUsedWhenPrefixMatches() {
+        InvertedIndex index = new InvertedIndex();
+        index.put(1, fields("Carne"));
+        index.put(2, fields("Cara"));
+
+        // "cara" está a una errata de "carn", pero "carne" ya coincide por prefijo
+        assertThat(index.search("carn", 0, 10).ids()).containsExactly(1L);
+    }
+
+    @Test
+    void approximateMatchesWeighLessThanExactOnes() {
+        InvertedIndex index = new InvertedIndex();
+        // El 1 repite "tomate"; el 2 repite "sopa". Los dos términos tienen el mismo idf
+        index.put(1, fields("Sopa tomate tomate tomate tomate"));
+        index.put(2, fields("Sopa sopa sopa tomate"));
+
+        // Exacta: 1 + (1 + ln 4) frente a (1 + ln 3) + 1, gana el 1
+        assertThat(index.search("sopa tomate", 0, 10).ids()).containsExactly(1L, 2L);
+        // Por prefijo (0,7) o por errata (0,5), "tomate" ya no compensa las repeticiones de "sopa"
+        assertThat(index.search("sopa tomat", 0, 10).ids()).containsExactly(2L, 1L);
+        assertThat(index.search("sopa tomte", 0, 10).ids()).containsExactly(2L, 1L);
+    }
+
+    @Test
+    void pagesAreOrderedByScoreThenIdAndReportTotal() {
+        InvertedIndex index = new InvertedIndex();
+        for (long id = 1; id <= 5; id++) {
+            index.put(id, fields("Sopa"));
+        }
+        index.put(6, fields("Sopa sopa"));
+
+        assertThat(index.search("sopa", 0, 3)).isEqualTo(new InvertedIndex.Result(List.of(6L, 1L, 2L), 6));
+        assertThat(index.search("sopa", 3, 2)).isEqualTo(new InvertedIndex.Result(List.of(3L, 4L), 6));
+        assertThat(index.search("sopa", 5, 10)).isEqualTo(new InvertedIndex.Result(List.of(5L), 6));
+        assertThat(index.search("sopa", 10, 10)).isEqualTo(new InvertedIndex.Result(List.of(), 6));
+        assertThat(index.search("sopa", 0, 0)).isEqualTo(new InvertedIndex.Result(List.of(), 0));
+    }
+
+    @Test
+    void putReplacesPreviousVersionOfDocument() {
+        InvertedIndex index = new InvertedIndex();
+        index.put(1, fields("Pizza"));
+
+        index.put(1, fields("Pasta"));
+
+        assertThat(index.size()).isEqualTo(1);
+        assertThat(index.search("pizza", 0, 10).ids()).isEmpty();
+        assertThat(index.search("pasta", 0, 10).ids()).containsExactly(1L);
+    }
+
+    @Test
+    void removeDropsDocumentAndItsTerms() {
+        InvertedIndex index = new InvertedIndex();
+        index.put(1, fields("Pizza"));
+        index.put(2, fields("Pasta"));
+
+        index.remove(1);
+        index.remove(99);
+
+        assertThat(index.size()).isEqualTo(1);
+        assertThat(index.search("pizza", 0, 10).ids()).isEmpty();
+        // El término eliminado tampoco aparece por prefijo ni por errata
+        assertThat(index.search("pi", 0, 10).ids()).isEmpty();
+        assertThat(index.search("piza", 0, 10).ids()).isEmpty();
+        assertThat(index.search("pas", 0, 10).ids()).containsExactly(2L);
+    }
+
+    // --- METODOS PRIVADOS ---
+
+    private static List<InvertedIndex.Field> fields(String name) {
+        return List.of(new InvertedIndex.Field(name, 1));
+    }
+}
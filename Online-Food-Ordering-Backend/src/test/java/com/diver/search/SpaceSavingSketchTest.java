@@ -0,0 +1,145 @@
+package com.diver.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Verifica las garantías de {@link SpaceSavingSketch} tras desalojar contadores, el reescalado
+ * del decaimiento y las instantáneas.
+ */
+class SpaceSavingSketchTest {
+
+    @Test
+    void heavyHittersSurviveEvictionWithinErrorBound() {
+        // Flujo sesgado (tipo Zipf) sobre 500 claves con 20 contadores: hay muchos desalojos
+        int capacity = 20;
+        SpaceSavingSketch sketch = new SpaceSavingSketch(capacity);
+        Map<Long, Double> exact = new HashMap<>();
+        Random random = new Random(7);
+        double total = 0;
+        for (int i = 0; i < 50_000; i++) {
+            long key = (long) Math.floor(Math.pow(500, random.nextDouble()));
+            double weight = 1 + random.nextInt(3);
+            sketch.add(key, weight);
+            exact.merge(key, weight, Double::sum);
+            total += weight;
+        }
+
+        assertThat(sketch.size()).isEqualTo(capacity);
+        Map<Long, SpaceSavingSketch.Counter> counters = new HashMap<>();
+        sketch.counters().forEach(counter -> counters.put(counter.key(), counter));
+        double threshold = total / capacity;
+        exact.forEach((key, weight) -> {
+            if (weight > threshold) {
+                assertThat(counters).as("elemento frecuente %d", key).containsKey(key);
+            }
+        });
+        for (SpaceSavingSketch.Counter counter : counters.values()) {
+            double real = exact.get(counter.key());
+            // count sobreestima el peso real en como mucho error, y error no supera total / capacity
+            assertThat(counter.count()).isGreaterThanOrEqualTo(real);
+            assertThat(counter.count() - counter.error()).isLessThanOrEqualTo(real);
+            assertThat(counter.error()).isLessThanOrEqualTo(threshold);
+        }
+    }
+
+    @Test
+    void evictedCounterIsReplacedByNewKeyInheritingMinimum() {
+        SpaceSavingSketch sketch = new SpaceSavingSketch(2);
+        sketch.add(1, 5);
+        sketch.add(2, 3);
+
+        sketch.add(3, 1);
+
+        assertThat(sketch.top(2)).containsExactly(
+                new SpaceSavingSketch.Counter(1, 5, 0),
+                new SpaceSavingSketch.Counter(3, 4, 3));
+    }
+
+    @Test
+    void topIsOrderedByCountDescending() {
+        SpaceSavingSketch sketch = new SpaceSavingSketch(10);
+        sketch.add(1, 2);
+        sketch.add(2, 7);
+        sketch.add(3, 4);
+        sketch.add(1, 3);
+
+        assertThat(sketch.top(2)).extracting(SpaceSavingSketch.Counter::key).containsExactly(2L, 1L);
+        assertThat(sketch.top(10)).hasSize(3);
+    }
+
+    @Test
+    void scaleMultipliesCountsAndErrorsAndKeepsOrder() {
+        SpaceSavingSketch sketch = new SpaceSavingSketch(2);
+        sketch.add(1, 8);
+        sketch.add(2, 4);
+        sketch.add(3, 2); // Desaloja la 2: count 6, error 4
+
+        sketch.scale(0.25);
+
+        assertThat(sketch.top(2)).containsExactly(
+                new SpaceSavingSketch.Counter(1, 2, 0),
+                new SpaceSavingSketch.Counter(3, 1.5, 1));
+        // Tras reescalar, los pesos nuevos se comparan en la misma escala
+        sketch.add(3, 1);
+        assertThat(sketch.top(1).get(0).key()).isEqualTo(3);
+        assertThat(sketch.top(1).get(0).count()).isCloseTo(2.5, within(1e-9));
+    }
+
+    @Test
+    void countersRestoreRoundTrip() {
+        SpaceSavingSketch sketch = new SpaceSavingSketch(3);
+        for (long key = 1; key <= 6; key++) {
+            sketch.add(key, key);
+        }
+        List<SpaceSavingSketch.Counter> counters = sketch.counters();
+
+        SpaceSavingSketch restored = SpaceSavingSketch.restore(3, counters);
+
+        assertThat(restored.counters()).isEqualTo(counters);
+        // El resumen restaurado sigue desalojando el mínimo con su cota de error
+        restored.add(42, 1);
+        sketch.add(42, 1);
+        assertThat(restored.counters()).isEqualTo(sketch.counters());
+    }
+
+    @Test
+    void restoreWithSmallerCapacityKeepsLargestCounters() {
+        SpaceSavingSketch sketch = new SpaceSavingSketch(5);
+        for (long key = 1; key <= 5; key++) {
+            sketch.add(key, key * 10);
+        }
+
+        SpaceSavingSketch restored = SpaceSavingSketch.restore(2, sketch.counters());
+
+        assertThat(restored.counters()).extracting(SpaceSavingSketch.Counter::key).containsExactly(5L, 4L);
+    }
+
+    @Test
+    void removeDropsKeyAndFreesCounter() {
+        SpaceSavingSketch sketch = new SpaceSavingSketch(2);
+        sketch.add(1, 5);
+        sketch.add(2, 3);
+
+        sketch.remove(1);
+        sketch.remove(99);
+        sketch.add(3, 1);
+
+        assertThat(sketch.counters()).containsExactly(
+                new SpaceSavingSketch.Counter(2, 3, 0),
+                new SpaceSavingSketch.Counter(3, 1, 0));
+    }
+
+    @Test
+    void capacityMustBePositive() {
+        assertThatThrownBy(() -> new SpaceSavingSketch(0)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
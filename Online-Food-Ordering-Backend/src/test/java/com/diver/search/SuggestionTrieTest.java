@@ -0,0 +1,100 @@
+package com.diver.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Verifica {@link SuggestionTrie}: la búsqueda por el comienzo de cualquier palabra, el top-k
+ * precalculado por nodo (también tras actualizar o eliminar entradas) y el reemplazo de
+ * sugerencias que se normalizan igual.
+ */
+class SuggestionTrieTest {
+
+    @Test
+    void prefixMatchesStartOfAnyWord() {
+        SuggestionTrie trie = new SuggestionTrie();
+        trie.put(SuggestionType.DISH, "Pizza Margarita", 5);
+        trie.put(SuggestionType.DISH, "Crème Brûlée", 2);
+
+        assertThat(texts(trie.suggest("marg", 10))).containsExactly("Pizza Margarita");
+        assertThat(texts(trie.suggest("PIZZA  m", 10))).containsExactly("Pizza Margarita");
+        assertThat(texts(trie.suggest("brulee", 10))).containsExactly("Crème Brûlée");
+        // Solo el comienzo de una palabra, no una subcadena
+        assertThat(trie.suggest("argarita", 10)).isEmpty();
+        assertThat(trie.suggest("  ", 10)).isEmpty();
+        assertThat(trie.suggest("pizza", 0)).isEmpty();
+    }
+
+    @Test
+    void suggestReturnsHeaviestEntriesOfSubtree() {
+        SuggestionTrie trie = new SuggestionTrie();
+        for (int i = 1; i <= 15; i++) {
+            trie.put(SuggestionType.DISH, "Plato " + i, i);
+        }
+        trie.put(SuggestionType.DISH, "Otro plato", 8);
+
+        List<SuggestionTrie.Entry> top = trie.suggest("pla", 20);
+
+        assertThat(top).hasSize(SuggestionTrie.TOP_K);
+        assertThat(top).extracting(SuggestionTrie.Entry::weight).containsExactly(15L, 14L, 13L, 12L, 11L, 10L, 9L, 8L, 8L, 7L);
+        // A igual peso, orden alfabético
+        assertThat(top.get(7).text()).isEqualTo("Otro plato");
+        assertThat(texts(trie.suggest("plato 1", 3))).containsExactly("Plato 15", "Plato 14", "Plato 13");
+    }
+
+    @Test
+    void topIsRecomputedWhenEntryLeavesIt() {
+        SuggestionTrie trie = new SuggestionTrie();
+        for (int i = 1; i <= 12; i++) {
+            trie.put(SuggestionType.DISH, "Plato " + i, i);
+        }
+
+        trie.remove(SuggestionType.DISH, "Plato 12");
+        // Bajar el peso también saca la entrada del top
+        trie.put(SuggestionType.DISH, "Plato 11", 0);
+
+        assertThat(trie.suggest("plato", 10)).extracting(SuggestionTrie.Entry::weight)
+                .containsExactly(10L, 9L, 8L, 7L, 6L, 5L, 4L, 3L, 2L, 1L);
+        assertThat(trie.size()).isEqualTo(11);
+    }
+
+    @Test
+    void putReplacesEntryWithSameTypeAndNormalizedText() {
+        SuggestionTrie trie = new SuggestionTrie();
+        trie.put(SuggestionType.DISH, "Pizza", 3);
+        trie.put(SuggestionType.CATEGORY, "Pizza", 4);
+
+        trie.put(SuggestionType.DISH, " PIZZA ", 7);
+
+        assertThat(trie.size()).isEqualTo(2);
+        assertThat(trie.suggest("pi", 10)).containsExactly(
+                new SuggestionTrie.Entry(SuggestionType.DISH, "PIZZA", 7),
+                new SuggestionTrie.Entry(SuggestionType.CATEGORY, "Pizza", 4));
+    }
+
+    @Test
+    void removeDropsEntryFromEveryWordAndIgnoresUnknownOnes() {
+        SuggestionTrie trie = new SuggestionTrie();
+        trie.put(SuggestionType.DISH, "Pizza Margarita", 5);
+        trie.put(SuggestionType.RESTAURANT, "Margarita", 1);
+
+        trie.remove(SuggestionType.DISH, "pizza margarita");
+        trie.remove(SuggestionType.DISH, "Lasaña");
+
+        assertThat(trie.suggest("pizza", 10)).isEmpty();
+        assertThat(trie.suggest("marg", 10)).containsExactly(
+                new SuggestionTrie.Entry(SuggestionType.RESTAURANT, "Margarita", 1));
+        trie.remove(SuggestionType.RESTAURANT, "Margarita");
+        assertThat(trie.suggest("m", 10)).isEmpty();
+        assertThat(trie.size()).isZero();
+    }
+
+    // --- METODOS PRIVADOS ---
+
+    private static List<String> texts(List<SuggestionTrie.Entry> entries) {
+        return entries.stream().map(SuggestionTrie.Entry::text).toList();
+    }
+}
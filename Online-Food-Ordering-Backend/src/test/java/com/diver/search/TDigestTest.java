@@ -0,0 +1,189 @@
+package com.diver.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.function.DoubleSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Verifica {@link TDigest} contra los cuantiles exactos de muestras conocidas. El error se mide en
+ * rango (qué fracción de la muestra queda por debajo del valor estimado), que es lo que acota el
+ * t-digest, más estrecho en las colas que en la mediana.
+ */
+class TDigestTest {
+
+    private static final int SAMPLES = 100_000;
+    private static final double[] QUANTILES = {0.001, 0.01, 0.1, 0.25, 0.5, 0.75, 0.9, 0.99, 0.999};
+
+    @Test
+    void emptyDigestReturnsNaN() {
+        TDigest digest = new TDigest(100);
+
+        assertThat(digest.size()).isZero();
+        assertThat(digest.quantile(0)).isNaN();
+        assertThat(digest.quantile(0.5)).isNaN();
+        assertThat(digest.quantile(1)).isNaN();
+    }
+
+    @Test
+    void invalidArgumentsAreRejected() {
+        TDigest digest = new TDigest(100);
+
+        assertThatThrownBy(() -> digest.quantile(1.5)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> digest.quantile(Double.NaN)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new TDigest(5)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void nonFiniteValuesAndNonPositiveWeightsAreIgnored() {
+        TDigest digest = new TDigest(100);
+        digest.add(Double.NaN);
+        digest.add(Double.POSITIVE_INFINITY);
+        digest.add(5, 0);
+        digest.add(5, -1);
+
+        assertThat(digest.size()).isZero();
+        assertThat(digest.quantile(0.5)).isNaN();
+    }
+
+    @Test
+    void singleValueIsEveryQuantile() {
+        TDigest digest = new TDigest(100);
+        digest.add(42);
+
+        for (double q : new double[]{0, 0.01, 0.5, 0.99, 1}) {
+            assertThat(digest.quantile(q)).isEqualTo(42);
+        }
+    }
+
+    @Test
+    void quantilesOfUniformSampleMatchExact() {
+        Random random = new Random(1);
+        double[] sample = sample(random::nextDouble);
+
+        assertCloseToExact(digestOf(sample), sample);
+    }
+
+    @Test
+    void quantilesOfSkewedSampleMatchExact() {
+        // Log-normal: cola derecha larga, como los tiempos de entrega o de respuesta
+        Random random = new Random(2);
+        double[] sample = sample(() -> Math.exp(random.nextGaussian() * 1.5));
+
+        assertCloseToExact(digestOf(sample), sample);
+    }
+
+    @Test
+    void extremesAreExactMinAndMax() {
+        Random random = new Random(3);
+        double[] sample = sample(() -> random.nextGaussian() * 10);
+        TDigest digest = digestOf(sample);
+        Arrays.sort(sample);
+
+        assertThat(digest.quantile(0)).isEqualTo(sample[0]);
+        assertThat(digest.quantile(1)).isEqualTo(sample[sample.length - 1]);
+        assertThat(digest.size()).isEqualTo(SAMPLES);
+    }
+
+    @Test
+    void mergedDigestsMatchExactQuantilesOfUnion() {
+        // Cada parte tiene un rango distinto: la fusión debe reconstruir la distribución conjunta
+        Random random = new Random(4);
+        double[] sample = sample(() -> Math.exp(random.nextGaussian()));
+        TDigest merged = new TDigest(100);
+        int parts = 4;
+        for (int part = 0; part < parts; part++) {
+            double[] slice = Arrays.copyOfRange(sample, part * SAMPLES / parts, (part + 1) * SAMPLES / parts);
+            for (int i = 0; i < slice.length; i++) {
+                slice[i] += part * 3;
+            }
+            System.arraycopy(slice, 0, sample, part * SAMPLES / parts, slice.length);
+            merged.add(digestOf(slice));
+        }
+
+        assertThat(merged.size()).isEqualTo(SAMPLES);
+        assertCloseToExact(merged, sample);
+        double[] sorted = sample.clone();
+        Arrays.sort(sorted);
+        assertThat(merged.quantile(0)).isEqualTo(sorted[0]);
+        assertThat(merged.quantile(1)).isEqualTo(sorted[sorted.length - 1]);
+    }
+
+    @Test
+    void mergingEmptyDigestChangesNothing() {
+        TDigest digest = new TDigest(100);
+        for (int i = 1; i <= 100; i++) {
+            digest.add(i);
+        }
+        double median = digest.quantile(0.5);
+
+        digest.add(new TDigest(100));
+
+        assertThat(digest.size()).isEqualTo(100);
+        assertThat(digest.quantile(0.5)).isEqualTo(median);
+        assertThat(digest.quantile(0)).isEqualTo(1);
+        assertThat(digest.quantile(1)).isEqualTo(100);
+    }
+
+    @Test
+    void mergeIntoEmptyDigestKeepsSourceIntact() {
+        TDigest source = new TDigest(100);
+        for (int i = 1; i <= 1_000; i++) {
+            source.add(i);
+        }
+        TDigest target = new TDigest(100);
+
+        target.add(source);
+
+        assertThat(target.size()).isEqualTo(source.size());
+        assertThat(target.quantile(0.5)).isCloseTo(source.quantile(0.5), within(5.0));
+        assertThat(source.size()).isEqualTo(1_000);
+        assertThat(source.quantile(0)).isEqualTo(1);
+        assertThat(source.quantile(1)).isEqualTo(1_000);
+    }
+
+    // --- METODOS PRIVADOS ---
+
+    private static double[] sample(DoubleSupplier generator) {
+        double[] sample = new double[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            sample[i] = generator.getAsDouble();
+        }
+        return sample;
+    }
+
+    private static TDigest digestOf(double[] values) {
+        TDigest digest = new TDigest(100);
+        for (double value : values) {
+            digest.add(value);
+        }
+        return digest;
+    }
+
+    /**
+     * Comprueba cada cuantil en rango: el error admitido es proporcional a {@code q · (1 − q)},
+     * con un mínimo de 0.05 % para las colas extremas.
+     */
+    private static void assertCloseToExact(TDigest digest, double[] sample) {
+        double[] sorted = sample.clone();
+        Arrays.sort(sorted);
+        for (double q : QUANTILES) {
+            double estimate = digest.quantile(q);
+            double rank = rankOf(sorted, estimate);
+            double tolerance = Math.max(0.0005, 0.02 * q * (1 - q));
+            assertThat(rank).as("rango del cuantil %s (estimado %s)", q, estimate).isCloseTo(q, within(tolerance));
+        }
+    }
+
+    /** Fracción de la muestra ordenada menor o igual que el valor. */
+    private static double rankOf(double[] sorted, double value) {
+        int index = Arrays.binarySearch(sorted, value);
+        int below = index >= 0 ? index + 1 : -index - 1;
+        return (double) below / sorted.length;
+    }
+}
@@ -0,0 +1,59 @@
+package com.diver.search;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Verifica el análisis de texto de la búsqueda: la división en términos, las palabras vacías,
+ * la eliminación de acentos (conservando la "ñ") y el stemming de plurales.
+ */
+class TextAnalyzerTest {
+
+    @Test
+    void splitsOnNonAlphanumericCharactersAndDropsStopWords() {
+        assertThat(TextAnalyzer.analyze("Pizza 4-quesos, con  extra de queso!"))
+                .containsExactly("pizza", "4", "queso", "extra", "queso");
+        assertThat(TextAnalyzer.analyze("de la y con")).isEmpty();
+        assertThat(TextAnalyzer.analyze("  ")).isEmpty();
+        assertThat(TextAnalyzer.analyze(null)).isEmpty();
+    }
+
+    @Test
+    void foldsAccentsAndCaseButKeepsEnye() {
+        assertThat(TextAnalyzer.normalize("Jamón IBÉRICO Crème Brûlée")).isEqualTo("jamon iberico creme brulee");
+        assertThat(TextAnalyzer.normalize("Piña AÑEJA")).isEqualTo("piña añeja");
+        assertThat(TextAnalyzer.normalize("Pingüino")).isEqualTo("pinguino");
+        assertThat(TextAnalyzer.normalize(null)).isEmpty();
+        // "año" y "ano" no se confunden
+        assertThat(TextAnalyzer.analyze("Año")).containsExactly("año");
+        assertThat(TextAnalyzer.analyze("Piñones")).containsExactly("piñon");
+    }
+
+    @Test
+    void stemsCommonPluralEndings() {
+        assertThat(TextAnalyzer.stem("pizzas")).isEqualTo("pizza");
+        assertThat(TextAnalyzer.stem("panes")).isEqualTo("pan");
+        assertThat(TextAnalyzer.stem("pasteles")).isEqualTo("pastel");
+        assertThat(TextAnalyzer.stem("lombrices")).isEqualTo("lombriz");
+        assertThat(TextAnalyzer.stem("peces")).isEqualTo("pez");
+        assertThat(TextAnalyzer.stem("postres")).isEqualTo("postre");
+        assertThat(TextAnalyzer.stem("relojes")).isEqualTo("reloj");
+    }
+
+    @Test
+    void leavesSingularsAndShortWordsAlone() {
+        assertThat(TextAnalyzer.stem("pizza")).isEqualTo("pizza");
+        assertThat(TextAnalyzer.stem("gas")).isEqualTo("gas");
+        assertThat(TextAnalyzer.stem("mes")).isEqualTo("mes");
+        assertThat(TextAnalyzer.stem("arroz")).isEqualTo("arroz");
+        // Consonante antes de la "s": no es un plural regular
+        assertThat(TextAnalyzer.stem("bíceps")).isEqualTo("bíceps");
+    }
+
+    @Test
+    void singularAndPluralQueriesProduceSameTerms() {
+        assertThat(TextAnalyzer.analyze("Tacos de pollo")).isEqualTo(TextAnalyzer.analyze("taco pollos"));
+        assertThat(TextAnalyzer.analyze("Lombrices")).isEqualTo(TextAnalyzer.analyze("lombriz"));
+    }
+}
@@ -0,0 +1,163 @@
+package com.diver.service.Imp;
+
+import com.diver.model.AnalyticsGap;
+import com.diver.model.Order;
+import com.diver.model.OrderStatus;
+import com.diver.model.Restaurant;
+import com.diver.model.RollupGranularity;
+import com.diver.model.SalesRollup;
+import com.diver.model.USER_ROLE;
+import com.diver.model.User;
+import com.diver.repository.AnalyticsGapRepository;
+import com.diver.repository.SalesRollupRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Verifica que el compactador de analíticas no pierde los eventos que confirman con un ID menor
+ * que su posición: se guardan como huecos, se agregan cuando aparecen y se descartan al caducar.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:analytics;MODE=MySQL;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "app.analytics.compactor.gap-timeout=1h"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({AnalyticsCompactionServiceImp.class, AnalyticsCompactionServiceImpTest.Metrics.class})
+class AnalyticsCompactionServiceImpTest {
+
+    @TestConfiguration
+    static class Metrics {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @Autowired
+    private AnalyticsCompactionServiceImp compactor;
+
+    @Autowired
+    private AnalyticsGapRepository gapRepository;
+
+    @Autowired
+    private SalesRollupRepository salesRollupRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private TestEntityManager em;
+
+    private User customer;
+    private Restaurant restaurant;
+
+    @BeforeEach
+    void setUp() {
+        customer = new User();
+        customer.setEmail("cliente@diver.com");
+        customer.setFullName("cliente@diver.com");
+        customer.setPassword("secret");
+        customer.setRole(USER_ROLE.ROLE_CUSTOMER);
+        em.persist(customer);
+
+        restaurant = new Restaurant();
+        restaurant.setName("La Tasca");
+        restaurant.setOwner(customer);
+        em.persist(restaurant);
+    }
+
+    @Test
+    void lateCommitBelowWatermarkIsCountedOnNextRun() {
+        insertCreatedEvent(1, persistOrder(1_000L));
+        insertCreatedEvent(3, persistOrder(3_000L));
+
+        assertThat(compactor.compact()).isEqualTo(2);
+        assertThat(gapRepository.findAll()).extracting(AnalyticsGap::getEventId).containsExactly(2L);
+        assertThat(hourlySales().getOrderCount()).isEqualTo(2);
+
+        // El evento 2 confirma después de que la posición haya pasado al 3
+        insertCreatedEvent(2, persistOrder(2_000L));
+
+        assertThat(compactor.compact()).isEqualTo(1);
+        assertThat(gapRepository.count()).isZero();
+        SalesRollup sales = hourlySales();
+        assertThat(sales.getOrderCount()).isEqualTo(3);
+        assertThat(sales.getRevenue()).isEqualTo(6_000L);
+        assertThat(meterRegistry.get("analytics.compactor.gaps.recovered").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void gapsOlderThanTimeoutAreExpiredAndExposed() {
+        insertCreatedEvent(1, persistOrder(1_000L));
+        insertCreatedEvent(4, persistOrder(1_000L));
+        compactor.compact();
+        assertThat(meterRegistry.get("analytics.compactor.gaps.open").gauge().value()).isEqualTo(2);
+
+        for (AnalyticsGap gap : gapRepository.findAll()) {
+            gap.setDetectedAt(LocalDateTime.now().minusHours(2));
+        }
+        em.flush();
+
+        assertThat(compactor.compact()).isZero();
+        assertThat(gapRepository.count()).isZero();
+        assertThat(meterRegistry.get("analytics.compactor.gaps.expired").counter().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("analytics.compactor.gaps.open").gauge().value()).isZero();
+    }
+
+    // --- METODOS PRIVADOS ---
+
+    private Order persistOrder(long totalAmount) {
+        Order order = new Order();
+        order.setCustomer(customer);
+        order.setRestaurant(restaurant);
+        order.setCreatedAt(LocalDateTime.of(2024, 1, 1, 12, 0));
+        order.setOrderStatus(OrderStatus.PENDIENTE);
+        order.setTotalAmount(totalAmount);
+        order.setOrderItems(new ArrayList<>());
+        return em.persist(order);
+    }
+
+    /**
+     * Inserta el evento de creación con un ID fijo, como lo haría otra instancia con su propio
+     * bloque de la secuencia.
+     */
+    private void insertCreatedEvent(long id, Order order) {
+        em.flush();
+        em.getEntityManager().createNativeQuery("""
+                        INSERT INTO order_status_event
+                            (id, order_id, restaurant_id, customer_id, to_status, order_version, changed_at)
+                        VALUES (?, ?, ?, ?, 'PENDIENTE', 0, ?)""")
+                .setParameter(1, id)
+                .setParameter(2, order.getId())
+                .setParameter(3, restaurant.getId())
+                .setParameter(4, customer.getId())
+                .setParameter(5, LocalDateTime.now().minusMinutes(5))
+                .executeUpdate();
+    }
+
+    private SalesRollup hourlySales() {
+        em.clear();
+        return salesRollupRepository.findAll().stream()
+                .filter(row -> row.getGranularity() == RollupGranularity.HOUR)
+                .findFirst()
+                .orElseThrow();
+    }
+}
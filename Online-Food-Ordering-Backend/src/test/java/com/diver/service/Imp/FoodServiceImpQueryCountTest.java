@@ -0,0 +1,189 @@
+package com.diver.service.Imp;
+
+import com.diver.dto.FoodDto;
+import com.diver.dto.IngredientItemDto;
+import com.diver.model.Category;
+import com.diver.model.Food;
+import com.diver.model.IngredientCategory;
+import com.diver.model.IngredientItem;
+import com.diver.model.Restaurant;
+import com.diver.model.USER_ROLE;
+import com.diver.model.User;
+import com.diver.request.MenuFilterRequest;
+import com.diver.service.FoodService;
+import com.diver.service.SearchIndexService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Verifica, con las estadísticas de Hibernate, que el menú de un restaurante se lee con
+ * proyecciones y un número fijo de consultas, sin cargar las imágenes ni la categoría de cada
+ * plato por separado (sin N+1).
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:menu;MODE=MySQL;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(FoodServiceImp.class)
+class FoodServiceImpQueryCountTest {
+
+    @MockitoBean
+    private SearchIndexService searchIndexService;
+
+    @Autowired
+    private FoodService foodService;
+
+    @Autowired
+    private TestEntityManager em;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private Restaurant restaurant;
+    private Category pastas;
+    private Category postres;
+    private List<IngredientItem> ingredients;
+    private int created;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        User owner = new User();
+        owner.setEmail("owner@diver.com");
+        owner.setFullName("owner@diver.com");
+        owner.setPassword("secret");
+        owner.setRole(USER_ROLE.ROLE_RESTAURANT_OWNER);
+        em.persist(owner);
+
+        restaurant = new Restaurant();
+        restaurant.setName("La Tasca");
+        restaurant.setOwner(owner);
+        em.persist(restaurant);
+
+        pastas = persistCategory("Pastas");
+        postres = persistCategory("Postres");
+
+        IngredientCategory general = new IngredientCategory();
+        general.setName("General");
+        general.setRestaurant(restaurant);
+        em.persist(general);
+
+        ingredients = new ArrayList<>();
+        for (String name : List.of("tomate", "queso", "albahaca")) {
+            IngredientItem item = new IngredientItem();
+            item.setName(name);
+            item.setCategory(general);
+            item.setRestaurant(restaurant);
+            item.setInStock(true);
+            em.persist(item);
+            ingredients.add(item);
+        }
+    }
+
+    @Test
+    void menuQueryCountDoesNotGrowWithMenuSize() {
+        MenuFilterRequest filter = new MenuFilterRequest();
+        filter.setIncludeIngredients(true);
+
+        persistFoods(2);
+        long smallMenuQueries = countQueries(filter).queries();
+
+        persistFoods(28);
+        QueryCount largeMenu = countQueries(filter);
+
+        assertThat(largeMenu.result()).hasSize(30);
+        assertThat(largeMenu.queries()).isEqualTo(smallMenuQueries).isEqualTo(3);
+    }
+
+    @Test
+    void menuWithoutIngredientsSkipsIngredientQuery() {
+        persistFoods(5);
+
+        QueryCount menu = countQueries(new MenuFilterRequest());
+
+        assertThat(menu.queries()).isEqualTo(2);
+        assertThat(menu.result()).allSatisfy(food -> assertThat(food.getIngredients()).isNull());
+    }
+
+    @Test
+    void menuAppliesFiltersAndSortAndMapsProjection() {
+        persistFoods(6);
+
+        MenuFilterRequest filter = new MenuFilterRequest();
+        filter.setVegetarian(true);
+        filter.setCategory("PASTAS");
+        filter.setSortBy("price");
+        filter.setDirection("desc");
+        filter.setIncludeIngredients(true);
+        List<FoodDto> foods = countQueries(filter).result();
+
+        // Los platos pares son de pasta y los múltiplos de 4, además, vegetarianos: 0 y 4
+        assertThat(foods).extracting(FoodDto::getName).containsExactly("Plato 4", "Plato 0");
+        FoodDto food = foods.get(0);
+        assertThat(food.getPrice()).isEqualTo(1_004L);
+        assertThat(food.isVegetarian()).isTrue();
+        assertThat(food.getCategory().getName()).isEqualTo("Pastas");
+        assertThat(food.getRestaurant().getName()).isEqualTo("La Tasca");
+        assertThat(food.getImages()).containsExactlyInAnyOrder("plato-4.jpg", "plato-4-detalle.jpg");
+        assertThat(food.getIngredients()).extracting(IngredientItemDto::getName)
+                .containsExactlyInAnyOrder("tomate", "queso");
+        assertThat(food.getIngredients().get(0).getCategory().getName()).isEqualTo("General");
+        assertThat(food.getIngredients().get(0).getCategory().getRestaurantId()).isEqualTo(restaurant.getId());
+    }
+
+    private QueryCount countQueries(MenuFilterRequest filter) {
+        em.flush();
+        em.clear();
+        statistics.clear();
+        List<FoodDto> result = foodService.getRestaurantFoods(restaurant.getId(), filter);
+        return new QueryCount(result, statistics.getPrepareStatementCount());
+    }
+
+    private Category persistCategory(String name) {
+        Category category = new Category();
+        category.setName(name);
+        category.setRestaurant(restaurant);
+        return em.persist(category);
+    }
+
+    private void persistFoods(int count) {
+        for (int i = 0; i < count; i++, created++) {
+            Food food = new Food();
+            food.setName("Plato " + created);
+            food.setPrice(1_000L + created);
+            food.setRestaurant(restaurant);
+            food.setCategory(created % 2 == 0 ? pastas : postres);
+            food.setVegetarian(created % 4 == 0);
+            food.setAvailable(true);
+            food.setCreationDate(new Date());
+            food.setImages(new ArrayList<>(List.of("plato-" + created + ".jpg", "plato-" + created + "-detalle.jpg")));
+            food.setIngredients(new ArrayList<>(ingredients.subList(0, 2)));
+            em.persist(food);
+        }
+    }
+
+    private record QueryCount(List<FoodDto> result, long queries) {
+    }
+}
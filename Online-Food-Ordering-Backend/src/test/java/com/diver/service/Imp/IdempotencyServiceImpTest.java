@@ -0,0 +1,104 @@
+package com.diver.service.Imp;
+
+import com.diver.exception.IdempotencyKeyConflictException;
+import com.diver.service.IdempotencyService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Verifica la deduplicación de {@link IdempotencyServiceImp} por operación, incluida la liberación
+ * de la clave cuando la operación falla y la espera acotada de los reintentos.
+ */
+class IdempotencyServiceImpTest {
+
+    private final IdempotencyServiceImp service = new IdempotencyServiceImp(new ObjectMapper(),
+            new SimpleMeterRegistry(), 100, Duration.ofHours(1), Duration.ofMillis(200));
+
+    @Test
+    void retryReturnsOriginalResultWithoutRunningAgain() {
+        IdempotencyService.Outcome<String> first = service.execute("order", 1L, "clave", Map.of("a", 1), () -> "orden-1");
+        IdempotencyService.Outcome<String> retry = service.execute("order", 1L, "clave", Map.of("a", 1), () -> "orden-2");
+
+        assertThat(first.value()).isEqualTo("orden-1");
+        assertThat(first.replayed()).isFalse();
+        assertThat(retry.value()).isEqualTo("orden-1");
+        assertThat(retry.replayed()).isTrue();
+    }
+
+    @Test
+    void sameKeyWithDifferentRequestIsRejected() {
+        service.execute("order", 1L, "clave", Map.of("a", 1), () -> "orden-1");
+
+        assertThatThrownBy(() -> service.execute("order", 1L, "clave", Map.of("a", 2), () -> "orden-2"))
+                .isInstanceOf(IdempotencyKeyConflictException.class);
+    }
+
+    @Test
+    void sameKeyInDifferentScopesRunsEachOperation() {
+        IdempotencyService.Outcome<String> order = service.execute("order", 1L, "clave", Map.of("a", 1), () -> "orden-1");
+        IdempotencyService.Outcome<Integer> intake = service.execute("order-intake", 1L, "clave", Map.of("a", 1), () -> 42);
+
+        assertThat(order.value()).isEqualTo("orden-1");
+        assertThat(intake.value()).isEqualTo(42);
+        assertThat(intake.replayed()).isFalse();
+        assertThat(service.execute("order-intake", 1L, "clave", Map.of("a", 1), () -> 7).value()).isEqualTo(42);
+    }
+
+    @Test
+    void errorInOperationReleasesKey() {
+        assertThatThrownBy(() -> service.execute("order", 1L, "clave", Map.of("a", 1), () -> {
+            throw new StackOverflowError();
+        })).isInstanceOf(StackOverflowError.class);
+
+        IdempotencyService.Outcome<String> retry = service.execute("order", 1L, "clave", Map.of("a", 1), () -> "orden-1");
+        assertThat(retry.value()).isEqualTo("orden-1");
+        assertThat(retry.replayed()).isFalse();
+    }
+
+    @Test
+    void retryWhileOriginalIsRunningWaitsAtMostTheTimeout() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<IdempotencyService.Outcome<String>> original = executor.submit(() ->
+                    service.execute("order", 1L, "clave", Map.of("a", 1), () -> {
+                        started.countDown();
+                        awaitQuietly(release);
+                        return "orden-1";
+                    }));
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+            assertThatThrownBy(() -> service.execute("order", 1L, "clave", Map.of("a", 1), () -> "orden-2"))
+                    .isInstanceOf(IdempotencyKeyConflictException.class)
+                    .hasMessageContaining("sigue en curso");
+
+            // La espera agotada no afecta a la ejecución original ni a los reintentos posteriores
+            release.countDown();
+            assertThat(original.get(5, TimeUnit.SECONDS).value()).isEqualTo("orden-1");
+            assertThat(service.execute("order", 1L, "clave", Map.of("a", 1), () -> "orden-2").value()).isEqualTo("orden-1");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
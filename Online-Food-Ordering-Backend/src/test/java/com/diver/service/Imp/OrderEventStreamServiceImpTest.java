@@ -0,0 +1,224 @@
+package com.diver.service.Imp;
+
+import com.diver.dto.AuthenticatedUser;
+import com.diver.dto.OrderStatusEventDto;
+import com.diver.event.OrderStatusChangedEvent;
+import com.diver.model.OrderStatus;
+import com.diver.model.OrderStatusEvent;
+import com.diver.model.USER_ROLE;
+import com.diver.repository.OrderStatusEventRepository;
+import com.diver.repository.RestaurantRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Verifica el envío de cambios de estado por SSE: la reanudación con {@code Last-Event-ID} cuando se
+ * confirman eventos durante la recuperación, el aviso {@code resync} al superar {@code max-replay}
+ * y el cierre de la conexión de un cliente lento cuando se llena su cola.
+ */
+class OrderEventStreamServiceImpTest {
+
+    private static final long CUSTOMER_ID = 7L;
+    private static final long RESTAURANT_ID = 3L;
+    private static final Pattern EVENT_ID = Pattern.compile("^id:(\\d+)$", Pattern.MULTILINE);
+
+    private final OrderStatusEventRepository eventRepository = mock(OrderStatusEventRepository.class);
+    private final RestaurantRepository restaurantRepository = mock(RestaurantRepository.class);
+    private final AuthenticatedUser customer = new AuthenticatedUser(CUSTOMER_ID, "cliente@diver.com", USER_ROLE.ROLE_CUSTOMER);
+
+    private OrderEventStreamServiceImp service;
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void resumeSendsEventsCommittedDuringReplayOnceAndInOrder() {
+        service = newService(16, 100);
+        when(eventRepository.findByCustomerIdAndIdGreaterThanOrderByIdAsc(eq(CUSTOMER_ID), eq(1L), any(Limit.class)))
+                .thenAnswer(invocation -> {
+                    // Se confirman 3 y 4 mientras se consulta el registro; la consulta solo ve el 3
+                    service.onOrderStatusChanged(changed(3L));
+                    service.onOrderStatusChanged(changed(4L));
+                    return List.of(logged(2L), logged(3L));
+                });
+
+        SseEmitter emitter = service.subscribeCustomer(customer, 1L);
+        Recorder recorder = Recorder.attach(emitter);
+        service.onOrderStatusChanged(changed(5L));
+
+        recorder.awaitEvents(4);
+        assertThat(recorder.eventIds()).containsExactly(2L, 3L, 4L, 5L);
+        assertThat(recorder.text()).doesNotContain("event:" + OrderEventStreamServiceImp.RESYNC_EVENT);
+    }
+
+    @Test
+    void replayBeyondMaxReplaySendsResyncWithLastReplayedId() {
+        service = newService(2, 3);
+        when(eventRepository.findByCustomerIdAndIdGreaterThanOrderByIdAsc(eq(CUSTOMER_ID), anyLong(), any(Limit.class)))
+                .thenAnswer(invocation -> {
+                    long after = invocation.getArgument(1);
+                    Limit limit = invocation.getArgument(2);
+                    // El registro tiene los eventos 1 a 10
+                    return LongStream.rangeClosed(after + 1, Math.min(10, after + limit.max()))
+                            .mapToObj(OrderEventStreamServiceImpTest::logged)
+                            .toList();
+                });
+
+        SseEmitter emitter = service.subscribeCustomer(customer, 0L);
+        Recorder recorder = Recorder.attach(emitter);
+
+        assertThat(recorder.eventIds()).containsExactly(1L, 2L, 3L, 4L);
+        assertThat(recorder.text()).endsWith("event:" + OrderEventStreamServiceImp.RESYNC_EVENT + "\ndata:4\n\n");
+    }
+
+    @Test
+    void slowClientIsClosedWhenItsQueueOverflowsWithoutBlockingThePublisher() throws InterruptedException {
+        service = newService(2, 100);
+        SseEmitter emitter = service.subscribeCustomer(customer, null);
+        CountDownLatch release = new CountDownLatch(1);
+        Recorder recorder = Recorder.attach(emitter, release);
+
+        // El envío del 1 se queda bloqueado en el cliente; el 2 y el 3 llenan la cola y el 4 la desborda
+        service.onOrderStatusChanged(changed(1L));
+        assertThat(recorder.sending.await(5, TimeUnit.SECONDS)).isTrue();
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+            service.onOrderStatusChanged(changed(2L));
+            service.onOrderStatusChanged(changed(3L));
+            service.onOrderStatusChanged(changed(4L));
+        });
+        assertThat(recorder.completed.getCount()).isEqualTo(1);
+
+        release.countDown();
+        assertThat(recorder.completed.await(5, TimeUnit.SECONDS)).isTrue();
+        service.onOrderStatusChanged(changed(5L));
+        assertThat(recorder.eventIds()).containsExactly(1L);
+    }
+
+    // --- METODOS PRIVADOS ---
+
+    private OrderEventStreamServiceImp newService(int bufferSize, int maxReplay) {
+        return new OrderEventStreamServiceImp(eventRepository, restaurantRepository, bufferSize, maxReplay,
+                Duration.ofMinutes(1), Duration.ofHours(1), 2, false);
+    }
+
+    private static OrderStatusChangedEvent changed(long eventId) {
+        return new OrderStatusChangedEvent(eventId, 100L + eventId, RESTAURANT_ID, CUSTOMER_ID,
+                OrderStatus.PENDIENTE, OrderStatus.EN_PREPARACION, 1L, 1L, LocalDateTime.now());
+    }
+
+    private static OrderStatusEvent logged(long eventId) {
+        return new OrderStatusEvent(eventId, 100L + eventId, RESTAURANT_ID, CUSTOMER_ID,
+                OrderStatus.PENDIENTE, OrderStatus.EN_PREPARACION, 1L, 1L, LocalDateTime.now());
+    }
+
+    /**
+     * Hace de respuesta HTTP del emisor: guarda lo enviado como texto y, si se indica, bloquea cada
+     * envío hasta {@code release} como lo haría un cliente que no lee.
+     */
+    private static final class Recorder implements InvocationHandler {
+
+        private final StringBuilder text = new StringBuilder();
+        private final List<Runnable> completionCallbacks = new ArrayList<>();
+        private final CountDownLatch release;
+        private final CountDownLatch sending = new CountDownLatch(1);
+        private final CountDownLatch completed = new CountDownLatch(1);
+
+        private Recorder(CountDownLatch release) {
+            this.release = release;
+        }
+
+        static Recorder attach(SseEmitter emitter) {
+            return attach(emitter, new CountDownLatch(0));
+        }
+
+        static Recorder attach(SseEmitter emitter, CountDownLatch release) {
+            Recorder recorder = new Recorder(release);
+            try {
+                Class<?> handlerType = Class.forName(
+                        "org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter$Handler");
+                Object handler = Proxy.newProxyInstance(handlerType.getClassLoader(), new Class<?>[]{handlerType}, recorder);
+                ReflectionTestUtils.invokeMethod(emitter, "initialize", handler);
+            } catch (ClassNotFoundException e) {
+                throw new IllegalStateException(e);
+            }
+            return recorder;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "send" -> {
+                    sending.countDown();
+                    release.await();
+                    if (args.length == 1) {
+                        for (Object item : (Set<?>) args[0]) {
+                            append(ReflectionTestUtils.invokeMethod(item, "getData"));
+                        }
+                    } else {
+                        append(args[0]);
+                    }
+                }
+                case "complete", "completeWithError" -> {
+                    completionCallbacks.forEach(Runnable::run);
+                    completed.countDown();
+                }
+                case "onCompletion" -> completionCallbacks.add((Runnable) args[0]);
+                default -> {
+                }
+            }
+            return null;
+        }
+
+        synchronized String text() {
+            return text.toString();
+        }
+
+        List<Long> eventIds() {
+            List<Long> ids = new ArrayList<>();
+            Matcher matcher = EVENT_ID.matcher(text());
+            while (matcher.find()) {
+                ids.add(Long.valueOf(matcher.group(1)));
+            }
+            return ids;
+        }
+
+        void awaitEvents(int count) {
+            assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+                while (eventIds().size() < count) {
+                    Thread.sleep(10);
+                }
+            });
+        }
+
+        private synchronized void append(Object data) {
+            text.append(data instanceof OrderStatusEventDto dto ? "{" + dto.getId() + "}" : String.valueOf(data));
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package com.diver.service.Imp;
+
+import com.diver.model.Food;
+import com.diver.model.Order;
+import com.diver.model.OrderIntake;
+import com.diver.model.Restaurant;
+import com.diver.model.USER_ROLE;
+import com.diver.model.User;
+import com.diver.repository.FoodRepository;
+import com.diver.repository.OrderIntakeRepository;
+import com.diver.repository.OrderRepository;
+import com.diver.repository.RestaurantRepository;
+import com.diver.repository.UserRepository;
+import com.diver.service.CartService;
+import com.diver.service.CartStore;
+import com.diver.service.CustomerUserDetailsService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+
+/**
+ * Verifica que una solicitud devuelta a la cola mientras su primer proceso seguía trabajando
+ * (por ejemplo, durante un bloqueo de la base de datos más largo que {@code stale-after}) produce
+ * una sola orden aunque las dos reclamaciones lleguen a materializarse.
+ * <p>
+ * Sin transacción de test: cada paso del servicio confirma su propia transacción, como en producción.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:order-intake;MODE=MySQL;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "app.orders.intake.workers=0",
+        "app.orders.intake.stale-after=0s"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({OrderIntakeServiceImp.class, OrderStatusLog.class, ObjectMapper.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class OrderIntakeServiceImpTest {
+
+    @MockitoBean
+    private CartService cartService;
+
+    @MockitoBean
+    private CartStore cartStore;
+
+    @MockitoBean
+    private CustomerUserDetailsService userDetailsService;
+
+    @Autowired
+    private OrderIntakeServiceImp intakeService;
+
+    @Autowired
+    private OrderIntakeRepository intakeRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RestaurantRepository restaurantRepository;
+
+    @Autowired
+    private FoodRepository foodRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private OrderIntakeServiceImp service;
+    private OrderIntake intake;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        service = AopTestUtils.getTargetObject(intakeService);
+
+        User owner = userRepository.save(user("owner@diver.com", USER_ROLE.ROLE_RESTAURANT_OWNER));
+        User customer = userRepository.save(user("cliente@diver.com", USER_ROLE.ROLE_CUSTOMER));
+        Restaurant restaurant = new Restaurant();
+        restaurant.setName("La Tasca");
+        restaurant.setOwner(owner);
+        restaurant = restaurantRepository.save(restaurant);
+        Food food = new Food();
+        food.setName("Tortilla");
+        food.setPrice(1_000L);
+        food.setRestaurant(restaurant);
+        food = foodRepository.save(food);
+
+        OrderIntake pending = new OrderIntake();
+        pending.setTrackingId("seguimiento-1");
+        pending.setCustomerId(customer.getId());
+        pending.setRestaurantId(restaurant.getId());
+        pending.setStreet("Gran Vía 1");
+        pending.setCity("Madrid");
+        pending.setPayload(objectMapper.writeValueAsString(
+                List.of(new OrderIntakeServiceImp.Line(food.getId(), 2, 2_000L, List.of()))));
+        pending.setTotalAmount(2_000L);
+        pending.setTotalItems(1);
+        pending.setStatus(OrderIntake.Status.PENDING);
+        pending.setAcceptedAt(LocalDateTime.now());
+        intake = intakeRepository.save(pending);
+    }
+
+    @Test
+    void pendingIntakeBecomesOneOrder() {
+        ReflectionTestUtils.invokeMethod(service, "processNextBatch");
+
+        List<Long> orderIds = orderIds();
+        assertThat(orderIds).hasSize(1);
+        OrderIntake completed = intakeRepository.findById(intake.getId()).orElseThrow();
+        assertThat(completed.getStatus()).isEqualTo(OrderIntake.Status.COMPLETED);
+        assertThat(completed.getOrderId()).isEqualTo(orderIds.get(0));
+        assertThat(completed.getAttempts()).isEqualTo(1);
+    }
+
+    @Test
+    void intakeRequeuedWhileBeingMaterializedProducesOneOrder() throws Exception {
+        // El proceso A se detiene a mitad de la transacción que crea la orden
+        CountDownLatch stalled = new CountDownLatch(1);
+        CountDownLatch resume = new CountDownLatch(1);
+        AtomicBoolean first = new AtomicBoolean(true);
+        doAnswer(invocation -> {
+            if (first.getAndSet(false)) {
+                stalled.countDown();
+                resume.await(10, TimeUnit.SECONDS);
+            }
+            return null;
+        }).when(userDetailsService).evictUser(anyString());
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> workerA = executor.submit(() -> ReflectionTestUtils.invokeMethod(service, "processNextBatch"));
+            assertThat(stalled.await(10, TimeUnit.SECONDS)).isTrue();
+            Thread.sleep(5);
+
+            // Mientras tanto, la reclamación de A caduca y el proceso B vuelve a encolar y reclamar
+            Future<?> workerB = executor.submit(() -> {
+                service.requeueStaleIntakes();
+                ReflectionTestUtils.invokeMethod(service, "processNextBatch");
+            });
+            try {
+                workerB.get(1, TimeUnit.SECONDS);
+            } catch (TimeoutException e) {
+                // B espera al bloqueo de A
+            }
+            resume.countDown();
+            workerA.get(10, TimeUnit.SECONDS);
+            workerB.get(10, TimeUnit.SECONDS);
+        } finally {
+            resume.countDown();
+            executor.shutdownNow();
+        }
+
+        List<Long> orderIds = orderIds();
+        assertThat(orderIds).hasSize(1);
+        OrderIntake completed = intakeRepository.findById(intake.getId()).orElseThrow();
+        assertThat(completed.getStatus()).isEqualTo(OrderIntake.Status.COMPLETED);
+        assertThat(completed.getOrderId()).isEqualTo(orderIds.get(0));
+    }
+
+    @Test
+    void staleClaimIsSkippedWhenIntakeWasReclaimed() throws InterruptedException {
+        Object claimA = ReflectionTestUtils.invokeMethod(service, "claimNextBatch");
+        Thread.sleep(5);
+        service.requeueStaleIntakes();
+        Object claimB = ReflectionTestUtils.invokeMethod(service, "claimNextBatch");
+
+        materialize(claimA);
+
+        assertThat(orderIds()).isEmpty();
+        materialize(claimB);
+        assertThat(orderIds()).hasSize(1);
+        assertThat(intakeRepository.findById(intake.getId()).orElseThrow().getAttempts()).isEqualTo(2);
+    }
+
+    @Test
+    void failureOfStaleClaimDoesNotRequeueIntakeOfLatestClaim() throws InterruptedException {
+        Object claimA = ReflectionTestUtils.invokeMethod(service, "claimNextBatch");
+        Thread.sleep(5);
+        service.requeueStaleIntakes();
+        ReflectionTestUtils.invokeMethod(service, "claimNextBatch");
+
+        ReflectionTestUtils.invokeMethod(service, "handleFailure", intake.getId(), claimedAt(claimA),
+                new IllegalStateException("tiempo de espera agotado"));
+
+        OrderIntake current = intakeRepository.findById(intake.getId()).orElseThrow();
+        assertThat(current.getStatus()).isEqualTo(OrderIntake.Status.PROCESSING);
+        assertThat(current.getErrorMessage()).isNull();
+    }
+
+    // --- METODOS PRIVADOS ---
+
+    private void materialize(Object claim) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                ReflectionTestUtils.invokeMethod(service, "materialize", ids(claim), claimedAt(claim)));
+    }
+
+    private List<Long> orderIds() {
+        return orderRepository.findAll().stream().map(Order::getId).toList();
+    }
+
+    private static List<Long> ids(Object claim) {
+        return ReflectionTestUtils.invokeMethod(claim, "ids");
+    }
+
+    private static LocalDateTime claimedAt(Object claim) {
+        return ReflectionTestUtils.invokeMethod(claim, "claimedAt");
+    }
+
+    private static User user(String email, USER_ROLE role) {
+        User user = new User();
+        user.setEmail(email);
+        user.setFullName(email);
+        user.setPassword("secret");
+        user.setRole(role);
+        return user;
+    }
+}
@@ -0,0 +1,204 @@
+package com.diver.service.Imp;
+
+import com.diver.dto.AuthenticatedUser;
+import com.diver.dto.OrderDto;
+import com.diver.dto.OrderPageDto;
+import com.diver.model.Address;
+import com.diver.model.Food;
+import com.diver.model.Order;
+import com.diver.model.OrderItem;
+import com.diver.model.OrderStatus;
+import com.diver.model.Restaurant;
+import com.diver.model.USER_ROLE;
+import com.diver.model.User;
+import com.diver.service.CartService;
+import com.diver.service.CartStore;
+import com.diver.service.CustomerUserDetailsService;
+import com.diver.service.EtaService;
+import com.diver.service.OrderService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Verifica, con las estadísticas de Hibernate, que los listados de órdenes se construyen con un
+ * número de consultas que no depende del número de órdenes ni de líneas (sin N+1).
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:orders;MODE=MySQL;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({OrderServiceImp.class, OrderStatusLog.class})
+class OrderServiceImpQueryCountTest {
+
+    @MockitoBean
+    private CartService cartService;
+
+    @MockitoBean
+    private CartStore cartStore;
+
+    @MockitoBean
+    private CustomerUserDetailsService userDetailsService;
+
+    @MockitoBean
+    private EtaService etaService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private TestEntityManager em;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private User customer;
+    private Restaurant restaurant;
+    private AuthenticatedUser owner;
+    private List<Food> menu;
+    private Address address;
+    private LocalDateTime clock;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        User ownerEntity = persistUser("owner@diver.com", USER_ROLE.ROLE_RESTAURANT_OWNER);
+        customer = persistUser("cliente@diver.com", USER_ROLE.ROLE_CUSTOMER);
+        owner = AuthenticatedUser.from(ownerEntity);
+
+        restaurant = new Restaurant();
+        restaurant.setName("La Tasca");
+        restaurant.setOwner(ownerEntity);
+        em.persist(restaurant);
+
+        address = new Address(null, "Calle Mayor 1", "Madrid", "Madrid");
+        em.persist(address);
+
+        menu = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Food food = new Food();
+            food.setName("Plato " + i);
+            food.setPrice(1_000L + i);
+            food.setRestaurant(restaurant);
+            food.setImages(new ArrayList<>(List.of("plato-" + i + ".jpg")));
+            em.persist(food);
+            menu.add(food);
+        }
+        clock = LocalDateTime.of(2024, 1, 1, 12, 0);
+    }
+
+    @Test
+    void findOrdersByRestaurantIdQueryCountDoesNotGrowWithOrders() {
+        persistOrders(2);
+        long fewOrdersQueries = countQueries(() ->
+                orderService.findOrdersByRestaurantId(restaurant.getId(), null, owner)).queries();
+
+        persistOrders(38);
+        QueryCount<List<OrderDto>> manyOrders = countQueries(() ->
+                orderService.findOrdersByRestaurantId(restaurant.getId(), null, owner));
+
+        assertThat(manyOrders.result()).hasSize(40);
+        assertThat(manyOrders.queries()).isEqualTo(fewOrdersQueries);
+    }
+
+    @Test
+    void findOrdersByRestaurantIdPageQueryCountDoesNotGrowWithPageSize() {
+        persistOrders(40);
+
+        long smallPageQueries = countQueries(() ->
+                orderService.findOrdersByRestaurantId(restaurant.getId(), null, owner, null, 2)).queries();
+        QueryCount<OrderPageDto> largePage = countQueries(() ->
+                orderService.findOrdersByRestaurantId(restaurant.getId(), null, owner, null, 30));
+
+        assertThat(largePage.result().getItems()).hasSize(30);
+        assertThat(largePage.queries()).isEqualTo(smallPageQueries);
+    }
+
+    @Test
+    void findOrdersByRestaurantIdMapsItemsAndIngredientsNewestFirst() {
+        persistOrders(3);
+        em.flush();
+        em.clear();
+
+        List<OrderDto> orders = orderService.findOrdersByRestaurantId(restaurant.getId(), null, owner);
+
+        assertThat(orders).extracting(OrderDto::getCreatedAt).isSortedAccordingTo((a, b) -> b.compareTo(a));
+        OrderDto newest = orders.get(0);
+        assertThat(newest.getCustomer().getEmail()).isEqualTo("cliente@diver.com");
+        assertThat(newest.getRestaurant().getName()).isEqualTo("La Tasca");
+        assertThat(newest.getDeliveryAddress().getCity()).isEqualTo("Madrid");
+        assertThat(newest.getItems()).hasSize(3);
+        assertThat(newest.getItems().get(0).getFood().getName()).startsWith("Plato ");
+        assertThat(newest.getItems().get(0).getIngredients()).containsExactlyInAnyOrder("queso", "tomate");
+    }
+
+    private <T> QueryCount<T> countQueries(Supplier<T> action) {
+        em.flush();
+        em.clear();
+        statistics.clear();
+        T result = action.get();
+        return new QueryCount<>(result, statistics.getPrepareStatementCount());
+    }
+
+    private User persistUser(String email, USER_ROLE role) {
+        User user = new User();
+        user.setEmail(email);
+        user.setFullName(email);
+        user.setPassword("secret");
+        user.setRole(role);
+        return em.persist(user);
+    }
+
+    private void persistOrders(int count) {
+        for (int i = 0; i < count; i++) {
+            clock = clock.plusMinutes(5);
+            Order order = new Order();
+            order.setCustomer(customer);
+            order.setRestaurant(restaurant);
+            order.setDeliveryAddress(address);
+            order.setCreatedAt(clock);
+            order.setOrderStatus(OrderStatus.PENDIENTE);
+
+            List<OrderItem> items = new ArrayList<>();
+            for (int j = 0; j < 3; j++) {
+                Food food = menu.get((i + j) % menu.size());
+                OrderItem item = new OrderItem();
+                item.setFood(food);
+                item.setQuantity(1);
+                item.setTotalPrice(food.getPrice());
+                item.setIngredients(new ArrayList<>(List.of("queso", "tomate")));
+                item.setOrder(order);
+                items.add(item);
+            }
+            order.setOrderItems(items);
+            order.setTotalItems(items.size());
+            order.setTotalAmount(items.stream().mapToLong(OrderItem::getTotalPrice).sum());
+            em.persist(order);
+        }
+    }
+
+    private record QueryCount<T>(T result, long queries) {
+    }
+}
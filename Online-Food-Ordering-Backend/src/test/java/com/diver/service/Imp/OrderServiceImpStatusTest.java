@@ -0,0 +1,178 @@
+package com.diver.service.Imp;
+
+import com.diver.dto.AuthenticatedUser;
+import com.diver.dto.OrderDto;
+import com.diver.exception.OperationNotAllowedException;
+import com.diver.exception.StaleOrderVersionException;
+import com.diver.model.Order;
+import com.diver.model.OrderStatus;
+import com.diver.model.OrderStatusEvent;
+import com.diver.model.Restaurant;
+import com.diver.model.USER_ROLE;
+import com.diver.model.User;
+import com.diver.repository.OrderStatusEventRepository;
+import com.diver.service.CartService;
+import com.diver.service.CartStore;
+import com.diver.service.CustomerUserDetailsService;
+import com.diver.service.EtaService;
+import com.diver.service.OrderService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * Verifica los cambios de estado de {@link OrderServiceImp}: la versión enviada en
+ * {@code If-Match}, la detección de una modificación concurrente y la fila del registro de
+ * estados que deja cada transición.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:order-status;MODE=MySQL;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({OrderServiceImp.class, OrderStatusLog.class})
+class OrderServiceImpStatusTest {
+
+    @MockitoBean
+    private CartService cartService;
+
+    @MockitoBean
+    private CartStore cartStore;
+
+    @MockitoBean
+    private CustomerUserDetailsService userDetailsService;
+
+    @MockitoBean
+    private EtaService etaService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderStatusEventRepository eventRepository;
+
+    @Autowired
+    private TestEntityManager em;
+
+    private AuthenticatedUser owner;
+    private User customer;
+    private Order order;
+
+    @BeforeEach
+    void setUp() {
+        User ownerEntity = persistUser("owner@diver.com", USER_ROLE.ROLE_RESTAURANT_OWNER);
+        customer = persistUser("cliente@diver.com", USER_ROLE.ROLE_CUSTOMER);
+        owner = AuthenticatedUser.from(ownerEntity);
+
+        Restaurant restaurant = new Restaurant();
+        restaurant.setName("La Tasca");
+        restaurant.setOwner(ownerEntity);
+        em.persist(restaurant);
+
+        order = new Order();
+        order.setCustomer(customer);
+        order.setRestaurant(restaurant);
+        order.setCreatedAt(LocalDateTime.of(2024, 1, 1, 12, 0));
+        order.setOrderStatus(OrderStatus.PENDIENTE);
+        order.setTotalAmount(2_000L);
+        order.setOrderItems(new ArrayList<>());
+        em.persist(order);
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    void eachTransitionWritesOneStatusEvent() {
+        OrderDto preparing = orderService.updateOrderStatus(order.getId(), "en_preparacion", 0L, owner);
+        OrderDto onTheWay = orderService.updateOrderStatus(order.getId(), "EN_CAMINO", preparing.getVersion(), owner);
+        orderService.updateOrderStatus(order.getId(), "ENTREGADO", onTheWay.getVersion(), owner);
+
+        assertThat(eventRepository.findByOrderIdOrderByIdAsc(order.getId()))
+                .extracting(OrderStatusEvent::getFromStatus, OrderStatusEvent::getToStatus,
+                        OrderStatusEvent::getOrderVersion, OrderStatusEvent::getChangedBy)
+                .containsExactly(
+                        tuple(OrderStatus.PENDIENTE, OrderStatus.EN_PREPARACION, 1L, owner.getId()),
+                        tuple(OrderStatus.EN_PREPARACION, OrderStatus.EN_CAMINO, 2L, owner.getId()),
+                        tuple(OrderStatus.EN_CAMINO, OrderStatus.ENTREGADO, 3L, owner.getId()));
+    }
+
+    @Test
+    void cancellationByCustomerWritesOneStatusEvent() {
+        orderService.cancelOrder(order.getId(), AuthenticatedUser.from(customer));
+
+        assertThat(eventRepository.findByOrderIdOrderByIdAsc(order.getId()))
+                .extracting(OrderStatusEvent::getFromStatus, OrderStatusEvent::getToStatus, OrderStatusEvent::getChangedBy)
+                .containsExactly(tuple(OrderStatus.PENDIENTE, OrderStatus.CANCELADO, customer.getId()));
+    }
+
+    @Test
+    void ifMatchVersionMismatchIsRejectedWithoutChanges() {
+        assertThatThrownBy(() -> orderService.updateOrderStatus(order.getId(), "EN_PREPARACION", 7L, owner))
+                .isInstanceOf(StaleOrderVersionException.class)
+                .hasMessageContaining("versión actual 0");
+
+        assertStatusUnchanged();
+    }
+
+    @Test
+    void concurrentUpdateIsRejectedAsConflict() {
+        // La orden queda cargada en el contexto de persistencia con la versión 0...
+        em.find(Order.class, order.getId());
+        // ...y otra petición la modifica y confirma antes del UPDATE de esta
+        em.getEntityManager()
+                .createQuery("UPDATE Order o SET o.version = o.version + 1 WHERE o.id = :id")
+                .setParameter("id", order.getId())
+                .executeUpdate();
+
+        assertThatThrownBy(() -> orderService.updateOrderStatus(order.getId(), "EN_PREPARACION", null, owner))
+                .isInstanceOf(StaleOrderVersionException.class)
+                .hasMessageContaining("modificada por otra petición");
+        assertThat(StaleOrderVersionException.class.getAnnotation(ResponseStatus.class).value())
+                .isEqualTo(HttpStatus.CONFLICT);
+        assertThat(eventRepository.findByOrderIdOrderByIdAsc(order.getId())).isEmpty();
+    }
+
+    @Test
+    void forbiddenTransitionIsRejectedWithoutEvent() {
+        assertThatThrownBy(() -> orderService.updateOrderStatus(order.getId(), "ENTREGADO", 0L, owner))
+                .isInstanceOf(OperationNotAllowedException.class);
+
+        assertStatusUnchanged();
+    }
+
+    // --- METODOS PRIVADOS ---
+
+    private void assertStatusUnchanged() {
+        em.clear();
+        Order current = em.find(Order.class, order.getId());
+        assertThat(current.getOrderStatus()).isEqualTo(OrderStatus.PENDIENTE);
+        assertThat(current.getVersion()).isZero();
+        assertThat(eventRepository.findByOrderIdOrderByIdAsc(order.getId())).isEmpty();
+    }
+
+    private User persistUser(String email, USER_ROLE role) {
+        User user = new User();
+        user.setEmail(email);
+        user.setFullName(email);
+        user.setPassword("secret");
+        user.setRole(role);
+        return em.persist(user);
+    }
+}
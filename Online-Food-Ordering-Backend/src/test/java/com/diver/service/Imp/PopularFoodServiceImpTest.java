@@ -0,0 +1,135 @@
+package com.diver.service.Imp;
+
+import com.diver.dto.PopularFoodDto;
+import com.diver.event.MenuChangedEvent;
+import com.diver.event.OrderPlacedEvent;
+import com.diver.exception.BadRequestException;
+import com.diver.repository.FoodRepository;
+import com.diver.repository.projection.FoodSuggestionRow;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Verifica el ranking de platos populares: el decaimiento con el tiempo, los ámbitos de
+ * restaurante, ciudad y global, los platos eliminados y la instantánea en disco.
+ */
+class PopularFoodServiceImpTest {
+
+    private static final Duration HALF_LIFE = Duration.ofSeconds(1);
+
+    private final FoodRepository foodRepository = mock(FoodRepository.class);
+
+    @TempDir
+    private Path dir;
+
+    private PopularFoodServiceImp service;
+
+    @BeforeEach
+    void setUp() {
+        when(foodRepository.findSuggestionRowsByIdIn(anyCollection())).thenAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            return ids.stream().map(id -> new FoodSuggestionRow(id, id < 10 ? 1L : 2L, "Plato " + id, null)).toList();
+        });
+        service = newService();
+    }
+
+    @Test
+    void olderOrdersRankBelowNewerOnesOfEqualQuantity() throws InterruptedException {
+        service.onOrderPlaced(order(1L, "Madrid", item(1L, 3)));
+        Thread.sleep(100);
+        service.onOrderPlaced(order(1L, "Madrid", item(2L, 3)));
+        service.refresh();
+
+        List<PopularFoodDto> ranking = service.getPopular(1L, null, null);
+
+        assertThat(ranking).extracting(PopularFoodDto::getFoodId).containsExactly(2L, 1L);
+        // Con una vida media de 1 s, 100 ms más antiguo pesa 2^(-0,1) ≈ 0,93 veces menos
+        double ratio = ranking.get(1).getScore() / ranking.get(0).getScore();
+        assertThat(ratio).isLessThan(0.97).isGreaterThan(0.5);
+        assertThat(ranking.get(0).getScore()).isCloseTo(3, within(0.5));
+    }
+
+    @Test
+    void olderLargerOrderIsOvertakenAfterEnoughHalfLives() throws InterruptedException {
+        service.onOrderPlaced(order(1L, "Madrid", item(1L, 2)));
+        Thread.sleep(1_200);
+        service.onOrderPlaced(order(1L, "Madrid", item(2L, 1)));
+        service.refresh();
+
+        assertThat(service.getPopular(1L, null, null)).extracting(PopularFoodDto::getFoodId).containsExactly(2L, 1L);
+    }
+
+    @Test
+    void rankingsAreKeptPerRestaurantCityAndGlobal() {
+        service.onOrderPlaced(order(1L, "Madrid", item(1L, 5), item(2L, 1)));
+        service.onOrderPlaced(order(2L, " madrid ", item(11L, 3)));
+        service.onOrderPlaced(order(2L, "Sevilla", item(12L, 10)));
+        service.refresh();
+
+        assertThat(service.getPopular(1L, null, null)).extracting(PopularFoodDto::getFoodId).containsExactly(1L, 2L);
+        assertThat(service.getPopular(null, "MADRID", null)).extracting(PopularFoodDto::getFoodId)
+                .containsExactly(1L, 11L, 2L);
+        assertThat(service.getPopular(null, null, 2)).extracting(PopularFoodDto::getFoodId).containsExactly(12L, 1L);
+        assertThat(service.getPopular(3L, null, null)).isEmpty();
+        assertThatThrownBy(() -> service.getPopular(null, null, 0)).isInstanceOf(BadRequestException.class);
+    }
+
+    @Test
+    void removedFoodLeavesEveryRanking() {
+        service.onOrderPlaced(order(1L, "Madrid", item(1L, 5), item(2L, 1)));
+        service.refresh();
+
+        service.onMenuChanged(new MenuChangedEvent(1L, 1L, null, true));
+        service.refresh();
+
+        assertThat(service.getPopular(1L, null, null)).extracting(PopularFoodDto::getFoodId).containsExactly(2L);
+        assertThat(service.getPopular(null, null, null)).extracting(PopularFoodDto::getFoodId).containsExactly(2L);
+    }
+
+    @Test
+    void snapshotRestoresRankings() {
+        service.onOrderPlaced(order(1L, "Madrid", item(1L, 5), item(2L, 2)));
+        service.refresh();
+        List<PopularFoodDto> before = service.getPopular(null, "Madrid", null);
+
+        service.writeSnapshot();
+        PopularFoodServiceImp restarted = newService();
+        restarted.restoreSnapshot();
+        restarted.refresh();
+
+        List<PopularFoodDto> after = restarted.getPopular(null, "Madrid", null);
+        assertThat(after).extracting(PopularFoodDto::getFoodId).containsExactly(1L, 2L);
+        // Las puntuaciones solo han decaído por el tiempo transcurrido; su proporción se conserva
+        assertThat(after.get(0).getScore()).isLessThanOrEqualTo(before.get(0).getScore()).isGreaterThan(2.5);
+        assertThat(after.get(0).getScore() / after.get(1).getScore()).isCloseTo(2.5, within(1e-6));
+    }
+
+    // --- METODOS PRIVADOS ---
+
+    private PopularFoodServiceImp newService() {
+        return new PopularFoodServiceImp(foodRepository, new ObjectMapper(), HALF_LIFE, 64, 512, 1024, 20, 10,
+                dir.resolve("popular-foods.json").toString());
+    }
+
+    private static OrderPlacedEvent order(Long restaurantId, String city, OrderPlacedEvent.Item... items) {
+        return new OrderPlacedEvent(null, restaurantId, city, List.of(items));
+    }
+
+    private static OrderPlacedEvent.Item item(Long foodId, int quantity) {
+        return new OrderPlacedEvent.Item(foodId, quantity);
+    }
+}
@@ -0,0 +1,109 @@
+package com.diver.service.Imp;
+
+import com.diver.dto.SuggestionDto;
+import com.diver.event.MenuChangedEvent;
+import com.diver.event.OrderPlacedEvent;
+import com.diver.model.Category;
+import com.diver.model.Food;
+import com.diver.repository.FoodRepository;
+import com.diver.repository.OrderItemRepository;
+import com.diver.repository.OrderRepository;
+import com.diver.repository.RestaurantRepository;
+import com.diver.repository.projection.FoodSuggestionRow;
+import com.diver.repository.projection.PopularityRow;
+import com.diver.repository.projection.RestaurantSuggestionRow;
+import com.diver.search.SuggestionType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Verifica los pesos del autocompletado: la suma de aportaciones de varios platos y restaurantes
+ * al reconstruir y el incremento de popularidad de cada orden confirmada sin reconstruir.
+ */
+class SuggestionServiceImpTest {
+
+    private final FoodRepository foodRepository = mock(FoodRepository.class);
+    private final RestaurantRepository restaurantRepository = mock(RestaurantRepository.class);
+    private final OrderItemRepository orderItemRepository = mock(OrderItemRepository.class);
+    private final OrderRepository orderRepository = mock(OrderRepository.class);
+
+    private SuggestionServiceImp service;
+
+    @BeforeEach
+    void setUp() {
+        when(restaurantRepository.findSuggestionRows()).thenReturn(List.of(
+                new RestaurantSuggestionRow(1L, "La Piazza", "Italiana"),
+                new RestaurantSuggestionRow(2L, "Roma", "Italiana")));
+        when(foodRepository.findSuggestionRows()).thenReturn(List.of(
+                new FoodSuggestionRow(10L, 1L, "Pizza Margarita", "Pizzas"),
+                new FoodSuggestionRow(20L, 2L, "pizza margarita", "Pizzas"),
+                new FoodSuggestionRow(21L, 2L, "Lasaña", "Pastas")));
+        when(orderItemRepository.findFoodPopularity()).thenReturn(List.of(new PopularityRow(10L, 4L)));
+        when(orderRepository.findRestaurantPopularity()).thenReturn(List.of(new PopularityRow(1L, 2L)));
+
+        service = new SuggestionServiceImp(foodRepository, restaurantRepository, orderItemRepository,
+                orderRepository, mock(PlatformTransactionManager.class), false, 8);
+        service.rebuild();
+    }
+
+    @Test
+    void rebuildAggregatesWeightsOfEveryContributor() {
+        // Plato: (1 + 4) del restaurante 1 y 1 del restaurante 2, con el texto del primero
+        assertThat(service.suggest("pizza", null)).containsExactly(
+                new SuggestionDto("Pizza Margarita", SuggestionType.DISH, 6),
+                new SuggestionDto("Pizzas", SuggestionType.CATEGORY, 6));
+        assertThat(service.suggest("ital", null)).containsExactly(
+                new SuggestionDto("Italiana", SuggestionType.CUISINE, 4));
+        assertThat(service.suggest("piazza", null)).containsExactly(
+                new SuggestionDto("La Piazza", SuggestionType.RESTAURANT, 3));
+    }
+
+    @Test
+    void placedOrderRaisesFoodAndRestaurantWeights() {
+        service.onOrderPlaced(new OrderPlacedEvent(99L, 2L, "Madrid", List.of(
+                new OrderPlacedEvent.Item(20L, 3),
+                new OrderPlacedEvent.Item(21L, 1),
+                new OrderPlacedEvent.Item(999L, 2))));
+
+        assertThat(weights("pizza")).containsExactly(9L, 9L);
+        assertThat(weights("lasaña")).containsExactly(2L);
+        assertThat(weights("pastas")).containsExactly(2L);
+        assertThat(weights("roma")).containsExactly(2L);
+        assertThat(weights("italiana")).containsExactly(5L);
+        // El plato desconocido no crea ninguna sugerencia
+        assertThat(service.suggest("p", 10)).hasSize(4);
+    }
+
+    @Test
+    void editingFoodKeepsPopularityFromPlacedOrders() {
+        service.onOrderPlaced(new OrderPlacedEvent(99L, 2L, "Madrid", List.of(new OrderPlacedEvent.Item(20L, 3))));
+        Category category = new Category();
+        category.setName("Pizzas");
+        Food food = new Food();
+        food.setId(20L);
+        food.setName("Pizza Diavola");
+        food.setCategory(category);
+        when(foodRepository.findById(20L)).thenReturn(Optional.of(food));
+
+        service.onMenuChanged(new MenuChangedEvent(2L, 20L, null, false));
+
+        assertThat(service.suggest("pizza", null)).containsExactly(
+                new SuggestionDto("Pizzas", SuggestionType.CATEGORY, 9),
+                new SuggestionDto("Pizza Margarita", SuggestionType.DISH, 5),
+                new SuggestionDto("Pizza Diavola", SuggestionType.DISH, 4));
+    }
+
+    // --- METODOS PRIVADOS ---
+
+    private List<Long> weights(String prefix) {
+        return service.suggest(prefix, null).stream().map(SuggestionDto::getWeight).toList();
+    }
+}
@@ -0,0 +1,145 @@
+package com.diver.service.Imp;
+
+import com.diver.model.Cart;
+import com.diver.model.CartItem;
+import com.diver.model.Food;
+import com.diver.model.Restaurant;
+import com.diver.model.USER_ROLE;
+import com.diver.model.User;
+import com.diver.repository.CartRepository;
+import com.diver.repository.FoodRepository;
+import com.diver.repository.RestaurantRepository;
+import com.diver.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Verifica que {@link WriteBehindCartStore} carga y escribe los carritos dentro de la transacción
+ * del servicio, con un pool de una sola conexión: si abriera una transacción propia, cada
+ * operación esperaría a la conexión que ya tiene el servicio hasta agotar el tiempo de espera.
+ * <p>
+ * Sin transacción de test: cada transacción se abre explícitamente, como haría el servicio.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:cart-pool;MODE=MySQL;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.datasource.hikari.maximum-pool-size=1",
+        "spring.datasource.hikari.connection-timeout=250"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class WriteBehindCartStoreConnectionTest {
+
+    private static final Duration NEVER = Duration.ofHours(1);
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RestaurantRepository restaurantRepository;
+
+    @Autowired
+    private FoodRepository foodRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private WriteBehindCartStore store;
+    private TransactionTemplate service;
+    private Long userId;
+    private Food food;
+
+    @BeforeEach
+    void setUp() {
+        store = new WriteBehindCartStore(cartRepository, transactionManager, NEVER, NEVER, false);
+        service = new TransactionTemplate(transactionManager);
+
+        User customer = new User();
+        customer.setEmail("cliente-" + System.nanoTime() + "@diver.com");
+        customer.setFullName("Cliente");
+        customer.setPassword("secret");
+        customer.setRole(USER_ROLE.ROLE_CUSTOMER);
+        customer = userRepository.save(customer);
+        userId = customer.getId();
+
+        Cart cart = new Cart();
+        cart.setCustomer(customer);
+        cart.setTotal(0L);
+        cartRepository.save(cart);
+
+        Restaurant restaurant = new Restaurant();
+        restaurant.setName("La Tasca");
+        restaurant = restaurantRepository.save(restaurant);
+        food = new Food();
+        food.setName("Tortilla");
+        food.setPrice(1_000L);
+        food.setRestaurant(restaurant);
+        food = foodRepository.save(food);
+    }
+
+    @AfterEach
+    void tearDown() {
+        store.shutdown();
+    }
+
+    @Test
+    void coldLoadAndWriteThroughUseServiceConnection() {
+        Cart written = service.execute(status -> {
+            // El carrito no está en memoria: se carga con la conexión de esta transacción
+            assertThat(store.read(userId).getCartItems()).isEmpty();
+            return store.write(userId, cart -> cart.addItem(item(2)));
+        });
+
+        assertThat(written.getCartItems()).extracting(CartItem::getId).doesNotContainNull();
+        Cart saved = service.execute(status -> {
+            Cart cart = cartRepository.findByCustomerId(userId).orElseThrow();
+            cart.getCartItems().size();
+            return cart;
+        });
+        assertThat(saved.getCartItems()).extracting(CartItem::getId)
+                .containsExactly(written.getCartItems().get(0).getId());
+        assertThat(saved.getTotal()).isEqualTo(2_000L);
+    }
+
+    @Test
+    void rolledBackWriteThroughLeavesNeitherRowNorSnapshot() {
+        service.executeWithoutResult(status -> {
+            store.write(userId, cart -> cart.addItem(item(1)));
+            status.setRollbackOnly();
+        });
+
+        assertThat(store.read(userId).getCartItems()).isEmpty();
+        Integer savedItems = service.execute(status -> cartRepository.findByCustomerId(userId).orElseThrow().getCartItems().size());
+        assertThat(savedItems).isZero();
+    }
+
+    // --- METODOS PRIVADOS ---
+
+    private CartItem item(int quantity) {
+        CartItem item = new CartItem();
+        item.setFood(food);
+        item.setQuantity(quantity);
+        item.setTotalPrice(quantity * food.getPrice());
+        item.setIngredients(new ArrayList<>());
+        return item;
+    }
+}
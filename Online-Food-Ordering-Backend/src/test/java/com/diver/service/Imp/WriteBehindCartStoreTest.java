@@ -0,0 +1,293 @@
+package com.diver.service.Imp;
+
+import com.diver.model.Cart;
+import com.diver.model.CartItem;
+import com.diver.model.Food;
+import com.diver.repository.CartRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Verifica el almacén de carritos con escritura diferida: el write-through de los ítems nuevos,
+ * la restauración al revertirse la transacción del servicio (también cuando otra petición ya
+ * había modificado el carrito), los volcados periódicos y al detener la aplicación, y el descarte
+ * de carritos inactivos con escrituras concurrentes.
+ * <p>
+ * El repositorio es un doble en memoria que guarda la última instantánea persistida, y las
+ * transacciones solo gestionan la sincronización, sin recurso real. La carrera entre una
+ * escritura y el descarte se reproduce de forma determinista deteniendo al escritor entre la
+ * lectura del mapa de carritos y la toma del candado.
+ */
+@SuppressWarnings("unchecked")
+class WriteBehindCartStoreTest {
+
+    private static final Long USER_ID = 7L;
+    private static final Duration NEVER = Duration.ofHours(1);
+
+    private final CartRepository cartRepository = mock(CartRepository.class);
+    private final SynchronizationOnlyTransactionManager transactionManager = new SynchronizationOnlyTransactionManager();
+    private final AtomicReference<Cart> database = new AtomicReference<>();
+    private final AtomicLong itemIds = new AtomicLong(100);
+    private WriteBehindCartStore store;
+
+    @BeforeEach
+    void setUp() {
+        Cart cart = new Cart();
+        cart.setId(1L);
+        cart.setTotal(0L);
+        cart.addItem(item(1L, 2, 20L));
+        cart.getCartItems().get(0).setId(itemIds.incrementAndGet());
+        database.set(cart);
+
+        when(cartRepository.findByCustomerId(USER_ID)).thenAnswer(invocation -> Optional.of(database.get()));
+        when(cartRepository.save(any(Cart.class))).thenAnswer(invocation -> {
+            Cart saved = invocation.getArgument(0);
+            saved.getCartItems().stream().filter(item -> item.getId() == null)
+                    .forEach(item -> item.setId(itemIds.incrementAndGet()));
+            database.set(saved);
+            return saved;
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (store != null) {
+            store.shutdown();
+        }
+    }
+
+    @Test
+    void newItemsAreWrittenThroughAndGetIds() {
+        store = newStore(NEVER, NEVER);
+
+        Cart cart = store.write(USER_ID, c -> c.addItem(item(2L, 1, 15L)));
+
+        assertThat(cart.getCartItems()).extracting(CartItem::getId).doesNotContainNull().doesNotHaveDuplicates();
+        assertThat(cart.findItemByFoodId(2L).getId()).isEqualTo(102L);
+        assertThat(cart.getTotal()).isEqualTo(35L);
+        assertThat(database.get().getCartItems()).hasSize(2);
+
+        // Ya está persistido: al detener la aplicación no queda nada pendiente
+        store.shutdown();
+        verify(cartRepository, times(1)).save(any(Cart.class));
+    }
+
+    @Test
+    void rolledBackServiceTransactionRestoresPreviousSnapshot() {
+        store = newStore(NEVER, NEVER);
+        TransactionTemplate service = new TransactionTemplate(transactionManager);
+
+        service.executeWithoutResult(status -> {
+            store.write(USER_ID, c -> c.updateItem(c.findItemByFoodId(1L), 5, 50L));
+            store.write(USER_ID, Cart::clearItems);
+            assertThat(store.read(USER_ID).getCartItems()).isEmpty();
+            status.setRollbackOnly();
+        });
+
+        Cart restored = store.read(USER_ID);
+        assertThat(restored.getCartItems()).extracting(CartItem::getQuantity).containsExactly(2);
+        assertThat(restored.getTotal()).isEqualTo(20L);
+
+        service.executeWithoutResult(status ->
+                store.write(USER_ID, c -> c.updateItem(c.findItemByFoodId(1L), 3, 30L)));
+        assertThat(store.read(USER_ID).getTotal()).isEqualTo(30L);
+    }
+
+    @Test
+    void rolledBackWriteThroughUnderLaterWriteIsInsertedAgain() throws Exception {
+        store = newStore(NEVER, NEVER);
+        TransactionTemplate service = new TransactionTemplate(transactionManager);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            service.executeWithoutResult(status -> {
+                store.write(USER_ID, c -> c.addItem(item(2L, 1, 15L)));
+                // Otra petición del mismo usuario modifica el carrito antes del rollback
+                await(executor.submit(() -> store.write(USER_ID, c -> c.updateItem(c.findItemByFoodId(1L), 3, 30L))));
+                status.setRollbackOnly();
+            });
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Se conserva la modificación posterior, pero el ítem insertado en la transacción revertida
+        // pierde su ID y vuelve a estar pendiente de inserción
+        Cart current = store.read(USER_ID);
+        assertThat(current.findItemByFoodId(1L).getQuantity()).isEqualTo(3);
+        assertThat(current.findItemByFoodId(2L).getId()).isNull();
+        store.shutdown();
+        assertThat(database.get().getCartItems()).extracting(CartItem::getId).containsExactly(101L, 103L);
+    }
+
+    @Test
+    void dirtyCartIsFlushedOnNextInterval() {
+        store = newStore(Duration.ofMillis(50), NEVER);
+
+        store.write(USER_ID, c -> c.updateItem(c.findItemByFoodId(1L), 4, 40L));
+
+        verify(cartRepository, timeout(2_000)).save(any(Cart.class));
+        assertThat(database.get().getCartItems()).extracting(CartItem::getQuantity).containsExactly(4);
+        assertThat(database.get().getTotal()).isEqualTo(40L);
+    }
+
+    @Test
+    void dirtyCartIsFlushedOnShutdown() {
+        store = newStore(NEVER, NEVER);
+
+        store.write(USER_ID, c -> c.updateItem(c.findItemByFoodId(1L), 4, 40L));
+        verify(cartRepository, never()).save(any(Cart.class));
+
+        store.shutdown();
+
+        verify(cartRepository, times(1)).save(any(Cart.class));
+        assertThat(database.get().getCartItems()).extracting(CartItem::getQuantity).containsExactly(4);
+    }
+
+    @Test
+    void writeRacingWithEvictionRetriesWithoutLosingUpdate() throws Exception {
+        store = newStore(NEVER, Duration.ZERO);
+        store.read(USER_ID);
+        Thread.sleep(5);
+
+        // El escritor obtiene la entrada del mapa y se detiene antes de tomar su candado
+        CountDownLatch fetched = new CountDownLatch(1);
+        CountDownLatch evicted = new CountDownLatch(1);
+        Map<Long, Object> carts = new ConcurrentHashMap<>(
+                (Map<Long, Object>) ReflectionTestUtils.getField(store, "carts")) {
+            @Override
+            public Object get(Object key) {
+                Object entry = super.get(key);
+                if (entry != null && fetched.getCount() > 0) {
+                    fetched.countDown();
+                    await(evicted);
+                }
+                return entry;
+            }
+        };
+        ReflectionTestUtils.setField(store, "carts", carts);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Cart> write = executor.submit(() -> store.write(USER_ID, c -> {
+                CartItem item = c.findItemByFoodId(1L);
+                c.updateItem(item, item.getQuantity() + 1, 30L);
+            }));
+            assertThat(fetched.await(5, TimeUnit.SECONDS)).isTrue();
+
+            // Entretanto, el volcado periódico descarta la entrada, que estaba limpia e inactiva
+            ReflectionTestUtils.invokeMethod(store, "flushDirtyCarts");
+            assertThat(carts).isEmpty();
+            evicted.countDown();
+
+            assertThat(write.get(5, TimeUnit.SECONDS).getCartItems())
+                    .extracting(CartItem::getQuantity).containsExactly(3);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // La escritura se repitió sobre un carrito recargado, no sobre la entrada descartada
+        verify(cartRepository, times(2)).findByCustomerId(USER_ID);
+        assertThat(store.read(USER_ID).getCartItems()).extracting(CartItem::getQuantity).containsExactly(3);
+        store.shutdown();
+        assertThat(database.get().getCartItems()).extracting(CartItem::getQuantity).containsExactly(3);
+    }
+
+    // --- METODOS PRIVADOS ---
+
+    private WriteBehindCartStore newStore(Duration flushInterval, Duration idleTtl) {
+        return new WriteBehindCartStore(cartRepository, transactionManager, flushInterval, idleTtl, false);
+    }
+
+    private static CartItem item(Long foodId, int quantity, long totalPrice) {
+        Food food = new Food();
+        food.setId(foodId);
+        CartItem item = new CartItem();
+        item.setFood(food);
+        item.setQuantity(quantity);
+        item.setTotalPrice(totalPrice);
+        item.setIngredients(new ArrayList<>());
+        return item;
+    }
+
+    private static void await(Future<?> future) {
+        try {
+            future.get(5, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Gestor de transacciones sin recurso: solo abre, suspende y cierra la sincronización, que es
+     * lo que el almacén necesita para detectar los commits y rollbacks del servicio.
+     */
+    private static final class SynchronizationOnlyTransactionManager extends AbstractPlatformTransactionManager {
+
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected boolean isExistingTransaction(Object transaction) {
+            return TransactionSynchronizationManager.isActualTransactionActive();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected Object doSuspend(Object transaction) {
+            return transaction;
+        }
+
+        @Override
+        protected void doResume(Object transaction, Object suspendedResources) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+        }
+    }
+}